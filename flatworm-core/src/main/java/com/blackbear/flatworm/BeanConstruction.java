@@ -0,0 +1,384 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.errors.FlatwormConfigurationException;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.beans.ConstructorProperties;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Creates a bean that has no setters from the values read for its properties - through a constructor, a static factory method, or a
+ * builder, as given by its {@link ConstructionMode}. The values of a record are collected by a {@link PendingBean} and passed on once the
+ * record is complete. The constructor, factory method or builder is resolved to {@link MethodHandle}s once, when the record is compiled.
+ */
+public final class BeanConstruction {
+
+    private static final MethodType BUILDER_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    @Getter
+    private final Class<?> beanClass;
+
+    @Getter
+    private final ConstructionMode mode;
+
+    private final String[] properties;
+
+    private final Class<?>[] propertyTypes;
+
+    private final Map<String, Integer> slots;
+
+    private final Object[] defaults;
+
+    /**
+     * {@code (Object[])Object} - the constructor or factory method for {@link ConstructionMode#CONSTRUCTOR} and {@link
+     * ConstructionMode#FACTORY}, otherwise {@code ()Object} - the method that creates the builder.
+     */
+    private final MethodHandle creator;
+
+    /**
+     * {@code (Object, Object)void} - the method of the builder for each property.
+     */
+    private final MethodHandle[] builderMethods;
+
+    /**
+     * {@code (Object)Object} - the {@code build()} method of the builder.
+     */
+    private final MethodHandle build;
+
+    private BeanConstruction(Class<?> beanClass, ConstructionMode mode, String[] properties, Class<?>[] propertyTypes,
+                             MethodHandle creator, MethodHandle[] builderMethods, MethodHandle build) {
+        this.beanClass = beanClass;
+        this.mode = mode;
+        this.properties = properties;
+        this.propertyTypes = propertyTypes;
+        this.creator = creator;
+        this.builderMethods = builderMethods;
+        this.build = build;
+
+        slots = new HashMap<>();
+        defaults = new Object[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            slots.put(properties[i], i);
+            // A builder leaves what isn't given to its own defaults, but a constructor needs a value for each primitive.
+            if (builderMethods == null && propertyTypes[i].isPrimitive()) {
+                defaults[i] = defaultValue(propertyTypes[i]);
+            }
+        }
+    }
+
+    /**
+     * Resolve how a bean class is to be created.
+     *
+     * @param beanClass     The class of the bean.
+     * @param mode          The {@link ConstructionMode} - not {@link ConstructionMode#SETTERS}.
+     * @param factoryMethod The name of the static factory method for {@link ConstructionMode#FACTORY}, or of the static method that
+     *                      creates the builder for {@link ConstructionMode#BUILDER} ({@code builder} when blank).
+     * @return the {@link BeanConstruction} instance.
+     * @throws FlatwormConfigurationException should the class have no constructor, factory method or builder that can be used.
+     */
+    public static BeanConstruction resolve(Class<?> beanClass, ConstructionMode mode, String factoryMethod)
+            throws FlatwormConfigurationException {
+        switch (mode) {
+            case CONSTRUCTOR:
+                return resolveConstructor(beanClass);
+            case FACTORY:
+                return resolveFactory(beanClass, factoryMethod);
+            case BUILDER:
+                return resolveBuilder(beanClass, StringUtils.isBlank(factoryMethod) ? "builder" : factoryMethod);
+            default:
+                throw new FlatwormConfigurationException(String.format("%s is created through its setters, not a %s.",
+                        beanClass.getName(), BeanConstruction.class.getSimpleName()));
+        }
+    }
+
+    /**
+     * Create a {@link PendingBean} to collect the values of a bean as a record is read.
+     *
+     * @return the new {@link PendingBean} instance.
+     */
+    public PendingBean newPendingBean() {
+        return new PendingBean(this, defaults.clone());
+    }
+
+    /**
+     * Get the properties that can be given a value, in the order they're passed to the constructor or factory method.
+     *
+     * @return the property names - a copy.
+     */
+    public String[] getProperties() {
+        return properties.clone();
+    }
+
+    /**
+     * Get the slot of a property in the values held by a {@link PendingBean}.
+     *
+     * @param property The name of the property.
+     * @return the slot or {@code -1} if the property can't be given a value.
+     */
+    public int getSlot(String property) {
+        Integer slot = slots.get(property);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Get the type of the property in a slot.
+     *
+     * @param slot The slot (see {@link #getSlot(String)}).
+     * @return the type of the constructor or builder parameter.
+     */
+    public Class<?> getPropertyType(int slot) {
+        return propertyTypes[slot];
+    }
+
+    /**
+     * Create the bean.
+     *
+     * @param values The value of each property, by slot.
+     * @return the new bean.
+     * @throws FlatwormParserException should the constructor, factory method or builder fail for any reason.
+     */
+    public Object construct(Object[] values) throws FlatwormParserException {
+        try {
+            if (builderMethods == null) {
+                return creator.invokeExact(values);
+            }
+            Object builder = creator.invokeExact();
+            for (int i = 0; i < builderMethods.length; i++) {
+                if (values[i] != null) {
+                    builderMethods[i].invokeExact(builder, values[i]);
+                }
+            }
+            return build.invokeExact(builder);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            Exception e = t instanceof Exception ? (Exception) t : new UndeclaredThrowableException(t);
+            throw new FlatwormParserException(String.format("Failed to construct new bean %s from %s. Err: %s",
+                    beanClass.getName(), Arrays.toString(values), t.getMessage()), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BeanConstruction{" +
+                "beanClass=" + beanClass +
+                ", mode=" + mode +
+                ", properties=" + Arrays.toString(properties) +
+                '}';
+    }
+
+    private static BeanConstruction resolveConstructor(Class<?> beanClass) throws FlatwormConfigurationException {
+        Constructor<?> best = null;
+        String[] bestNames = null;
+        for (Constructor<?> constructor : beanClass.getConstructors()) {
+            String[] names = parameterNames(constructor);
+            if (names != null && (best == null || names.length > bestNames.length)) {
+                best = constructor;
+                bestNames = names;
+            }
+        }
+        if (best == null) {
+            throw new FlatwormConfigurationException(String.format("%s has no public constructor whose parameters can be matched to its"
+                    + " properties - annotate it with @ConstructorProperties or compile it with -parameters.", beanClass.getName()));
+        }
+        Constructor<?> constructor = best;
+        try {
+            return spread(beanClass, ConstructionMode.CONSTRUCTOR, bestNames, constructor.getParameterTypes(),
+                    unreflect(constructor, () -> MethodHandles.publicLookup().unreflectConstructor(constructor)));
+        } catch (IllegalAccessException e) {
+            throw new FlatwormConfigurationException(String.format("The constructor of %s is not accessible: %s",
+                    beanClass.getName(), e.getMessage()), e);
+        }
+    }
+
+    private static BeanConstruction resolveFactory(Class<?> beanClass, String factoryMethod) throws FlatwormConfigurationException {
+        if (StringUtils.isBlank(factoryMethod)) {
+            throw new FlatwormConfigurationException(String.format("No factory method was given for %s.", beanClass.getName()));
+        }
+        Method best = null;
+        String[] bestNames = null;
+        for (Method method : sorted(beanClass.getMethods())) {
+            if (method.getName().equals(factoryMethod) && Modifier.isStatic(method.getModifiers())
+                    && beanClass.isAssignableFrom(method.getReturnType())) {
+                String[] names = parameterNames(method);
+                if (names != null && (best == null || names.length > bestNames.length)) {
+                    best = method;
+                    bestNames = names;
+                }
+            }
+        }
+        if (best == null) {
+            throw new FlatwormConfigurationException(String.format("%s has no public static method %s returning %s whose parameters can"
+                    + " be matched to its properties - compile it with -parameters.", beanClass.getName(), factoryMethod,
+                    beanClass.getSimpleName()));
+        }
+        return spread(beanClass, ConstructionMode.FACTORY, bestNames, best.getParameterTypes(), unreflect(best));
+    }
+
+    private static BeanConstruction resolveBuilder(Class<?> beanClass, String builderMethod) throws FlatwormConfigurationException {
+        Method factory;
+        try {
+            factory = beanClass.getMethod(builderMethod);
+        } catch (NoSuchMethodException e) {
+            factory = null;
+        }
+        if (factory == null || !Modifier.isStatic(factory.getModifiers())) {
+            throw new FlatwormConfigurationException(String.format("%s has no public static %s() method.", beanClass.getName(),
+                    builderMethod));
+        }
+
+        Class<?> builderClass = factory.getReturnType();
+        Method build;
+        try {
+            build = builderClass.getMethod("build");
+        } catch (NoSuchMethodException e) {
+            build = null;
+        }
+        if (build == null || !beanClass.isAssignableFrom(build.getReturnType())) {
+            throw new FlatwormConfigurationException(String.format("The builder %s of %s has no build() method returning %s.",
+                    builderClass.getName(), beanClass.getName(), beanClass.getSimpleName()));
+        }
+
+        List<String> properties = new ArrayList<>();
+        List<Class<?>> propertyTypes = new ArrayList<>();
+        List<MethodHandle> builderMethods = new ArrayList<>();
+        for (Method method : sorted(builderClass.getMethods())) {
+            if (method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())
+                    && method.getDeclaringClass() != Object.class && !properties.contains(method.getName())) {
+                properties.add(method.getName());
+                propertyTypes.add(method.getParameterTypes()[0]);
+                builderMethods.add(unreflect(method).asType(BUILDER_SETTER_TYPE));
+            }
+        }
+
+        return new BeanConstruction(beanClass, ConstructionMode.BUILDER, properties.toArray(new String[properties.size()]),
+                propertyTypes.toArray(new Class<?>[propertyTypes.size()]),
+                unreflect(factory).asType(MethodType.methodType(Object.class)),
+                builderMethods.toArray(new MethodHandle[builderMethods.size()]),
+                unreflect(build).asType(MethodType.methodType(Object.class, Object.class)));
+    }
+
+    private static BeanConstruction spread(Class<?> beanClass, ConstructionMode mode, String[] names, Class<?>[] types,
+                                           MethodHandle handle) {
+        MethodHandle creator = handle.asType(MethodType.genericMethodType(types.length)).asSpreader(Object[].class, types.length);
+        return new BeanConstruction(beanClass, mode, names, types, creator, null, null);
+    }
+
+    /**
+     * Match the parameters of a constructor or factory method to the properties of the bean - by its {@link ConstructorProperties} or by
+     * the parameter names when they were compiled into the class. The order of the declared fields isn't used as it's left unspecified.
+     *
+     * @return the property names or {@code null} if the parameters can't be matched.
+     */
+    private static String[] parameterNames(Executable executable) {
+        if (executable.getParameterCount() == 0) {
+            return null;
+        }
+
+        ConstructorProperties constructorProperties = executable.getAnnotation(ConstructorProperties.class);
+        if (constructorProperties != null && constructorProperties.value().length == executable.getParameterCount()) {
+            return constructorProperties.value();
+        }
+
+        Parameter[] parameters = executable.getParameters();
+        if (parameters[0].isNamePresent()) {
+            String[] names = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                names[i] = parameters[i].getName();
+            }
+            return names;
+        }
+
+        return null;
+    }
+
+    /**
+     * {@link Class#getMethods()} is in no particular order - sort them so that the same method is chosen each time.
+     */
+    private static Method[] sorted(Method[] methods) {
+        Method[] sorted = methods.clone();
+        Arrays.sort(sorted, Comparator.comparing(Method::toString));
+        return sorted;
+    }
+
+    private static MethodHandle unreflect(Method method) throws FlatwormConfigurationException {
+        try {
+            return unreflect(method, () -> MethodHandles.publicLookup().unreflect(method));
+        } catch (IllegalAccessException e) {
+            throw new FlatwormConfigurationException(String.format("%s is not accessible: %s", method, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Resolve a public member through the public lookup, falling back to opening it up when it's declared by a non-public class.
+     */
+    private static <T extends Executable> MethodHandle unreflect(T executable, PublicLookup lookup) throws IllegalAccessException {
+        try {
+            return lookup.unreflect();
+        } catch (IllegalAccessException e) {
+            executable.setAccessible(true);
+            return executable instanceof Constructor
+                    ? MethodHandles.lookup().unreflectConstructor((Constructor<?>) executable)
+                    : MethodHandles.lookup().unreflect((Method) executable);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else {
+            return 0d;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PublicLookup {
+        MethodHandle unreflect() throws IllegalAccessException;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import lombok.Getter;
+
+/**
+ * The no-arg constructor of a bean class resolved to a {@link MethodHandle}. Constructors are resolved once and cached for the life of the
+ * class, so creating a bean doesn't require the access checks of {@link Class#newInstance()} each time.
+ */
+public final class BeanConstructor {
+
+    private static final ClassValue<BeanConstructor> CONSTRUCTORS = new ClassValue<BeanConstructor>() {
+        @Override
+        protected BeanConstructor computeValue(Class<?> beanClass) {
+            return new BeanConstructor(beanClass, unreflect(beanClass));
+        }
+    };
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    @Getter
+    private final Class<?> beanClass;
+
+    private final MethodHandle constructor;
+
+    private BeanConstructor(Class<?> beanClass, MethodHandle constructor) {
+        this.beanClass = beanClass;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Find the no-arg constructor of a class.
+     *
+     * @param beanClass The class of the bean.
+     * @return the {@link BeanConstructor} - check {@link #isAvailable()} to see if the class can be created this way.
+     */
+    public static BeanConstructor find(Class<?> beanClass) {
+        return CONSTRUCTORS.get(beanClass);
+    }
+
+    /**
+     * Determine if the class has a no-arg constructor that could be resolved.
+     *
+     * @return {@code true} if {@link #newInstance()} can be called and {@code false} if not.
+     */
+    public boolean isAvailable() {
+        return constructor != null;
+    }
+
+    /**
+     * Create a new instance of the class.
+     *
+     * @return the new instance.
+     * @throws Exception should there be no no-arg constructor or should it fail.
+     */
+    public Object newInstance() throws Exception {
+        if (constructor == null) {
+            throw new InstantiationException(beanClass.getName() + " has no accessible no-arg constructor.");
+        }
+        try {
+            return constructor.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BeanConstructor{" +
+                "beanClass=" + beanClass +
+                ", available=" + isAvailable() +
+                '}';
+    }
+
+    private static MethodHandle unreflect(Class<?> beanClass) {
+        MethodHandle handle = null;
+        try {
+            Constructor<?> constructor = beanClass.getDeclaredConstructor();
+            try {
+                handle = MethodHandles.publicLookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+            } catch (IllegalAccessException e) {
+                // A non-public constructor or class - see if we are allowed to open it up.
+                try {
+                    constructor.setAccessible(true);
+                    handle = MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+                } catch (Exception inaccessible) {
+                    handle = null;
+                }
+            }
+        } catch (NoSuchMethodException | SecurityException e) {
+            handle = null;
+        }
+        return handle;
+    }
+}
@@ -19,14 +19,34 @@ package com.blackbear.flatworm;
 import com.blackbear.flatworm.config.ConversionOptionBO;
 import com.blackbear.flatworm.errors.FlatwormParserException;
 
+import org.apache.commons.beanutils.PropertyUtils;
+
 import java.util.Map;
 
 /**
- * Provides the ability to specify how the raw data parsed from the input file is to be mapped into the beans.
+ * Provides the ability to specify how the raw data parsed from the input file is to be mapped into the beans - and how it is read back out
+ * of them when writing a file with {@link FileCreator}.
  *
  * @author Dave Derry
  */
 public interface BeanMappingStrategy {
     void mapBean(Object bean, String beanName, String property, Object value,
                  Map<String, ConversionOptionBO> conv) throws FlatwormParserException;
+
+    /**
+     * Read a property of a bean so that it can be written out. Uses PropertyUtils unless overridden.
+     *
+     * @param bean     The bean.
+     * @param beanName The name of the bean.
+     * @param property The name of the property.
+     * @return the value of the property.
+     * @throws FlatwormParserException should reading the property fail for any reason.
+     */
+    default Object readBean(Object bean, String beanName, String property) throws FlatwormParserException {
+        try {
+            return PropertyUtils.getProperty(bean, property);
+        } catch (Exception e) {
+            throw new FlatwormParserException(e.getMessage(), e);
+        }
+    }
 }
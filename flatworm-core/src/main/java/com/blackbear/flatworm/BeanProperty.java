@@ -0,0 +1,210 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * A simple (non-nested, non-indexed) Java Bean property whose getter and setter have been resolved to {@link MethodHandle}s. The properties
+ * of each class are introspected once and cached for the life of the class, so setting a property doesn't require a descriptor lookup and
+ * reflective call each time.
+ */
+public final class BeanProperty {
+
+    private static final ClassValue<Map<String, BeanProperty>> PROPERTIES = new ClassValue<Map<String, BeanProperty>>() {
+        @Override
+        protected Map<String, BeanProperty> computeValue(Class<?> beanClass) {
+            return introspect(beanClass);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType ADD_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final Class<?> type;
+
+    private final MethodHandle getter;
+
+    private final MethodHandle setter;
+
+    /**
+     * The setter with its parameter left as the property type - primitives can be set through this without boxing.
+     */
+    @Getter
+    private final MethodHandle typedSetter;
+
+    /**
+     * The {@code add(Object)} method of the property type, resolved the first time a value is added to the collection.
+     */
+    private volatile MethodHandle adder;
+
+    private BeanProperty(String name, Class<?> type, MethodHandle getter, MethodHandle typedSetter) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+        this.typedSetter = typedSetter;
+        this.setter = typedSetter != null ? typedSetter.asType(SETTER_TYPE) : null;
+    }
+
+    /**
+     * Find a property of a class.
+     *
+     * @param beanClass    The class of the bean.
+     * @param propertyName The name of the property.
+     * @return the {@link BeanProperty} or {@code null} if the class has no such property or its accessors couldn't be resolved - in which
+     * case callers should fall back to {@link org.apache.commons.beanutils.PropertyUtils}.
+     */
+    public static BeanProperty find(Class<?> beanClass, String propertyName) {
+        return beanClass == null || propertyName == null ? null : PROPERTIES.get(beanClass).get(propertyName);
+    }
+
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * Read the property.
+     *
+     * @param bean The bean.
+     * @return the value of the property.
+     * @throws Exception should the getter fail.
+     */
+    public Object get(Object bean) throws Exception {
+        try {
+            return getter.invokeExact(bean);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * Set the property.
+     *
+     * @param bean  The bean.
+     * @param value The value - it must be assignable to the property type, with primitive properties accepting their wrapper type.
+     * @throws Exception should the setter fail.
+     */
+    public void set(Object bean, Object value) throws Exception {
+        try {
+            setter.invokeExact(bean, value);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * Invoke {@code add(Object)} on the value of the property - the property type needn't be a {@link java.util.Collection} so long as it
+     * has such a method.
+     *
+     * @param collection The current value of the property.
+     * @param toAdd      The value to add.
+     * @throws Exception should there be no {@code add(Object)} method or should it fail.
+     */
+    public void addTo(Object collection, Object toAdd) throws Exception {
+        try {
+            MethodHandle addMethod = adder;
+            if (addMethod == null) {
+                // Once compiled, generics lose their type reference and it defaults to a simple java.lang.Object.class so that's the
+                // method parameter we'll search by.
+                addMethod = MethodHandles.publicLookup().unreflect(type.getMethod("add", Object.class)).asType(ADD_TYPE);
+                adder = addMethod;
+            }
+            Object ignored = addMethod.invokeExact(collection, toAdd);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BeanProperty{" +
+                "name='" + name + '\'' +
+                ", type=" + type +
+                ", readable=" + isReadable() +
+                ", writable=" + isWritable() +
+                '}';
+    }
+
+    private static Map<String, BeanProperty> introspect(Class<?> beanClass) {
+        Map<String, BeanProperty> properties = new HashMap<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(beanClass);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                if (descriptor.getPropertyType() == null) {
+                    // Indexed-only properties are left to PropertyUtils.
+                    continue;
+                }
+                MethodHandle getter = unreflect(descriptor.getReadMethod(), GETTER_TYPE);
+                MethodHandle setter = unreflect(descriptor.getWriteMethod(),
+                        MethodType.methodType(void.class, Object.class, descriptor.getPropertyType()));
+                if (getter != null || setter != null) {
+                    properties.put(descriptor.getName(),
+                            new BeanProperty(descriptor.getName(), descriptor.getPropertyType(), getter, setter));
+                }
+            }
+        } catch (IntrospectionException e) {
+            // Fall through with whatever was found - PropertyUtils will report the problem when the property is used.
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+
+    private static MethodHandle unreflect(Method method, MethodType type) {
+        MethodHandle handle = null;
+        if (method != null) {
+            try {
+                handle = MethodHandles.publicLookup().unreflect(method).asType(type);
+            } catch (IllegalAccessException e) {
+                // A public method declared on a non-public class - see if we are allowed to open it up.
+                try {
+                    method.setAccessible(true);
+                    handle = MethodHandles.lookup().unreflect(method).asType(type);
+                } catch (Exception inaccessible) {
+                    handle = null;
+                }
+            }
+        }
+        return handle;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The beans of a single record, held in an array indexed by the bean slots of the record's definition (see {@link
+ * com.blackbear.flatworm.config.RecordDefinitionBO#getBeanSlot(String)}) rather than in hashed entries. The beans are looked up by
+ * comparing the {@code beanRef} against the few the record has, and a {@link MatchedRecord} shares the array instead of copying it. Beans
+ * that aren't defined by the record - scripts are free to add their own - are kept in an overflow {@link HashMap}. Not thread safe.
+ */
+public class BeanSlotMap extends AbstractMap<String, Object> {
+    private final String[] beanRefs;
+    private final Object[] beans;
+    private Map<String, Object> overflow;
+
+    /**
+     * Constructor for BeanSlotMap.
+     *
+     * @param beanRefs The {@code beanRef} of each slot - shared, not copied.
+     */
+    public BeanSlotMap(String[] beanRefs) {
+        this.beanRefs = beanRefs;
+        this.beans = new Object[beanRefs.length];
+    }
+
+    /**
+     * Get the {@code beanRef} of each slot.
+     *
+     * @return the array of {@code beanRef}s - not to be modified.
+     */
+    String[] getBeanRefs() {
+        return beanRefs;
+    }
+
+    /**
+     * Get the array of beans, indexed by slot.
+     *
+     * @return the array of beans - not a copy.
+     */
+    Object[] getBeans() {
+        return beans;
+    }
+
+    /**
+     * Get the beans that aren't in a slot.
+     *
+     * @return the {@link Map} of beans or {@code null} if there are none.
+     */
+    Map<String, Object> getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Find the slot of a bean.
+     *
+     * @param beanRef The {@code beanRef} of the bean.
+     * @return the index of the slot or {@code -1} if the bean doesn't have one.
+     */
+    public int slotOf(Object beanRef) {
+        for (int i = 0; i < beanRefs.length; i++) {
+            if (beanRefs[i] == beanRef) {
+                return i;
+            }
+        }
+        for (int i = 0; i < beanRefs.length; i++) {
+            if (beanRefs[i].equals(beanRef)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Object get(Object beanRef) {
+        int slot = slotOf(beanRef);
+        if (slot >= 0) {
+            return beans[slot];
+        }
+        return overflow != null ? overflow.get(beanRef) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object beanRef) {
+        int slot = slotOf(beanRef);
+        if (slot >= 0) {
+            return beans[slot] != null;
+        }
+        return overflow != null && overflow.containsKey(beanRef);
+    }
+
+    @Override
+    public Object put(String beanRef, Object bean) {
+        int slot = slotOf(beanRef);
+        if (slot >= 0 && bean != null) {
+            Object previous = beans[slot];
+            beans[slot] = bean;
+            return previous;
+        } else if (slot >= 0) {
+            return remove(beanRef);
+        }
+        if (overflow == null) {
+            overflow = new HashMap<>();
+        }
+        return overflow.put(beanRef, bean);
+    }
+
+    @Override
+    public Object remove(Object beanRef) {
+        int slot = slotOf(beanRef);
+        if (slot >= 0) {
+            Object previous = beans[slot];
+            beans[slot] = null;
+            return previous;
+        }
+        return overflow != null ? overflow.remove(beanRef) : null;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = null;
+        }
+        overflow = null;
+    }
+
+    @Override
+    public int size() {
+        int size = overflow != null ? overflow.size() : 0;
+        for (Object bean : beans) {
+            if (bean != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return BeanSlotMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Iterates over the filled slots and then the overflow.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int slot = nextSlot(0);
+        private int lastSlot = -1;
+        private Iterator<Entry<String, Object>> overflowIterator;
+
+        private int nextSlot(int from) {
+            int next = from;
+            while (next < beans.length && beans[next] == null) {
+                next++;
+            }
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (slot < beans.length) {
+                return true;
+            }
+            if (overflowIterator == null && overflow != null) {
+                overflowIterator = overflow.entrySet().iterator();
+            }
+            return overflowIterator != null && overflowIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (slot < beans.length) {
+                lastSlot = slot;
+                slot = nextSlot(slot + 1);
+                return new SimpleEntry<>(beanRefs[lastSlot], beans[lastSlot]);
+            }
+            lastSlot = -1;
+            return overflowIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot >= 0) {
+                beans[lastSlot] = null;
+                lastSlot = -1;
+            } else if (overflowIterator != null) {
+                overflowIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+}
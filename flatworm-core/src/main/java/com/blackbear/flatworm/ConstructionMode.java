@@ -0,0 +1,45 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+/**
+ * How the bean of a record is created and populated - see {@link BeanConstruction}.
+ */
+public enum ConstructionMode {
+    /**
+     * Create the bean with its no-arg constructor and set each property through its setter as it is read.
+     */
+    SETTERS,
+
+    /**
+     * Hold the values read until the record is complete and then pass them to a public constructor. The constructor's parameters are
+     * matched to the properties by its {@link java.beans.ConstructorProperties} annotation (as generated by Lombok) or by the parameter
+     * names when the class was compiled with {@code -parameters}.
+     */
+    CONSTRUCTOR,
+
+    /**
+     * As {@link #CONSTRUCTOR}, but through a public static factory method of the bean class - which needs {@code -parameters}.
+     */
+    FACTORY,
+
+    /**
+     * Hold the values read until the record is complete and then pass them to a Lombok-style builder - the bean class has a static {@code
+     * builder()} method and the builder a method named after each property and a {@code build()} method.
+     */
+    BUILDER
+}
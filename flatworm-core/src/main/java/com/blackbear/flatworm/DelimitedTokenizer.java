@@ -0,0 +1,306 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm;
+
+import com.google.common.base.Preconditions;
+
+import com.blackbear.flatworm.config.LineToken;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Splits a delimited line into tokens following RFC 4180 - delimiters within quotes are ignored and, within quotes, a doubled quote
+ * character is an escaped quote. Rather than building a {@code String} per field, the tokenizer records where each token starts and ends
+ * in reusable {@code int} arrays and only creates the {@code String} of a token when {@link #token(int)} asks for it - so fields that
+ * aren't mapped, or are only checked against an identity, cost nothing more than the scan of the line.
+ *
+ * <p>A tokenizer holds the state of the last line it split and is not thread safe - keep one per thread (see
+ * {@link com.blackbear.flatworm.config.LinePlan}). Quoted fields can span physical lines, use {@link #hasOpenQuote(CharSequence)} to find
+ * out if the next line needs to be joined on before the line is split.</p>
+ */
+public final class DelimitedTokenizer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final char[] delimiter;
+
+    private final char quoteChar;
+
+    private final boolean quoting;
+
+    private CharSequence line;
+
+    private int count;
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    private int[] ends = new int[INITIAL_CAPACITY];
+
+    private int[] quoteCounts = new int[INITIAL_CAPACITY];
+
+    /**
+     * Create a tokenizer.
+     *
+     * @param delimiter The delimiter - any number of characters, see {@link #resolveDelimiter(String)} for the escapes supported.
+     * @param quoteChar The quote character, {@code '\0'} if fields aren't quoted.
+     */
+    public DelimitedTokenizer(String delimiter, char quoteChar) {
+        String resolved = resolveDelimiter(delimiter);
+        Preconditions.checkArgument(!resolved.isEmpty(), "The delimiter must have at least one character.");
+        this.delimiter = resolved.toCharArray();
+        this.quoteChar = quoteChar;
+        this.quoting = quoteChar != '\0';
+    }
+
+    /**
+     * Resolve the escapes {@code \t}, {@code \n}, {@code \r}, {@code \f} and {@code \\} within a configured delimiter - any other
+     * backslash is taken as is.
+     *
+     * @param delimiter The delimiter as configured.
+     * @return the delimiter with its escapes resolved.
+     */
+    public static String resolveDelimiter(String delimiter) {
+        if (delimiter == null || delimiter.indexOf('\\') < 0) {
+            return delimiter == null ? "" : delimiter;
+        }
+        StringBuilder resolved = new StringBuilder(delimiter.length());
+        for (int i = 0; i < delimiter.length(); i++) {
+            char ch = delimiter.charAt(i);
+            if (ch == '\\' && i + 1 < delimiter.length()) {
+                char specialChar = delimiter.charAt(i + 1);
+                switch (specialChar) {
+                    case 't':
+                        ch = '\t';
+                        break;
+                    case 'n':
+                        ch = '\n';
+                        break;
+                    case 'r':
+                        ch = '\r';
+                        break;
+                    case 'f':
+                        ch = '\f';
+                        break;
+                    case '\\':
+                        ch = '\\';
+                        break;
+                    default:
+                        specialChar = '\0';
+                        break;
+                }
+                if (specialChar != '\0') {
+                    i++;
+                }
+            }
+            resolved.append(ch);
+        }
+        return resolved.toString();
+    }
+
+    /**
+     * Determine if the line ends within a quoted field - meaning the field continues on the next physical line. As a doubled quote toggles
+     * the quoting off and back on again this is simply whether or not the line has an odd number of quote characters.
+     *
+     * @param line The line (or the lines joined so far).
+     * @return {@code true} if a quoted field is still open at the end of the line.
+     */
+    public boolean hasOpenQuote(CharSequence line) {
+        boolean open = false;
+        if (quoting && line != null) {
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == quoteChar) {
+                    open = !open;
+                }
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Split the line, replacing the tokens of the previous line. There is always at least one token - an empty line has a single empty
+     * token.
+     *
+     * @param line The line to split.
+     * @return the number of tokens.
+     */
+    public int tokenize(CharSequence line) {
+        this.line = line;
+        count = 0;
+
+        int length = line.length();
+        char first = delimiter[0];
+        int tokenStart = 0;
+        int quoteCount = 0;
+        boolean inQuote = false;
+        int i = 0;
+        while (i < length) {
+            char ch = line.charAt(i);
+            if (quoting && ch == quoteChar) {
+                inQuote = !inQuote;
+                quoteCount++;
+                i++;
+            } else if (ch == first && !inQuote && matchesDelimiter(line, i, length)) {
+                add(tokenStart, i, quoteCount);
+                i += delimiter.length;
+                tokenStart = i;
+                quoteCount = 0;
+            } else {
+                i++;
+            }
+        }
+        add(tokenStart, length, quoteCount);
+        return count;
+    }
+
+    /**
+     * @return the number of tokens in the last line split.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Get the value of a token - its quotes removed and any doubled quotes within them collapsed to one.
+     *
+     * @param index The index of the token.
+     * @return the value.
+     * @throws IndexOutOfBoundsException if there is no such token.
+     */
+    public String token(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        int quotes = quoteCounts[index];
+        String value;
+        if (quotes == 0) {
+            value = line.subSequence(start, end).toString();
+        } else if (quotes == 2 && line.charAt(start) == quoteChar && line.charAt(end - 1) == quoteChar) {
+            value = line.subSequence(start + 1, end - 1).toString();
+        } else {
+            value = unquote(start, end);
+        }
+        return value;
+    }
+
+    /**
+     * @param index The index of the token.
+     * @return the column the token starts at within the line, including its quotes.
+     */
+    public int getColumnPosition(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * @param index The index of the token.
+     * @return the length of the token within the line, including its quotes.
+     */
+    public int getFullTokenLength(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    /**
+     * @param index The index of the token.
+     * @return {@code true} if the token has quotes in it, so its value differs from its characters in the line.
+     */
+    public boolean isQuoted(int index) {
+        checkIndex(index);
+        return quoteCounts[index] != 0;
+    }
+
+    /**
+     * Create the {@link LineToken} of a token.
+     *
+     * @param index The index of the token.
+     * @return the {@link LineToken} instance.
+     */
+    public LineToken lineToken(int index) {
+        int fullTokenLength = getFullTokenLength(index);
+        return new LineToken(token(index), fullTokenLength, starts[index] + fullTokenLength);
+    }
+
+    /**
+     * Remove every token matching the {@code filter}, shifting the remaining tokens down.
+     *
+     * @param filter Given the index of a token, whether or not it should be removed.
+     * @return the number of tokens left.
+     */
+    public int removeTokens(IntPredicate filter) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!filter.test(i)) {
+                starts[kept] = starts[i];
+                ends[kept] = ends[i];
+                quoteCounts[kept] = quoteCounts[i];
+                kept++;
+            }
+        }
+        count = kept;
+        return count;
+    }
+
+    private boolean matchesDelimiter(CharSequence line, int offset, int length) {
+        if (offset + delimiter.length > length) {
+            return false;
+        }
+        for (int i = 1; i < delimiter.length; i++) {
+            if (line.charAt(offset + i) != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(int start, int end, int quoteCount) {
+        if (count == starts.length) {
+            int capacity = count * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            quoteCounts = Arrays.copyOf(quoteCounts, capacity);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        quoteCounts[count] = quoteCount;
+        count++;
+    }
+
+    private String unquote(int start, int end) {
+        StringBuilder value = new StringBuilder(end - start);
+        boolean inQuote = false;
+        for (int i = start; i < end; i++) {
+            char ch = line.charAt(i);
+            if (ch != quoteChar) {
+                value.append(ch);
+            } else if (inQuote && i + 1 < end && line.charAt(i + 1) == quoteChar) {
+                value.append(quoteChar);
+                i++;
+            } else {
+                inQuote = !inQuote;
+            }
+        }
+        return value.toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+    }
+}
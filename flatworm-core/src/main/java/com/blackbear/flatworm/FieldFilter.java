@@ -0,0 +1,68 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.Predicate;
+
+import lombok.Getter;
+
+/**
+ * A predicate tested against the raw characters of a field - as they appear in the line, before any trimming, conversion-options or
+ * conversion - to decide whether or not a record should be parsed at all. Records that fail a filter are read past without creating any
+ * of their beans.
+ */
+public final class FieldFilter {
+
+    /**
+     * The property of the field, either a {@code propertyName} or a {@code beanRef.propertyName}.
+     */
+    @Getter
+    private final String property;
+
+    @Getter
+    private final Predicate<CharSequence> predicate;
+
+    /**
+     * Create a filter.
+     *
+     * @param property  The property of the field, either a {@code propertyName} or a {@code beanRef.propertyName}. The field must be on the
+     *                  first line of the record.
+     * @param predicate The predicate the raw field must satisfy for the record to be parsed.
+     */
+    public FieldFilter(String property, Predicate<CharSequence> predicate) {
+        this.property = Preconditions.checkNotNull(property, "The property is required.");
+        this.predicate = Preconditions.checkNotNull(predicate, "The predicate is required.");
+    }
+
+    /**
+     * Test the raw field.
+     *
+     * @param field The raw characters of the field.
+     * @return {@code true} if the record should be parsed and {@code false} if it should be skipped.
+     */
+    public boolean test(CharSequence field) {
+        return predicate.test(field);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldFilter{property='" + property + "'}";
+    }
+}
@@ -28,7 +28,7 @@ import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
 import com.blackbear.flatworm.converters.ConversionHelper;
 import com.blackbear.flatworm.errors.FlatwormConfigurationException;
 
-import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang.StringUtils;
 
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
@@ -101,6 +101,19 @@ public class FileCreator {
         loadConfiguration(classes);
     }
     
+    /**
+     * Constructor for FileCreator that writes records with an already loaded {@link FileFormat} - one generated at build time, for
+     * instance, or shared with a {@link FileParser}.
+     *
+     * @param stream     The stream to write to.
+     * @param fileFormat The {@link FileFormat} describing the records.
+     */
+    public FileCreator(OutputStream stream, FileFormat fileFormat) {
+        this.file = null;
+        this.outputStream = stream;
+        this.ff = fileFormat;
+    }
+
     private void loadConfiguration(Class<?>... classes) throws FlatwormConfigurationException {
     	DefaultAnnotationConfigurationReaderImpl configLoader = new DefaultAnnotationConfigurationReaderImpl();
         configLoader.setPerformValidation(true);
@@ -230,29 +243,24 @@ public class FileCreator {
                     ConversionHelper convHelper = ff.getConversionHelper();
                     try {
                         if (beanRef != null) {
-                            // Extract property name
-                            Object bean;
-                            String property;
-                            try {
-                                int posOfFirstDot = beanRef.indexOf('.');
-                                bean = beans.get(beanRef.substring(0, posOfFirstDot));
-                                property = beanRef.substring(posOfFirstDot + 1);
-                            } catch (ArrayIndexOutOfBoundsException ex) {
-                                throw new FlatwormConfigurationException("Had trouble parsing : " + beanRef
-                                        + " Its format should be <bean_name>.<property_name>");
-                            }
+                            // The bean and property are split the same way they were when the configuration was read - bean names
+                            // from annotated classes have dots of their own.
+                            String beanName = recElement.getCardinality().getBeanRef();
+                            String property = recElement.getCardinality().getPropertyName();
+                            Object bean = beans.get(beanName);
 
                             // Convert to String for output
-                            Object value = PropertyUtils.getProperty(bean, property);
-                            val = convHelper.convert(type, value, convOptions, beanRef);
-                            PropertyUtils.setProperty(bean, property, value);
+                            Object value = ff.getBeanMappingStrategy().readBean(bean, beanName, property);
+                            // Annotated elements only name a converter when they need a custom one.
+                            val = StringUtils.isBlank(type)
+                                    ? convHelper.convert(value, convOptions, beanRef)
+                                    : convHelper.convert(type, value, convOptions, beanRef);
                         } // end beanRef != null
                         // Handle any conversions that need to occur
                         if (val == null) {
                             val = "";
                         }
-                        val = convHelper.transformString(val, recElement.getConversionOptions(),
-                                recElement.getFieldLength());
+                        val = recElement.getConversionOptionChain().apply(val, recElement.getFieldLength());
 
                         if (itRecElements.hasNext())
                             bufOut.write(val + delimit);
@@ -16,9 +16,13 @@
 
 package com.blackbear.flatworm;
 
+import com.google.common.base.Preconditions;
+
 import com.blackbear.flatworm.config.ConverterBO;
 import com.blackbear.flatworm.config.RecordBO;
 import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.converters.FromTypeConverterFunction;
+import com.blackbear.flatworm.converters.ToTypeConverterFunction;
 import com.blackbear.flatworm.errors.FlatwormParserException;
 
 import java.io.BufferedReader;
@@ -47,13 +51,6 @@ public class FileFormat {
     private Map<String, RecordBO> records;
     private List<RecordBO> recordOrder;
 
-    @Getter
-    private int lineNumber;
-
-    // JBL - Used when parsing fails, gives access to bad line
-    @Getter
-    private String currentParsedLine = "";
-
     @Getter
     @Setter
     private String encoding;
@@ -63,26 +60,72 @@ public class FileFormat {
     private boolean ignoreUnmappedRecords;
 
     @Getter
-    private MatchedRecord lastRecordRead;
-    
+    private boolean enforceLineLengths;
+
+    /**
+     * How parsed values are set on the beans - {@link PropertyUtilsMappingStrategy} unless told otherwise.
+     */
     @Getter
-    private RecordBO lastParsingRecord;
+    private BeanMappingStrategy beanMappingStrategy;
 
+    /**
+     * Whether the line plans are interpreted or have parsers generated for them - {@link ParseMode#INTERPRETED} unless told otherwise.
+     */
     @Getter
-    @Setter
-    private boolean enforceLineLengths;
-    
+    private ParseMode parseMode = ParseMode.INTERPRETED;
+
+    /**
+     * The cursor used by the {@code nextRecord} methods that don't take a {@link ParseCursor}.
+     */
+    private final ParseCursor defaultCursor = new ParseCursor();
+
+    /**
+     * The cursor of the parse currently running on each thread - this is what scripts see through {@link #getLineNumber()} and friends.
+     */
+    private final ThreadLocal<ParseCursor> activeCursor = new ThreadLocal<>();
+
+    /**
+     * Narrows down the records that need to be tested against each line - built by {@link #compile()}.
+     */
+    private volatile RecordDispatchIndex dispatchIndex;
+
     public FileFormat() {
         records = new HashMap<>();
         recordOrder = new ArrayList<>();
-        currentParsedLine = "";
-        lineNumber = 0;
         enforceLineLengths = true;
+        beanMappingStrategy = new PropertyUtilsMappingStrategy();
 
         // JBL
         conversionHelper = new ConversionHelper();
     }
 
+    /**
+     * Get the {@link ParseCursor} for the parse running on the current thread, or the default cursor if there isn't one.
+     *
+     * @return the {@link ParseCursor} instance.
+     */
+    public ParseCursor getCursor() {
+        ParseCursor cursor = activeCursor.get();
+        return cursor != null ? cursor : defaultCursor;
+    }
+
+    public int getLineNumber() {
+        return getCursor().getLineNumber();
+    }
+
+    // JBL - Used when parsing fails, gives access to bad line
+    public String getCurrentParsedLine() {
+        return getCursor().getCurrentParsedLine();
+    }
+
+    public MatchedRecord getLastRecordRead() {
+        return getCursor().getLastRecordRead();
+    }
+
+    public RecordBO getLastParsingRecord() {
+        return getCursor().getLastParsingRecord();
+    }
+
     public List<RecordBO> getRecords() {
         return new ArrayList<>(records.values());
     }
@@ -91,22 +134,84 @@ public class FileFormat {
         r.setParentFileFormat(this);
         records.put(r.getName(), r);
         recordOrder.add(r);
+        dispatchIndex = null;
     }
 
     public RecordBO getRecord(String name) {
         return records.get(name);
     }
 
+    /**
+     * Find the first record, in the order the records were added, whose identity matches the given line.
+     *
+     * @param firstLine The line of data.
+     * @return the matching {@link RecordBO} or {@code null} if none match.
+     * @throws FlatwormParserException should a record's identity fail while being tested.
+     */
     public RecordBO findMatchingRecord(String firstLine) throws FlatwormParserException {
-        RecordBO result = null;
-        for (RecordBO record : recordOrder) {
-            if (record.matchesLine(this, firstLine)) {
-                result = record;
-                break;
-            }
+        RecordDispatchIndex index = dispatchIndex;
+        if (index == null) {
+            index = buildDispatchIndex();
         }
-        
-        return result;
+        return index.findMatchingRecord(this, firstLine);
+    }
+
+    /**
+     * Build the index used to dispatch lines to records and the {@link com.blackbear.flatworm.config.LinePlan} of every line. The
+     * configuration readers call this once the configuration is loaded and both are built on first use otherwise. Adding a record,
+     * replacing a record's identity or adding elements to a line discards what was built, but other changes made in place (e.g. adding a
+     * matching string to an identity or changing a field's length) are only picked up when this is called again.
+     */
+    public void compile() {
+        buildDispatchIndex();
+        recordOrder.forEach(RecordBO::compileLinePlans);
+    }
+
+    /**
+     * Set whether or not fields that run past the end of a line are an error.
+     *
+     * @param enforceLineLengths {@code true} to fail the parse of such lines and {@code false} to read the fields up to the end of the
+     *                           line.
+     */
+    public void setEnforceLineLengths(boolean enforceLineLengths) {
+        this.enforceLineLengths = enforceLineLengths;
+        recordOrder.forEach(RecordBO::invalidateLinePlans);
+    }
+
+    /**
+     * Set how parsed values are set on the beans of every record - e.g. {@link MethodHandleMappingStrategy} to avoid the reflective
+     * property lookups of the default {@link PropertyUtilsMappingStrategy}.
+     *
+     * @param beanMappingStrategy The {@link BeanMappingStrategy} instance.
+     */
+    public void setBeanMappingStrategy(BeanMappingStrategy beanMappingStrategy) {
+        this.beanMappingStrategy = Preconditions.checkNotNull(beanMappingStrategy, "The bean mapping strategy is required.");
+        recordOrder.forEach(RecordBO::invalidateLinePlans);
+    }
+
+    /**
+     * Set whether the lines of every record are parsed by interpreting their {@link com.blackbear.flatworm.config.LinePlan}s or by classes
+     * generated for them when the plans are compiled - see {@link ParseMode}. Generating the classes takes a while, so call {@link
+     * #compile()} after setting {@link ParseMode#GENERATED} to have it done before parsing starts.
+     *
+     * @param parseMode The {@link ParseMode}.
+     */
+    public void setParseMode(ParseMode parseMode) {
+        this.parseMode = Preconditions.checkNotNull(parseMode, "The parse mode is required.");
+        recordOrder.forEach(RecordBO::invalidateLinePlans);
+    }
+
+    private synchronized RecordDispatchIndex buildDispatchIndex() {
+        RecordDispatchIndex index = new RecordDispatchIndex(recordOrder);
+        dispatchIndex = index;
+        return index;
+    }
+
+    /**
+     * Discard the dispatch index so that it is rebuilt on the next lookup.
+     */
+    public void invalidateDispatchIndex() {
+        dispatchIndex = null;
     }
 
     /**
@@ -131,6 +236,19 @@ public class FileFormat {
         conversionHelper.addConverter(converter);
     }
 
+    /**
+     * Store a converter along with the functions that call its methods. Either function may be {@code null} to have it resolved from the
+     * converter's class and method.
+     *
+     * @param converter        The ConverterBO to store.
+     * @param toTypeFunction   The function that invokes the converter's {@code (String, Map)} method or {@code null}.
+     * @param fromTypeFunction The function that invokes the converter's {@code (Object, Map)} method or {@code null}.
+     * @see ConversionHelper#addConverter(ConverterBO, ToTypeConverterFunction, FromTypeConverterFunction)
+     */
+    public void addConverter(ConverterBO converter, ToTypeConverterFunction toTypeFunction, FromTypeConverterFunction fromTypeFunction) {
+        conversionHelper.addConverter(converter, toTypeFunction, fromTypeFunction);
+    }
+
     /**
      * When called with a {@code BufferedReader}, reads sufficient lines to parse a record, and returns the beans created.
      *
@@ -141,34 +259,83 @@ public class FileFormat {
      * @throws IOException             Should an I/O issue occur.
      */
     public MatchedRecord nextRecord(BufferedReader in) throws FlatwormParserException, IOException {
+        return nextRecord(in, defaultCursor);
+    }
 
+    /**
+     * When called with a {@code BufferedReader}, reads sufficient lines to parse a record, and returns the beans created. All state
+     * carried from one record to the next is kept in the given {@link ParseCursor}, so any number of threads can parse with the same
+     * {@code FileFormat} at once provided each has its own {@link ParseCursor}.
+     *
+     * @param in     The stream to read from. Note that the reader is not closed by this method so the caller must perform the {@code
+     *               close()} operation on the reader.
+     * @param cursor The {@link ParseCursor} tracking this parse of {@code in} - along with any projections and {@link FieldFilter}s.
+     * @return The created beans in a MatchedRecord object - {@code null} if the line was skipped, either as an unmapped record or because
+     * the record failed one of the cursor's {@link FieldFilter}s. The end of the input has been reached when {@link
+     * ParseCursor#getCurrentParsedLine()} is also {@code null}.
+     * @throws FlatwormParserException should an issue occur while parsing the data content.
+     * @throws IOException             Should an I/O issue occur.
+     */
+    public MatchedRecord nextRecord(BufferedReader in, ParseCursor cursor) throws FlatwormParserException, IOException {
+        ParseCursor previousCursor = activeCursor.get();
+        activeCursor.set(cursor);
+        try {
+            return parseNextRecord(in, cursor);
+        } finally {
+            if (previousCursor != null) {
+                activeCursor.set(previousCursor);
+            } else {
+                activeCursor.remove();
+            }
+        }
+    }
+
+    private MatchedRecord parseNextRecord(BufferedReader in, ParseCursor cursor) throws FlatwormParserException, IOException {
         MatchedRecord matchedRecord = null;
-        if (lastParsingRecord == null || lastParsingRecord.isParsedLastReadLine()) {
-            currentParsedLine = in.readLine();
-            lineNumber++;
-        } else if(lastParsingRecord != null) {
-            currentParsedLine = lastParsingRecord.getLastReadLine();
+        if (cursor.hasPendingLine()) {
+            cursor.setCurrentParsedLine(cursor.getLastReadLine());
+            cursor.setParsedLastReadLine(true);
+        } else {
+            cursor.setCurrentParsedLine(in.readLine());
+            cursor.setLineNumber(cursor.getLineNumber() + 1);
         }
 
+        String currentParsedLine = cursor.getCurrentParsedLine();
         if (currentParsedLine != null) {
             RecordBO record = findMatchingRecord(currentParsedLine);
             if (record != null) {
-                lastParsingRecord = record;
-                record.setEnforceLineLengths(isEnforceLineLengths());
+                cursor.setLastParsingRecord(record);
                 if (record.getBeforeScriptlet() != null) {
                     record.getBeforeScriptlet().invokeFunction(this, currentParsedLine);
                 }
 
-                Map<String, Object> beans = record.parseRecord(currentParsedLine, in, conversionHelper);
-                matchedRecord = new MatchedRecord(record.getName(), beans, currentParsedLine);
-                lastRecordRead = matchedRecord;
+                if (cursor.isLazy(record.getName())) {
+                    LazyRecord lazyRecord = record.parseLazyRecord(currentParsedLine, in, conversionHelper, cursor);
+                    if (lazyRecord != null) {
+                        matchedRecord = new MatchedRecord(lazyRecord, currentParsedLine);
+                    }
+                } else {
+                    BeanSlotMap beans = record.parseRecord(currentParsedLine, in, conversionHelper, cursor);
+                    if (beans != null) {
+                        if (cursor.isReuseBeans()) {
+                            matchedRecord = cursor.getReusableRecord();
+                            matchedRecord.reuse(record.getName(), beans, currentParsedLine);
+                        } else {
+                            matchedRecord = new MatchedRecord(record.getName(), beans, currentParsedLine);
+                        }
+                    }
+                }
+
+                if (matchedRecord != null) {
+                    cursor.setLastRecordRead(matchedRecord);
 
-                if (record.getAfterScriptlet() != null) {
-                    record.getAfterScriptlet().invokeFunction(this);
+                    if (record.getAfterScriptlet() != null) {
+                        record.getAfterScriptlet().invokeFunction(this);
+                    }
                 }
             } else if (!ignoreUnmappedRecords) {
                 throw new FlatwormParserException(String.format(
-                        "Configuration not found for line in input file [line: %d] - %s", lineNumber, currentParsedLine
+                        "Configuration not found for line in input file [line: %d] - %s", cursor.getLineNumber(), currentParsedLine
                 ));
             }
         }
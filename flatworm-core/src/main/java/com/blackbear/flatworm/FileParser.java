@@ -22,6 +22,8 @@ import com.google.common.collect.ListMultimap;
 
 import com.blackbear.flatworm.callbacks.ExceptionCallback;
 import com.blackbear.flatworm.callbacks.RecordCallback;
+import com.blackbear.flatworm.columnar.ColumnBatch;
+import com.blackbear.flatworm.columnar.ColumnarSink;
 import com.blackbear.flatworm.config.ConfigurationReader;
 import com.blackbear.flatworm.config.RecordBO;
 import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
@@ -37,9 +39,25 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -53,6 +71,16 @@ public class FileParser implements Closeable {
 
     private List<ExceptionCallback> exceptionCallbacks = new ArrayList<>();
 
+    private Map<String, List<String>> projections = new HashMap<>();
+
+    private ListMultimap<String, FieldFilter> filters = ArrayListMultimap.create();
+
+    private Map<String, Function<FileFormat, ColumnarSink>> columnarSinks = new HashMap<>();
+
+    private Set<String> lazyRecords = new HashSet<>();
+
+    private boolean reuseBeans;
+
     protected File configFile;
     protected File dataInputFile;
 
@@ -60,6 +88,7 @@ public class FileParser implements Closeable {
     protected String configContent;
     protected FileFormat fileFormat;
     protected BufferedReader bufIn;
+    protected ParseCursor cursor = new ParseCursor();
 
     protected FileParser() {
     }
@@ -108,6 +137,29 @@ public class FileParser implements Closeable {
         this.dataInputFile = dataInputFile;
     }
 
+    /**
+     * Constructor for FileParser that uses an already loaded {@link FileFormat}. The {@link FileFormat} holds no parsing state, so one
+     * instance can be shared by any number of {@code FileParser} instances, including ones running concurrently on separate threads.
+     *
+     * @param fileFormat    The loaded configuration.
+     * @param dataInputFile The data file to parse using the provided configuration.
+     */
+    public FileParser(FileFormat fileFormat, File dataInputFile) {
+        this.fileFormat = fileFormat;
+        this.dataInputFile = dataInputFile;
+    }
+
+    /**
+     * Constructor for FileParser that uses an already loaded {@link FileFormat} - see {@link #FileParser(FileFormat, File)}.
+     *
+     * @param fileFormat       The loaded configuration.
+     * @param dataInputContent The content to parse using the provided configuration.
+     */
+    public FileParser(FileFormat fileFormat, String dataInputContent) {
+        this.fileFormat = fileFormat;
+        this.dataInputContent = dataInputContent;
+    }
+
     /**
      * Provide a callback object that doesn't require reflection to be invoked. The {@code MatchedRecord} will be passed back to the
      * callback. Add a callback for each record converterName specified in the configuration file.
@@ -158,6 +210,155 @@ public class FileParser implements Closeable {
         return exceptionCallbacks.remove(callback);
     }
 
+    /**
+     * Declare the properties of a record that are actually needed - the fields of the record's other properties are skipped over without
+     * being extracted, converted or set on the beans. The {@link FileFormat} is left as configured so that it can
+     * be shared with parsers that need every field.
+     *
+     * @param recordName The name of the record.
+     * @param properties The properties to map, each either a {@code propertyName} or a {@code beanRef.propertyName}.
+     */
+    public void registerProjection(String recordName, String... properties) {
+        Preconditions.checkArgument(!StringUtils.isBlank(recordName), "The record name is required.");
+        List<String> projection = Arrays.asList(properties);
+        projections.put(recordName, projection);
+        cursor.setProjection(recordName, projection);
+    }
+
+    /**
+     * Remove the projection registered for a record so that every field is mapped again.
+     *
+     * @param recordName The name of the record.
+     * @return {@code true} if a projection was registered for the record and {@code false} if not.
+     */
+    public boolean removeProjection(String recordName) {
+        cursor.setProjection(recordName, null);
+        return projections.remove(recordName) != null;
+    }
+
+    /**
+     * Only parse the records whose raw field satisfies the {@code predicate} - the predicate sees the characters of the field as they are
+     * in the line, before any trimming or conversion, right after the record is identified. Records that fail are skipped without their
+     * beans being created and never reach the {@link RecordCallback}s. A record is parsed only if it passes all of its filters.
+     *
+     * @param recordName The name of the record.
+     * @param property   The property of the field, either a {@code propertyName} or a {@code beanRef.propertyName} - the field must be on
+     *                   the first line of the record.
+     * @param predicate  The predicate the raw field must satisfy.
+     */
+    public void registerFieldFilter(String recordName, String property, Predicate<CharSequence> predicate) {
+        Preconditions.checkArgument(!StringUtils.isBlank(recordName), "The record name is required.");
+        FieldFilter filter = new FieldFilter(property, predicate);
+        filters.put(recordName, filter);
+        cursor.addFilter(recordName, filter);
+    }
+
+    /**
+     * Remove all of the field filters registered for a record.
+     *
+     * @param recordName The name of the record.
+     * @return {@code true} if filters were registered for the record and {@code false} if not.
+     */
+    public boolean removeFieldFilters(String recordName) {
+        cursor.removeFilters(recordName);
+        return !filters.removeAll(recordName).isEmpty();
+    }
+
+    /**
+     * Collect the fields of a record into primitive and dictionary encoded columns, in batches of {@code batchSize} rows, rather than
+     * creating the record's beans - see {@link ColumnarSink}. The record is no longer passed to its {@link RecordCallback}s, the batches
+     * go to the {@code consumer} instead with the last, partial, batch delivered once the end of the input is reached. When reading in
+     * parallel each chunk of the file is collected separately, in batches with columns of their own that are held until the chunk is
+     * known to have been parsed from the right offset, and are then delivered in order. When the read is unordered the batches are
+     * delivered from the threads parsing the chunks, but never concurrently, so the {@code consumer} needn't be thread-safe.
+     *
+     * @param recordName The name of the record.
+     * @param batchSize  The number of rows in a batch.
+     * @param consumer   Given each batch - the batch and its columns are reused once it returns.
+     */
+    public void registerColumnarSink(String recordName, int batchSize, Consumer<ColumnBatch> consumer) {
+        Preconditions.checkArgument(!StringUtils.isBlank(recordName), "The record name is required.");
+        Function<FileFormat, ColumnarSink> factory = format -> new ColumnarSink(format.getRecord(recordName),
+                format.getConversionHelper(), batchSize, consumer);
+        columnarSinks.put(recordName, factory);
+        if (fileFormat != null && bufIn != null) {
+            cursor.setColumnarSink(recordName, factory.apply(fileFormat));
+        }
+    }
+
+    /**
+     * Go back to creating the beans of a record registered with {@link #registerColumnarSink(String, int, Consumer)}. Any rows collected
+     * so far are handed to the consumer first.
+     *
+     * @param recordName The name of the record.
+     * @return {@code true} if a columnar sink was registered for the record and {@code false} if not.
+     */
+    public boolean removeColumnarSink(String recordName) {
+        ColumnarSink sink = cursor.getColumnarSink(recordName);
+        if (sink != null) {
+            sink.flush();
+            cursor.setColumnarSink(recordName, null);
+        }
+        return columnarSinks.remove(recordName) != null;
+    }
+
+    /**
+     * Read a record as a {@link LazyRecord} rather than creating its beans - the record's lines are kept along with where each field lies
+     * within them, and a field is converted the first time it is read from the {@link LazyRecord}. The {@link RecordCallback}s are given a
+     * {@link MatchedRecord} with no beans whose {@link MatchedRecord#getLazyRecord()} holds the record. Only records without identity lines
+     * can be read lazily.
+     *
+     * @param recordName The name of the record.
+     */
+    public void registerLazyRecord(String recordName) {
+        Preconditions.checkArgument(!StringUtils.isBlank(recordName), "The record name is required.");
+        lazyRecords.add(recordName);
+        cursor.setLazy(recordName, true);
+    }
+
+    /**
+     * Go back to creating the beans of a record registered with {@link #registerLazyRecord(String)}.
+     *
+     * @param recordName The name of the record.
+     * @return {@code true} if the record was being read lazily and {@code false} if not.
+     */
+    public boolean removeLazyRecord(String recordName) {
+        cursor.setLazy(recordName, false);
+        return lazyRecords.remove(recordName);
+    }
+
+    /**
+     * Reuse the beans of each record, and the {@link MatchedRecord} holding them, for the next record of the same name rather than creating
+     * new instances - so that a long running parse allocates next to nothing per record. The beans are overwritten as soon as the next
+     * record is read, so {@link RecordCallback}s must copy out what they need and neither the {@link MatchedRecord}s nor their beans can be
+     * held onto (nor collected from {@link #stream()}). Beans implementing {@link ReusableBean} are reset before being reused - otherwise
+     * properties the next record doesn't set keep their values. Beans added to a parent bean are still created for every record. Reading a
+     * file in parallel always creates new beans.
+     *
+     * @param reuseBeans {@code true} to reuse the beans and {@code false} (the default) to create new ones for every record.
+     */
+    public void setReuseBeans(boolean reuseBeans) {
+        this.reuseBeans = reuseBeans;
+        cursor.setReuseBeans(reuseBeans);
+    }
+
+    /**
+     * Create a {@link ParseCursor} for a parse of the input, carrying the registered projections, field filters, columnar sinks and lazy
+     * records, and whether or not beans are reused.
+     *
+     * @param lineNumber The number of lines preceding the first line to be read.
+     * @return the {@link ParseCursor} instance.
+     */
+    protected ParseCursor newCursor(int lineNumber) {
+        ParseCursor parseCursor = new ParseCursor(lineNumber);
+        projections.forEach(parseCursor::setProjection);
+        filters.entries().forEach(entry -> parseCursor.addFilter(entry.getKey(), entry.getValue()));
+        columnarSinks.forEach((recordName, factory) -> parseCursor.setColumnarSink(recordName, factory.apply(fileFormat)));
+        lazyRecords.forEach(recordName -> parseCursor.setLazy(recordName, true));
+        parseCursor.setReuseBeans(reuseBeans);
+        return parseCursor;
+    }
+
     /**
      * Parse the specified config information and then parse the file based upon the config information provided. Either the config file or
      * the config content will be parsed and either the data file or the data content will be parsed depending upon which constructor was
@@ -167,11 +368,12 @@ public class FileParser implements Closeable {
      * @throws IOException                    should the {@link InputStream} fail to properly open.
      */
     public void open() throws FlatwormConfigurationException, IOException {
-        Preconditions.checkState((configFile != null || dataInputFile != null)
+        Preconditions.checkState((configFile != null || dataInputFile != null || fileFormat != null)
                         || (!StringUtils.isBlank(configContent) || !StringUtils.isBlank(dataInputContent)),
                 "Either the config file or config content must be provided and either the input file or input content must be provided.");
 
         loadConfiguration();
+        cursor = newCursor(0);
 
         InputStream in;
         String encoding;
@@ -186,17 +388,29 @@ public class FileParser implements Closeable {
     }
 
     /**
-     * Load the configuration file content.
+     * Load the configuration file content - unless this {@code FileParser} was given an already loaded {@link FileFormat}.
      *
      * @throws FlatwormConfigurationException should parsing the content cause any issues.
      */
     protected void loadConfiguration() throws FlatwormConfigurationException {
+        if (configFile != null || configContent != null || fileFormat == null) {
+            fileFormat = createFileFormat();
+        }
+    }
+
+    /**
+     * Create a new {@link FileFormat} instance from the configuration file or configuration content.
+     *
+     * @return the newly loaded {@link FileFormat} instance.
+     * @throws FlatwormConfigurationException should parsing the content cause any issues.
+     */
+    protected FileFormat createFileFormat() throws FlatwormConfigurationException {
         try {
             ConfigurationReader parser = new DefaultConfigurationReaderImpl();
             if (configFile != null) {
-                fileFormat = parser.loadConfigurationFile(configFile);
+                return parser.loadConfigurationFile(configFile);
             } else {
-                fileFormat = parser.loadConfigurationFile(new ByteArrayInputStream(configContent.getBytes(StandardCharsets.UTF_8)));
+                return parser.loadConfigurationFile(new ByteArrayInputStream(configContent.getBytes(StandardCharsets.UTF_8)));
             }
         } catch (Exception ex) {
             throw new FlatwormConfigurationException(ex.getMessage(), ex);
@@ -223,25 +437,118 @@ public class FileParser implements Closeable {
     public void read() {
         Preconditions.checkState(bufIn != null && fileFormat != null, "You must first call open() before calling read().");
 
-        MatchedRecord results = null;
-        boolean exception;
-        do {
-            exception = true;
+        MatchedRecord results;
+        while ((results = nextMatchedRecord()) != null) {
+            doCallback(results.getRecordName(), results);
+        }
+    }
+
+    /**
+     * Get an {@link Iterator} that parses records lazily - each record is only read from the input when the {@link Iterator} is advanced,
+     * so you can stop reading at any point without parsing the rest of the file. Records are returned to the caller rather than being
+     * passed to the registered {@link RecordCallback}s. Lines that fail to parse are passed to the registered {@link ExceptionCallback}s
+     * and skipped, as they are by {@link #read()}. <br> <br>
+     * All iterators obtained from a {@code FileParser} share the same input - each record will only be returned once.
+     *
+     * @return the {@link Iterator} over the remaining records in the input.
+     */
+    public Iterator<MatchedRecord> iterator() {
+        Preconditions.checkState(bufIn != null && fileFormat != null, "You must first call open() before calling iterator().");
+
+        return new Iterator<MatchedRecord>() {
+            private MatchedRecord next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = nextMatchedRecord();
+                }
+                return next != null;
+            }
 
-            // Attempt to parse the next line
+            @Override
+            public MatchedRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MatchedRecord result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Get a sequential {@link Stream} that parses records lazily - see {@link #iterator()}. Short-circuiting operations such as {@code
+     * limit} and {@code findFirst} stop parsing as soon as they are satisfied. Closing the {@link Stream} closes this {@code FileParser}.
+     *
+     * @return the {@link Stream} over the remaining records in the input.
+     */
+    public Stream<MatchedRecord> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Parse the next record from the input, skipping over lines that are ignored by the configuration. Exceptions are passed to the
+     * registered {@link ExceptionCallback}s and parsing continues with the next line unless the input itself can no longer be read.
+     *
+     * @return the next {@link MatchedRecord} or {@code null} if the end of the input has been reached.
+     */
+    private MatchedRecord nextMatchedRecord() {
+        while (true) {
             try {
-                results = fileFormat.nextRecord(bufIn);
-                exception = false;
+                MatchedRecord results = fileFormat.nextRecord(bufIn, cursor);
+                if (results != null) {
+                    return results;
+                } else if (cursor.getCurrentParsedLine() == null) {
+                    cursor.flushColumnarSinks();
+                    return null;
+                }
+            } catch (IOException ex) {
+                doExceptionCallback(ex, ex.getMessage(), cursor.getCurrentParsedLine());
+                return null;
             } catch (Exception ex) {
-                doExceptionCallback(ex, ex.getMessage(), fileFormat.getCurrentParsedLine());
+                doExceptionCallback(ex, ex.getMessage(), cursor.getCurrentParsedLine());
             }
+        }
+    }
 
-            if (null != results) {
-                String recordName = results.getRecordName();
-                doCallback(recordName, results);
-            }
+    /**
+     * Read the entire input file using multiple threads. The file is split into chunks at line boundaries and the chunks are parsed on a
+     * {@link java.util.concurrent.ForkJoinPool}. Multi-line records that straddle a chunk boundary are detected and the affected chunk is
+     * re-parsed from the correct record boundary, so the records produced are the same as those produced by {@link #read()}. By default
+     * the records are delivered to your callbacks on the calling thread in file order - see {@link ParallelReadOptions} for the unordered
+     * mode. <br> <br>
+     * Parallel reads require a data input file in an encoding that can be memory mapped (see {@link
+     * MappedLineReader#isSupported(Charset)}) - otherwise this falls back to {@link #read()}. The chunks are parsed concurrently, so
+     * scripts that rely upon state carried from one record to the next aren't supported.<br> <br>
+     * <b>NOTE:</b> As with {@link #read()}, all exceptions are consumed and passed to the exception handler method you defined.
+     *
+     * @param options The options controlling the parallel read.
+     */
+    public void read(ParallelReadOptions options) {
+        Preconditions.checkState(bufIn != null && fileFormat != null, "You must first call open() before calling read().");
+        Preconditions.checkNotNull(options, "The ParallelReadOptions must be provided.");
+
+        Charset charset = Charset.forName(fileFormat.getEncoding());
+        if (dataInputFile == null || !MappedLineReader.isSupported(charset)) {
+            log.warn("A parallel read requires a data input file with a byte-scannable encoding - reading sequentially.");
+            read();
+            return;
+        }
+
+        try {
+            new ParallelFileReader(this, fileFormat, dataInputFile.toPath(), charset, options).read();
+        } catch (Exception ex) {
+            doExceptionCallback(ex, ex.getMessage(), null);
         }
-        while ((null != results) || exception);
     }
 
     /**
@@ -251,7 +558,7 @@ public class FileParser implements Closeable {
      * @param recordName The name of the {@link RecordBO} - this comes from the configuration file.
      * @param record     The {@link MatchedRecord} instance that was loaded.
      */
-    private void doCallback(String recordName, MatchedRecord record) {
+    void doCallback(String recordName, MatchedRecord record) {
         // first check for an old style callback
         if (recordCallbacks.containsKey(recordName)) {
             for (RecordCallback recordCallback : recordCallbacks.get(recordName)) {
@@ -272,7 +579,7 @@ public class FileParser implements Closeable {
      *
      * @param ex The Exception that occurred.
      */
-    private void doExceptionCallback(Exception ex, String message, String lastLine) {
+    void doExceptionCallback(Exception ex, String message, String lastLine) {
         // Execute all ExceptionCallbacks.
         exceptionCallbacks.forEach(callback -> {
             try {
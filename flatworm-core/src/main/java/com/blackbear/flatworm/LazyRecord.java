@@ -0,0 +1,319 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.BeanBO;
+import com.blackbear.flatworm.config.FieldBinding;
+import com.blackbear.flatworm.config.FieldVisitor;
+import com.blackbear.flatworm.config.Identity;
+import com.blackbear.flatworm.config.LineBO;
+import com.blackbear.flatworm.config.LinePlan;
+import com.blackbear.flatworm.config.RecordDefinitionBO;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+
+/**
+ * A record whose fields are converted only when they're asked for. Reading the record just keeps its lines and where each field lies
+ * within them (see {@link LinePlan#visitFields}); the field is run through its converter the first time {@link #get(String)} is called
+ * for it and the value kept for later calls. Suits records that are inspected on a field or two and then passed on as they were read -
+ * {@link #getLines()} gives the lines back verbatim.
+ *
+ * <p>Fields are looked up by {@code propertyName} or {@code beanRef.propertyName}. Only records made up of sequential lines are supported
+ * - not those with identity lines - and the fields of segments aren't available. A {@code LazyRecord} is not thread safe.</p>
+ */
+public final class LazyRecord implements FieldVisitor {
+
+    private final Layout layout;
+
+    private final ConversionHelper conversionHelper;
+
+    private final String[] lines;
+
+    private final CharSequence[] sources;
+
+    private final int[] starts;
+
+    private final int[] ends;
+
+    private final Object[] values;
+
+    private final boolean[] converted;
+
+    private int[] currentSlots;
+
+    LazyRecord(Layout layout, ConversionHelper conversionHelper) {
+        this.layout = layout;
+        this.conversionHelper = conversionHelper;
+        int fieldCount = layout.bindings.length;
+        lines = new String[layout.plans.length];
+        sources = new CharSequence[fieldCount];
+        starts = new int[fieldCount];
+        ends = new int[fieldCount];
+        values = new Object[fieldCount];
+        converted = new boolean[fieldCount];
+    }
+
+    /**
+     * Read a line of the record - the line is kept and the position of each field within it noted, nothing is converted.
+     *
+     * @param lineIndex The index of the line within the record's sequential lines.
+     * @param inputLine The line of data.
+     * @param identity  The {@link Identity} that matched the record.
+     * @throws FlatwormParserException should a field run past the end of the line when line lengths are enforced.
+     */
+    public void parseLine(int lineIndex, String inputLine, Identity identity) throws FlatwormParserException {
+        lines[lineIndex] = inputLine;
+        currentSlots = layout.slotsByLine[lineIndex];
+        layout.plans[lineIndex].visitFields(inputLine, identity, this);
+    }
+
+    @Override
+    public void visit(int index, FieldBinding binding, CharSequence chars, int start, int end) {
+        int slot = currentSlots[index];
+        if (slot >= 0) {
+            sources[slot] = chars;
+            starts[slot] = start;
+            ends[slot] = end;
+        }
+    }
+
+    /**
+     * Get the name of the record.
+     *
+     * @return the record name.
+     */
+    public String getRecordName() {
+        return layout.recordName;
+    }
+
+    /**
+     * Get the lines of the record as they were read.
+     *
+     * @return the lines.
+     */
+    public List<String> getLines() {
+        return Collections.unmodifiableList(Arrays.asList(lines));
+    }
+
+    /**
+     * Get the properties whose fields can be read.
+     *
+     * @return the {@code beanRef.propertyName} of each field, in the order they appear in the record.
+     */
+    public Set<String> getProperties() {
+        return layout.properties;
+    }
+
+    /**
+     * Determine if the record has a field for a property.
+     *
+     * @param property The {@code propertyName} or {@code beanRef.propertyName}.
+     * @return {@code true} if it does and {@code false} if not.
+     */
+    public boolean hasProperty(String property) {
+        return layout.slots.containsKey(property);
+    }
+
+    /**
+     * Get the value of a field, converting it the first time it is asked for.
+     *
+     * @param property The {@code propertyName} or {@code beanRef.propertyName}.
+     * @return the converted value - {@code null} if the line was too short to hold the field.
+     * @throws FlatwormParserException should the record have no such field or the field fail to convert.
+     */
+    public Object get(String property) throws FlatwormParserException {
+        int slot = slotOf(property);
+        if (!converted[slot]) {
+            CharSequence source = sources[slot];
+            values[slot] = source != null
+                    ? layout.bindings[slot].convertToType(source.subSequence(starts[slot], ends[slot]).toString(), layout.types[slot],
+                    conversionHelper)
+                    : null;
+            converted[slot] = true;
+        }
+        return values[slot];
+    }
+
+    /**
+     * Get the value of a field as the given type, converting it the first time it is asked for.
+     *
+     * @param property The {@code propertyName} or {@code beanRef.propertyName}.
+     * @param type     The type of the value.
+     * @param <T>      The type of the value.
+     * @return the converted value - {@code null} if the line was too short to hold the field.
+     * @throws FlatwormParserException should the record have no such field or the field fail to convert.
+     * @throws ClassCastException      if the value isn't of the given type.
+     */
+    public <T> T get(String property, Class<T> type) throws FlatwormParserException {
+        return type.cast(get(property));
+    }
+
+    /**
+     * Get the characters of a field as they are in the line, before any trimming or conversion.
+     *
+     * @param property The {@code propertyName} or {@code beanRef.propertyName}.
+     * @return the characters - empty if the line was too short to hold the field.
+     * @throws FlatwormParserException should the record have no such field.
+     */
+    public CharSequence getRaw(String property) throws FlatwormParserException {
+        int slot = slotOf(property);
+        return sources[slot] != null ? sources[slot].subSequence(starts[slot], ends[slot]) : "";
+    }
+
+    /**
+     * Determine if a field has been converted yet.
+     *
+     * @param property The {@code propertyName} or {@code beanRef.propertyName}.
+     * @return {@code true} if {@link #get(String)} has been called for the field and {@code false} if not.
+     * @throws FlatwormParserException should the record have no such field.
+     */
+    public boolean isConverted(String property) throws FlatwormParserException {
+        return converted[slotOf(property)];
+    }
+
+    private int slotOf(String property) throws FlatwormParserException {
+        Integer slot = layout.slots.get(property);
+        if (slot == null) {
+            throw new FlatwormParserException(String.format("Property %s isn't a field of record %s.", property, layout.recordName));
+        }
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyRecord{" +
+                "recordName='" + layout.recordName + '\'' +
+                ", lines=" + Arrays.toString(lines) +
+                '}';
+    }
+
+    /**
+     * Where the fields of a record lie - the slot of each field and its {@link FieldBinding} - worked out once from the {@link LinePlan}s
+     * of the record's lines. See {@link com.blackbear.flatworm.config.RecordDefinitionBO#getLazyLayout()}.
+     */
+    public static final class Layout {
+        private final String recordName;
+        private final LinePlan[] plans;
+        private final int[][] slotsByLine;
+        private final FieldBinding[] bindings;
+        private final Class<?>[] types;
+        private final Map<String, Integer> slots;
+        @Getter
+        private final Set<String> properties;
+
+        private Layout(String recordName, LinePlan[] plans, int[][] slotsByLine, FieldBinding[] bindings, Class<?>[] types,
+                       Map<String, Integer> slots, Set<String> properties) {
+            this.recordName = recordName;
+            this.plans = plans;
+            this.slotsByLine = slotsByLine;
+            this.bindings = bindings;
+            this.types = types;
+            this.slots = slots;
+            this.properties = properties;
+        }
+
+        /**
+         * Work out the layout of a record from the current plans of its lines.
+         *
+         * @param recordName       The name of the record.
+         * @param recordDefinition The {@link RecordDefinitionBO} of the record - it must have no identity lines.
+         * @return the {@link Layout} instance.
+         * @throws FlatwormParserException should the record have identity lines.
+         */
+        public static Layout compile(String recordName, RecordDefinitionBO recordDefinition) throws FlatwormParserException {
+            if (!recordDefinition.getLinesWithIdentities().isEmpty()) {
+                throw new FlatwormParserException(String.format("Record %s has identity lines, which can't be read lazily.",
+                        recordName));
+            }
+            List<LineBO> lines = recordDefinition.getLines();
+            Map<String, BeanBO> beans = recordDefinition.getBeanMap();
+
+            LinePlan[] plans = new LinePlan[lines.size()];
+            int[][] slotsByLine = new int[lines.size()][];
+            List<FieldBinding> bindings = new ArrayList<>();
+            List<Class<?>> types = new ArrayList<>();
+            Map<String, Integer> slots = new HashMap<>();
+            Set<String> properties = new LinkedHashSet<>();
+            for (int i = 0; i < lines.size(); i++) {
+                plans[i] = lines.get(i).getPlan();
+                List<FieldBinding> lineBindings = plans[i].getFieldBindings();
+                slotsByLine[i] = new int[lineBindings.size()];
+                for (int field = 0; field < lineBindings.size(); field++) {
+                    FieldBinding binding = lineBindings.get(field);
+                    String name = binding.getBeanRef() + "." + binding.getPropertyName();
+                    if (binding.getBeanRef() == null || slots.containsKey(name)) {
+                        // Ignored fields have no property, and a property mapped twice is read from its first field.
+                        slotsByLine[i][field] = -1;
+                        continue;
+                    }
+                    int slot = bindings.size();
+                    slotsByLine[i][field] = slot;
+                    bindings.add(binding);
+                    BeanBO bean = beans.get(binding.getBeanRef());
+                    BeanProperty property = bean != null && bean.getBeanObjectClass() != null
+                            ? BeanProperty.find(bean.getBeanObjectClass(), binding.getPropertyName())
+                            : null;
+                    types.add(property != null ? property.getType() : null);
+                    slots.put(name, slot);
+                    slots.putIfAbsent(binding.getPropertyName(), slot);
+                    properties.add(name);
+                }
+            }
+            return new Layout(recordName, plans, slotsByLine, bindings.toArray(new FieldBinding[bindings.size()]),
+                    types.toArray(new Class<?>[types.size()]), slots, Collections.unmodifiableSet(properties));
+        }
+
+        /**
+         * Determine if the layout was worked out from the current plans of the record's lines.
+         *
+         * @param lines The sequential lines of the record.
+         * @return {@code true} if it was and {@code false} if a line has been reconfigured since.
+         */
+        public boolean isCurrent(List<LineBO> lines) {
+            if (lines.size() != plans.length) {
+                return false;
+            }
+            for (int i = 0; i < plans.length; i++) {
+                if (lines.get(i).getPlan() != plans[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Create an empty {@link LazyRecord} to read a record into.
+         *
+         * @param conversionHelper The {@link ConversionHelper} holding the named converters.
+         * @return the new {@link LazyRecord} instance.
+         */
+        public LazyRecord newRecord(ConversionHelper conversionHelper) {
+            return new LazyRecord(this, conversionHelper);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.google.common.base.Preconditions;
+
+import com.blackbear.flatworm.errors.FlatwormConfigurationException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link FileParser} that reads the data file through a memory map (see {@link MappedLineReader}) instead of the {@code
+ * FileInputStream} -&gt; {@code InputStreamReader} -&gt; {@code BufferedReader} stack. This is intended for very large files where the
+ * decoding and copying done by the reader stack dominates the cost of parsing. Record matching and callback dispatch are unchanged.
+ *
+ * Should the configured encoding not be one that can be line-scanned at the byte level (e.g. UTF-16) the standard reader stack is used.
+ */
+@Slf4j
+public class MappedFileParser extends FileParser {
+
+    private int windowSize = MappedLineReader.DEFAULT_WINDOW_SIZE;
+
+    /**
+     * Constructor for MappedFileParser.
+     *
+     * @param configFile    The config file to parse.
+     * @param dataInputFile The data file to parse using the provided configuration.
+     */
+    public MappedFileParser(File configFile, File dataInputFile) {
+        super(configFile, dataInputFile);
+    }
+
+    /**
+     * Constructor for MappedFileParser.
+     *
+     * @param configContent The config content to parse.
+     * @param dataInputFile The data file to parse using the provided configuration.
+     */
+    public MappedFileParser(String configContent, File dataInputFile) {
+        super(configContent, dataInputFile);
+    }
+
+    /**
+     * Constructor for MappedFileParser that uses an already loaded {@link FileFormat}.
+     *
+     * @param fileFormat    The loaded configuration.
+     * @param dataInputFile The data file to parse using the provided configuration.
+     */
+    public MappedFileParser(FileFormat fileFormat, File dataInputFile) {
+        super(fileFormat, dataInputFile);
+    }
+
+    /**
+     * Set the number of bytes of the data file to map at a time. Must be called before {@link #open()}.
+     *
+     * @param windowSize The window size in bytes.
+     */
+    public void setWindowSize(int windowSize) {
+        Preconditions.checkArgument(windowSize > 0, "The window size must be greater than zero.");
+        this.windowSize = windowSize;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    @Override
+    public void open() throws FlatwormConfigurationException, IOException {
+        Preconditions.checkState(dataInputFile != null, "MappedFileParser requires a data input file.");
+        Preconditions.checkState(configFile != null || configContent != null || fileFormat != null,
+                "Either the config file or config content must be provided.");
+
+        loadConfiguration();
+        cursor = newCursor(0);
+
+        Charset charset = Charset.forName(fileFormat.getEncoding());
+        if (MappedLineReader.isSupported(charset)) {
+            bufIn = new MappedLineReader(dataInputFile.toPath(), charset, windowSize);
+        } else {
+            log.warn(String.format("Encoding %s cannot be memory mapped - falling back to a buffered reader for %s.",
+                    charset, dataInputFile.getAbsolutePath()));
+            bufIn = new BufferedReader(new InputStreamReader(new FileInputStream(dataInputFile), charset));
+        }
+    }
+}
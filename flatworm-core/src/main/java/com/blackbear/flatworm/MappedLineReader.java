@@ -0,0 +1,285 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A line-oriented {@link BufferedReader} that reads a file through a {@link FileChannel} memory map rather than through an {@code
+ * InputStreamReader}. Line boundaries are located by scanning the mapped bytes directly and only the bytes of each line are decoded, so
+ * there is no intermediate char buffer to fill and copy. Files larger than a single window (and larger than 2 GB) are handled by remapping
+ * the window as the read position advances.
+ *
+ * Only {@link #readLine()} is supported - the character-level read methods throw {@link UnsupportedOperationException} as nothing within
+ * Flatworm uses them. The line terminators recognized are the same as those of {@link BufferedReader#readLine()}: {@code \n}, {@code \r}
+ * and {@code \r\n}.
+ */
+public class MappedLineReader extends BufferedReader {
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final long fileSize;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLength;
+    private int mapCount;
+
+    private long position;
+    private long lastLineStart = -1;
+
+    private byte[] lineBytes = new byte[256];
+
+    /**
+     * Open the given file for reading using the default window size.
+     *
+     * @param path    The file to read.
+     * @param charset The {@link Charset} of the file - see {@link #isSupported(Charset)}.
+     * @throws IOException should the file fail to open.
+     */
+    public MappedLineReader(Path path, Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Open the given file for reading.
+     *
+     * @param path       The file to read.
+     * @param charset    The {@link Charset} of the file - see {@link #isSupported(Charset)}.
+     * @param windowSize The number of bytes to map at a time. A window is grown automatically should a single line not fit within it.
+     * @throws IOException should the file fail to open.
+     */
+    public MappedLineReader(Path path, Charset charset, int windowSize) throws IOException {
+        this(path, charset, windowSize, 0L);
+    }
+
+    /**
+     * Open the given file for reading starting at the given byte offset, which should be the start of a line.
+     *
+     * @param path        The file to read.
+     * @param charset     The {@link Charset} of the file - see {@link #isSupported(Charset)}.
+     * @param windowSize  The number of bytes to map at a time. A window is grown automatically should a single line not fit within it.
+     * @param startOffset The byte offset at which to begin reading.
+     * @throws IOException should the file fail to open.
+     */
+    public MappedLineReader(Path path, Charset charset, int windowSize, long startOffset) throws IOException {
+        super(new NullReader(), 1);
+        Preconditions.checkArgument(windowSize > 0, "The window size must be greater than zero.");
+        Preconditions.checkArgument(startOffset >= 0, "The start offset cannot be negative.");
+        Preconditions.checkArgument(isSupported(charset), "The %s charset cannot be line-scanned at the byte level.", charset);
+        this.charset = charset;
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.position = startOffset;
+    }
+
+    /**
+     * Determine if lines in the given {@link Charset} can be located by scanning bytes for {@code \r} and {@code \n}. This is the case for
+     * single-byte charsets that encode those characters as their ASCII values and for UTF-8, where those byte values never appear within a
+     * multi-byte sequence.
+     *
+     * @param charset The {@link Charset} to check.
+     * @return {@code true} if the charset is supported and {@code false} if not.
+     */
+    public static boolean isSupported(Charset charset) {
+        if (charset == null || !charset.canEncode()) {
+            return false;
+        }
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return true;
+        }
+        return charset.newEncoder().maxBytesPerChar() == 1.0f
+                && Arrays.equals("\r\n".getBytes(charset), new byte[]{CR, LF});
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        ensureOpen();
+        if (position >= fileSize) {
+            return null;
+        }
+
+        long lineStart = position;
+        int mapSize = windowSize;
+        if (window == null || lineStart < windowStart || lineStart >= windowStart + windowLength) {
+            mapWindow(lineStart, mapSize);
+        }
+        while (true) {
+            int start = (int) (lineStart - windowStart);
+            for (int i = start; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == LF || b == CR) {
+                    if (b == CR && i + 1 == windowLength && windowStart + windowLength < fileSize) {
+                        // Can't tell if this is a \r\n pair without looking past the window.
+                        break;
+                    }
+                    int terminatorLength = (b == CR && i + 1 < windowLength && window.get(i + 1) == LF) ? 2 : 1;
+                    return finishLine(lineStart, start, i - start, terminatorLength);
+                }
+            }
+
+            if (windowStart + windowLength >= fileSize) {
+                // The last line of the file has no terminator.
+                return finishLine(lineStart, start, windowLength - start, 0);
+            }
+
+            // The line runs past the end of the window - remap from the start of the line, growing the window if the line is longer.
+            if (start == 0) {
+                mapSize = (int) Math.min((long) Integer.MAX_VALUE, (long) mapSize * 2);
+            }
+            mapWindow(lineStart, mapSize);
+        }
+    }
+
+    /**
+     * Get the byte offset within the file at which the next line will start.
+     *
+     * @return the byte offset.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the byte offset within the file at which the last line returned from {@link #readLine()} started.
+     *
+     * @return the byte offset or {@code -1} if no line has been read.
+     */
+    public long getLastLineStart() {
+        return lastLineStart;
+    }
+
+    /**
+     * Get the number of times a window has been mapped - a window is only remapped once the lines within it have been read.
+     *
+     * @return the number of windows mapped.
+     */
+    int getMapCount() {
+        return mapCount;
+    }
+
+    /**
+     * Get the size of the underlying file.
+     *
+     * @return the size in bytes.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    @Override
+    public int read() throws IOException {
+        throw new UnsupportedOperationException("MappedLineReader only supports readLine().");
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        throw new UnsupportedOperationException("MappedLineReader only supports readLine().");
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new UnsupportedOperationException("MappedLineReader only supports readLine().");
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        ensureOpen();
+        return position < fileSize;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported.");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported.");
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Map the window to start at {@code offset} and cover {@code size} bytes (or the remainder of the file if smaller).
+     */
+    private void mapWindow(long offset, int size) throws IOException {
+        windowStart = offset;
+        windowLength = (int) Math.min((long) size, fileSize - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+        mapCount++;
+    }
+
+    private String finishLine(long lineStart, int start, int length, int terminatorLength) {
+        lastLineStart = lineStart;
+        position = lineStart + length + terminatorLength;
+
+        if (lineBytes.length < length) {
+            lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+        }
+        window.position(start);
+        window.get(lineBytes, 0, length);
+        return new String(lineBytes, 0, length, charset);
+    }
+
+    /**
+     * The {@link BufferedReader} constructor requires a backing {@link Reader} - it is never read from.
+     */
+    private static class NullReader extends Reader {
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            return -1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
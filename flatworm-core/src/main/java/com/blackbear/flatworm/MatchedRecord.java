@@ -19,7 +19,6 @@ package com.blackbear.flatworm;
 import com.google.common.base.Joiner;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,10 +26,12 @@ import lombok.Getter;
 
 /**
  * The <code>MatchedRecord</code> is used to return the record data from a <code>FileFormat</code> record request. It has a name field,
- * which stores the name of the record found, and a set of beans generated by parsing of the record.
+ * which stores the name of the record found, and a set of beans generated by parsing of the record. The beans are held in an array indexed
+ * by the bean slots of the record's definition (see {@link com.blackbear.flatworm.config.RecordDefinitionBO#getBeanSlot(String)}) and
+ * can be retrieved by name or by slot.
  */
 public class MatchedRecord {
-    private Map<String, Object> beans = new HashMap<>();
+    private BeanSlotMap beans;
 
     @Getter
     private String recordName;
@@ -38,12 +39,65 @@ public class MatchedRecord {
     @Getter
     private String dataLine;
 
+    /**
+     * The record when it was read lazily (see {@link ParseCursor#setLazy(String, boolean)}) - {@code null} when its beans were created.
+     */
+    @Getter
+    private LazyRecord lazyRecord;
+
     public MatchedRecord(String name, Map<String, Object> beans, String dataLine) {
         recordName = name;
-        this.beans.putAll(beans);
+        if (beans instanceof BeanSlotMap) {
+            this.beans = (BeanSlotMap) beans;
+        } else {
+            this.beans = new BeanSlotMap(beans.keySet().toArray(new String[beans.size()]));
+            this.beans.putAll(beans);
+        }
+        this.dataLine = dataLine;
+    }
+
+    /**
+     * Constructor for a {@code MatchedRecord} of a record that was read lazily - it has no beans, its fields are read through the {@link
+     * LazyRecord}.
+     *
+     * @param lazyRecord The {@link LazyRecord}.
+     * @param dataLine   The line of data that began the record.
+     */
+    public MatchedRecord(LazyRecord lazyRecord, String dataLine) {
+        this.recordName = lazyRecord.getRecordName();
+        this.beans = new BeanSlotMap(new String[0]);
+        this.lazyRecord = lazyRecord;
         this.dataLine = dataLine;
     }
 
+    /**
+     * Constructor for a {@code MatchedRecord} that is {@link #reuse(String, Map, String) reused} for each record parsed.
+     */
+    MatchedRecord() {
+    }
+
+    /**
+     * Point this instance at the next record parsed. The {@code beans} aren't copied - they are the same instances the next time around.
+     *
+     * @param name     The name of the record.
+     * @param beans    The beans of the record.
+     * @param dataLine The line of data that began the record.
+     */
+    void reuse(String name, BeanSlotMap beans, String dataLine) {
+        recordName = name;
+        this.beans = beans;
+        this.dataLine = dataLine;
+    }
+
+    /**
+     * Determine if the record was read lazily - see {@link #getLazyRecord()}.
+     *
+     * @return {@code true} if it was and {@code false} if its beans were created.
+     */
+    public boolean isLazy() {
+        return lazyRecord != null;
+    }
+
     /**
      * Gets a specific bean, or null if not found.
      *
@@ -54,6 +108,52 @@ public class MatchedRecord {
         return beans.get(beanName);
     }
 
+    /**
+     * Gets a specific bean as the given type, or null if not found.
+     *
+     * @param beanName The name of the bean to retrieve.
+     * @param beanType The type of the bean.
+     * @param <T>      The type of the bean.
+     * @return The bean, or null.
+     * @throws ClassCastException if the bean isn't of the given type.
+     */
+    public <T> T getBean(String beanName, Class<T> beanType) {
+        return beanType.cast(beans.get(beanName));
+    }
+
+    /**
+     * Gets the bean in a slot - see {@link com.blackbear.flatworm.config.RecordDefinitionBO#getBeanSlot(String)}.
+     *
+     * @param slot The slot of the bean to retrieve.
+     * @return The bean, or null if the slot is empty.
+     * @throws ArrayIndexOutOfBoundsException if the record has no such slot.
+     */
+    public Object getBean(int slot) {
+        return beans.getBeans()[slot];
+    }
+
+    /**
+     * Gets the bean in a slot as the given type.
+     *
+     * @param slot     The slot of the bean to retrieve.
+     * @param beanType The type of the bean.
+     * @param <T>      The type of the bean.
+     * @return The bean, or null if the slot is empty.
+     * @throws ClassCastException if the bean isn't of the given type.
+     */
+    public <T> T getBean(int slot, Class<T> beanType) {
+        return beanType.cast(beans.getBeans()[slot]);
+    }
+
+    /**
+     * Gets the number of bean slots of the record.
+     *
+     * @return the number of slots.
+     */
+    public int getBeanSlotCount() {
+        return beans.getBeans().length;
+    }
+
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.toString());
@@ -63,10 +163,7 @@ public class MatchedRecord {
         sb.append(", beans = {");
 
         List<String> beanStrings = new ArrayList<>();
-        beans.keySet().forEach(key -> {
-            Object val = beans.get(key);
-            beanStrings.add(key + "=" + val);
-        });
+        beans.forEach((key, val) -> beanStrings.add(key + "=" + val));
         sb.append(Joiner.on(',').join(beanStrings));
         sb.append("}]");
         return sb.toString();
@@ -0,0 +1,76 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A BeanMappingStrategy that sets properties through {@link java.lang.invoke.MethodHandle}s resolved once per bean class and property (see
+ * {@link BeanProperty}) rather than looking the property up with PropertyUtils for every field. Properties it can't resolve - nested or
+ * indexed property names, for instance - are handed to {@link PropertyUtilsMappingStrategy}.
+ *
+ * @see FileFormat#setBeanMappingStrategy(BeanMappingStrategy)
+ */
+@Slf4j
+public class MethodHandleMappingStrategy implements BeanMappingStrategy {
+
+    private final BeanMappingStrategy fallback = new PropertyUtilsMappingStrategy();
+
+    @Override
+    public void mapBean(Object bean, String beanName, String property, Object value,
+                        Map<String, ConversionOptionBO> conversionOption) throws FlatwormParserException {
+        ConversionOptionBO option = conversionOption.get("append");
+        boolean append = option != null && "true".equalsIgnoreCase(option.getValue());
+        BeanProperty beanProperty = bean != null ? BeanProperty.find(bean.getClass(), property) : null;
+        if (beanProperty == null || !beanProperty.isWritable() || (append && !beanProperty.isReadable())) {
+            fallback.mapBean(bean, beanName, property, value, conversionOption);
+            return;
+        }
+
+        try {
+            if (append) {
+                Object currentValue = beanProperty.get(bean);
+                if (currentValue != null)
+                    value = currentValue.toString() + value;
+            }
+            beanProperty.set(bean, value);
+        } catch (Exception e) {
+            log.error("While running set property method for " + beanName + "." + property
+                    + " with value '" + value + "'", e);
+            throw new FlatwormParserException("Setting field " + beanName + "." + property);
+        }
+    }
+
+    @Override
+    public Object readBean(Object bean, String beanName, String property) throws FlatwormParserException {
+        BeanProperty beanProperty = bean != null ? BeanProperty.find(bean.getClass(), property) : null;
+        if (beanProperty == null || !beanProperty.isReadable()) {
+            return fallback.readBean(bean, beanName, property);
+        }
+
+        try {
+            return beanProperty.get(bean);
+        } catch (Exception e) {
+            throw new FlatwormParserException(e.getMessage(), e);
+        }
+    }
+}
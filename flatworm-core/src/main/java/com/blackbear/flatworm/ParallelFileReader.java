@@ -0,0 +1,378 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.columnar.ColumnBatch;
+import com.blackbear.flatworm.columnar.ColumnarSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parses a single file as a series of chunks on a {@link ForkJoinPool}. The file is cut into chunks of roughly {@link
+ * ParallelReadOptions#getChunkSize()} bytes at line boundaries. Since a line boundary isn't necessarily a record boundary (a record can
+ * span several lines) each chunk is parsed speculatively from its first line, recording where each record started and where the first
+ * record at or beyond the end of the chunk starts. The chunks are then validated in file order - if a chunk didn't start where the
+ * previous chunk's last record ended it is parsed again from the correct offset. Records, and the batches of rows collected by {@link
+ * ColumnarSink}s, are only delivered from validated chunks, so the results are the same as those of a sequential read.
+ *
+ * All chunks are parsed with the same {@link FileFormat}, each with its own {@link ParseCursor}. {@link FileFormat#getLineNumber()} is
+ * seeded with the number of lines preceding each chunk.
+ */
+@Slf4j
+class ParallelFileReader {
+
+    private static final int SCAN_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileParser fileParser;
+    private final FileFormat fileFormat;
+    private final Path path;
+    private final Charset charset;
+    private final ParallelReadOptions options;
+    private final ForkJoinPool pool;
+
+    /**
+     * Serializes the delivery of columnar batches - in unordered mode chunks are delivered concurrently, but the consumer of a {@link
+     * ColumnarSink} is shared by the sinks of every chunk and needn't be thread-safe.
+     */
+    private final Object batchDeliveryLock = new Object();
+
+    private long fileSize;
+    private long[] chunkStarts;
+
+    ParallelFileReader(FileParser fileParser, FileFormat fileFormat, Path path, Charset charset, ParallelReadOptions options) {
+        this.fileParser = fileParser;
+        this.fileFormat = fileFormat;
+        this.path = path;
+        this.charset = charset;
+        this.options = options;
+        this.pool = options.getPool();
+    }
+
+    /**
+     * Parse the file and deliver the results to the {@link FileParser}'s callbacks.
+     *
+     * @throws IOException should the file fail to be read.
+     */
+    void read() throws IOException {
+        chunkStarts = findChunkStarts();
+        int chunkCount = chunkStarts.length - 1;
+        if (chunkCount == 0) {
+            return;
+        }
+
+        List<CompletableFuture<ChunkResult>> validated = new ArrayList<>(chunkCount);
+        List<CompletableFuture<Void>> delivered = new ArrayList<>(chunkCount);
+        int window = options.getMaxChunksInFlight();
+
+        CompletableFuture<Long> lineBase = CompletableFuture.completedFuture(0L);
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                final int chunk = i;
+
+                // Bound the number of parsed chunks waiting to be delivered.
+                if (chunk >= window) {
+                    if (options.isUnordered()) {
+                        waitFor(delivered.get(chunk - window));
+                    } else {
+                        deliver(waitFor(validated.get(chunk - window)));
+                    }
+                }
+
+                CompletableFuture<Long> count = CompletableFuture.supplyAsync(
+                        () -> countLines(chunkStarts[chunk], chunkStarts[chunk + 1]), pool);
+                CompletableFuture<Long> chunkLineBase = lineBase;
+                lineBase = lineBase.thenCombine(count, Long::sum);
+
+                CompletableFuture<ChunkResult> speculative = chunkLineBase.thenApplyAsync(
+                        base -> parseChunk(chunkStarts[chunk], chunkStarts[chunk + 1], base), pool);
+
+                CompletableFuture<ChunkResult> result;
+                if (chunk == 0) {
+                    result = speculative;
+                } else {
+                    result = validated.get(chunk - 1)
+                            .thenCombineAsync(speculative, (previous, current) -> validate(chunk, previous, current), pool);
+                }
+                validated.add(result);
+                if (chunk >= window) {
+                    // Delivered - drop the reference so the records can be collected.
+                    validated.set(chunk - window, null);
+                }
+
+                if (options.isUnordered()) {
+                    delivered.add(result.thenAcceptAsync(this::deliver, pool));
+                }
+            }
+
+            for (int i = Math.max(0, chunkCount - window); i < chunkCount; i++) {
+                if (options.isUnordered()) {
+                    waitFor(delivered.get(i));
+                } else {
+                    deliver(waitFor(validated.get(i)));
+                }
+            }
+        } catch (CompletionException e) {
+            validated.stream().filter(future -> future != null).forEach(future -> future.cancel(false));
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T waitFor(CompletableFuture<T> future) {
+        return future.join();
+    }
+
+    /**
+     * Confirm that the {@code current} chunk began where the {@code previous} chunk's last record ended, re-parsing it from the correct
+     * offset if it didn't.
+     */
+    private ChunkResult validate(int chunk, ChunkResult previous, ChunkResult current) {
+        ChunkResult result = current;
+        if (current.start != previous.nextStart) {
+            long start = previous.nextStart;
+            long end = chunkStarts[chunk + 1];
+            if (start >= end) {
+                // The previous chunk's last record consumed this entire chunk.
+                result = new ChunkResult(start, start, current.lineBase);
+            } else {
+                log.debug(String.format("Chunk %d of %s started mid-record at %d - re-parsing from %d.",
+                        chunk, path, current.start, start));
+                long lineBase = current.lineBase + countLines(current.start, start);
+                result = parseChunk(start, end, lineBase);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deliver the results of a validated chunk - in ordered mode this is only ever called from the reading thread, in unordered mode the
+     * records of several chunks can be delivered at once but their columnar batches are handed over one at a time.
+     */
+    private void deliver(ChunkResult result) {
+        for (Object entry : result.entries) {
+            if (entry instanceof MatchedRecord) {
+                MatchedRecord record = (MatchedRecord) entry;
+                fileParser.doCallback(record.getRecordName(), record);
+            } else if (entry instanceof HeldBatch) {
+                HeldBatch held = (HeldBatch) entry;
+                synchronized (batchDeliveryLock) {
+                    held.sink.deliver(held.batch);
+                }
+            } else {
+                ParseFailure failure = (ParseFailure) entry;
+                fileParser.doExceptionCallback(failure.exception, failure.exception.getMessage(), failure.line);
+            }
+        }
+
+        // Only the offsets are needed from here on.
+        result.entries.clear();
+    }
+
+    /**
+     * Parse all records that start at or after {@code start} and before {@code end}. Records starting before {@code end} are read to
+     * completion even if they extend beyond it. Failures to parse a record are held to be reported with the chunk's records, failures to
+     * read the file end the read.
+     */
+    private ChunkResult parseChunk(long start, long end, long lineBase) {
+        ChunkResult result = new ChunkResult(start, fileSize, lineBase);
+
+        ParseCursor cursor = fileParser.newCursor((int) Math.min(Integer.MAX_VALUE, lineBase));
+        // The records of a chunk are held until the chunk is delivered, so each needs beans of its own.
+        cursor.setReuseBeans(false);
+        // As are the rows collected into columns.
+        for (String recordName : cursor.getColumnarSinkRecords()) {
+            ColumnarSink sink = cursor.getColumnarSink(recordName);
+            cursor.setColumnarSink(recordName, sink.buffering(batch -> result.entries.add(new HeldBatch(sink, batch))));
+        }
+
+        int windowSize = (int) Math.min(MappedLineReader.DEFAULT_WINDOW_SIZE, Math.max(end - start, 64 * 1024));
+        try (MappedLineReader reader = new MappedLineReader(path, charset, windowSize, start)) {
+            while (true) {
+                long recordStart = cursor.hasPendingLine() ? reader.getLastLineStart() : reader.getPosition();
+                if (recordStart >= end) {
+                    result.nextStart = recordStart;
+                    break;
+                }
+
+                MatchedRecord record;
+                try {
+                    record = fileFormat.nextRecord(reader, cursor);
+                } catch (IOException e) {
+                    // As with a sequential read, the file can no longer be read - stop rather than report it against the record.
+                    throw e;
+                } catch (Exception e) {
+                    result.entries.add(new ParseFailure(e, cursor.getCurrentParsedLine()));
+                    continue;
+                }
+
+                if (record != null) {
+                    result.entries.add(record);
+                } else if (cursor.getCurrentParsedLine() == null) {
+                    break;
+                }
+            }
+            cursor.flushColumnarSinks();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Cut the file into chunks, moving each nominal chunk boundary forward to the start of the next line.
+     */
+    private long[] findChunkStarts() throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            long chunkSize = options.getChunkSize();
+            long start = 0;
+            while (start < fileSize) {
+                starts.add(start);
+                start = nextLineStart(channel, start + chunkSize);
+            }
+        }
+        starts.add(fileSize);
+        return starts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Find the first line start at or after {@code offset}.
+     */
+    private long nextLineStart(FileChannel channel, long offset) throws IOException {
+        if (offset >= fileSize) {
+            return fileSize;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = offset - 1;
+        while (position < fileSize) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    return position + i + 1;
+                } else if (b == '\r') {
+                    if (i + 1 < read) {
+                        if (buffer.get(i + 1) != '\n') {
+                            return position + i + 1;
+                        }
+                    } else if (position + i + 1 >= fileSize) {
+                        return fileSize;
+                    } else {
+                        // Re-read from the \r to see what follows it.
+                        read = i;
+                        break;
+                    }
+                }
+            }
+            position += Math.max(read, 1);
+        }
+        return fileSize;
+    }
+
+    /**
+     * Count the line terminators between {@code start} (inclusive) and {@code end} (exclusive) - {@code \r\n} counts once.
+     */
+    private long countLines(long start, long end) {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = start;
+            while (position < end) {
+                // Map one extra byte (when available) so that a \r at the end of the range can see what follows it.
+                int length = (int) Math.min(SCAN_WINDOW_SIZE, end - position);
+                int mapLength = (int) Math.min(length + 1L, fileSize - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, mapLength);
+                for (int i = 0; i < length; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '\n' || (b == '\r' && (i + 1 >= mapLength || buffer.get(i + 1) != '\n'))) {
+                        lines++;
+                    }
+                }
+                position += length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    /**
+     * The outcome of parsing a chunk.
+     */
+    private static class ChunkResult {
+        private final long start;
+        private final long lineBase;
+        private long nextStart;
+        private final List<Object> entries = new ArrayList<>();
+
+        ChunkResult(long start, long nextStart, long lineBase) {
+            this.start = start;
+            this.nextStart = nextStart;
+            this.lineBase = lineBase;
+        }
+    }
+
+    /**
+     * A batch of rows collected into columns, held until the chunk's records are delivered.
+     */
+    private static class HeldBatch {
+        private final ColumnarSink sink;
+        private final ColumnBatch batch;
+
+        HeldBatch(ColumnarSink sink, ColumnBatch batch) {
+            this.sink = sink;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * An exception raised while parsing a record, held until the chunk's records are delivered.
+     */
+    private static class ParseFailure {
+        private final Exception exception;
+        private final String line;
+
+        ParseFailure(Exception exception, String line) {
+            this.exception = exception;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import java.util.concurrent.ForkJoinPool;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * Options controlling {@link FileParser#read(ParallelReadOptions)}. Any option left unset falls back to a sensible default.
+ */
+@Builder
+@AllArgsConstructor
+public class ParallelReadOptions {
+
+    /**
+     * The default number of bytes in each chunk of the file that is parsed as a unit.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The pool on which chunks are parsed - defaults to {@link ForkJoinPool#commonPool()}.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The approximate size, in bytes, of each chunk - chunk boundaries are moved forward to the next line boundary.
+     */
+    private long chunkSize;
+
+    /**
+     * The maximum number of chunks parsed ahead of the chunk currently being delivered - bounds the memory held by parsed but not yet
+     * delivered records. Defaults to twice the pool's parallelism.
+     */
+    private int maxChunksInFlight;
+
+    /**
+     * If {@code true} records are handed to the {@code RecordCallback}s as soon as their chunk is parsed, on the pool's threads and
+     * possibly concurrently, so callbacks must be thread-safe - the batches of a {@code ColumnarSink} are handed to its consumer one at a
+     * time. If {@code false} (the default) records are delivered on the calling thread in the order in which they appear in the file.
+     */
+    private boolean unordered;
+
+    public ParallelReadOptions() {
+    }
+
+    public ForkJoinPool getPool() {
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    public long getChunkSize() {
+        return chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    public int getMaxChunksInFlight() {
+        return maxChunksInFlight > 0 ? maxChunksInFlight : Math.max(2, getPool().getParallelism() * 2);
+    }
+
+    public boolean isUnordered() {
+        return unordered;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.blackbear.flatworm.columnar.ColumnarSink;
+import com.blackbear.flatworm.config.RecordBO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Holds the state of a single parse of a data source - where the parse is within the input and what was last read. The configuration
+ * objects ({@link FileFormat}, {@link RecordBO}, etc.) hold no parsing state of their own, so a single {@link FileFormat} can be used to
+ * parse many data sources at once provided each parse has its own {@code ParseCursor}. A {@code ParseCursor} itself is not thread safe.
+ */
+public class ParseCursor {
+
+    /**
+     * The number of lines read from the input that began a record.
+     */
+    @Getter
+    @Setter
+    private int lineNumber;
+
+    /**
+     * The line of data that began the record most recently parsed (or that failed to parse) - {@code null} once the end of the input has
+     * been reached.
+     */
+    @Getter
+    @Setter
+    private String currentParsedLine = "";
+
+    @Getter
+    @Setter
+    private MatchedRecord lastRecordRead;
+
+    @Getter
+    @Setter
+    private RecordBO lastParsingRecord;
+
+    /**
+     * The last line read from the input by the record being parsed.
+     */
+    @Getter
+    @Setter
+    private String lastReadLine;
+
+    /**
+     * Whether or not {@code lastReadLine} was consumed by the record being parsed - if not, it's the first line of the next record.
+     */
+    @Getter
+    @Setter
+    private boolean parsedLastReadLine;
+
+    /**
+     * The properties to map, by record name, for records that don't need all of their fields.
+     */
+    private final Map<String, Set<String>> projections = new HashMap<>();
+
+    /**
+     * The filters, by record name, that the raw fields of a record must pass for it to be parsed.
+     */
+    private final Map<String, List<FieldFilter>> filters = new HashMap<>();
+
+    /**
+     * The sinks, by record name, that collect the fields of records into columns instead of beans.
+     */
+    private final Map<String, ColumnarSink> columnarSinks = new HashMap<>();
+
+    /**
+     * The names of the records read as {@link LazyRecord}s.
+     */
+    private final Set<String> lazyRecords = new HashSet<>();
+
+    /**
+     * Whether or not the beans, and the {@link MatchedRecord}, of one record are reused for the next - see {@link
+     * FileParser#setReuseBeans(boolean)}.
+     */
+    @Getter
+    @Setter
+    private boolean reuseBeans;
+
+    /**
+     * The beans, by record name, handed from one record to the next when reusing beans.
+     */
+    private final Map<String, BeanSlotMap> reusableBeans = new HashMap<>();
+
+    private MatchedRecord reusableRecord;
+
+    public ParseCursor() {
+    }
+
+    /**
+     * Constructor for ParseCursor that continues the line numbering from a point part way through the input.
+     *
+     * @param lineNumber The number of lines preceding the first line to be read.
+     */
+    public ParseCursor(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Determine if the last record parsed read ahead a line that it didn't consume - if so, that line will be the first line considered by
+     * the next record rather than a freshly read line.
+     *
+     * @return {@code true} if there is a read-ahead line pending and {@code false} if not.
+     */
+    public boolean hasPendingLine() {
+        return lastParsingRecord != null && !parsedLastReadLine;
+    }
+
+    /**
+     * Only map the given properties of a record - the fields of its other properties are skipped over without being extracted, converted
+     * or set on the beans (which are still created).
+     *
+     * @param recordName The name of the record.
+     * @param properties The properties to map, each either a {@code propertyName} or a {@code beanRef.propertyName} - {@code null} to map
+     *                   every field again.
+     */
+    public void setProjection(String recordName, Collection<String> properties) {
+        if (properties == null) {
+            projections.remove(recordName);
+        } else {
+            projections.put(recordName, ImmutableSet.copyOf(properties));
+        }
+    }
+
+    /**
+     * Get the properties to map for a record.
+     *
+     * @param recordName The name of the record.
+     * @return the properties or {@code null} if every field of the record is mapped.
+     */
+    public Set<String> getProjection(String recordName) {
+        return projections.isEmpty() ? null : projections.get(recordName);
+    }
+
+    /**
+     * Add a filter that the raw field of a record must pass for the record to be parsed - records that fail any of their filters are read
+     * past without creating their beans. See {@link FieldFilter}.
+     *
+     * @param recordName The name of the record.
+     * @param filter     The {@link FieldFilter} instance.
+     */
+    public void addFilter(String recordName, FieldFilter filter) {
+        filters.computeIfAbsent(recordName, name -> new ArrayList<>()).add(filter);
+    }
+
+    /**
+     * Remove all of the filters of a record.
+     *
+     * @param recordName The name of the record.
+     * @return {@code true} if the record had filters and {@code false} if not.
+     */
+    public boolean removeFilters(String recordName) {
+        return filters.remove(recordName) != null;
+    }
+
+    /**
+     * Get the filters of a record.
+     *
+     * @param recordName The name of the record.
+     * @return the {@link FieldFilter}s or {@code null} if the record has none.
+     */
+    public List<FieldFilter> getFilters(String recordName) {
+        return filters.isEmpty() ? null : filters.get(recordName);
+    }
+
+    /**
+     * Collect the fields of a record into the columns of a {@link ColumnarSink} rather than creating its beans - such records aren't
+     * returned as {@link MatchedRecord}s.
+     *
+     * @param recordName The name of the record.
+     * @param sink       The {@link ColumnarSink} instance - {@code null} to go back to creating beans.
+     */
+    public void setColumnarSink(String recordName, ColumnarSink sink) {
+        if (sink == null) {
+            columnarSinks.remove(recordName);
+        } else {
+            columnarSinks.put(recordName, sink);
+        }
+    }
+
+    /**
+     * Get the {@link ColumnarSink} of a record.
+     *
+     * @param recordName The name of the record.
+     * @return the {@link ColumnarSink} or {@code null} if the record's beans are created.
+     */
+    public ColumnarSink getColumnarSink(String recordName) {
+        return columnarSinks.isEmpty() ? null : columnarSinks.get(recordName);
+    }
+
+    /**
+     * @return the names of the records collected by a {@link ColumnarSink}.
+     */
+    public Set<String> getColumnarSinkRecords() {
+        return ImmutableSet.copyOf(columnarSinks.keySet());
+    }
+
+    /**
+     * Hand the rows collected so far by every {@link ColumnarSink} to their consumers - call once the input has been read.
+     */
+    public void flushColumnarSinks() {
+        columnarSinks.values().forEach(ColumnarSink::flush);
+    }
+
+    /**
+     * Read a record as a {@link LazyRecord} - its lines are kept and its fields converted only as they're asked for, and no beans are
+     * created. The record is returned as a {@link MatchedRecord} holding the {@link LazyRecord} (see {@link
+     * MatchedRecord#getLazyRecord()}). Only records without identity lines can be read lazily.
+     *
+     * @param recordName The name of the record.
+     * @param lazy       {@code true} to read the record lazily and {@code false} to go back to creating its beans.
+     */
+    public void setLazy(String recordName, boolean lazy) {
+        if (lazy) {
+            lazyRecords.add(recordName);
+        } else {
+            lazyRecords.remove(recordName);
+        }
+    }
+
+    /**
+     * Determine if a record is read as a {@link LazyRecord}.
+     *
+     * @param recordName The name of the record.
+     * @return {@code true} if it is and {@code false} if its beans are created.
+     */
+    public boolean isLazy(String recordName) {
+        return !lazyRecords.isEmpty() && lazyRecords.contains(recordName);
+    }
+
+    /**
+     * Get the beans of the last record of the given name parsed while reusing beans, ready to be overwritten by the next - the child beans
+     * (see {@link com.blackbear.flatworm.config.RecordDefinitionBO#getChildBeanRefs()}) are dropped as they are never reused.
+     *
+     * @param record The {@link RecordBO} instance about to be parsed.
+     * @return the {@link BeanSlotMap} of beans - empty the first time the record is parsed.
+     */
+    public BeanSlotMap getReusableBeans(RecordBO record) {
+        BeanSlotMap beans = reusableBeans.get(record.getName());
+        if (beans == null) {
+            beans = record.getRecordDefinition().newBeanMap();
+            reusableBeans.put(record.getName(), beans);
+        } else {
+            for (String beanRef : record.getRecordDefinition().getChildBeanRefs()) {
+                beans.remove(beanRef);
+            }
+        }
+        return beans;
+    }
+
+    /**
+     * Get the {@link MatchedRecord} returned for every record parsed while reusing beans.
+     *
+     * @return the {@link MatchedRecord} instance.
+     */
+    public MatchedRecord getReusableRecord() {
+        if (reusableRecord == null) {
+            reusableRecord = new MatchedRecord();
+        }
+        return reusableRecord;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+/**
+ * How the {@link com.blackbear.flatworm.config.LinePlan}s of a {@link FileFormat} parse their lines - see {@link
+ * FileFormat#setParseMode(ParseMode)}.
+ */
+public enum ParseMode {
+    /**
+     * Walk the steps of the plan for every line read.
+     */
+    INTERPRETED,
+
+    /**
+     * Generate and load a class per fixed-width line when its plan is compiled that reads each field at its resolved position and calls
+     * the bean's setter directly. Lines that can't be generated - delimited lines, lines with segments, projections, or when no Java
+     * compiler is available at runtime - are interpreted.
+     */
+    GENERATED
+}
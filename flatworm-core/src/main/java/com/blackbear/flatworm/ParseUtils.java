@@ -38,7 +38,7 @@ public class ParseUtils {
      */
     public static Object newBeanInstance(Object beanType) throws FlatwormParserException {
         try {
-            return beanType.getClass().newInstance();
+            return BeanConstructor.find(beanType.getClass()).newInstance();
         } catch (Exception e) {
             throw new FlatwormParserException("Unable to create new instance of bean '" + beanType.getClass() + "'", e);
         }
@@ -71,7 +71,12 @@ public class ParseUtils {
      */
     public static void setProperty(Object target, String propertyName, Object toAdd) throws FlatwormParserException {
         try {
-            PropertyUtils.setProperty(target, propertyName, toAdd);
+            BeanProperty beanProperty = findProperty(target, propertyName);
+            if (beanProperty != null && beanProperty.isWritable()) {
+                beanProperty.set(target, toAdd);
+            } else {
+                PropertyUtils.setProperty(target, propertyName, toAdd);
+            }
         } catch (Exception e) {
             throw new FlatwormParserException(e.getMessage(), e);
         }
@@ -91,10 +96,16 @@ public class ParseUtils {
         if (cardinality.getCardinalityMode() != CardinalityMode.SINGLE) {
 
             boolean addToCollection = true;
-            PropertyDescriptor propDesc;
+            BeanProperty beanProperty = findProperty(target, cardinality.getPropertyName());
+            Class<?> propertyType;
             
             try {
-                propDesc = PropertyUtils.getPropertyDescriptor(target, cardinality.getPropertyName());
+                if (beanProperty != null) {
+                    propertyType = beanProperty.getType();
+                } else {
+                    PropertyDescriptor propDesc = PropertyUtils.getPropertyDescriptor(target, cardinality.getPropertyName());
+                    propertyType = propDesc != null ? propDesc.getPropertyType() : null;
+                }
             }
             catch(Exception e) {
                 // This should only happen via the XML configuration as the annotation configuration uses reflection to 
@@ -108,13 +119,15 @@ public class ParseUtils {
                     || cardinality.getCardinalityMode() == CardinalityMode.RESTRICTED) {
 
                 try {
-                    Object currentValue = PropertyUtils.getProperty(target, cardinality.getPropertyName());
+                    Object currentValue = beanProperty != null && beanProperty.isReadable()
+                            ? beanProperty.get(target)
+                            : PropertyUtils.getProperty(target, cardinality.getPropertyName());
                     int currentSize;
                     
-                    if(Collection.class.isAssignableFrom(propDesc.getPropertyType())) {
+                    if(Collection.class.isAssignableFrom(propertyType)) {
                         currentSize = Collection.class.cast(currentValue).size();
                     }
-                    else if(propDesc.getPropertyType().isArray()) {
+                    else if(propertyType.isArray()) {
                         currentSize = Array.getLength(currentValue);
                     }
                     else {
@@ -122,7 +135,7 @@ public class ParseUtils {
                                 "suggesting that it is an Array or some instance of java.util.Collection. However, the property type " +
                                 "is %s, which is not currently supported.",
                                 target.getClass().getName(), cardinality.getCardinalityMode().name(), 
-                                cardinality.getPropertyName(), propDesc.getPropertyType().getName()));
+                                cardinality.getPropertyName(), propertyType.getName()));
                     }
                     
                     addToCollection = currentSize < cardinality.getMaxCount() || cardinality.getMaxCount() < 0;
@@ -145,7 +158,7 @@ public class ParseUtils {
                 
                 // Need to make sure we have an add method for Arrays.
                 // TODO - add ability to automatically expand an array - for now, use an addMethod or collections.
-                if(StringUtils.isBlank(cardinality.getAddMethod()) && propDesc.getPropertyType().isArray()) {
+                if(StringUtils.isBlank(cardinality.getAddMethod()) && propertyType.isArray()) {
                     throw new FlatwormParserException(String.format("Bean %s with property %s is an Array and therefore an Add Method " +
                             "must be specified in the configuration so that an element can be properly added to the array. " +
                             "Auto-expanding an array is not yet supported.", target.getClass().getName(), cardinality.getPropertyName()));
@@ -200,6 +213,18 @@ public class ParseUtils {
     public static void addValueToCollection(Object target, String collectionPropertyName, Object toAdd) throws FlatwormParserException {
         if (target == null || StringUtils.isBlank(collectionPropertyName) || toAdd == null) return;
         try {
+            BeanProperty beanProperty = findProperty(target, collectionPropertyName);
+            if (beanProperty != null && beanProperty.isReadable()) {
+                Object collectionInstance = beanProperty.get(target);
+                if (collectionInstance == null) {
+                    throw new FlatwormParserException(String.format(
+                            "Unable to invoke the add method on collection %s as it is currently null for instance %s.",
+                            collectionPropertyName, target.getClass().getName()));
+                }
+                beanProperty.addTo(collectionInstance, toAdd);
+                return;
+            }
+
             PropertyDescriptor propertyDescriptor = PropertyUtils.getPropertyDescriptor(target, collectionPropertyName);
             if (propertyDescriptor != null) {
                 Object collectionInstance = PropertyUtils.getProperty(target, collectionPropertyName);
@@ -232,6 +257,13 @@ public class ParseUtils {
         }
     }
 
+    /**
+     * Find the cached {@link BeanProperty} for a simple property of the target - {@code null} means PropertyUtils should be used instead.
+     */
+    private static BeanProperty findProperty(Object target, String propertyName) {
+        return target != null ? BeanProperty.find(target.getClass(), propertyName) : null;
+    }
+
     /**
      * Attempt to determine the {@link CardinalityMode} based upon the {@code fieldType}. {@code Collection} based classes
      * and {@code Arrays} will return {@code CardinalityMode.LOOSE} - everything else will return {@code CardinalityMode.SINGLE}.
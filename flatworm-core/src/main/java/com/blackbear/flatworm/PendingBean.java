@@ -0,0 +1,94 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * Stands in for a bean that is created through a {@link BeanConstruction} while its record is read - the values mapped to its properties
+ * are held here, by slot, and the bean is created from them once the record is complete.
+ */
+public final class PendingBean {
+
+    @Getter
+    private final BeanConstruction construction;
+
+    private final Object[] values;
+
+    PendingBean(BeanConstruction construction, Object[] values) {
+        this.construction = construction;
+        this.values = values;
+    }
+
+    /**
+     * Get the value held for a property.
+     *
+     * @param slot The slot of the property (see {@link BeanConstruction#getSlot(String)}).
+     * @return the value - {@code null} (or the default of a primitive) if none has been read.
+     */
+    public Object get(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Hold the value of a property.
+     *
+     * @param slot  The slot of the property (see {@link BeanConstruction#getSlot(String)}).
+     * @param value The value.
+     */
+    public void set(int slot, Object value) {
+        values[slot] = value;
+    }
+
+    /**
+     * Hold the value of a property.
+     *
+     * @param property The name of the property.
+     * @param value    The value.
+     * @throws FlatwormParserException should the bean have no constructor parameter or builder method for the property.
+     */
+    public void set(String property, Object value) throws FlatwormParserException {
+        int slot = construction.getSlot(property);
+        if (slot < 0) {
+            throw new FlatwormParserException(String.format("%s has no constructor parameter or builder method for property %s.",
+                    construction.getBeanClass().getName(), property));
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Create the bean from the values held.
+     *
+     * @return the new bean.
+     * @throws FlatwormParserException should the bean fail to be created for any reason.
+     */
+    public Object construct() throws FlatwormParserException {
+        return construction.construct(values);
+    }
+
+    @Override
+    public String toString() {
+        return "PendingBean{" +
+                "beanClass=" + construction.getBeanClass().getName() +
+                ", values=" + Arrays.toString(values) +
+                '}';
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.Identity;
+import com.blackbear.flatworm.config.RecordBO;
+import com.blackbear.flatworm.config.impl.FieldIdentityImpl;
+import com.blackbear.flatworm.config.impl.LengthIdentityImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * An index over the record identities of a {@link FileFormat} that narrows the records that could match a line down to a small set of
+ * candidates without testing every record in turn. Records are numbered in declaration order and sets of records are held as bitmasks:
+ *
+ * <ul>
+ * <li>{@link FieldIdentityImpl} records are grouped by start position, field length and case sensitivity and then hashed by the text they
+ * match in that region.</li>
+ * <li>{@link LengthIdentityImpl} records are placed in buckets of line lengths.</li>
+ * <li>Records with no identity (default records), script identities and any other {@link Identity} implementation are always
+ * candidates.</li>
+ * </ul>
+ *
+ * The candidates are then tested with {@link RecordBO#matchesLine(FileFormat, String)} in declaration order so the first record to match
+ * is the same one the linear scan would have found - including which scripts get invoked.
+ */
+final class RecordDispatchIndex {
+
+    private final RecordBO[] records;
+    private final int words;
+    private final long[] alwaysCandidates;
+    private final List<FieldGroup> fieldGroups;
+
+    private final int[] lengthBoundaries;
+    private final long[][] lengthMasks;
+
+    RecordDispatchIndex(List<RecordBO> recordOrder) {
+        records = recordOrder.toArray(new RecordBO[recordOrder.size()]);
+        words = Math.max(1, (records.length + 63) >>> 6);
+        alwaysCandidates = new long[words];
+
+        Map<FieldGroupKey, FieldGroup> groups = new LinkedHashMap<>();
+        List<int[]> lengthRanges = new ArrayList<>();
+        List<Integer> lengthRecords = new ArrayList<>();
+
+        for (int i = 0; i < records.length; i++) {
+            Identity identity = records[i].getRecordIdentity();
+            if (isIndexable(identity, FieldIdentityImpl.class)) {
+                FieldIdentityImpl fieldIdentity = (FieldIdentityImpl) identity;
+                if (fieldIdentity.getStartPosition() != null && fieldIdentity.getStartPosition() >= 0
+                        && fieldIdentity.getFieldLength() != null && fieldIdentity.getFieldLength() >= 0
+                        && fieldIdentity.getMatchingStrings() != null) {
+                    FieldGroupKey key = new FieldGroupKey(fieldIdentity.getStartPosition(), fieldIdentity.getFieldLength(),
+                            fieldIdentity.isIgnoreCase());
+                    FieldGroup group = groups.computeIfAbsent(key, FieldGroup::new);
+                    for (String matchingString : fieldIdentity.getMatchingStrings()) {
+                        group.add(matchingString, i, words);
+                    }
+                    continue;
+                }
+            } else if (isIndexable(identity, LengthIdentityImpl.class)) {
+                LengthIdentityImpl lengthIdentity = (LengthIdentityImpl) identity;
+                if (lengthIdentity.getMinLength() != null && lengthIdentity.getMaxLength() != null) {
+                    if (lengthIdentity.getMinLength() <= lengthIdentity.getMaxLength()) {
+                        lengthRanges.add(new int[]{lengthIdentity.getMinLength(), lengthIdentity.getMaxLength()});
+                        lengthRecords.add(i);
+                    }
+                    continue;
+                }
+            }
+            set(alwaysCandidates, i);
+        }
+        fieldGroups = new ArrayList<>(groups.values());
+
+        // Cut the line lengths into intervals at every min and (max + 1) so that each interval has a fixed set of matching records.
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        for (int[] range : lengthRanges) {
+            boundaries.add(range[0]);
+            boundaries.add(range[1] == Integer.MAX_VALUE ? Integer.MAX_VALUE : range[1] + 1);
+        }
+        lengthBoundaries = boundaries.stream().mapToInt(Integer::intValue).toArray();
+        lengthMasks = new long[lengthBoundaries.length][];
+        for (int b = 0; b < lengthBoundaries.length; b++) {
+            long[] mask = new long[words];
+            int length = lengthBoundaries[b];
+            for (int r = 0; r < lengthRanges.size(); r++) {
+                int[] range = lengthRanges.get(r);
+                if (length >= range[0] && length <= range[1]) {
+                    set(mask, lengthRecords.get(r));
+                }
+            }
+            lengthMasks[b] = mask;
+        }
+    }
+
+    /**
+     * Only index the identity implementations whose matching rules are known - a subclass may have changed them.
+     */
+    private static boolean isIndexable(Identity identity, Class<? extends Identity> identityClass) {
+        return identity != null && identity.getClass() == identityClass;
+    }
+
+    /**
+     * Find the first record, in declaration order, that matches the line.
+     *
+     * @param fileFormat The {@link FileFormat} this index was built for.
+     * @param line       The line of data.
+     * @return the matching {@link RecordBO} or {@code null} if none match.
+     * @throws com.blackbear.flatworm.errors.FlatwormParserException should a record's identity fail while being tested.
+     */
+    RecordBO findMatchingRecord(FileFormat fileFormat, String line) throws com.blackbear.flatworm.errors.FlatwormParserException {
+        long[] candidates = Arrays.copyOf(alwaysCandidates, words);
+
+        for (FieldGroup group : fieldGroups) {
+            group.collect(line, candidates);
+        }
+
+        if (lengthBoundaries.length > 0) {
+            int bucket = Arrays.binarySearch(lengthBoundaries, line.length());
+            if (bucket < 0) {
+                bucket = -bucket - 2;
+            }
+            if (bucket >= 0) {
+                or(candidates, lengthMasks[bucket]);
+            }
+        }
+
+        for (int w = 0; w < words; w++) {
+            long word = candidates[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                if (records[index].matchesLine(fileFormat, line)) {
+                    return records[index];
+                }
+                word &= word - 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describe the index - useful when debugging a layout.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("RecordDispatchIndex{records=").append(records.length);
+        for (FieldGroup group : fieldGroups) {
+            builder.append(", field[start=").append(group.key.start)
+                    .append(", length=").append(group.key.length)
+                    .append(", ignoreCase=").append(group.key.ignoreCase)
+                    .append(", keys=").append(group.keyCount()).append(']');
+        }
+        builder.append(", lengthBuckets=").append(lengthBoundaries.length);
+        builder.append(", alwaysTested=[");
+        String separator = "";
+        for (int i = 0; i < records.length; i++) {
+            if ((alwaysCandidates[i >>> 6] & (1L << i)) != 0) {
+                builder.append(separator).append(records[i].getName());
+                separator = ", ";
+            }
+        }
+        return builder.append("]}").toString();
+    }
+
+    private static void set(long[] mask, int index) {
+        mask[index >>> 6] |= 1L << index;
+    }
+
+    private static void or(long[] target, long[] source) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] |= source[w];
+        }
+    }
+
+    /**
+     * Case folding equivalent to that of {@link String#regionMatches(boolean, int, String, int, int)}.
+     */
+    private static String fold(CharSequence value, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return new String(chars);
+    }
+
+    private static final class FieldGroupKey {
+        private final int start;
+        private final int length;
+        private final boolean ignoreCase;
+
+        FieldGroupKey(int start, int length, boolean ignoreCase) {
+            this.start = start;
+            this.length = length;
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FieldGroupKey that = (FieldGroupKey) o;
+            return start == that.start && length == that.length && ignoreCase == that.ignoreCase;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, length, ignoreCase);
+        }
+    }
+
+    /**
+     * All field identities testing the same region of the line. A matching string is compared over the shorter of its own length and
+     * the field length, so the strings are bucketed by that compared length.
+     */
+    private static final class FieldGroup {
+        private final FieldGroupKey key;
+        private final Map<Integer, Map<String, long[]>> masksByComparedLength = new HashMap<>();
+        private int[] comparedLengths = new int[0];
+
+        FieldGroup(FieldGroupKey key) {
+            this.key = key;
+        }
+
+        void add(String matchingString, int record, int words) {
+            int comparedLength = Math.min(key.length, matchingString.length());
+            String value = key.ignoreCase ? fold(matchingString, 0, comparedLength) : matchingString.substring(0, comparedLength);
+            Map<String, long[]> masks = masksByComparedLength.computeIfAbsent(comparedLength, length -> {
+                comparedLengths = Arrays.copyOf(comparedLengths, comparedLengths.length + 1);
+                comparedLengths[comparedLengths.length - 1] = length;
+                return new HashMap<>();
+            });
+            set(masks.computeIfAbsent(value, v -> new long[words]), record);
+        }
+
+        void collect(String line, long[] candidates) {
+            if (line.length() < key.start + key.length) {
+                return;
+            }
+            for (int comparedLength : comparedLengths) {
+                int end = key.start + comparedLength;
+                String value = key.ignoreCase ? fold(line, key.start, end) : line.substring(key.start, end);
+                long[] mask = masksByComparedLength.get(comparedLength).get(value);
+                if (mask != null) {
+                    or(candidates, mask);
+                }
+            }
+        }
+
+        int keyCount() {
+            return masksByComparedLength.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+/**
+ * Implemented by beans that can clear themselves for reuse. When a {@link FileParser} reuses beans (see {@link
+ * FileParser#setReuseBeans(boolean)}) each bean is handed the fields of the next record in place of a new instance being created, and those
+ * implementing {@code ReusableBean} are {@link #reset()} first - without it the properties that the next record doesn't set keep their
+ * values and collections of child beans keep growing.
+ */
+public interface ReusableBean {
+
+    /**
+     * Return the bean to the state of a newly created instance.
+     */
+    void reset();
+}
@@ -20,6 +20,7 @@ import com.google.common.primitives.Ints;
 
 import com.blackbear.flatworm.config.ConversionOptionBO;
 import com.blackbear.flatworm.config.LineToken;
+import com.blackbear.flatworm.converters.DateFormatCache;
 import com.blackbear.flatworm.errors.FlatwormConfigurationException;
 
 import org.apache.commons.lang.StringUtils;
@@ -30,7 +31,6 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.net.URL;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -56,7 +56,10 @@ public final class Util {
     /**
      * <code>split</code> divides a string into many strings based on a delimiter The main difference between this split and the one that
      * comes with Java is this one will ignore delimiters that are within quoted fields <p> <b>NOTE:</b> Delimiter will be ignored once
-     * chrQuote is encountered. Consideration will begin once matching chrQuote is encountered </p>
+     * chrQuote is encountered. Consideration will begin once matching chrQuote is encountered - within quotes a doubled chrQuote is taken
+     * as a single, literal, chrQuote. </p>
+     *
+     * <p>This creates a {@link LineToken} per field - when parsing, use a {@link DelimitedTokenizer} instead.</p>
      *
      * @param str      The string you want to split
      * @param chrSplit character you want to split the string on
@@ -64,27 +67,12 @@ public final class Util {
      * @return List of {@link LineToken} instances representing what was parsed from the line base upon the delimiter.
      */
     public static List<LineToken> split(String str, char chrSplit, char chrQuote) {
-        List<LineToken> tokens = new ArrayList<>();
-        StringBuilder str1 = new StringBuilder();
-        boolean inQuote = false;
-
-        int colIdx = 0;
-        int tokenLength = 0;
-        for (; colIdx < str.length(); colIdx++) {
-            if (str.charAt(colIdx) == chrSplit && !inQuote) {
-                tokens.add(new LineToken(str1.toString(), tokenLength, colIdx));
-                str1 = new StringBuilder();
-                tokenLength = 0;
-            } else if (str.charAt(colIdx) == chrQuote) {
-                tokenLength++;
-                inQuote = (!inQuote);
-            } else {
-                tokenLength++;
-                str1.append(str.charAt(colIdx));
-            }
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(String.valueOf(chrSplit), chrQuote);
+        int count = tokenizer.tokenize(str);
+        List<LineToken> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add(tokenizer.lineToken(i));
         }
-
-        tokens.add(new LineToken(str1.toString(), tokenLength, colIdx));
         return tokens;
     }
 
@@ -111,9 +99,7 @@ public final class Util {
                 throw new Exception(
                         "You must define a conversion-option with a date format or supply one, I can find neither");
 
-        SimpleDateFormat sdf = new SimpleDateFormat(format);
-
-        return sdf.format(date);
+        return DateFormatCache.forPattern(format).format(date);
     }
 
     /**
@@ -215,20 +201,32 @@ public final class Util {
      * @return the string stripped of the specified character types
      */
     public static String strip(String str, String value, Map<String, ConversionOptionBO> options) {
-
-        if (value.equalsIgnoreCase("non-numeric")) {
-            str = numbersOnly.matcher(str).replaceAll("");
-        }
-        if (value.equalsIgnoreCase("non-alpha")) {
-            str = lettersOnly.matcher(str).replaceAll("");
-        }
-        if (value.equalsIgnoreCase("non-alphanumeric")) {
-            str = numbersOrLettersOnly.matcher(str).replaceAll("");
+        Pattern pattern = getStripPattern(value);
+        if (pattern != null) {
+            str = pattern.matcher(str).replaceAll("");
         }
 
         return str;
     }
 
+    /**
+     * Get the {@link Pattern} matching the characters removed by the {@code strip-chars} conversion-option.
+     *
+     * @param value converterName of characters to be stripped. Can be ('non-numeric'|'non-alpha'|'non-alphanumeric')
+     * @return the {@link Pattern} or {@code null} if the {@code value} isn't recognized.
+     */
+    public static Pattern getStripPattern(String value) {
+        Pattern pattern = null;
+        if (value.equalsIgnoreCase("non-numeric")) {
+            pattern = numbersOnly;
+        } else if (value.equalsIgnoreCase("non-alpha")) {
+            pattern = lettersOnly;
+        } else if (value.equalsIgnoreCase("non-alphanumeric")) {
+            pattern = numbersOrLettersOnly;
+        }
+        return pattern;
+    }
+
     /**
      * <br> <br> Specified in flatworm XML file like: <code>&lt;conversion-option name="substring" value="1,10"/&gt;</code>
      *
@@ -240,7 +238,7 @@ public final class Util {
     public static String substring(String str, String value, Map<String, ConversionOptionBO> options) {
 
         String[] args = value.split(",");
-        str = str.substring(new Integer(args[0]), new Integer(args[1]));
+        str = str.substring(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
 
         return str;
     }
@@ -16,6 +16,8 @@
 
 package com.blackbear.flatworm.annotations;
 
+import com.blackbear.flatworm.ConstructionMode;
+
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -56,4 +58,19 @@ public @interface Record {
      * @return the {@link Scriptlet} configuration.
      */
     Scriptlet afterReadRecordScript() default @Scriptlet;
+
+    /**
+     * How the annotated class is created - through its setters, or from all of its values at once once the record has been read.
+     *
+     * @return the {@link ConstructionMode}.
+     */
+    ConstructionMode construction() default ConstructionMode.SETTERS;
+
+    /**
+     * The static factory method for {@link ConstructionMode#FACTORY}, or the static method that creates the builder for {@link
+     * ConstructionMode#BUILDER} ({@code builder} when not given).
+     *
+     * @return the method name.
+     */
+    String factoryMethod() default "";
 }
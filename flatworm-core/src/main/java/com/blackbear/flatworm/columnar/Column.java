@@ -0,0 +1,152 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.blackbear.flatworm.config.FieldBinding;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.converters.ConverterFunctionCache;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import lombok.Getter;
+
+/**
+ * A column of a {@link ColumnBatch} - the values of a single {@code beanRef.propertyName} for each row of the batch, held in a growable
+ * array rather than on a bean per row. The arrays are reused from one batch to the next.
+ */
+public abstract class Column {
+
+    /**
+     * The {@code beanRef.propertyName} of the column.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The type of the property the column stands in for.
+     */
+    @Getter
+    private final Class<?> type;
+
+    /**
+     * The capacity the arrays of a column start with - they grow up to the size of a batch.
+     */
+    static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxCapacity;
+
+    int size;
+
+    Column(String name, Class<?> type, int maxCapacity) {
+        this.name = name;
+        this.type = type;
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * The capacity the arrays of the column start with.
+     */
+    int initialCapacity() {
+        return Math.min(maxCapacity, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the number of values in the column.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Convert the raw field and add it to the column.
+     */
+    abstract void append(FieldBinding binding, CharSequence chars, int start, int end, ConversionHelper conversionHelper)
+            throws FlatwormParserException;
+
+    /**
+     * Add the value used for a row that has no field for the column.
+     */
+    abstract void appendDefault();
+
+    /**
+     * Drop the values after the first {@code rows} - e.g. those added for a row that then failed to parse.
+     */
+    void truncate(int rows) {
+        size = Math.min(size, rows);
+    }
+
+    /**
+     * The capacity the arrays of the column should grow to so that another value can be added.
+     */
+    int grow(int capacity) {
+        return Math.max(1, Math.min(maxCapacity, capacity * 2));
+    }
+
+    /**
+     * Convert the field the same way it would be for a property of the column's type: through the named converter if there is one,
+     * otherwise through the converter registered for the type.
+     */
+    Object convert(FieldBinding binding, CharSequence chars, int start, int end, ConversionHelper conversionHelper)
+            throws FlatwormParserException {
+        String fieldChars = chars.subSequence(start, end).toString();
+        if (binding.getConverterName() != null) {
+            return binding.convert(fieldChars, null, conversionHelper);
+        }
+        if (binding.isTrimValue()) {
+            fieldChars = fieldChars.trim();
+        }
+        try {
+            return ConverterFunctionCache.convertFromString(type, fieldChars, binding.getConversionOptions());
+        } catch (Exception e) {
+            throw conversionFailure(chars, start, end, e);
+        }
+    }
+
+    FlatwormParserException conversionFailure(CharSequence chars, int start, int end, Exception e) {
+        String message = String.format("Failed to convert value '%s' for column %s.", chars.subSequence(start, end), name);
+        return new FlatwormParserException(message, e);
+    }
+
+    /**
+     * @return the index of the first character of the field once trimmed (if the field is trimmed).
+     */
+    static int trimStart(FieldBinding binding, CharSequence chars, int start, int end) {
+        if (binding.isTrimValue()) {
+            while (start < end && chars.charAt(start) <= ' ') {
+                start++;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @return the index after the last character of the field once trimmed (if the field is trimmed).
+     */
+    static int trimEnd(FieldBinding binding, CharSequence chars, int start, int end) {
+        if (binding.isTrimValue()) {
+            while (end > start && chars.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{name='" + name + "', type=" + type.getName() + ", size=" + size + '}';
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * A batch of rows of a record held as columns. The batch, and the arrays of its columns, are reused once the batch has been handed to the
+ * consumer - copy out anything that is needed afterwards.
+ */
+public final class ColumnBatch {
+
+    @Getter
+    private final String recordName;
+
+    private final List<Column> columns;
+
+    private final Map<String, Column> columnsByName = new LinkedHashMap<>();
+
+    int rowCount;
+
+    ColumnBatch(String recordName, List<Column> columns) {
+        this.recordName = recordName;
+        this.columns = Collections.unmodifiableList(columns);
+        columns.forEach(column -> columnsByName.put(column.getName(), column));
+    }
+
+    /**
+     * @return the number of rows in the batch.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the columns, in the order their fields are configured.
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get a column.
+     *
+     * @param name The {@code beanRef.propertyName} of the column.
+     * @return the {@link Column} or {@code null} if there is no such column.
+     */
+    public Column getColumn(String name) {
+        return columnsByName.get(name);
+    }
+
+    public IntColumn getIntColumn(String name) {
+        return getColumn(name, IntColumn.class);
+    }
+
+    public LongColumn getLongColumn(String name) {
+        return getColumn(name, LongColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(String name) {
+        return getColumn(name, DoubleColumn.class);
+    }
+
+    public DictionaryColumn getDictionaryColumn(String name) {
+        return getColumn(name, DictionaryColumn.class);
+    }
+
+    public ObjectColumn getObjectColumn(String name) {
+        return getColumn(name, ObjectColumn.class);
+    }
+
+    private <T extends Column> T getColumn(String name, Class<T> columnClass) {
+        Column column = columnsByName.get(name);
+        Preconditions.checkArgument(columnClass.isInstance(column), "Column %s is a %s, not a %s.", name, column,
+                columnClass.getSimpleName());
+        return columnClass.cast(column);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnBatch{recordName='" + recordName + "', rowCount=" + rowCount + ", columns=" + columns + '}';
+    }
+}
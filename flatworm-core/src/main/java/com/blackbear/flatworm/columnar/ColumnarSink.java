@@ -0,0 +1,254 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.google.common.base.Preconditions;
+
+import com.blackbear.flatworm.BeanProperty;
+import com.blackbear.flatworm.config.BeanBO;
+import com.blackbear.flatworm.config.ConverterBO;
+import com.blackbear.flatworm.config.FieldBinding;
+import com.blackbear.flatworm.config.FieldVisitor;
+import com.blackbear.flatworm.config.Identity;
+import com.blackbear.flatworm.config.LineBO;
+import com.blackbear.flatworm.config.RecordBO;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Collects the fields of a record into columns - {@code int[]}, {@code long[]} and {@code double[]} vectors, dictionary encoded text and
+ * plain objects for everything else - instead of creating the record's beans for every row. The columns follow the same field layout and
+ * converters as the beans would (see {@link com.blackbear.flatworm.config.LinePlan#visitFields}), with the type of each column being the
+ * type of the bean property it stands in for. Full batches are handed to the consumer, the last partial batch once {@link #flush()} is
+ * called.
+ *
+ * <p>Only records made up of sequential lines are supported - not those with identity lines. A {@code ColumnarSink} is not thread
+ * safe.</p>
+ */
+public final class ColumnarSink implements FieldVisitor {
+
+    private final RecordBO record;
+
+    private final ConversionHelper conversionHelper;
+
+    private final int batchSize;
+
+    private final Consumer<ColumnBatch> consumer;
+
+    private final List<LineBO> lines;
+
+    /**
+     * Whether or not each batch gets columns of its own rather than reusing those of the previous batch.
+     */
+    private final boolean buffering;
+
+    /**
+     * The column of each field, by line and then by the index of the field within the line's plan.
+     */
+    private Column[][] columnsByLine;
+
+    private List<Column> columns;
+
+    private ColumnBatch batch;
+
+    private Column[] currentColumns;
+
+    /**
+     * Create a sink for a record.
+     *
+     * @param record           The {@link RecordBO}.
+     * @param conversionHelper The {@link ConversionHelper} holding the named converters.
+     * @param batchSize        The number of rows in a batch.
+     * @param consumer         Given each batch - the batch is reused once it returns.
+     */
+    public ColumnarSink(RecordBO record, ConversionHelper conversionHelper, int batchSize, Consumer<ColumnBatch> consumer) {
+        this(record, conversionHelper, batchSize, consumer, false);
+    }
+
+    private ColumnarSink(RecordBO record, ConversionHelper conversionHelper, int batchSize, Consumer<ColumnBatch> consumer,
+                         boolean buffering) {
+        this.record = Preconditions.checkNotNull(record, "The record is required.");
+        this.conversionHelper = Preconditions.checkNotNull(conversionHelper, "The conversion helper is required.");
+        this.consumer = Preconditions.checkNotNull(consumer, "The batch consumer is required.");
+        Preconditions.checkArgument(batchSize > 0, "The batch size must be greater than zero.");
+        Preconditions.checkArgument(record.getRecordDefinition().getLinesWithIdentities().isEmpty(),
+                "Record %s has identity lines, which aren't supported by a ColumnarSink.", record.getName());
+        this.batchSize = batchSize;
+        this.lines = record.getRecordDefinition().getLines();
+        this.buffering = buffering;
+        newBatch();
+    }
+
+    /**
+     * Create a sink for the same record whose batches are held rather than handed to this sink's consumer - e.g. until the rows of a
+     * speculatively parsed chunk of a file are known to be the right ones. Each full batch, and the last partial batch once flushed, is
+     * given to {@code buffer} with columns (and dictionaries) of its own, and can later be handed to this sink's consumer with {@link
+     * #deliver(ColumnBatch)}.
+     *
+     * @param buffer Given each batch - the batch isn't reused.
+     * @return the new {@code ColumnarSink}.
+     */
+    public ColumnarSink buffering(Consumer<ColumnBatch> buffer) {
+        return new ColumnarSink(record, conversionHelper, batchSize, buffer, true);
+    }
+
+    /**
+     * Hand a batch held by a {@link #buffering(Consumer)} sink to the consumer.
+     *
+     * @param heldBatch The batch.
+     */
+    public void deliver(ColumnBatch heldBatch) {
+        consumer.accept(heldBatch);
+    }
+
+    /**
+     * Add the fields of a line of the current row.
+     *
+     * @param lineIndex The index of the line within the record's sequential lines.
+     * @param inputLine The line of data.
+     * @param identity  The {@link Identity} that matched the record.
+     * @throws FlatwormParserException should a field fail to convert.
+     */
+    public void parseLine(int lineIndex, String inputLine, Identity identity) throws FlatwormParserException {
+        currentColumns = columnsByLine[lineIndex];
+        lines.get(lineIndex).getPlan().visitFields(inputLine, identity, this);
+    }
+
+    @Override
+    public void visit(int index, FieldBinding binding, CharSequence chars, int start, int end) throws FlatwormParserException {
+        Column column = currentColumns[index];
+        if (column != null) {
+            column.append(binding, chars, start, end, conversionHelper);
+        }
+    }
+
+    /**
+     * Finish the current row - columns without a field in the row get their default value - and hand the batch to the consumer if it is
+     * full.
+     */
+    public void endRow() {
+        int rowCount = ++batch.rowCount;
+        for (Column column : columns) {
+            if (column.size < rowCount) {
+                column.appendDefault();
+            }
+        }
+        if (rowCount == batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Drop whatever was added for the current row - e.g. when one of its fields fails to convert.
+     */
+    public void abortRow() {
+        for (Column column : columns) {
+            column.truncate(batch.rowCount);
+        }
+    }
+
+    /**
+     * Hand the rows collected so far to the consumer, if there are any, and start a new batch.
+     */
+    public void flush() {
+        abortRow();
+        if (batch.rowCount > 0) {
+            if (buffering) {
+                ColumnBatch heldBatch = batch;
+                newBatch();
+                consumer.accept(heldBatch);
+            } else {
+                try {
+                    consumer.accept(batch);
+                } finally {
+                    batch.rowCount = 0;
+                    for (Column column : columns) {
+                        column.truncate(0);
+                    }
+                }
+            }
+        }
+    }
+
+    public String getRecordName() {
+        return record.getName();
+    }
+
+    /**
+     * Create the columns of each field of the record, and the batch holding them.
+     */
+    private void newBatch() {
+        columns = new ArrayList<>();
+        columnsByLine = new Column[lines.size()][];
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            List<FieldBinding> bindings = lines.get(i).getPlan().getFieldBindings();
+            columnsByLine[i] = new Column[bindings.size()];
+            for (int field = 0; field < bindings.size(); field++) {
+                FieldBinding binding = bindings.get(field);
+                if (binding.getBeanRef() != null) {
+                    String name = binding.getBeanRef() + "." + binding.getPropertyName();
+                    Preconditions.checkArgument(names.add(name), "Record %s maps %s more than once.", record.getName(), name);
+                    Column column = createColumn(name, resolveType(binding));
+                    columnsByLine[i][field] = column;
+                    columns.add(column);
+                }
+            }
+        }
+        batch = new ColumnBatch(record.getName(), columns);
+    }
+
+    /**
+     * The type of the bean property, or failing that the return type of the named converter.
+     */
+    private Class<?> resolveType(FieldBinding binding) {
+        BeanBO bean = record.getRecordDefinition().getBeanMap().get(binding.getBeanRef());
+        BeanProperty property = bean != null ? BeanProperty.find(bean.getBeanObjectClass(), binding.getPropertyName()) : null;
+        if (property != null) {
+            return property.getType();
+        }
+        ConverterBO converter = binding.getConverterName() != null ? conversionHelper.getConverter(binding.getConverterName()) : null;
+        if (converter != null && converter.getReturnType() != null) {
+            try {
+                return Class.forName(converter.getReturnType());
+            } catch (ClassNotFoundException e) {
+                // Fall through to an object column.
+            }
+        }
+        return Object.class;
+    }
+
+    private Column createColumn(String name, Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return new IntColumn(name, type, batchSize);
+        } else if (type == long.class || type == Long.class) {
+            return new LongColumn(name, type, batchSize);
+        } else if (type == double.class || type == Double.class) {
+            return new DoubleColumn(name, type, batchSize);
+        } else if (type == String.class || type == char.class || type == Character.class) {
+            return new DictionaryColumn(name, type, batchSize);
+        }
+        return new ObjectColumn(name, type, batchSize);
+    }
+}
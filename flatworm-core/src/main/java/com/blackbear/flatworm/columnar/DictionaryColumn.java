@@ -0,0 +1,109 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.blackbear.flatworm.config.FieldBinding;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A column of text values, dictionary encoded - each row holds the code of its value in the dictionary, {@code -1} for {@code null}. The
+ * dictionary is kept from one batch to the next so the codes are stable for the whole parse.
+ */
+public final class DictionaryColumn extends Column {
+
+    /**
+     * The code of a {@code null} value.
+     */
+    public static final int NULL_CODE = -1;
+
+    private int[] codes;
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private final Map<String, Integer> codesByValue = new HashMap<>();
+
+    DictionaryColumn(String name, Class<?> type, int maxCapacity) {
+        super(name, type, maxCapacity);
+        codes = new int[initialCapacity()];
+    }
+
+    /**
+     * Get the codes of the column - only the first {@link #size()} are part of the batch.
+     *
+     * @return the array holding the codes.
+     */
+    public int[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * @return the distinct values seen so far, indexed by their code.
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    /**
+     * @param row The row.
+     * @return the value of the row.
+     */
+    public String get(int row) {
+        if (row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        int code = codes[row];
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    @Override
+    void append(FieldBinding binding, CharSequence chars, int start, int end, ConversionHelper conversionHelper)
+            throws FlatwormParserException {
+        Object value = convert(binding, chars, start, end, conversionHelper);
+        add(value != null ? encode(value.toString()) : NULL_CODE);
+    }
+
+    @Override
+    void appendDefault() {
+        add(NULL_CODE);
+    }
+
+    private int encode(String value) {
+        Integer code = codesByValue.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codesByValue.put(value, code);
+        }
+        return code;
+    }
+
+    private void add(int code) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length));
+        }
+        codes[size++] = code;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.blackbear.flatworm.config.FieldBinding;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.converters.ConverterFunctionCache;
+import com.blackbear.flatworm.converters.LongConverterFunction;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.Arrays;
+
+/**
+ * A column of {@code long} values. For a primitive property, fields without a named converter are parsed straight from the line by the
+ * {@link LongConverterFunction} registered with the {@link ConverterFunctionCache}. Missing and {@code null} values are held as {@code 0}.
+ */
+public final class LongColumn extends Column {
+
+    private long[] values;
+
+    LongColumn(String name, Class<?> type, int maxCapacity) {
+        super(name, type, maxCapacity);
+        values = new long[initialCapacity()];
+    }
+
+    /**
+     * Get the values of the column - only the first {@link #size()} are part of the batch.
+     *
+     * @return the array holding the values.
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    /**
+     * @param row The row.
+     * @return the value of the row.
+     */
+    public long get(int row) {
+        if (row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        return values[row];
+    }
+
+    @Override
+    void append(FieldBinding binding, CharSequence chars, int start, int end, ConversionHelper conversionHelper)
+            throws FlatwormParserException {
+        LongConverterFunction converter = ConverterFunctionCache.getLongConverterFunction();
+        if (converter != null && binding.isPrimitiveCandidate() && getType().isPrimitive()) {
+            int trimmedStart = trimStart(binding, chars, start, end);
+            int trimmedEnd = trimEnd(binding, chars, trimmedStart, end);
+            try {
+                add(converter.convert(chars, trimmedStart, trimmedEnd, binding.getConversionOptions()));
+            } catch (Exception e) {
+                throw conversionFailure(chars, start, end, e);
+            }
+        } else {
+            Object value = convert(binding, chars, start, end, conversionHelper);
+            add(value != null ? ((Number) value).longValue() : 0);
+        }
+    }
+
+    @Override
+    void appendDefault() {
+        add(0);
+    }
+
+    private void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[size++] = value;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.blackbear.flatworm.config.FieldBinding;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.Arrays;
+
+/**
+ * A column of converted values of any other type (dates, decimals, etc.).
+ */
+public final class ObjectColumn extends Column {
+
+    private Object[] values;
+
+    ObjectColumn(String name, Class<?> type, int maxCapacity) {
+        super(name, type, maxCapacity);
+        values = new Object[initialCapacity()];
+    }
+
+    /**
+     * Get the values of the column - only the first {@link #size()} are part of the batch.
+     *
+     * @return the array holding the values.
+     */
+    public Object[] getValues() {
+        return values;
+    }
+
+    /**
+     * @param row The row.
+     * @return the value of the row.
+     */
+    public Object get(int row) {
+        if (row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        return values[row];
+    }
+
+    @Override
+    void append(FieldBinding binding, CharSequence chars, int start, int end, ConversionHelper conversionHelper)
+            throws FlatwormParserException {
+        add(convert(binding, chars, start, end, conversionHelper));
+    }
+
+    @Override
+    void appendDefault() {
+        add(null);
+    }
+
+    @Override
+    void truncate(int rows) {
+        Arrays.fill(values, Math.min(size, rows), size, null);
+        super.truncate(rows);
+    }
+
+    private void add(Object value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[size++] = value;
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.blackbear.flatworm.config;
 
+import com.blackbear.flatworm.ConstructionMode;
+
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -27,6 +29,8 @@ public class BeanBO {
     private String beanClass;
     private Class beanObjectClass;
     private RecordDefinitionBO parentRecordDefinition;
+    private ConstructionMode construction = ConstructionMode.SETTERS;
+    private String factoryMethod;
 
     @Override
     public String toString() {
@@ -34,6 +38,7 @@ public class BeanBO {
                 "beanName='" + beanName + '\'' +
                 ", beanClass='" + beanClass + '\'' +
                 ", beanObjectClass=" + beanObjectClass +
+                ", construction=" + construction +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,239 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.BeanConstruction;
+import com.blackbear.flatworm.BeanConstructor;
+import com.blackbear.flatworm.ConstructionMode;
+import com.blackbear.flatworm.PendingBean;
+import com.blackbear.flatworm.ReusableBean;
+import com.blackbear.flatworm.errors.FlatwormConfigurationException;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The beans to create, and in what order, before a line of a record is parsed - worked out once from the {@link RecordDefinitionBO} rather
+ * than by walking the record's lines and elements for every line read. For a line this is:
+ * <ol>
+ * <li>the parent bean of the line's cardinality, if it hasn't been created yet,</li>
+ * <li>the bean of the line's cardinality - followed by the beans of every line with an identity whose parent is that bean, and of their
+ * children in turn, as they'll be added to it,</li>
+ * <li>the beans the line's fields and segments are mapped to, each only once.</li>
+ * </ol>
+ * The beans of the lines without an identity are created together, when the record starts. The beans are created through cached
+ * {@link BeanConstructor}s - or, for a bean that isn't created through its setters, as a {@link PendingBean} that collects its values until
+ * the record is complete.
+ */
+public final class BeanInstantiationPlan {
+
+    private final Step[] steps;
+
+    private BeanInstantiationPlan(List<Step> steps) {
+        this.steps = steps.toArray(new Step[steps.size()]);
+    }
+
+    /**
+     * Compile the plan for the lines without an identity that make up the start of every record.
+     *
+     * @param recordDefinition The {@link RecordDefinitionBO} the lines belong to.
+     * @param lines            The lines.
+     * @return the {@link BeanInstantiationPlan} instance.
+     */
+    static BeanInstantiationPlan compile(RecordDefinitionBO recordDefinition, List<LineBO> lines) {
+        List<Step> steps = new ArrayList<>();
+        Set<String> created = new HashSet<>();
+        for (LineBO line : lines) {
+            compileLine(recordDefinition, line, steps, created, Collections.singletonList(line));
+        }
+        return new BeanInstantiationPlan(steps);
+    }
+
+    /**
+     * Compile the plan for a line with an identity - run each time the line is read.
+     *
+     * @param recordDefinition The {@link RecordDefinitionBO} the line belongs to.
+     * @param line             The line.
+     * @return the {@link BeanInstantiationPlan} instance.
+     */
+    static BeanInstantiationPlan compile(RecordDefinitionBO recordDefinition, LineBO line) {
+        List<Step> steps = new ArrayList<>();
+        compileLine(recordDefinition, line, steps, new HashSet<>(), Collections.singletonList(line));
+        return new BeanInstantiationPlan(steps);
+    }
+
+    /**
+     * @param path The lines whose children are being compiled - a line that is its own ancestor isn't compiled a second time.
+     */
+    private static void compileLine(RecordDefinitionBO recordDefinition, LineBO line, List<Step> steps, Set<String> created,
+                                    List<LineBO> path) {
+        CardinalityBO cardinality = line.getCardinality();
+        if (cardinality != null) {
+            String parentBeanRef = cardinality.getParentBeanRef();
+            if (!StringUtils.isBlank(parentBeanRef) && created.add(parentBeanRef)) {
+                addStep(recordDefinition, parentBeanRef, true, steps);
+            }
+
+            String beanRef = cardinality.getBeanRef();
+            if (!StringUtils.isBlank(beanRef)) {
+                created.add(beanRef);
+                addStep(recordDefinition, beanRef, false, steps);
+
+                // The children of the bean are created along with it - each as though its own line had been read.
+                for (LineBO otherLine : recordDefinition.getLinesWithIdentities()) {
+                    if (otherLine.getCardinality() != null && beanRef.equals(otherLine.getCardinality().getParentBeanRef())
+                            && !path.contains(otherLine)) {
+                        List<LineBO> childPath = new ArrayList<>(path);
+                        childPath.add(otherLine);
+                        compileLine(recordDefinition, otherLine, steps, new HashSet<>(), childPath);
+                    }
+                }
+            }
+        }
+
+        compileElements(recordDefinition, line.getLineElements(), steps, created);
+    }
+
+    private static void compileElements(RecordDefinitionBO recordDefinition, List<LineElement> elements, List<Step> steps,
+                                        Set<String> created) {
+        for (LineElement element : elements) {
+            if (element instanceof RecordElementBO) {
+                CardinalityBO cardinality = ((RecordElementBO) element).getCardinality();
+                if (cardinality != null && !StringUtils.isBlank(cardinality.getBeanRef()) && created.add(cardinality.getBeanRef())) {
+                    addStep(recordDefinition, cardinality.getBeanRef(), false, steps);
+                }
+            } else if (element instanceof SegmentElementBO) {
+                compileElements(recordDefinition, ((SegmentElementBO) element).getLineElements(), steps, created);
+            }
+        }
+    }
+
+    private static void addStep(RecordDefinitionBO recordDefinition, String beanRef, boolean ifAbsent, List<Step> steps) {
+        BeanBO bean = recordDefinition.getBeanMap().get(beanRef);
+        if (bean != null) {
+            steps.add(new Step(beanRef, bean, ifAbsent, !recordDefinition.getChildBeanRefs().contains(beanRef)));
+        }
+    }
+
+    /**
+     * Create the beans of the plan.
+     *
+     * @param beans The beans of the record - the new beans are added, replacing any of the same name.
+     * @param reuse {@code true} to reuse the beans already in {@code beans}, {@link ReusableBean#reset() resetting} them if they can be,
+     *              rather than creating new ones - child beans are always created as their parents keep hold of them.
+     * @throws FlatwormParserException should creating a bean fail for any reason.
+     */
+    public void instantiate(Map<String, Object> beans, boolean reuse) throws FlatwormParserException {
+        for (Step step : steps) {
+            if (step.ifAbsent && beans.containsKey(step.beanRef)) {
+                continue;
+            }
+            Object bean = reuse && step.reusable ? beans.get(step.beanRef) : null;
+            if (bean != null && bean.getClass() == step.beanClass) {
+                if (bean instanceof ReusableBean) {
+                    ((ReusableBean) bean).reset();
+                }
+            } else {
+                beans.put(step.beanRef, step.newInstance());
+            }
+        }
+    }
+
+    /**
+     * Get the beans the plan creates, in the order they are created.
+     *
+     * @return the {@code beanRef} of each bean - a bean may appear more than once when it is created as the child of more than one
+     * line.
+     */
+    public List<String> getBeanRefs() {
+        List<String> beanRefs = new ArrayList<>(steps.length);
+        for (Step step : steps) {
+            beanRefs.add(step.beanRef);
+        }
+        return beanRefs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("BeanInstantiationPlan{");
+        for (int i = 0; i < steps.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(steps[i].beanRef).append(steps[i].ifAbsent ? " (if absent)" : "");
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Create a single bean.
+     */
+    private static final class Step {
+        private final String beanRef;
+        private final Class<?> beanClass;
+        private final BeanConstructor constructor;
+        private final BeanConstruction construction;
+        private final String constructionError;
+        private final boolean ifAbsent;
+        private final boolean reusable;
+
+        Step(String beanRef, BeanBO bean, boolean ifAbsent, boolean reusable) {
+            this.beanRef = beanRef;
+            this.beanClass = bean.getBeanObjectClass();
+            this.ifAbsent = ifAbsent;
+
+            BeanConstruction resolved = null;
+            String error = null;
+            if (beanClass != null && bean.getConstruction() != null && bean.getConstruction() != ConstructionMode.SETTERS) {
+                try {
+                    resolved = BeanConstruction.resolve(beanClass, bean.getConstruction(), bean.getFactoryMethod());
+                } catch (FlatwormConfigurationException e) {
+                    error = e.getMessage();
+                }
+                this.constructor = null;
+            } else {
+                this.constructor = beanClass != null ? BeanConstructor.find(beanClass) : null;
+            }
+            this.construction = resolved;
+            this.constructionError = error;
+            // A constructed bean is a new instance each time - there is nothing to reset.
+            this.reusable = reusable && constructor != null;
+        }
+
+        Object newInstance() throws FlatwormParserException {
+            if (construction != null) {
+                return construction.newPendingBean();
+            }
+            try {
+                if (constructionError != null) {
+                    throw new InstantiationException(constructionError);
+                }
+                if (constructor == null) {
+                    throw new InstantiationException("No class was loaded for bean " + beanRef + ".");
+                }
+                return constructor.newInstance();
+            } catch (Exception e) {
+                throw new FlatwormParserException(String.format("Failed to instantiate new bean %s. Err: %s",
+                        beanClass != null ? beanClass.getName() : beanRef, e.getMessage()), e);
+            }
+        }
+    }
+}
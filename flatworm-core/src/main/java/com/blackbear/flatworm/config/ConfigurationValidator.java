@@ -16,10 +16,15 @@
 
 package com.blackbear.flatworm.config;
 
+import com.blackbear.flatworm.BeanConstruction;
+import com.blackbear.flatworm.ConstructionMode;
 import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.Util;
 import com.blackbear.flatworm.config.impl.FieldIdentityImpl;
 import com.blackbear.flatworm.config.impl.LengthIdentityImpl;
 import com.blackbear.flatworm.config.impl.ScriptIdentityImpl;
+import com.blackbear.flatworm.converters.StringDictionary;
+import com.blackbear.flatworm.errors.FlatwormConfigurationException;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -213,6 +218,38 @@ public class ConfigurationValidator {
         } else {
             recordDefinition.getLines().forEach(line -> validateLine(line, errors));
         }
+
+        List<String> constructedBeanRefs = recordDefinition.getConstructedBeanRefs();
+        if (!constructedBeanRefs.isEmpty()) {
+            recordDefinition.getLines().forEach(line -> validateConstructedBeans(line.getCardinality(), line.getLineElements(),
+                    constructedBeanRefs, errors));
+            recordDefinition.getLinesWithIdentities().forEach(line -> validateConstructedBeans(line.getCardinality(),
+                    line.getLineElements(), constructedBeanRefs, errors));
+        }
+    }
+
+    /**
+     * A bean that isn't created through its setters only exists once the record has been read - it can't be added to another bean, or
+     * have others added to it, as lines and segments are parsed.
+     */
+    private static void validateConstructedBeans(CardinalityBO cardinality, List<LineElement> elements, List<String> constructedBeanRefs,
+                                                 List<String> errors) {
+        if (cardinality != null) {
+            if (constructedBeanRefs.contains(cardinality.getBeanRef())) {
+                errors.add(String.format("Bean %s is constructed once the record is read, so it can't be the bean of a line or "
+                        + "segment.", cardinality.getBeanRef()));
+            }
+            if (constructedBeanRefs.contains(cardinality.getParentBeanRef())) {
+                errors.add(String.format("Bean %s is constructed once the record is read, so it can't be the parent of a line or "
+                        + "segment.", cardinality.getParentBeanRef()));
+            }
+        }
+        for (LineElement element : elements) {
+            if (element instanceof SegmentElementBO) {
+                SegmentElementBO segment = (SegmentElementBO) element;
+                validateConstructedBeans(segment.getCardinality(), segment.getLineElements(), constructedBeanRefs, errors);
+            }
+        }
     }
 
     /**
@@ -232,6 +269,14 @@ public class ConfigurationValidator {
                     "This indicates the fully qualified name of the Java class that will be instantiated and populated when data " +
                     "is parsed.");
         }
+
+        if (bean.getConstruction() != null && bean.getConstruction() != ConstructionMode.SETTERS && bean.getBeanObjectClass() != null) {
+            try {
+                BeanConstruction.resolve(bean.getBeanObjectClass(), bean.getConstruction(), bean.getFactoryMethod());
+            } catch (FlatwormConfigurationException e) {
+                errors.add(e.getMessage());
+            }
+        }
     }
 
     /**
@@ -348,6 +393,12 @@ public class ConfigurationValidator {
         }
         if (StringUtils.isBlank(conversionOption.getValue())) {
             errors.add("Must specify the value attribute for a conversion-option element.");
+        } else if (StringDictionary.OPTION.equals(conversionOption.getName())) {
+            Integer maxSize = Util.tryParseInt(conversionOption.getValue().trim());
+            if (maxSize == null || maxSize <= 0) {
+                errors.add(String.format("The value of the dedupe conversion-option must be the most distinct values to keep - a number "
+                        + "greater than zero, not '%s'.", conversionOption.getValue()));
+            }
         }
     }
 }
@@ -0,0 +1,562 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.BeanConstruction;
+import com.blackbear.flatworm.BeanMappingStrategy;
+import com.blackbear.flatworm.BeanProperty;
+import com.blackbear.flatworm.MethodHandleMappingStrategy;
+import com.blackbear.flatworm.PendingBean;
+import com.blackbear.flatworm.converters.BooleanConverterFunction;
+import com.blackbear.flatworm.converters.CharConverterFunction;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.converters.ConversionOptionChain;
+import com.blackbear.flatworm.converters.ConverterFunctionCache;
+import com.blackbear.flatworm.converters.DoubleConverterFunction;
+import com.blackbear.flatworm.converters.IntConverterFunction;
+import com.blackbear.flatworm.converters.LongConverterFunction;
+import com.blackbear.flatworm.converters.StringDictionary;
+import com.blackbear.flatworm.converters.ToTypeConverterFunction;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Everything needed to move the data of a single {@link RecordElementBO} into its bean, resolved once when the {@link LinePlan} is built
+ * rather than for every line parsed.
+ */
+@Slf4j
+public final class FieldBinding {
+
+    @Getter
+    private final RecordElementBO recordElement;
+
+    @Getter
+    private final String beanRef;
+
+    @Getter
+    private final String propertyName;
+
+    /**
+     * The name of the configured converter, or {@code null} if the converter is chosen by the type of the bean's property.
+     */
+    @Getter
+    private final String converterName;
+
+    @Getter
+    private final boolean trimValue;
+
+    @Getter
+    private final Map<String, ConversionOptionBO> conversionOptions;
+
+    /**
+     * The conversion-options applied to the value before it's given to the named converter.
+     */
+    @Getter
+    private final ConversionOptionChain conversionOptionChain;
+
+    /**
+     * Whether or not a primitive property could be set straight from the line of data - only when the value isn't run through a named
+     * converter or appended to the current value.
+     */
+    @Getter
+    private final boolean primitiveCandidate;
+
+    /**
+     * Whether or not the {@code append} conversion-option is {@code true} - the value is then appended to the property's current value.
+     */
+    private final boolean append;
+
+    /**
+     * The dictionary the {@link String} values are canonicalized through - {@code null} unless the {@code dedupe} conversion-option is
+     * set.
+     */
+    @Getter
+    private final StringDictionary stringDictionary;
+
+    /**
+     * The type of the bean's property, cached against the bean class it was looked up for.
+     */
+    private volatile PropertyType propertyType;
+
+    /**
+     * The named converter's function, cached against the {@link ConversionHelper} it was looked up in.
+     */
+    private volatile NamedConverter namedConverter;
+
+    /**
+     * The slot of the property in a {@link PendingBean}, cached against the {@link BeanConstruction} it was looked up in.
+     */
+    private volatile ConstructionSlot constructionSlot;
+
+    FieldBinding(RecordElementBO recordElement) {
+        this.recordElement = recordElement;
+        this.beanRef = recordElement.getCardinality().getBeanRef();
+        this.propertyName = recordElement.getCardinality().getPropertyName();
+        this.converterName = StringUtils.isBlank(recordElement.getConverterName()) ? null : recordElement.getConverterName();
+        this.trimValue = recordElement.isTrimValue();
+        this.conversionOptions = recordElement.getConversionOptions();
+        this.conversionOptionChain = recordElement.getConversionOptionChain();
+        ConversionOptionBO appendOption = conversionOptions.get("append");
+        this.append = appendOption != null && "true".equalsIgnoreCase(appendOption.getValue());
+        this.primitiveCandidate = converterName == null && !append;
+        this.stringDictionary = recordElement.getStringDictionary();
+    }
+
+    /**
+     * Convert the field found between {@code start} and {@code end} of the line and set it on the bean it is bound to. When the {@link
+     * MethodHandleMappingStrategy} itself is in use (not a subclass, which may override {@code mapBean}) and the property is an {@code
+     * int}, {@code long}, {@code double}, {@code boolean} or {@code char} the value is parsed straight from the line and set without
+     * boxing; otherwise this is the same as {@link #map(String, Map, ConversionHelper, BeanMappingStrategy)} with the substring.
+     *
+     * @param line             The line of data.
+     * @param start            The index of the first character of the field.
+     * @param end              The index after the last character of the field.
+     * @param beans            The beans being populated.
+     * @param conversionHelper The {@link ConversionHelper} used to convert the field value.
+     * @param mappingStrategy  The {@link BeanMappingStrategy} used to set the value on the bean.
+     * @throws FlatwormParserException should the conversion or the mapping fail.
+     */
+    public void map(String line, int start, int end, Map<String, Object> beans, ConversionHelper conversionHelper,
+                    BeanMappingStrategy mappingStrategy) throws FlatwormParserException {
+        if (primitiveCandidate && mappingStrategy.getClass() == MethodHandleMappingStrategy.class) {
+            Object bean = beans.get(beanRef);
+            PrimitiveSetter primitiveSetter = bean != null && !(bean instanceof PendingBean) ? resolve(bean).primitiveSetter : null;
+            if (primitiveSetter != null) {
+                if (trimValue) {
+                    while (start < end && line.charAt(start) <= ' ') {
+                        start++;
+                    }
+                    while (end > start && line.charAt(end - 1) <= ' ') {
+                        end--;
+                    }
+                }
+                if (primitiveSetter.set(this, bean, line, start, end)) {
+                    return;
+                }
+            }
+        }
+        map(line.substring(start, end), beans, conversionHelper, mappingStrategy);
+    }
+
+    /**
+     * Convert the raw field value and set it on the bean it is bound to - or, when the bean is a {@link PendingBean}, hold it until the
+     * bean is constructed.
+     *
+     * @param fieldChars       The raw field value.
+     * @param beans            The beans being populated.
+     * @param conversionHelper The {@link ConversionHelper} used to convert the field value.
+     * @param mappingStrategy  The {@link BeanMappingStrategy} used to set the value on the bean.
+     * @throws FlatwormParserException should the conversion or the mapping fail.
+     */
+    public void map(String fieldChars, Map<String, Object> beans, ConversionHelper conversionHelper, BeanMappingStrategy mappingStrategy)
+            throws FlatwormParserException {
+        Object bean = beans.get(beanRef);
+        if (bean instanceof PendingBean) {
+            mapPending(fieldChars, (PendingBean) bean, conversionHelper);
+            return;
+        }
+        Object value = convert(fieldChars, bean, conversionHelper);
+        mappingStrategy.mapBean(bean, beanRef, propertyName, value, conversionOptions);
+    }
+
+    private void mapPending(String fieldChars, PendingBean bean, ConversionHelper conversionHelper) throws FlatwormParserException {
+        int slot = resolveSlot(bean.getConstruction());
+        if (slot < 0) {
+            throw new FlatwormParserException(String.format("%s has no constructor parameter or builder method for property %s.",
+                    bean.getConstruction().getBeanClass().getName(), propertyName));
+        }
+        Object value = convert(fieldChars, bean, conversionHelper);
+        if (append) {
+            Object current = bean.get(slot);
+            if (current != null) {
+                value = current.toString() + value;
+            }
+        }
+        bean.set(slot, value);
+    }
+
+    /**
+     * Convert the raw field value into the value that would be set on the bean.
+     *
+     * @param fieldChars       The raw field value.
+     * @param bean             The bean the value is destined for - used to find the property type when there is no named converter.
+     * @param conversionHelper The {@link ConversionHelper} used to convert the field value.
+     * @return the converted value.
+     * @throws FlatwormParserException should the conversion fail.
+     */
+    public Object convert(String fieldChars, Object bean, ConversionHelper conversionHelper) throws FlatwormParserException {
+        if (trimValue) {
+            fieldChars = fieldChars.trim();
+        }
+
+        Object value;
+        if (converterName != null) {
+            // Using the configuration based approach.
+            value = conversionHelper.convert(resolveConverter(conversionHelper), converterName, fieldChars, conversionOptionChain,
+                    conversionOptions, beanRef);
+        } else {
+            // Use the reflection approach.
+            Class<?> type = resolvePropertyType(bean);
+            if (type != null) {
+                value = conversionHelper.convert(bean, type, beanRef, propertyName, fieldChars, conversionOptions);
+            } else {
+                value = conversionHelper.convert(bean, beanRef, propertyName, fieldChars, conversionOptions);
+            }
+        }
+        return canonicalize(value);
+    }
+
+    /**
+     * Convert the raw field value without a bean to hand - as {@link #convert(String, Object, ConversionHelper)}, but with the type of
+     * the property already known.
+     *
+     * @param fieldChars       The raw field value.
+     * @param propertyType     The type of the bean's property - {@code null} if it isn't known, in which case the value is only converted
+     *                         when there is a named converter and is otherwise left as a {@link String}.
+     * @param conversionHelper The {@link ConversionHelper} used to convert the field value.
+     * @return the converted value.
+     * @throws FlatwormParserException should the conversion fail.
+     */
+    public Object convertToType(String fieldChars, Class<?> propertyType, ConversionHelper conversionHelper)
+            throws FlatwormParserException {
+        if (trimValue) {
+            fieldChars = fieldChars.trim();
+        }
+
+        Object value;
+        if (converterName != null) {
+            value = conversionHelper.convert(resolveConverter(conversionHelper), converterName, fieldChars, conversionOptionChain,
+                    conversionOptions, beanRef);
+        } else if (propertyType == null) {
+            value = fieldChars;
+        } else {
+            try {
+                value = ConverterFunctionCache.convertFromString(propertyType, fieldChars, conversionOptions);
+            } catch (Exception e) {
+                throw new FlatwormParserException(String.format("Failed to convert value '%s' for property %s.%s.", fieldChars, beanRef,
+                        propertyName), e);
+            }
+        }
+        return canonicalize(value);
+    }
+
+    private Object canonicalize(Object value) {
+        return stringDictionary != null && value instanceof String ? stringDictionary.canonicalize((String) value) : value;
+    }
+
+    /**
+     * Find the function of the named converter in the given {@link ConversionHelper} - {@code null} if it isn't registered, in which case
+     * the {@link ConversionHelper} reports the failure.
+     */
+    private ToTypeConverterFunction resolveConverter(ConversionHelper conversionHelper) {
+        NamedConverter resolved = namedConverter;
+        if (resolved == null || resolved.conversionHelper != conversionHelper) {
+            ToTypeConverterFunction function = conversionHelper.getToTypeConverterFunction(converterName);
+            if (function == null) {
+                return null;
+            }
+            resolved = new NamedConverter(conversionHelper, function);
+            namedConverter = resolved;
+        }
+        return resolved.function;
+    }
+
+    /**
+     * Find the type of the bound property on the given bean's class - {@code null} if it can't be found, in which case the full lookup is
+     * left to the {@link ConversionHelper} so that it can report the failure.
+     */
+    private Class<?> resolvePropertyType(Object bean) {
+        if (bean instanceof PendingBean) {
+            BeanConstruction construction = ((PendingBean) bean).getConstruction();
+            int slot = resolveSlot(construction);
+            return slot >= 0 ? construction.getPropertyType(slot) : null;
+        }
+        return bean != null ? resolve(bean).type : null;
+    }
+
+    private int resolveSlot(BeanConstruction construction) {
+        ConstructionSlot cached = constructionSlot;
+        if (cached == null || cached.construction != construction) {
+            cached = new ConstructionSlot(construction, construction.getSlot(propertyName));
+            constructionSlot = cached;
+        }
+        return cached.slot;
+    }
+
+    private PropertyType resolve(Object bean) {
+        PropertyType cached = propertyType;
+        if (cached != null && cached.beanClass == bean.getClass()) {
+            return cached;
+        }
+
+        PropertyType resolved = new PropertyType(bean.getClass(), null, null);
+        try {
+            PropertyDescriptor descriptor = PropertyUtils.getPropertyDescriptor(bean, propertyName);
+            if (descriptor != null) {
+                Class<?> type = descriptor.getPropertyType();
+                PrimitiveSetter primitiveSetter = PrimitiveSetter.forProperty(BeanProperty.find(bean.getClass(), propertyName));
+                resolved = new PropertyType(bean.getClass(), type, primitiveSetter);
+                propertyType = resolved;
+            }
+        } catch (Exception e) {
+            // Leave it to the ConversionHelper to report.
+        }
+        return resolved;
+    }
+
+    /**
+     * Wrap a failure to convert the field the same way as {@link ConversionHelper#convert(Object, String, String, String, Map)}.
+     */
+    private FlatwormParserException conversionFailure(Object bean, CharSequence line, int start, int end, Exception e) {
+        return new FlatwormParserException(String.format("Failed to convert and set value '%s' on bean %s [%s] for property %s.",
+                line.subSequence(start, end), beanRef, bean.getClass().getName(), propertyName), e);
+    }
+
+    /**
+     * Wrap a failure to set the property the same way as {@link MethodHandleMappingStrategy}.
+     */
+    private FlatwormParserException mappingFailure(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        log.error("While running set property method for " + beanRef + "." + propertyName, t);
+        return new FlatwormParserException("Setting field " + beanRef + "." + propertyName);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append(beanRef).append('.').append(propertyName)
+                .append(" converter=").append(converterName != null ? converterName : "<by property type>");
+        if (trimValue) {
+            builder.append(" trim");
+        }
+        if (!conversionOptions.isEmpty()) {
+            builder.append(" options=").append(conversionOptions.keySet());
+        }
+        return builder.toString();
+    }
+
+    private static final class NamedConverter {
+        private final ConversionHelper conversionHelper;
+        private final ToTypeConverterFunction function;
+
+        NamedConverter(ConversionHelper conversionHelper, ToTypeConverterFunction function) {
+            this.conversionHelper = conversionHelper;
+            this.function = function;
+        }
+    }
+
+    private static final class ConstructionSlot {
+        private final BeanConstruction construction;
+        private final int slot;
+
+        ConstructionSlot(BeanConstruction construction, int slot) {
+            this.construction = construction;
+            this.slot = slot;
+        }
+    }
+
+    private static final class PropertyType {
+        private final Class<?> beanClass;
+        private final Class<?> type;
+        private final PrimitiveSetter primitiveSetter;
+
+        PropertyType(Class<?> beanClass, Class<?> type, PrimitiveSetter primitiveSetter) {
+            this.beanClass = beanClass;
+            this.type = type;
+            this.primitiveSetter = primitiveSetter;
+        }
+    }
+
+    /**
+     * Parses a field with the primitive converter registered with the {@link ConverterFunctionCache} and invokes the setter with the
+     * primitive value.
+     */
+    private abstract static class PrimitiveSetter {
+        final MethodHandle setter;
+
+        PrimitiveSetter(MethodHandle setter) {
+            this.setter = setter;
+        }
+
+        static PrimitiveSetter forProperty(BeanProperty property) {
+            if (property == null || property.getTypedSetter() == null) {
+                return null;
+            }
+            Class<?> type = property.getType();
+            MethodHandle setter = property.getTypedSetter().asType(MethodType.methodType(void.class, Object.class, type));
+            if (type == int.class) {
+                return new IntSetter(setter);
+            } else if (type == long.class) {
+                return new LongSetter(setter);
+            } else if (type == double.class) {
+                return new DoubleSetter(setter);
+            } else if (type == boolean.class) {
+                return new BooleanSetter(setter);
+            } else if (type == char.class) {
+                return new CharSetter(setter);
+            }
+            return null;
+        }
+
+        /**
+         * @return {@code false} if there is no primitive converter registered and the field should be mapped the regular way.
+         */
+        abstract boolean set(FieldBinding binding, Object bean, String line, int start, int end) throws FlatwormParserException;
+    }
+
+    private static final class IntSetter extends PrimitiveSetter {
+        IntSetter(MethodHandle setter) {
+            super(setter);
+        }
+
+        @Override
+        boolean set(FieldBinding binding, Object bean, String line, int start, int end) throws FlatwormParserException {
+            IntConverterFunction converter = ConverterFunctionCache.getIntConverterFunction();
+            if (converter == null) {
+                return false;
+            }
+            int value;
+            try {
+                value = converter.convert(line, start, end, binding.conversionOptions);
+            } catch (Exception e) {
+                throw binding.conversionFailure(bean, line, start, end, e);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw binding.mappingFailure(t);
+            }
+            return true;
+        }
+    }
+
+    private static final class LongSetter extends PrimitiveSetter {
+        LongSetter(MethodHandle setter) {
+            super(setter);
+        }
+
+        @Override
+        boolean set(FieldBinding binding, Object bean, String line, int start, int end) throws FlatwormParserException {
+            LongConverterFunction converter = ConverterFunctionCache.getLongConverterFunction();
+            if (converter == null) {
+                return false;
+            }
+            long value;
+            try {
+                value = converter.convert(line, start, end, binding.conversionOptions);
+            } catch (Exception e) {
+                throw binding.conversionFailure(bean, line, start, end, e);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw binding.mappingFailure(t);
+            }
+            return true;
+        }
+    }
+
+    private static final class DoubleSetter extends PrimitiveSetter {
+        DoubleSetter(MethodHandle setter) {
+            super(setter);
+        }
+
+        @Override
+        boolean set(FieldBinding binding, Object bean, String line, int start, int end) throws FlatwormParserException {
+            DoubleConverterFunction converter = ConverterFunctionCache.getDoubleConverterFunction();
+            if (converter == null) {
+                return false;
+            }
+            double value;
+            try {
+                value = converter.convert(line, start, end, binding.conversionOptions);
+            } catch (Exception e) {
+                throw binding.conversionFailure(bean, line, start, end, e);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw binding.mappingFailure(t);
+            }
+            return true;
+        }
+    }
+
+    private static final class BooleanSetter extends PrimitiveSetter {
+        BooleanSetter(MethodHandle setter) {
+            super(setter);
+        }
+
+        @Override
+        boolean set(FieldBinding binding, Object bean, String line, int start, int end) throws FlatwormParserException {
+            BooleanConverterFunction converter = ConverterFunctionCache.getBooleanConverterFunction();
+            if (converter == null) {
+                return false;
+            }
+            boolean value;
+            try {
+                value = converter.convert(line, start, end, binding.conversionOptions);
+            } catch (Exception e) {
+                throw binding.conversionFailure(bean, line, start, end, e);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw binding.mappingFailure(t);
+            }
+            return true;
+        }
+    }
+
+    private static final class CharSetter extends PrimitiveSetter {
+        CharSetter(MethodHandle setter) {
+            super(setter);
+        }
+
+        @Override
+        boolean set(FieldBinding binding, Object bean, String line, int start, int end) throws FlatwormParserException {
+            CharConverterFunction converter = ConverterFunctionCache.getCharConverterFunction();
+            if (converter == null) {
+                return false;
+            }
+            char value;
+            try {
+                value = converter.convert(line, start, end, binding.conversionOptions);
+            } catch (Exception e) {
+                throw binding.conversionFailure(bean, line, start, end, e);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw binding.mappingFailure(t);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+/**
+ * Given the raw characters of each mapped field of a line by {@link LinePlan#visitFields(String, Identity, FieldVisitor)}.
+ */
+@FunctionalInterface
+public interface FieldVisitor {
+
+    /**
+     * Visit a field.
+     *
+     * @param index   The index of the field within {@link LinePlan#getFieldBindings()}.
+     * @param binding The {@link FieldBinding} of the field.
+     * @param chars   The characters holding the field - usually the whole line.
+     * @param start   The index of the first character of the field within {@code chars}.
+     * @param end     The index after the last character of the field within {@code chars}.
+     * @throws FlatwormParserException should the field fail to be handled.
+     */
+    void visit(int index, FieldBinding binding, CharSequence chars, int start, int end) throws FlatwormParserException;
+}
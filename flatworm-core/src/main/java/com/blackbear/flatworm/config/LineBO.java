@@ -18,20 +18,15 @@ package com.blackbear.flatworm.config;
 
 import com.google.common.base.Strings;
 
-import com.blackbear.flatworm.BeanMappingStrategy;
-import com.blackbear.flatworm.CardinalityMode;
-import com.blackbear.flatworm.ParseUtils;
+import com.blackbear.flatworm.FileFormat;
 import com.blackbear.flatworm.PropertyUtilsMappingStrategy;
-import com.blackbear.flatworm.Util;
 import com.blackbear.flatworm.converters.ConversionHelper;
 import com.blackbear.flatworm.errors.FlatwormParserException;
 
 import org.apache.commons.lang.StringUtils;
 
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -42,20 +37,11 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class LineBO extends AbstractLineElementCollection {
-    private ConversionHelper conversionHelper;
-    private Map<String, Object> beans;
-    private BeanMappingStrategy mappingStrategy = new PropertyUtilsMappingStrategy();
-
-    // properties used for processing delimited input
-    private List<LineToken> lineTokens;
-    private int currentField = 0;
-
     @Getter
     @Setter
     private int index = -1;
 
     @Getter
-    @Setter
     private String delimiter;
 
     @Getter
@@ -89,6 +75,8 @@ public class LineBO extends AbstractLineElementCollection {
     @Setter
     private Boolean recordEndLine;
 
+    private volatile LinePlan plan;
+
     public LineBO() {
     }
 
@@ -100,11 +88,18 @@ public class LineBO extends AbstractLineElementCollection {
     public void setQuoteChar(String quote) {
         if (quote != null) {
             quoteChar = quote.charAt(0);
+            plan = null;
         }
     }
 
     public void setQuoteChar(char quote) {
         quoteChar = quote;
+        plan = null;
+    }
+
+    public void setDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+        plan = null;
     }
 
     public boolean isDelimited() {
@@ -118,6 +113,16 @@ public class LineBO extends AbstractLineElementCollection {
             recordElement.setOrder(elements.size() + 1);
         }
         super.addLineElement(recordElement);
+        plan = null;
+        if (parentRecordDefinition != null) {
+            parentRecordDefinition.invalidatePlans();
+        }
+    }
+
+    @Override
+    public void sortLineElements() {
+        super.sortLineElements();
+        plan = null;
     }
 
     /**
@@ -129,24 +134,28 @@ public class LineBO extends AbstractLineElementCollection {
      */
     public void parseInput(String inputLine, Map<String, Object> beans, ConversionHelper conversionHelper, Identity identity)
             throws FlatwormParserException {
-        this.conversionHelper = conversionHelper;
-        this.beans = beans;
+        parseInput(inputLine, beans, conversionHelper, identity, null);
+    }
 
+    /**
+     * @param inputLine        A single line from file to be parsed into its corresponding bean
+     * @param beans            A HashMap containing a collection of beans which will be populated with parsed data
+     * @param conversionHelper A ConversionHelper which aids in the conversion of data types and string formatting
+     * @param identity         The {@link Identity} instance used to determine that this {@link LineBO} instance should parse this line.
+     * @param projection       The properties to map (see {@link LinePlan#project(Set)}) - {@code null} to map them all.
+     * @throws FlatwormParserException should any issues occur while parsing the data.
+     */
+    public void parseInput(String inputLine, Map<String, Object> beans, ConversionHelper conversionHelper, Identity identity,
+                           Set<String> projection) throws FlatwormParserException {
         if (beforeScriptlet != null) {
             beforeScriptlet.invokeFunction(this, inputLine, beans, conversionHelper);
         }
 
+        LinePlan linePlan = getPlan().project(projection);
         // JBL - check for delimited status
-        if (isDelimited()) {
-            // Don't parse empty lines
-            if (!Strings.isNullOrEmpty(inputLine)) {
-                parseInputDelimited(inputLine, identity);
-            }
-        } else {
-            // This is to help keep the configuration shorter in terms of what fields are required.
-            int charPos = getStartingPosition(elements, identity);
-
-            parseInput(inputLine, elements, charPos);
+        // Don't parse empty lines
+        if (!linePlan.isDelimited() || !Strings.isNullOrEmpty(inputLine)) {
+            linePlan.parse(inputLine, identity, beans, conversionHelper);
         }
 
         if (afterScriptlet != null) {
@@ -155,271 +164,53 @@ public class LineBO extends AbstractLineElementCollection {
     }
 
     /**
-     * Determine the starting position for parsing the line using a non-delimited approach.
-     *
-     * @param elements The {@link LineBO} elements.
-     * @param identity The {@link Identity} instance that was used to identify the line.
-     * @return the starting position for parsing the line.
-     */
-    private int getStartingPosition(List<LineElement> elements, Identity identity) {
-        int startPosition = 0;
-        if (identity instanceof LineTokenIdentity) {
-            Optional<RecordElementBO> recordElement = elements.stream()
-                    .filter(element -> element instanceof RecordElementBO)
-                    .map(RecordElementBO.class::cast)
-                    .findFirst();
-
-            if (recordElement.isPresent()
-                    && (!recordElement.get().isFieldStartSet() || recordElement.get().getFieldStart() < 0)) {
-                LineTokenIdentity lineTokenIdentity = LineTokenIdentity.class.cast(identity);
-                startPosition = lineTokenIdentity.getLineParsingStartingPosition();
-            }
-        }
-
-        return startPosition;
-    }
-
-    /**
-     * Parse out the content of the line based upon the configured {@link RecordElementBO} and {@link SegmentElementBO} instances.
-     *
-     * @param inputLine    The line of data to parse.
-     * @param lineElements The {@link LineElement} instances that drive how the line of data will be parsed.
-     * @param charPos      The character position of the line to begin at.
-     * @return The last character position of the line that was processed.
-     * @throws FlatwormParserException should the parsing fail for any reason.
-     */
-    private int parseInput(String inputLine, List<LineElement> lineElements, int charPos)
-            throws FlatwormParserException {
-        
-        boolean enforceLineLengths = getParentRecordDefinition().getParentRecord().isEnforceLineLengths();
-        
-        for (LineElement lineElement : lineElements) {
-            if (lineElement instanceof RecordElementBO) {
-                RecordElementBO recordElement = (RecordElementBO) lineElement;
-                int start = charPos;
-                int end = charPos;
-                if (recordElement.isFieldStartSet())
-                    start = recordElement.getFieldStart();
-                if (recordElement.isFieldEndSet()) {
-                    end = recordElement.getFieldEnd();
-                    charPos = end;
-                }
-                if (recordElement.isFieldLengthSet()) {
-                    end = start + recordElement.getFieldLength();
-                    charPos = end;
-                }
-                if (end > inputLine.length()) {
-                    if (enforceLineLengths) {
-                        throw new FlatwormParserException("Looking for field " + recordElement.getCardinality().getBeanRef()
-                                + "." + recordElement.getCardinality().getPropertyName()
-                                + " at pos " + start + ", end " + end + ", input length = " + inputLine.length());
-                    } else {
-                        end = charPos = inputLine.length();
-                    }
-                }
-                if (recordElement.getCardinality().getBeanRef() != null) {
-                    String fieldChars = inputLine.substring(start, end);
-
-                    // JBL - to keep from dup. code, moved this to a private method
-                    mapField(fieldChars, recordElement);
-                }
-            } else if (lineElement instanceof SegmentElementBO) {
-                SegmentElementBO segmentElement = (SegmentElementBO) lineElement;
-                charPos = parseInput(inputLine, segmentElement.getLineElements(), charPos);
-                captureSegmentBean(segmentElement);
-            }
-        }
-        return charPos;
-    }
-
-    /**
-     * Convert string field from file into appropriate converterName and set bean's value<br>
-     *
-     * @param fieldChars    the raw string data read from the field
-     * @param recordElement the RecordElementBO, which contains detailed information about the field
-     * @throws FlatwormParserException should any issues occur while parsing the data.
-     */
-    private void mapField(String fieldChars, RecordElementBO recordElement) throws FlatwormParserException {
-        CardinalityBO cardinality = recordElement.getCardinality();
-        String beanRef = cardinality.getBeanRef();
-        String property = cardinality.getPropertyName();
-        Object bean = beans.get(beanRef);
-
-        if (recordElement.isTrimValue()) {
-            fieldChars = fieldChars.trim();
-        }
-
-        Object value;
-        if (!StringUtils.isBlank(recordElement.getConverterName())) {
-            // Using the configuration based approach.
-            value = conversionHelper.convert(recordElement.getConverterName(), fieldChars, recordElement.getConversionOptions(),
-                    beanRef);
-        } else {
-            // Use the reflection approach.
-            value = conversionHelper.convert(bean, beanRef, property, fieldChars, recordElement.getConversionOptions());
-        }
-
-        mappingStrategy.mapBean(bean, beanRef, property, value, recordElement.getConversionOptions());
-    }
-
-    /**
-     * For non-delimited lines that are under a {@link SegmentElementBO} instance, capture them into the parent bean.
-     *
-     * @param segmentElement The {@link SegmentElementBO} instance being processed.
-     * @throws FlatwormParserException should invoking the necessary reflection methods fail for any reason.
-     */
-    private void captureSegmentBean(SegmentElementBO segmentElement) throws FlatwormParserException {
-        String beanRef = segmentElement.getCardinality().getBeanRef();
-        String parentBeanRef = segmentElement.getCardinality().getParentBeanRef();
-        String property = segmentElement.getCardinality().getPropertyName();
-
-        Object parent = beans.get(parentBeanRef);
-        Object toAdd = beans.get(beanRef);
-
-        if (segmentElement.getCardinality().getCardinalityMode() == CardinalityMode.SINGLE) {
-            ParseUtils.setProperty(parent, property, toAdd);
-        } else {
-            ParseUtils.addValueToCollection(segmentElement.getCardinality(), parent, toAdd);
-        }
-    }
-
-    /**
-     * Convert string field from file into appropriate converterName and set bean's value. This is used for delimited files only<br>
+     * Get the {@link LinePlan} used to parse lines, compiling it from the current configuration if it hasn't been already.
      *
-     * @param inputLine the line of data read from the data file
-     * @param identity  The {@link Identity} instance used to determine that this {@link LineBO} instance should parse this line.
-     * @throws FlatwormParserException should any issues occur while parsing the data.
+     * @return the {@link LinePlan} instance.
      */
-    private void parseInputDelimited(String inputLine, Identity identity) throws FlatwormParserException {
-
-        char split = delimiter.charAt(0);
-        if (delimiter.length() == 2 && delimiter.charAt(0) == '\\') {
-            char specialChar = delimiter.charAt(1);
-            switch (specialChar) {
-                case 't':
-                    split = '\t';
-                    break;
-                case 'n':
-                    split = '\n';
-                    break;
-                case 'r':
-                    split = '\r';
-                    break;
-                case 'f':
-                    split = '\f';
-                    break;
-                case '\\':
-                    split = '\\';
-                    break;
-                default:
-                    break;
-            }
+    public LinePlan getPlan() {
+        LinePlan linePlan = plan;
+        if (linePlan == null) {
+            linePlan = compilePlan();
         }
-        lineTokens = Util.split(inputLine, split, quoteChar);
-        cleanupLineTokens(identity);
-        currentField = 0;
-        doParseDelimitedInput(elements);
+        return linePlan;
     }
 
     /**
-     * Remove any record-level, {@link LineTokenIdentity} instance tokens from the list of line tokens so that they don't affect the
-     * processing of the data elements. Additional, for any place where there are segment-records, the {@link LineToken} instances need to
-     * have the positional information updated to reflect that they are virtually at the head of the segment-record even though they aren't
-     * at the head of the line.
+     * (Re)compile the {@link LinePlan} from the current configuration of this line and its elements.
      *
-     * @param identity The {@link Identity} instance used to determine that this {@link LineBO} instance should parse this line.
+     * @return the new {@link LinePlan} instance.
      */
-    private void cleanupLineTokens(Identity identity) {
-        Iterator<LineToken> lineTokenIterator = lineTokens.iterator();
-        if (identity instanceof LineTokenIdentity) {
-            LineTokenIdentity lineTokenIdentity = LineTokenIdentity.class.cast(identity);
-            while (lineTokenIterator.hasNext()) {
-                if (lineTokenIdentity.matchesIdentity(lineTokenIterator.next())) {
-                    lineTokenIterator.remove();
-                }
-            }
-        }
+    public LinePlan compilePlan() {
+        FileFormat fileFormat = getFileFormat();
+        LinePlan linePlan = fileFormat != null
+                ? LinePlan.compile(this, fileFormat.isEnforceLineLengths(), fileFormat.getBeanMappingStrategy(), fileFormat.getParseMode())
+                : LinePlan.compile(this, isRecordEnforcingLineLengths(), new PropertyUtilsMappingStrategy());
+        plan = linePlan;
+        return linePlan;
     }
 
     /**
-     * Walk the configured {@link LineElement}s and parse out the data based upon the configuration.
-     *
-     * @param elements the configured {@link LineElement} instances that control how data will be parsed.
-     * @throws FlatwormParserException should the data not match the configuration.
+     * Discard the compiled {@link LinePlan} so that it is rebuilt the next time a line is parsed.
      */
-    private void doParseDelimitedInput(List<LineElement> elements) throws FlatwormParserException {
-        for (LineElement lineElement : elements) {
-            if (lineElement instanceof RecordElementBO) {
-                try {
-                    RecordElementBO recordElement = RecordElementBO.class.cast(lineElement);
-                    parseDelimitedRecordElement(recordElement, lineTokens.get(currentField).getToken());
-                    ++currentField;
-                } catch (ArrayIndexOutOfBoundsException ex) {
-                    log.warn("Ran out of data on field " + (currentField + 1));
-                }
-            } else if (lineElement instanceof SegmentElementBO) {
-                parseDelimitedSegmentElement(SegmentElementBO.class.cast(lineElement));
-            }
-        }
+    public void invalidatePlan() {
+        plan = null;
     }
 
     /**
-     * Map a read token of data into the correct object based upon the configuration of the {@link RecordElementBO} instance.
-     *
-     * @param recordElement The {@link RecordElementBO} instance that contains the configuration information driving how the data will be
-     *                      added to the correct bean.
-     * @param fieldStr      The token of data read.
-     * @throws FlatwormParserException should the data not match the configuration.
+     * The {@link FileFormat} this line belongs to, if it has been added to one.
      */
-    private void parseDelimitedRecordElement(RecordElementBO recordElement, String fieldStr) throws FlatwormParserException {
-        if (!recordElement.getIgnoreField()) {
-            // JBL - to keep from dup. code, moved this to a private method
-            mapField(fieldStr, recordElement);
-        }
+    private FileFormat getFileFormat() {
+        RecordBO record = parentRecordDefinition != null ? parentRecordDefinition.getParentRecord() : null;
+        return record != null ? record.getParentFileFormat() : null;
     }
 
     /**
-     * Parse the data from the line for the given {@link SegmentElementBO} instance.
-     *
-     * @param segment The {@link SegmentElementBO} instance containing the configuration on how the data is to be parsed.
-     * @throws FlatwormParserException should the data not match the configuration.
+     * Without a {@link FileFormat} whether or not fields that run past the end of the line are an error is configured on the record.
      */
-    private void parseDelimitedSegmentElement(SegmentElementBO segment) throws FlatwormParserException {
-        int minCount = segment.getCardinality().getMinCount();
-        int maxCount = segment.getCardinality().getMaxCount();
-        if (maxCount <= 0) {
-            maxCount = Integer.MAX_VALUE;
-        }
-        if (minCount < 0) {
-            minCount = 0;
-        }
-
-        String beanRef = segment.getCardinality().getBeanRef();
-        if (currentField < lineTokens.size() && !segment.matchesIdentity(lineTokens.get(currentField)) && minCount > 0) {
-            log.error("Segment " + segment.getCardinality().getPropertyName() + " with minimum required count of "
-                    + minCount + " missing.");
-        }
-        int cardinality = 0;
-        try {
-            while (currentField < lineTokens.size() && segment.matchesIdentity(lineTokens.get(currentField))) {
-                currentField++; // Advanced past the identifier token.
-                if (beanRef != null) {
-                    ++cardinality;
-                    String parentRef = segment.getCardinality().getParentBeanRef();
-                    if (parentRef != null) {
-                        Object instance = ParseUtils.newBeanInstance(beans.get(beanRef));
-                        beans.put(beanRef, instance);
-                        ParseUtils.addObjectToProperty(beans.get(parentRef), instance, segment.getCardinality());
-                    }
-                    doParseDelimitedInput(segment.getLineElements());
-                }
-            }
-        } finally {
-            if (cardinality > maxCount) {
-                log.error("Segment '" + segment.getCardinality().getPropertyName() + "' with maximum of " + maxCount
-                        + " encountered actual count of " + cardinality);
-            }
-        }
+    private boolean isRecordEnforcingLineLengths() {
+        RecordBO record = parentRecordDefinition != null ? parentRecordDefinition.getParentRecord() : null;
+        return record == null || record.isEnforceLineLengths();
     }
 
     /**
@@ -0,0 +1,41 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.util.Map;
+
+/**
+ * Parses a fixed-width line into its beans - implemented by the classes {@link LineParserGenerator} generates for a {@link LinePlan} in
+ * {@link com.blackbear.flatworm.ParseMode#GENERATED} mode.
+ */
+@FunctionalInterface
+public interface LineParser {
+
+    /**
+     * Parse the line of data into the beans.
+     *
+     * @param inputLine        The line of data.
+     * @param charPos          Where the first field starts if it doesn't have a start of its own.
+     * @param beans            The beans being populated.
+     * @param conversionHelper The {@link ConversionHelper} used to convert the field values.
+     * @throws FlatwormParserException should the data not match the configuration.
+     */
+    void parse(String inputLine, int charPos, Map<String, Object> beans, ConversionHelper conversionHelper) throws FlatwormParserException;
+}
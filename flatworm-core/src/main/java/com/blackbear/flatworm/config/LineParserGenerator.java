@@ -0,0 +1,411 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.BeanMappingStrategy;
+import com.blackbear.flatworm.MethodHandleMappingStrategy;
+import com.blackbear.flatworm.PropertyUtilsMappingStrategy;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates, compiles and loads a {@link LineParser} class for a fixed-width {@link LinePlan}. The generated {@code parse} method is the
+ * plan's steps unrolled: every field is read at its resolved position (a constant when the field has a start, end or length of its own),
+ * converted by its {@link FieldBinding} and set by calling the bean's setter directly. There is no loop over the steps and no dispatch
+ * through the {@link BeanMappingStrategy}, so each field is a monomorphic call site the JIT can inline.
+ *
+ * <p>Setters are only called directly when the plan uses one of the built-in mapping strategies, the value isn't appended to the current
+ * one and the bean class and setter are public - otherwise the field is mapped through its {@link FieldBinding} as the interpreted plan
+ * does. The same is done for a bean that, when the line is parsed, isn't an instance of the class configured for it.</p>
+ *
+ * <p>Classes are compiled with the system {@link JavaCompiler}, so generation needs a JDK. When there is none, or the class can't be
+ * compiled or loaded, {@link #generate(LinePlan, List)} returns {@code null} and the plan is interpreted.</p>
+ */
+@Slf4j
+final class LineParserGenerator {
+    static final int UNSET = Integer.MIN_VALUE;
+
+    private static final String PACKAGE = "com.blackbear.flatworm.generated";
+
+    private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+
+    private LineParserGenerator() {
+    }
+
+    /**
+     * A field of the line as resolved by the plan.
+     */
+    static final class Field {
+        private final FieldBinding binding;
+        private final boolean mapped;
+        private final int start;
+        private final int end;
+        private final int length;
+
+        Field(FieldBinding binding, boolean mapped, int start, int end, int length) {
+            this.binding = binding;
+            this.mapped = mapped;
+            this.start = start;
+            this.end = end;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Generate the {@link LineParser} of a fixed-width plan.
+     *
+     * @param plan   The {@link LinePlan}.
+     * @param fields The fields of the line in the order they are read - all of them, including those the plan doesn't map.
+     * @return the {@link LineParser} or {@code null} if it couldn't be generated.
+     */
+    static LineParser generate(LinePlan plan, List<Field> fields) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            log.warn("No Java compiler is available - line {} will be interpreted.", plan.getLine().getIndex());
+            return null;
+        }
+
+        Map<String, BeanBO> beanMap = plan.getLine().getParentRecordDefinition() != null
+                ? plan.getLine().getParentRecordDefinition().getBeanMap()
+                : null;
+        BeanMappingStrategy mappingStrategy = plan.getMappingStrategy();
+        boolean directSetters = mappingStrategy.getClass() == PropertyUtilsMappingStrategy.class
+                || mappingStrategy.getClass() == MethodHandleMappingStrategy.class;
+
+        String simpleName = "GeneratedLineParser" + CLASS_COUNT.incrementAndGet();
+        String className = PACKAGE + "." + simpleName;
+        Set<Class<?>> referencedClasses = new LinkedHashSet<>();
+        referencedClasses.add(LineParser.class);
+        String source = generateSource(simpleName, plan, fields, beanMap, directSetters, referencedClasses);
+        log.debug("Generated the parser of line {}:\n{}", plan.getLine().getIndex(), source);
+
+        try {
+            Class<?> parserClass = compile(compiler, className, source, referencedClasses);
+            if (parserClass == null) {
+                return null;
+            }
+            FieldBinding[] bindings = fields.stream().map(field -> field.binding).toArray(FieldBinding[]::new);
+            return (LineParser) parserClass.getConstructor(FieldBinding[].class, BeanMappingStrategy.class)
+                    .newInstance(bindings, mappingStrategy);
+        } catch (Exception | LinkageError e) {
+            log.warn("Failed to load the generated parser of line " + plan.getLine().getIndex() + " - it will be interpreted.", e);
+            return null;
+        }
+    }
+
+    private static String generateSource(String simpleName, LinePlan plan, List<Field> fields, Map<String, BeanBO> beanMap,
+                                         boolean directSetters, Set<Class<?>> referencedClasses) {
+        StringBuilder body = new StringBuilder();
+        Map<String, String> beanVariables = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            FieldBinding binding = field.binding;
+            String description = binding.getBeanRef() + "." + binding.getPropertyName();
+            body.append("        // [").append(i).append("] ").append(description.replace('\n', ' ')).append('\n');
+
+            body.append("        start = ").append(field.start != UNSET ? String.valueOf(field.start) : "charPos").append(";\n");
+            if (field.length != UNSET) {
+                body.append("        end = start + ").append(field.length).append(";\n");
+            } else if (field.end != UNSET) {
+                body.append("        end = ").append(field.end).append(";\n");
+            } else {
+                body.append("        end = charPos;\n");
+            }
+            body.append("        if (end > inputLine.length()) {\n");
+            if (plan.isEnforceLineLengths()) {
+                body.append("            throw new FlatwormParserException(\"Looking for field \" + ").append(literal(description))
+                        .append(" + \" at pos \" + start + \", end \" + end + \", input length = \" + inputLine.length());\n");
+            } else {
+                body.append("            end = inputLine.length();\n");
+            }
+            body.append("        }\n");
+
+            if (field.mapped) {
+                String fallback = "bindings[" + i + "].map(inputLine.substring(start, end), beans, conversionHelper, mappingStrategy);\n";
+                String setter = directSetters ? resolveSetter(binding, beanMap, referencedClasses) : null;
+                if (setter != null) {
+                    String beanType = canonicalName(beanMap.get(binding.getBeanRef()).getBeanObjectClass());
+                    String bean = beanVariables.computeIfAbsent(binding.getBeanRef(), ref -> "bean" + beanVariables.size());
+                    body.append("        if (").append(bean).append(" instanceof ").append(beanType).append(") {\n")
+                            .append("            Object value = bindings[").append(i)
+                            .append("].convert(inputLine.substring(start, end), ").append(bean).append(", conversionHelper);\n")
+                            .append("            try {\n")
+                            .append("                ((").append(beanType).append(") ").append(bean).append(").").append(setter)
+                            .append(";\n")
+                            .append("            } catch (RuntimeException e) {\n")
+                            .append("                throw new FlatwormParserException(\"Setting field \" + ").append(literal(description))
+                            .append(", e);\n")
+                            .append("            }\n")
+                            .append("        } else {\n")
+                            .append("            ").append(fallback)
+                            .append("        }\n");
+                } else {
+                    body.append("        ").append(fallback);
+                }
+            }
+            body.append("        charPos = end;\n\n");
+        }
+
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(PACKAGE).append(";\n\n")
+                .append("import com.blackbear.flatworm.BeanMappingStrategy;\n")
+                .append("import com.blackbear.flatworm.config.FieldBinding;\n")
+                .append("import com.blackbear.flatworm.config.LineParser;\n")
+                .append("import com.blackbear.flatworm.converters.ConversionHelper;\n")
+                .append("import com.blackbear.flatworm.errors.FlatwormParserException;\n\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n")
+                .append(" * Generated parser of line ").append(plan.getLine().getIndex()).append(".\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" implements LineParser {\n")
+                .append("    private final FieldBinding[] bindings;\n")
+                .append("    private final BeanMappingStrategy mappingStrategy;\n\n")
+                .append("    public ").append(simpleName).append("(FieldBinding[] bindings, BeanMappingStrategy mappingStrategy) {\n")
+                .append("        this.bindings = bindings;\n")
+                .append("        this.mappingStrategy = mappingStrategy;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void parse(String inputLine, int charPos, Map<String, Object> beans,\n")
+                .append("                      ConversionHelper conversionHelper)\n")
+                .append("            throws FlatwormParserException {\n");
+        for (Map.Entry<String, String> bean : beanVariables.entrySet()) {
+            source.append("        Object ").append(bean.getValue()).append(" = beans.get(").append(literal(bean.getKey())).append(");\n");
+        }
+        source.append("        int start;\n")
+                .append("        int end;\n\n")
+                .append(body)
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Find the public setter of the field's property on its bean's configured class.
+     *
+     * @return the call of the setter with {@code value} or {@code null} if it can't be called directly.
+     */
+    private static String resolveSetter(FieldBinding binding, Map<String, BeanBO> beanMap, Set<Class<?>> referencedClasses) {
+        ConversionOptionBO append = binding.getConversionOptions().get("append");
+        BeanBO bean = beanMap != null ? beanMap.get(binding.getBeanRef()) : null;
+        if ((append != null && "true".equalsIgnoreCase(append.getValue())) || bean == null || !isPublic(bean.getBeanObjectClass())) {
+            return null;
+        }
+
+        Method writeMethod;
+        try {
+            PropertyDescriptor descriptor = Arrays.stream(PropertyUtils.getPropertyDescriptors((Class<?>) bean.getBeanObjectClass()))
+                    .filter(candidate -> candidate.getName().equals(binding.getPropertyName()))
+                    .findFirst()
+                    .orElse(null);
+            writeMethod = descriptor != null ? descriptor.getWriteMethod() : null;
+        } catch (Exception e) {
+            return null;
+        }
+        if (writeMethod == null || !Modifier.isPublic(writeMethod.getModifiers()) || !isPublic(writeMethod.getDeclaringClass())) {
+            return null;
+        }
+
+        Class<?> type = writeMethod.getParameterTypes()[0];
+        Class<?> referenced = type;
+        while (referenced.isArray()) {
+            referenced = referenced.getComponentType();
+        }
+        if (!referenced.isPrimitive() && !isPublic(referenced)) {
+            return null;
+        }
+        referencedClasses.add(bean.getBeanObjectClass());
+        if (!referenced.isPrimitive()) {
+            referencedClasses.add(referenced);
+        }
+        return writeMethod.getName() + "(" + valueAs(type) + ")";
+    }
+
+    /**
+     * The converted value cast to the type of a property - primitives are unboxed from their own wrapper, so a value of another type fails
+     * the parse just as it does when set through the mapping strategies rather than being narrowed.
+     */
+    private static String valueAs(Class<?> type) {
+        if (type == boolean.class) {
+            return "((Boolean) value).booleanValue()";
+        } else if (type == char.class) {
+            return "((Character) value).charValue()";
+        } else if (type == byte.class) {
+            return "((Byte) value).byteValue()";
+        } else if (type == short.class) {
+            return "((Short) value).shortValue()";
+        } else if (type == int.class) {
+            return "((Integer) value).intValue()";
+        } else if (type == long.class) {
+            return "((Long) value).longValue()";
+        } else if (type == float.class) {
+            return "((Float) value).floatValue()";
+        } else if (type == double.class) {
+            return "((Double) value).doubleValue()";
+        }
+        return "(" + canonicalName(type) + ") value";
+    }
+
+    private static String canonicalName(Class<?> clazz) {
+        return clazz.getCanonicalName();
+    }
+
+    /**
+     * Determine if a class can be named from the generated class - public all the way out to its top level class.
+     */
+    private static boolean isPublic(Class<?> clazz) {
+        if (clazz == null || clazz.getCanonicalName() == null) {
+            return false;
+        }
+        for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < ' ') {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * Compile the source in memory and define the class in a loader that sees the beans it references.
+     *
+     * @return the class or {@code null} if it failed to compile.
+     */
+    private static Class<?> compile(JavaCompiler compiler, String className, String source, Set<Class<?>> referencedClasses)
+            throws Exception {
+        ClassLoader parent = referencedClasses.stream()
+                .map(Class::getClassLoader)
+                .filter(loader -> loader != null && referencedClasses.stream().allMatch(referenced -> canSee(loader, referenced)))
+                .findFirst()
+                .orElse(null);
+        if (parent == null) {
+            log.warn("No class loader sees all the classes of the generated parser {} - it will be interpreted.", className);
+            return null;
+        }
+
+        Set<String> classPath = new LinkedHashSet<>(Arrays.asList(System.getProperty("java.class.path", "").split(File.pathSeparator)));
+        for (Class<?> referenced : referencedClasses) {
+            CodeSource codeSource = referenced.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null && "file".equals(codeSource.getLocation().getProtocol())) {
+                classPath.add(new File(codeSource.getLocation().toURI()).getPath());
+            }
+        }
+        classPath.remove("");
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classFiles = new HashMap<>();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try (JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classFiles.computeIfAbsent(name, key -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        }) {
+            URI sourceUri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+            JavaFileObject sourceFile = new SimpleJavaFileObject(sourceUri, JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            List<String> options = Arrays.asList("-classpath", String.join(File.pathSeparator, classPath), "-proc:none");
+            Boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null, Arrays.asList(sourceFile)).call();
+            if (compiled == null || !compiled) {
+                log.warn("Failed to compile the generated parser {} - it will be interpreted: {}", className, diagnostics.getDiagnostics());
+                return null;
+            }
+        }
+
+        return new GeneratedClassLoader(parent, classFiles).loadClass(className);
+    }
+
+    private static boolean canSee(ClassLoader loader, Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, loader) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Defines the compiled classes of a single generated parser.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+        private final Map<String, ByteArrayOutputStream> classFiles;
+
+        GeneratedClassLoader(ClassLoader parent, Map<String, ByteArrayOutputStream> classFiles) {
+            super(parent);
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ByteArrayOutputStream classFile = classFiles.get(name);
+            if (classFile == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] bytes = classFile.toByteArray();
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,764 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.BeanMappingStrategy;
+import com.blackbear.flatworm.CardinalityMode;
+import com.blackbear.flatworm.DelimitedTokenizer;
+import com.blackbear.flatworm.FieldFilter;
+import com.blackbear.flatworm.ParseMode;
+import com.blackbear.flatworm.ParseUtils;
+import com.blackbear.flatworm.converters.ConversionHelper;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The parse plan of a single {@link LineBO}, compiled from its {@link RecordElementBO} and {@link SegmentElementBO} configuration so that
+ * parsing a line doesn't have to walk the configuration tree, work out field positions, or look up the converter and bean property of each
+ * field again.
+ *
+ * <p>For fixed-width lines the plan is a flat list of steps - one per field (with its start and end resolved to either a fixed column or
+ * the end of the previous field) and one per segment to add the segment's bean to its parent once the segment's fields are read. For
+ * delimited lines the steps follow the segment nesting as segments repeat for as long as their identity keeps matching, and the line is
+ * split by a per-thread {@link DelimitedTokenizer} so only the tokens that are mapped become {@code String}s.</p>
+ *
+ * <p>A plan can be narrowed down to the properties a consumer needs with {@link #project(Set)} - the fields of every other property are
+ * still stepped over, but are never extracted, converted or set on their beans.</p>
+ *
+ * <p>In {@link com.blackbear.flatworm.ParseMode#GENERATED} mode the steps of a fixed-width plan are also turned into a {@link LineParser}
+ * class by {@link LineParserGenerator}, which then parses the lines in their place.</p>
+ *
+ * <p>Use {@link #describe()} to dump the plan when debugging a layout. A plan is a snapshot of the configuration it was compiled from - see
+ * {@link com.blackbear.flatworm.FileFormat#compile()}.</p>
+ */
+@Slf4j
+public final class LinePlan {
+
+    @Getter
+    private final LineBO line;
+
+    @Getter
+    private final boolean delimited;
+
+    @Getter
+    private final boolean enforceLineLengths;
+
+    @Getter
+    private final BeanMappingStrategy mappingStrategy;
+
+    /**
+     * Whether or not a fixed-width line starts where a {@link LineTokenIdentity} says - only when the first field has no start of its
+     * own.
+     */
+    private final boolean startAtIdentity;
+
+    private final String delimiter;
+
+    private final char quoteChar;
+
+    private final ThreadLocal<DelimitedTokenizer> tokenizers;
+
+    private final List<FixedStep> fixedSteps;
+
+    private final List<DelimitedStep> delimitedSteps;
+
+    private final List<FieldBinding> fieldBindings;
+
+    /**
+     * The generated parser of the line - {@code null} when the plan is interpreted.
+     */
+    private final LineParser lineParser;
+
+    /**
+     * The properties this plan maps - {@code null} if it maps every field.
+     */
+    @Getter
+    private final Set<String> projection;
+
+    private final ConcurrentMap<Set<String>, LinePlan> projectedPlans = new ConcurrentHashMap<>();
+
+    private LinePlan(LineBO line, boolean enforceLineLengths, BeanMappingStrategy mappingStrategy, Set<String> projection,
+                     boolean generate) {
+        this.line = line;
+        this.projection = projection;
+        this.delimited = line.isDelimited();
+        this.enforceLineLengths = enforceLineLengths;
+        this.mappingStrategy = mappingStrategy;
+        this.quoteChar = line.getQuoteChar();
+
+        List<FieldBinding> bindings = new ArrayList<>();
+        if (delimited) {
+            delimiter = DelimitedTokenizer.resolveDelimiter(line.getDelimiter());
+            tokenizers = ThreadLocal.withInitial(() -> new DelimitedTokenizer(delimiter, quoteChar));
+            startAtIdentity = false;
+            fixedSteps = Collections.emptyList();
+            delimitedSteps = compileDelimited(line.getLineElements(), bindings, projection);
+        } else {
+            delimiter = null;
+            tokenizers = null;
+            startAtIdentity = line.getLineElements().stream()
+                    .filter(element -> element instanceof RecordElementBO)
+                    .map(RecordElementBO.class::cast)
+                    .findFirst()
+                    .map(element -> !element.isFieldStartSet() || element.getFieldStart() < 0)
+                    .orElse(false);
+            List<FixedStep> steps = new ArrayList<>();
+            compileFixed(line.getLineElements(), steps, bindings, projection);
+            fixedSteps = Collections.unmodifiableList(steps);
+            delimitedSteps = Collections.emptyList();
+        }
+        fieldBindings = Collections.unmodifiableList(bindings);
+        lineParser = generate && projection == null ? generateParser() : null;
+    }
+
+    /**
+     * Generate the {@link LineParser} of a fixed-width line without segments.
+     */
+    private LineParser generateParser() {
+        if (delimited || fixedSteps.stream().anyMatch(step -> !(step instanceof FieldStep))) {
+            return null;
+        }
+        List<LineParserGenerator.Field> fields = new ArrayList<>();
+        for (FixedStep step : fixedSteps) {
+            FieldStep fieldStep = (FieldStep) step;
+            fields.add(new LineParserGenerator.Field(fieldStep.binding, fieldStep.mapped, fieldStep.start, fieldStep.end,
+                    fieldStep.length));
+        }
+        return LineParserGenerator.generate(this, fields);
+    }
+
+    /**
+     * Compile the plan for the given {@link LineBO} based upon its current configuration.
+     *
+     * @param line               The {@link LineBO} instance.
+     * @param enforceLineLengths Whether or not a field running past the end of a fixed-width line is an error.
+     * @param mappingStrategy    The {@link BeanMappingStrategy} used to set the values on the beans.
+     * @return the {@link LinePlan}.
+     */
+    public static LinePlan compile(LineBO line, boolean enforceLineLengths, BeanMappingStrategy mappingStrategy) {
+        return new LinePlan(line, enforceLineLengths, mappingStrategy, null, false);
+    }
+
+    /**
+     * Compile the plan for the given {@link LineBO} based upon its current configuration.
+     *
+     * @param line               The {@link LineBO} instance.
+     * @param enforceLineLengths Whether or not a field running past the end of a fixed-width line is an error.
+     * @param mappingStrategy    The {@link BeanMappingStrategy} used to set the values on the beans.
+     * @param parseMode          Whether the plan is interpreted or a {@link LineParser} is generated for it - see {@link
+     *                           com.blackbear.flatworm.ParseMode}.
+     * @return the {@link LinePlan}.
+     */
+    public static LinePlan compile(LineBO line, boolean enforceLineLengths, BeanMappingStrategy mappingStrategy, ParseMode parseMode) {
+        return new LinePlan(line, enforceLineLengths, mappingStrategy, null, parseMode == ParseMode.GENERATED);
+    }
+
+    /**
+     * Get the plan that only maps the given properties - each either a {@code propertyName} or a {@code beanRef.propertyName}. The fields
+     * of all other properties are skipped over without being extracted, converted or set. Projected plans are compiled once and kept with
+     * this plan.
+     *
+     * @param properties The properties to map, {@code null} to map them all.
+     * @return the projected {@link LinePlan} - this plan if {@code properties} is {@code null}.
+     */
+    public LinePlan project(Set<String> properties) {
+        if (properties == null || properties.equals(projection)) {
+            return this;
+        }
+        return projectedPlans.computeIfAbsent(properties,
+                key -> new LinePlan(line, enforceLineLengths, mappingStrategy, key, false));
+    }
+
+    /**
+     * The {@link FieldBinding}s of every field of the line in the order they are parsed.
+     *
+     * @return an unmodifiable list of the {@link FieldBinding} instances.
+     */
+    public List<FieldBinding> getFieldBindings() {
+        return fieldBindings;
+    }
+
+    /**
+     * Determine if the lines are parsed by a generated {@link LineParser} rather than by walking the steps of the plan.
+     *
+     * @return {@code true} if a {@link LineParser} was generated for the plan and {@code false} if not.
+     */
+    public boolean isGenerated() {
+        return lineParser != null;
+    }
+
+    /**
+     * Parse the line of data into the beans.
+     *
+     * @param inputLine        The line of data.
+     * @param identity         The {@link Identity} instance used to determine that this line should be parsed by the {@link LineBO}.
+     * @param beans            The beans being populated.
+     * @param conversionHelper The {@link ConversionHelper} used to convert the field values.
+     * @throws FlatwormParserException should the data not match the configuration.
+     */
+    public void parse(String inputLine, Identity identity, Map<String, Object> beans, ConversionHelper conversionHelper)
+            throws FlatwormParserException {
+        if (delimited) {
+            DelimitedTokenizer tokenizer = tokenizers.get();
+            tokenizer.tokenize(inputLine);
+            removeIdentityTokens(tokenizer, identity);
+            DelimitedParse parse = new DelimitedParse(tokenizer, beans, conversionHelper, mappingStrategy);
+            for (DelimitedStep step : delimitedSteps) {
+                step.apply(parse);
+            }
+        } else {
+            int charPos = 0;
+            if (startAtIdentity && identity instanceof LineTokenIdentity) {
+                charPos = ((LineTokenIdentity) identity).getLineParsingStartingPosition();
+            }
+            if (lineParser != null) {
+                lineParser.parse(inputLine, charPos, beans, conversionHelper);
+                return;
+            }
+            for (FixedStep step : fixedSteps) {
+                charPos = step.apply(inputLine, charPos, beans, conversionHelper, mappingStrategy, enforceLineLengths);
+            }
+        }
+    }
+
+    /**
+     * Test the raw fields of the line against the filters without creating or populating any beans. Each filter sees the characters of its
+     * field as they are in the line (less the quotes of a delimited field). Fields that run past the end of the line are cut short.
+     *
+     * @param inputLine The line of data.
+     * @param identity  The {@link Identity} instance used to determine that this line should be parsed by the {@link LineBO}.
+     * @param filters   The {@link FieldFilter}s to test.
+     * @return {@code true} if the line passes every filter and {@code false} if not.
+     * @throws FlatwormParserException should a filter name a property that isn't a field of this line.
+     */
+    public boolean accepts(String inputLine, Identity identity, List<FieldFilter> filters) throws FlatwormParserException {
+        DelimitedTokenizer tokenizer = null;
+        if (delimited) {
+            tokenizer = tokenizers.get();
+            tokenizer.tokenize(inputLine);
+            removeIdentityTokens(tokenizer, identity);
+        }
+        for (FieldFilter filter : filters) {
+            CharSequence field = delimited
+                    ? delimitedField(tokenizer, filter.getProperty())
+                    : fixedField(inputLine, identity, filter.getProperty());
+            if (!filter.test(field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walk the mapped fields of the line without creating or populating any beans, handing the raw characters of each to the {@code
+     * visitor} - for consumers that keep the values some other way. On a delimited line the walk stops at the first segment, as the
+     * fields of a segment repeat.
+     *
+     * @param inputLine The line of data.
+     * @param identity  The {@link Identity} instance used to determine that this line should be parsed by the {@link LineBO}.
+     * @param visitor   The {@link FieldVisitor} given each field.
+     * @throws FlatwormParserException should a field run past the end of the line when line lengths are enforced, or the visitor fail.
+     */
+    public void visitFields(String inputLine, Identity identity, FieldVisitor visitor) throws FlatwormParserException {
+        if (delimited) {
+            DelimitedTokenizer tokenizer = tokenizers.get();
+            tokenizer.tokenize(inputLine);
+            removeIdentityTokens(tokenizer, identity);
+            int token = 0;
+            for (DelimitedStep step : delimitedSteps) {
+                if (!(step instanceof DelimitedFieldStep) || token >= tokenizer.size()) {
+                    break;
+                }
+                DelimitedFieldStep fieldStep = (DelimitedFieldStep) step;
+                if (!fieldStep.ignored) {
+                    if (tokenizer.isQuoted(token)) {
+                        String value = tokenizer.token(token);
+                        visitor.visit(fieldStep.index, fieldStep.binding, value, 0, value.length());
+                    } else {
+                        int start = tokenizer.getColumnPosition(token);
+                        visitor.visit(fieldStep.index, fieldStep.binding, inputLine, start, start + tokenizer.getFullTokenLength(token));
+                    }
+                }
+                token++;
+            }
+        } else {
+            int charPos = 0;
+            if (startAtIdentity && identity instanceof LineTokenIdentity) {
+                charPos = ((LineTokenIdentity) identity).getLineParsingStartingPosition();
+            }
+            for (FixedStep step : fixedSteps) {
+                if (step instanceof FieldStep) {
+                    FieldStep fieldStep = (FieldStep) step;
+                    int fieldStart = fieldStep.fieldStart(charPos);
+                    int fieldEnd = fieldStep.fieldEnd(fieldStart, charPos);
+                    if (fieldEnd > inputLine.length()) {
+                        if (enforceLineLengths) {
+                            throw new FlatwormParserException("Looking for field " + fieldStep.binding.getBeanRef() + "."
+                                    + fieldStep.binding.getPropertyName() + " at pos " + fieldStart + ", end " + fieldEnd
+                                    + ", input length = " + inputLine.length());
+                        }
+                        fieldEnd = inputLine.length();
+                    }
+                    if (fieldStep.mapped) {
+                        visitor.visit(fieldStep.index, fieldStep.binding, inputLine, Math.min(fieldStart, fieldEnd), fieldEnd);
+                    }
+                    charPos = fieldEnd;
+                }
+            }
+        }
+    }
+
+    private CharSequence fixedField(String inputLine, Identity identity, String property) throws FlatwormParserException {
+        int charPos = 0;
+        if (startAtIdentity && identity instanceof LineTokenIdentity) {
+            charPos = ((LineTokenIdentity) identity).getLineParsingStartingPosition();
+        }
+        for (FixedStep step : fixedSteps) {
+            if (step instanceof FieldStep) {
+                FieldStep fieldStep = (FieldStep) step;
+                int fieldEnd = Math.min(fieldStep.fieldEnd(fieldStep.fieldStart(charPos), charPos), inputLine.length());
+                if (matchesProperty(fieldStep.binding, property)) {
+                    return inputLine.subSequence(Math.min(fieldStep.fieldStart(charPos), fieldEnd), fieldEnd);
+                }
+                charPos = fieldEnd;
+            }
+        }
+        throw unknownField(property);
+    }
+
+    private CharSequence delimitedField(DelimitedTokenizer tokenizer, String property) throws FlatwormParserException {
+        // Fields after a segment can't be found without parsing the segment as it may repeat.
+        int index = 0;
+        for (DelimitedStep step : delimitedSteps) {
+            if (!(step instanceof DelimitedFieldStep)) {
+                break;
+            }
+            if (matchesProperty(((DelimitedFieldStep) step).binding, property)) {
+                return index < tokenizer.size() ? tokenizer.token(index) : "";
+            }
+            index++;
+        }
+        throw unknownField(property);
+    }
+
+    private FlatwormParserException unknownField(String property) {
+        return new FlatwormParserException(String.format("Property %s isn't a field that can be filtered on in line %d.", property,
+                line.getIndex()));
+    }
+
+    /**
+     * A quoted field of a delimited line can span physical lines - join the next lines onto the line, separated by a {@code '\n'}, for as
+     * long as the line ends within quotes (or the input runs out).
+     *
+     * @param inputLine The line of data as read.
+     * @param in        The reader to read any continuation lines from.
+     * @return the complete line - {@code inputLine} itself when it isn't continued.
+     * @throws IOException should reading the next line fail.
+     */
+    public String completeLine(String inputLine, BufferedReader in) throws IOException {
+        if (!delimited || quoteChar == '\0' || inputLine == null) {
+            return inputLine;
+        }
+        DelimitedTokenizer tokenizer = tokenizers.get();
+        String completeLine = inputLine;
+        while (tokenizer.hasOpenQuote(completeLine)) {
+            String nextLine = in.readLine();
+            if (nextLine == null) {
+                break;
+            }
+            completeLine = completeLine + '\n' + nextLine;
+        }
+        return completeLine;
+    }
+
+    /**
+     * Describe the plan, one step per line.
+     *
+     * @return the description.
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder("LinePlan{line=").append(line.getIndex());
+        if (delimited) {
+            builder.append(", delimited, delimiter='").append(line.getDelimiter()).append('\'')
+                    .append(", quoteChar=").append(quoteChar == '\0' ? "<none>" : String.valueOf(quoteChar))
+                    .append(", mappingStrategy=").append(mappingStrategy.getClass().getSimpleName());
+            appendProjection(builder).append('}');
+            for (DelimitedStep step : delimitedSteps) {
+                step.describe(builder, 1);
+            }
+        } else {
+            builder.append(", fixed-width").append(lineParser != null ? ", generated" : "")
+                    .append(", startAtIdentity=").append(startAtIdentity)
+                    .append(", enforceLineLengths=").append(enforceLineLengths)
+                    .append(", mappingStrategy=").append(mappingStrategy.getClass().getSimpleName());
+            appendProjection(builder).append('}');
+            for (int i = 0; i < fixedSteps.size(); i++) {
+                builder.append(String.format("%n  [%d] ", i));
+                fixedSteps.get(i).describe(builder);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+    private StringBuilder appendProjection(StringBuilder builder) {
+        if (projection != null) {
+            builder.append(", projection=").append(projection);
+        }
+        return builder;
+    }
+
+    private static boolean matchesProperty(FieldBinding binding, String property) {
+        return property.equals(binding.getPropertyName()) || property.equals(binding.getBeanRef() + "." + binding.getPropertyName());
+    }
+
+    /**
+     * Determine if the field is mapped by the given projection.
+     */
+    private static boolean isProjected(RecordElementBO recordElement, Set<String> projection) {
+        if (projection == null) {
+            return true;
+        }
+        CardinalityBO cardinality = recordElement.getCardinality();
+        String propertyName = cardinality.getPropertyName();
+        return projection.contains(propertyName) || projection.contains(cardinality.getBeanRef() + "." + propertyName);
+    }
+
+    private static void compileFixed(List<LineElement> elements, List<FixedStep> steps, List<FieldBinding> bindings,
+                                     Set<String> projection) {
+        for (LineElement element : elements) {
+            if (element instanceof RecordElementBO) {
+                RecordElementBO recordElement = (RecordElementBO) element;
+                FieldStep step = new FieldStep(recordElement, bindings.size(), isProjected(recordElement, projection));
+                bindings.add(step.binding);
+                steps.add(step);
+            } else if (element instanceof SegmentElementBO) {
+                SegmentElementBO segment = (SegmentElementBO) element;
+                compileFixed(segment.getLineElements(), steps, bindings, projection);
+                steps.add(new SegmentCaptureStep(segment.getCardinality()));
+            }
+        }
+    }
+
+    private static List<DelimitedStep> compileDelimited(List<LineElement> elements, List<FieldBinding> bindings,
+                                                        Set<String> projection) {
+        List<DelimitedStep> steps = new ArrayList<>();
+        for (LineElement element : elements) {
+            if (element instanceof RecordElementBO) {
+                RecordElementBO recordElement = (RecordElementBO) element;
+                DelimitedFieldStep step = new DelimitedFieldStep(recordElement, bindings.size(), isProjected(recordElement, projection));
+                bindings.add(step.binding);
+                steps.add(step);
+            } else if (element instanceof SegmentElementBO) {
+                SegmentElementBO segment = (SegmentElementBO) element;
+                steps.add(new DelimitedSegmentStep(segment, compileDelimited(segment.getLineElements(), bindings, projection)));
+            }
+        }
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Remove any record-level, {@link LineTokenIdentity} instance tokens from the list of line tokens so that they don't affect the
+     * processing of the data elements.
+     *
+     * @param tokenizer The {@link DelimitedTokenizer} holding the tokens read from the line.
+     * @param identity  The {@link Identity} instance used to determine that the line should be parsed by this plan.
+     */
+    private static void removeIdentityTokens(DelimitedTokenizer tokenizer, Identity identity) {
+        if (identity instanceof LineTokenIdentity) {
+            LineTokenIdentity lineTokenIdentity = (LineTokenIdentity) identity;
+            tokenizer.removeTokens(index -> lineTokenIdentity.matchesIdentity(tokenizer, index));
+        }
+    }
+
+    /**
+     * A step of a fixed-width plan.
+     */
+    private abstract static class FixedStep {
+        /**
+         * @return the character position that the next field starts at if it doesn't have a start of its own.
+         */
+        abstract int apply(String inputLine, int charPos, Map<String, Object> beans, ConversionHelper conversionHelper,
+                           BeanMappingStrategy mappingStrategy, boolean enforceLineLengths) throws FlatwormParserException;
+
+        abstract void describe(StringBuilder builder);
+    }
+
+    /**
+     * Read a single field. Without a start of its own the field starts where the previous one ended, and without an end or length it is
+     * empty.
+     */
+    private static final class FieldStep extends FixedStep {
+        private static final int UNSET = Integer.MIN_VALUE;
+
+        private final FieldBinding binding;
+        private final int index;
+        private final boolean mapped;
+        private final int start;
+        private final int end;
+        private final int length;
+
+        FieldStep(RecordElementBO recordElement, int index, boolean projected) {
+            binding = new FieldBinding(recordElement);
+            this.index = index;
+            mapped = projected && binding.getBeanRef() != null;
+            start = recordElement.isFieldStartSet() ? recordElement.getFieldStart() : UNSET;
+            end = recordElement.isFieldEndSet() ? recordElement.getFieldEnd() : UNSET;
+            length = recordElement.isFieldLengthSet() ? recordElement.getFieldLength() : UNSET;
+        }
+
+        @Override
+        int apply(String inputLine, int charPos, Map<String, Object> beans, ConversionHelper conversionHelper,
+                  BeanMappingStrategy mappingStrategy, boolean enforceLineLengths) throws FlatwormParserException {
+            int fieldStart = fieldStart(charPos);
+            int fieldEnd = fieldEnd(fieldStart, charPos);
+            if (fieldEnd > inputLine.length()) {
+                if (enforceLineLengths) {
+                    throw new FlatwormParserException("Looking for field " + binding.getBeanRef() + "." + binding.getPropertyName()
+                            + " at pos " + fieldStart + ", end " + fieldEnd + ", input length = " + inputLine.length());
+                } else {
+                    fieldEnd = inputLine.length();
+                }
+            }
+            if (mapped) {
+                binding.map(inputLine, fieldStart, fieldEnd, beans, conversionHelper, mappingStrategy);
+            }
+            return fieldEnd;
+        }
+
+        /**
+         * @return where the field starts given where the previous field ended.
+         */
+        int fieldStart(int charPos) {
+            return start != UNSET ? start : charPos;
+        }
+
+        /**
+         * @return where the field ends (and so where the next field starts if it doesn't have a start of its own).
+         */
+        int fieldEnd(int fieldStart, int charPos) {
+            if (length != UNSET) {
+                return fieldStart + length;
+            } else if (end != UNSET) {
+                return end;
+            }
+            return charPos;
+        }
+
+        @Override
+        void describe(StringBuilder builder) {
+            builder.append("field start=").append(start != UNSET ? String.valueOf(start) : "<previous end>");
+            if (length != UNSET) {
+                builder.append(" length=").append(length);
+            } else if (end != UNSET) {
+                builder.append(" end=").append(end);
+            } else {
+                builder.append(" end=<start>");
+            }
+            builder.append(' ').append(binding);
+            if (!mapped) {
+                builder.append(" (skipped)");
+            }
+        }
+    }
+
+    /**
+     * Add the bean of a segment whose fields have just been read to its parent bean.
+     */
+    private static final class SegmentCaptureStep extends FixedStep {
+        private final CardinalityBO cardinality;
+
+        SegmentCaptureStep(CardinalityBO cardinality) {
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int apply(String inputLine, int charPos, Map<String, Object> beans, ConversionHelper conversionHelper,
+                  BeanMappingStrategy mappingStrategy, boolean enforceLineLengths) throws FlatwormParserException {
+            Object parent = beans.get(cardinality.getParentBeanRef());
+            Object toAdd = beans.get(cardinality.getBeanRef());
+
+            if (cardinality.getCardinalityMode() == CardinalityMode.SINGLE) {
+                ParseUtils.setProperty(parent, cardinality.getPropertyName(), toAdd);
+            } else {
+                ParseUtils.addValueToCollection(cardinality, parent, toAdd);
+            }
+            return charPos;
+        }
+
+        @Override
+        void describe(StringBuilder builder) {
+            builder.append("segment ").append(cardinality.getBeanRef())
+                    .append(" -> ").append(cardinality.getParentBeanRef()).append('.').append(cardinality.getPropertyName())
+                    .append(" (").append(cardinality.getCardinalityMode()).append(')');
+        }
+    }
+
+    /**
+     * The state of parsing a single delimited line.
+     */
+    private static final class DelimitedParse {
+        private final DelimitedTokenizer tokenizer;
+        private final Map<String, Object> beans;
+        private final ConversionHelper conversionHelper;
+        private final BeanMappingStrategy mappingStrategy;
+        private int currentField;
+
+        DelimitedParse(DelimitedTokenizer tokenizer, Map<String, Object> beans, ConversionHelper conversionHelper,
+                       BeanMappingStrategy mappingStrategy) {
+            this.tokenizer = tokenizer;
+            this.beans = beans;
+            this.conversionHelper = conversionHelper;
+            this.mappingStrategy = mappingStrategy;
+        }
+    }
+
+    /**
+     * A step of a delimited plan.
+     */
+    private abstract static class DelimitedStep {
+        abstract void apply(DelimitedParse parse) throws FlatwormParserException;
+
+        abstract void describe(StringBuilder builder, int depth);
+
+        static StringBuilder indent(StringBuilder builder, int depth) {
+            builder.append(String.format("%n"));
+            for (int i = 0; i < depth; i++) {
+                builder.append("  ");
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * Map the next token.
+     */
+    private static final class DelimitedFieldStep extends DelimitedStep {
+        private final FieldBinding binding;
+        private final int index;
+        private final boolean ignored;
+
+        DelimitedFieldStep(RecordElementBO recordElement, int index, boolean projected) {
+            binding = new FieldBinding(recordElement);
+            this.index = index;
+            ignored = recordElement.getIgnoreField() || !projected;
+        }
+
+        @Override
+        void apply(DelimitedParse parse) throws FlatwormParserException {
+            try {
+                if (!ignored) {
+                    binding.map(parse.tokenizer.token(parse.currentField), parse.beans, parse.conversionHelper, parse.mappingStrategy);
+                } else if (parse.currentField >= parse.tokenizer.size()) {
+                    throw new IndexOutOfBoundsException("Index: " + parse.currentField + ", Size: " + parse.tokenizer.size());
+                }
+                ++parse.currentField;
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                log.warn("Ran out of data on field " + (parse.currentField + 1));
+            }
+        }
+
+        @Override
+        void describe(StringBuilder builder, int depth) {
+            indent(builder, depth).append("field ").append(binding);
+            if (ignored) {
+                builder.append(" (ignored)");
+            }
+        }
+    }
+
+    /**
+     * Read a segment for as long as the next token matches the segment's identity.
+     */
+    private static final class DelimitedSegmentStep extends DelimitedStep {
+        private final SegmentElementBO segment;
+        private final List<DelimitedStep> steps;
+        private final String beanRef;
+        private final String parentRef;
+        private final String propertyName;
+        private final int minCount;
+        private final int maxCount;
+
+        DelimitedSegmentStep(SegmentElementBO segment, List<DelimitedStep> steps) {
+            this.segment = segment;
+            this.steps = steps;
+            CardinalityBO cardinality = segment.getCardinality();
+            beanRef = cardinality.getBeanRef();
+            parentRef = cardinality.getParentBeanRef();
+            propertyName = cardinality.getPropertyName();
+            minCount = Math.max(0, cardinality.getMinCount());
+            maxCount = cardinality.getMaxCount() <= 0 ? Integer.MAX_VALUE : cardinality.getMaxCount();
+        }
+
+        @Override
+        void apply(DelimitedParse parse) throws FlatwormParserException {
+            DelimitedTokenizer tokenizer = parse.tokenizer;
+            if (parse.currentField < tokenizer.size() && !segment.matchesIdentity(tokenizer.token(parse.currentField)) && minCount > 0) {
+                log.error("Segment " + propertyName + " with minimum required count of " + minCount + " missing.");
+            }
+            int cardinality = 0;
+            try {
+                while (parse.currentField < tokenizer.size() && segment.matchesIdentity(tokenizer.token(parse.currentField))) {
+                    parse.currentField++; // Advanced past the identifier token.
+                    if (beanRef != null) {
+                        ++cardinality;
+                        if (parentRef != null) {
+                            Object instance = ParseUtils.newBeanInstance(parse.beans.get(beanRef));
+                            parse.beans.put(beanRef, instance);
+                            ParseUtils.addObjectToProperty(parse.beans.get(parentRef), instance, segment.getCardinality());
+                        }
+                        for (DelimitedStep step : steps) {
+                            step.apply(parse);
+                        }
+                    }
+                }
+            } finally {
+                if (cardinality > maxCount) {
+                    log.error("Segment '" + propertyName + "' with maximum of " + maxCount + " encountered actual count of " + cardinality);
+                }
+            }
+        }
+
+        @Override
+        void describe(StringBuilder builder, int depth) {
+            indent(builder, depth).append("segment ").append(beanRef)
+                    .append(" -> ").append(parentRef).append('.').append(propertyName)
+                    .append(" while ").append(segment.getFieldIdentity() != null ? segment.getFieldIdentity().getMatchingStrings() : "[]")
+                    .append(" [").append(minCount).append("..").append(maxCount == Integer.MAX_VALUE ? "*" : String.valueOf(maxCount))
+                    .append(']');
+            for (DelimitedStep step : steps) {
+                step.describe(builder, depth + 1);
+            }
+        }
+    }
+}
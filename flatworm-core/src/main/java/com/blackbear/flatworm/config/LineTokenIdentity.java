@@ -16,6 +16,8 @@
 
 package com.blackbear.flatworm.config;
 
+import com.blackbear.flatworm.DelimitedTokenizer;
+
 /**
  * Contract that extends the {@link Identity} interface to indicate that the identity method is specific to line tokens (i.e. fields
  * found within the line of data being parsed vs. characteristics of the entire line itself)..
@@ -31,6 +33,17 @@ public interface LineTokenIdentity extends Identity {
      */
     boolean matchesIdentity(LineToken lineToken);
 
+    /**
+     * Determine if a token of a {@link DelimitedTokenizer} matches the {@link LineTokenIdentity} configuration without having to create
+     * the {@link LineToken}.
+     * @param tokenizer The {@link DelimitedTokenizer} holding the tokens of the line.
+     * @param index The index of the token to evaluate.
+     * @return {@code true} if it matches and {@code false} if not.
+     */
+    default boolean matchesIdentity(DelimitedTokenizer tokenizer, int index) {
+        return matchesIdentity(tokenizer.lineToken(index));
+    }
+
     /**
      * See if the given token matches any of the pre-configured field identifiers. Note that this does ignore positioning and merely
      * checks to see if the token matches an identifiers.
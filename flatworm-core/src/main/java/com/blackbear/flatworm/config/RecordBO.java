@@ -16,17 +16,18 @@
 
 package com.blackbear.flatworm.config;
 
+import com.blackbear.flatworm.BeanSlotMap;
+import com.blackbear.flatworm.FieldFilter;
+import com.blackbear.flatworm.columnar.ColumnarSink;
 import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.LazyRecord;
+import com.blackbear.flatworm.ParseCursor;
 import com.blackbear.flatworm.ParseUtils;
 import com.blackbear.flatworm.converters.ConversionHelper;
 import com.blackbear.flatworm.errors.FlatwormParserException;
 import com.blackbear.flatworm.errors.UncheckedFlatwormParserException;
 
-import org.apache.commons.lang.StringUtils;
-
 import java.io.BufferedReader;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -69,7 +70,6 @@ public class RecordBO {
     private String name;
 
     @Getter
-    @Setter
     private Identity recordIdentity;
 
     @Getter
@@ -92,20 +92,54 @@ public class RecordBO {
     @Setter
     private FileFormat parentFileFormat;
 
+    /**
+     * Only consulted when this {@code RecordBO} isn't part of a {@link FileFormat} - otherwise {@link FileFormat#isEnforceLineLengths()}
+     * applies.
+     */
     @Getter
-    private boolean parsedLastReadLine;
-
-    @Getter
-    private String lastReadLine;
-
-    @Getter
-    @Setter
     private boolean enforceLineLengths;
     
     public RecordBO() {
         enforceLineLengths = true;
     }
 
+    public void setEnforceLineLengths(boolean enforceLineLengths) {
+        this.enforceLineLengths = enforceLineLengths;
+        invalidateLinePlans();
+    }
+
+    /**
+     * Compile the {@link LinePlan} of every line of this record.
+     */
+    public void compileLinePlans() {
+        if (recordDefinition != null) {
+            recordDefinition.getLines().forEach(LineBO::compilePlan);
+            recordDefinition.getLinesWithIdentities().forEach(LineBO::compilePlan);
+        }
+    }
+
+    /**
+     * Discard the {@link LinePlan} of every line of this record so that they are rebuilt from the current configuration.
+     */
+    public void invalidateLinePlans() {
+        if (recordDefinition != null) {
+            recordDefinition.getLines().forEach(LineBO::invalidatePlan);
+            recordDefinition.getLinesWithIdentities().forEach(LineBO::invalidatePlan);
+        }
+    }
+
+    /**
+     * Set the {@link Identity} used to recognize this record - the parent {@link FileFormat}'s record dispatch index is rebuilt to suit.
+     *
+     * @param recordIdentity The {@link Identity} instance.
+     */
+    public void setRecordIdentity(Identity recordIdentity) {
+        this.recordIdentity = recordIdentity;
+        if (parentFileFormat != null) {
+            parentFileFormat.invalidateDispatchIndex();
+        }
+    }
+
     /**
      * Determine if this {@code RecordBO} instance is capable of parsing the given line.
      *
@@ -128,24 +162,53 @@ public class RecordBO {
      * @param firstLine        first line to be considered.
      * @param in               used to retrieve additional lines of input for parsing multi-line records.
      * @param conversionHelper used to help convert datatypes and format strings.
-     * @return collection of beans populated with file data.
+     * @param cursor           the {@link ParseCursor} of the parse - records the last line read and whether or not it was consumed by this
+     *                         record.
+     * @return collection of beans populated with file data or {@code null} if the record failed one of the cursor's {@link FieldFilter}s -
+     * in which case its lines are read past without any beans being created - or its fields went to the cursor's {@link ColumnarSink}.
      * @throws FlatwormParserException should an error occur while parsing the data.
      */
-    public Map<String, Object> parseRecord(String firstLine, BufferedReader in,
-                                           ConversionHelper conversionHelper) throws FlatwormParserException {
-        Map<String, Object> beans = new HashMap<>();
+    public BeanSlotMap parseRecord(String firstLine, BufferedReader in, ConversionHelper conversionHelper, ParseCursor cursor)
+            throws FlatwormParserException {
+        boolean reuseBeans = cursor.isReuseBeans();
+        BeanSlotMap beans = reuseBeans ? cursor.getReusableBeans(this) : recordDefinition.newBeanMap();
+        String lastReadLine = firstLine;
+        boolean parsedLastReadLine = false;
+        boolean skipped = false;
+        ColumnarSink sink = null;
         try {
             List<LineBO> lines = recordDefinition.getLines();
             List<LineBO> linesWithIdentities = recordDefinition.getLinesWithIdentities();
-            lastReadLine = firstLine;
+
+            Set<String> projection = cursor.getProjection(name);
+
+            // The filters are tested against the first line of the record, before any beans are created.
+            List<FieldFilter> filters = cursor.getFilters(name);
+            if (filters != null && !lines.isEmpty()) {
+                LinePlan firstLinePlan = lines.get(0).getPlan();
+                lastReadLine = firstLinePlan.completeLine(lastReadLine, in);
+                skipped = !firstLinePlan.accepts(lastReadLine, recordIdentity, filters);
+                filters = null;
+            }
+
+            // Records collected into columns never have their beans created.
+            sink = skipped ? null : cursor.getColumnarSink(name);
+            skipped |= sink != null;
 
             // Process all of the sequential lines first - for a record there will always be at least one sequential line..
-            loadBeanInstances(lines, beans);
+            if (!skipped) {
+                recordDefinition.getInstantiationPlan().instantiate(beans, reuseBeans);
+            }
             for (int i = 0; i < lines.size(); i++) {
                 LineBO line = lines.get(i);
                 
-                line.parseInput(lastReadLine, beans, conversionHelper, recordIdentity);
-                addBeanToBean(line, beans);
+                lastReadLine = line.getPlan().completeLine(lastReadLine, in);
+                if (sink != null) {
+                    sink.parseLine(i, lastReadLine, recordIdentity);
+                } else if (!skipped) {
+                    line.parseInput(lastReadLine, beans, conversionHelper, recordIdentity, projection);
+                    addBeanToBean(line, beans);
+                }
 
                 parsedLastReadLine = true;
                 if (i + 1 < lines.size()) {
@@ -160,9 +223,16 @@ public class RecordBO {
                     if (lastReadLine != null) {
                         LineBO line = findMatchingIdentityLine(lastReadLine);
                         if (line != null) {
-                            loadBeanInstances(line, beans);
-                            line.parseInput(lastReadLine, beans, conversionHelper, line.getLineIdentity());
-                            addBeanToBean(line, beans);
+                            lastReadLine = line.getPlan().completeLine(lastReadLine, in);
+                            if (filters != null) {
+                                skipped = !line.getPlan().accepts(lastReadLine, line.getLineIdentity(), filters);
+                                filters = null;
+                            }
+                            if (!skipped) {
+                                recordDefinition.getInstantiationPlan(line).instantiate(beans, reuseBeans);
+                                line.parseInput(lastReadLine, beans, conversionHelper, line.getLineIdentity(), projection);
+                                addBeanToBean(line, beans);
+                            }
                             parsedLastReadLine = true;
 
                             //  If this was the closing record, then we need to make sure the next line is a starting record.
@@ -210,10 +280,64 @@ public class RecordBO {
                 while (continueParsing);
             }
 
+            if (!skipped) {
+                recordDefinition.constructBeans(beans);
+            }
+            if (sink != null) {
+                sink.endRow();
+            }
         } catch (Exception e) {
+            if (sink != null) {
+                sink.abortRow();
+            }
+            // The line that failed belongs to this record - don't offer it up again to the next record.
+            parsedLastReadLine = true;
             throw new FlatwormParserException(e.getMessage(), e);
+        } finally {
+            cursor.setLastReadLine(lastReadLine);
+            cursor.setParsedLastReadLine(parsedLastReadLine);
+        }
+        return skipped ? null : beans;
+    }
+
+    /**
+     * Read the record as a {@link LazyRecord} - its lines are kept and the position of each field noted, but nothing is converted and no
+     * beans are created. Only records without identity lines can be read this way.
+     *
+     * @param firstLine        first line to be considered.
+     * @param in               used to retrieve additional lines of input for parsing multi-line records.
+     * @param conversionHelper used by the {@link LazyRecord} to convert its fields as they're asked for.
+     * @param cursor           the {@link ParseCursor} of the parse - records the last line read.
+     * @return the {@link LazyRecord} or {@code null} if the record failed one of the cursor's {@link FieldFilter}s.
+     * @throws FlatwormParserException should the record have identity lines or a field run past the end of its line when line lengths are
+     *                                 enforced.
+     */
+    public LazyRecord parseLazyRecord(String firstLine, BufferedReader in, ConversionHelper conversionHelper, ParseCursor cursor)
+            throws FlatwormParserException {
+        String lastReadLine = firstLine;
+        try {
+            LazyRecord record = recordDefinition.getLazyLayout().newRecord(conversionHelper);
+            List<LineBO> lines = recordDefinition.getLines();
+            List<FieldFilter> filters = cursor.getFilters(name);
+            for (int i = 0; i < lines.size(); i++) {
+                LinePlan plan = lines.get(i).getPlan();
+                lastReadLine = plan.completeLine(lastReadLine, in);
+                if (i == 0 && filters != null && !plan.accepts(lastReadLine, recordIdentity, filters)) {
+                    record = null;
+                } else if (record != null) {
+                    record.parseLine(i, lastReadLine, recordIdentity);
+                }
+                if (i + 1 < lines.size()) {
+                    lastReadLine = in.readLine();
+                }
+            }
+            return record;
+        } catch (Exception e) {
+            throw new FlatwormParserException(e.getMessage(), e);
+        } finally {
+            cursor.setLastReadLine(lastReadLine);
+            cursor.setParsedLastReadLine(true);
         }
-        return beans;
     }
 
     /**
@@ -257,112 +381,6 @@ public class RecordBO {
         }
     }
 
-    /**
-     * For the given {@link List} of {@code lines}, determine which, if any, bean instances need to be created to capture parsed data.
-     * @param lines the {@link List} of lines to examine to determine which, if any, beans need to be loaded.
-     * @param beans the {@link Map} that will be responsible for holding the newly created bean instances.
-     * @throws FlatwormParserException should creating the bean instances fail for any reason.
-     */
-    private void loadBeanInstances(List<LineBO> lines, Map<String, Object> beans) throws FlatwormParserException {
-        Set<String> refreshed = new HashSet<>();
-        for(LineBO line : lines) {
-            loadBeanInstances(line, beans, refreshed);
-        }
-    }
-    
-    /**
-     * For the given {@link LineBO}, determine which, if any, bean instances need to be created to capture parsed data.
-     * @param line the {@link LineBO} instance to examine to determine which, if any, beans need to be loaded.
-     * @param beans the {@link Map} that will be responsible for holding the newly created bean instances.
-     * @throws FlatwormParserException should creating the bean instances fail for any reason.
-     */
-    private void loadBeanInstances(LineBO line, Map<String, Object> beans) throws FlatwormParserException {
-        Set<String> refreshed = new HashSet<>();
-        loadBeanInstances(line, beans, refreshed);
-    }
-    
-    /**
-     * Refresh the beans in the given {@link Map} to ready them for new lines of data.
-     *
-     * @param line  The {@link LineBO} instance that was found to match a line of data - this is the parent of all potential child lines to
-     *              follow and so all child beans should be readied.
-     * @param beans The {@link Map} of {@link BeanBO} instances that will be updated with fresh beans based upon what could be read.
-     * @throws FlatwormParserException should creating the beans fail for any reason.
-     */
-    private void loadBeanInstances(LineBO line, Map<String, Object> beans, Set<String> refreshed) throws FlatwormParserException {
-        if (line.getCardinality() != null) {
-            if(!StringUtils.isBlank(line.getCardinality().getParentBeanRef())) {
-                if(!beans.containsKey(line.getCardinality().getParentBeanRef())) {
-                    addNewBeanInstance(line.getCardinality().getParentBeanRef(), beans, refreshed);
-                }
-            }
-            
-            if (!StringUtils.isBlank(line.getCardinality().getBeanRef())) {
-                addNewBeanInstance(line.getCardinality().getBeanRef(), beans, refreshed);
-
-                // Got through all lines and check for hierarchy.
-                for (LineBO otherLine : getRecordDefinition().getLinesWithIdentities()) {
-                    if (otherLine.getCardinality() != null
-                            && line.getCardinality().getBeanRef().equals(otherLine.getCardinality().getParentBeanRef())) {
-                        loadBeanInstances(otherLine, beans);
-                    }
-                }
-            }
-        }
-
-        // Refresh all line elements.
-        loadBeanInstances(line.getLineElements(), beans, refreshed);
-    }
-
-    /**
-     * Refresh all beans referenced in the {@code lineElements} if they haven't been refreshed already.
-     *
-     * @param lineElements The {@code List} of {@link LineElement} instances whose discovered bean configurations will be refreshed.
-     * @param beans        The {@link Map} of beans to add a new instance to if a new instance hasn't already been created.
-     * @param refreshed    The {@link Set} of beans that have been created thus far on this refresh pass - this is to avoid creating new
-     *                     beans when you don't have to.
-     * @throws FlatwormParserException Should instantiating the bean fail for any reason.
-     */
-    private void loadBeanInstances(List<LineElement> lineElements, Map<String, Object> beans, Set<String> refreshed)
-            throws FlatwormParserException {
-        for (LineElement lineElement : lineElements) {
-            if (lineElement instanceof RecordElementBO) {
-                RecordElementBO record = RecordElementBO.class.cast(lineElement);
-                if (record.getCardinality() != null
-                        && !StringUtils.isBlank(record.getCardinality().getBeanRef())
-                        && !refreshed.contains(record.getCardinality().getBeanRef())) {
-                    addNewBeanInstance(record.getCardinality().getBeanRef(), beans, refreshed);
-                }
-            } else if (lineElement instanceof SegmentElementBO) {
-                SegmentElementBO segmentElement = SegmentElementBO.class.cast(lineElement);
-                loadBeanInstances(segmentElement.getLineElements(), beans, refreshed);
-            }
-        }
-    }
-
-    /**
-     * Add a new instance of the specified bean ({@code beanRef}) to the {@link Map} of {@code beans} if a new instance hasn't already been
-     * created in this refresh pass.
-     *
-     * @param beanRef   The bean's reference identifier.
-     * @param beans     The {@link Map} of beans to add a new instance to if a new instance hasn't already been created.
-     * @param refreshed The {@link Set} of beans that have been created thus far on this refresh pass - this is to avoid creating new beans
-     *                  when you don't have to.
-     * @throws FlatwormParserException Should instantiating the bean fail for any reason.
-     */
-    private void addNewBeanInstance(String beanRef, Map<String, Object> beans, Set<String> refreshed) throws FlatwormParserException {
-        BeanBO beanDefinition = recordDefinition.getBeanMap().get(beanRef);
-        if (beanDefinition != null) {
-            try {
-                beans.put(beanRef, beanDefinition.getBeanObjectClass().newInstance());
-                refreshed.add(beanRef);
-            } catch (Exception e) {
-                throw new FlatwormParserException(String.format("Failed to instantiate new bean %s. Err: %s",
-                        beanDefinition.getBeanObjectClass().getName(), e.getMessage()), e);
-            }
-        }
-    }
-
     @Override
     public String toString() {
         return "RecordBO{" +
@@ -16,15 +16,25 @@
 
 package com.blackbear.flatworm.config;
 
+import com.blackbear.flatworm.BeanSlotMap;
+import com.blackbear.flatworm.ConstructionMode;
 import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.LazyRecord;
+import com.blackbear.flatworm.PendingBean;
 import com.blackbear.flatworm.errors.FlatwormParserException;
 
+import org.apache.commons.lang.StringUtils;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -33,21 +43,30 @@ import lombok.Setter;
  * BeanBO class used to store the values from the RecordBO-Definition XML tag
  */
 public class RecordDefinitionBO {
-    @Setter
     private Map<String, BeanBO> beans;
 
+    private String[] beanSlots = new String[0];
+
     @Getter
-    @Setter
     private List<LineBO> lines;
 
     @Getter
-    @Setter
     private List<LineBO> linesWithIdentities;
 
     @Getter
     @Setter
     private RecordBO parentRecord;
 
+    private volatile Set<String> childBeanRefs;
+
+    private volatile String[] constructedBeanRefs;
+
+    private volatile BeanInstantiationPlan instantiationPlan;
+
+    private volatile Map<LineBO, BeanInstantiationPlan> lineInstantiationPlans;
+
+    private volatile LazyRecord.Layout lazyLayout;
+
     public RecordDefinitionBO() {
         this.beans = new HashMap<>();
         this.lines = new ArrayList<>();
@@ -59,9 +78,59 @@ public class RecordDefinitionBO {
         this.parentRecord = parentRecord;
     }
 
+    public void setLines(List<LineBO> lines) {
+        this.lines = lines;
+        invalidatePlans();
+    }
+
+    public void setLinesWithIdentities(List<LineBO> linesWithIdentities) {
+        this.linesWithIdentities = linesWithIdentities;
+        invalidatePlans();
+    }
+
+    public void setBeans(Map<String, BeanBO> beans) {
+        this.beans = beans;
+        beanSlots = beans.keySet().toArray(new String[beans.size()]);
+        invalidatePlans();
+    }
+
     public void addBean(BeanBO bean) {
         bean.setParentRecordDefinition(this);
-        this.beans.put(bean.getBeanName(), bean);
+        if (this.beans.put(bean.getBeanName(), bean) == null) {
+            String[] slots = Arrays.copyOf(beanSlots, beanSlots.length + 1);
+            slots[beanSlots.length] = bean.getBeanName();
+            beanSlots = slots;
+        }
+        invalidatePlans();
+    }
+
+    /**
+     * Get the slot of a bean - the beans of a record are numbered in the order they were added, and are held by {@link BeanSlotMap} and
+     * {@link com.blackbear.flatworm.MatchedRecord} in an array indexed by that number.
+     *
+     * @param beanRef The name of the bean.
+     * @return the slot or {@code -1} if the record has no such bean.
+     */
+    public int getBeanSlot(String beanRef) {
+        return Arrays.asList(beanSlots).indexOf(beanRef);
+    }
+
+    /**
+     * Get the name of the bean in each slot (see {@link #getBeanSlot(String)}).
+     *
+     * @return the bean names - a copy.
+     */
+    public String[] getBeanSlots() {
+        return beanSlots.clone();
+    }
+
+    /**
+     * Create an empty {@link BeanSlotMap} to hold the beans of a record as it's parsed.
+     *
+     * @return the {@link BeanSlotMap} instance.
+     */
+    public BeanSlotMap newBeanMap() {
+        return new BeanSlotMap(beanSlots);
     }
 
     public Collection<BeanBO> getBeans() {
@@ -81,6 +150,7 @@ public class RecordDefinitionBO {
             }
             
             lines.add(line);
+            invalidatePlans();
         } else {
             addLineWithIdentity(line);
         }
@@ -90,6 +160,7 @@ public class RecordDefinitionBO {
         if (line.getLineIdentity() != null) {
             line.setParentRecordDefinition(this);
             linesWithIdentities.add(line);
+            invalidatePlans();
         } else {
             addLine(line);
         }
@@ -116,6 +187,141 @@ public class RecordDefinitionBO {
         return matchesLine;
     }
 
+    /**
+     * Get the beans that are added to a parent bean as they are parsed - either by a line or by a segment with a {@code parentBeanRef}.
+     * A parent keeps hold of each instance it is given, so these beans are always newly created, even when the others are reused.
+     *
+     * @return the {@code beanRef}s of the child beans.
+     */
+    public Set<String> getChildBeanRefs() {
+        Set<String> beanRefs = childBeanRefs;
+        if (beanRefs == null) {
+            beanRefs = new HashSet<>();
+            for (LineBO line : lines) {
+                collectChildBeanRefs(line.getCardinality(), line.getLineElements(), beanRefs);
+            }
+            for (LineBO line : linesWithIdentities) {
+                collectChildBeanRefs(line.getCardinality(), line.getLineElements(), beanRefs);
+            }
+            childBeanRefs = beanRefs;
+        }
+        return beanRefs;
+    }
+
+    /**
+     * Get the beans that aren't created through their setters (see {@link ConstructionMode}) - they are held as {@link PendingBean}s until
+     * the record has been read.
+     *
+     * @return the {@code beanRef}s of the constructed beans.
+     */
+    public List<String> getConstructedBeanRefs() {
+        return Arrays.asList(resolveConstructedBeanRefs().clone());
+    }
+
+    /**
+     * Replace the {@link PendingBean}s of a record that has been read with the beans constructed from them.
+     *
+     * @param beans The beans of the record.
+     * @throws FlatwormParserException should constructing a bean fail for any reason.
+     */
+    public void constructBeans(Map<String, Object> beans) throws FlatwormParserException {
+        for (String beanRef : resolveConstructedBeanRefs()) {
+            Object bean = beans.get(beanRef);
+            if (bean instanceof PendingBean) {
+                beans.put(beanRef, ((PendingBean) bean).construct());
+            }
+        }
+    }
+
+    private String[] resolveConstructedBeanRefs() {
+        String[] beanRefs = constructedBeanRefs;
+        if (beanRefs == null) {
+            List<String> constructed = new ArrayList<>();
+            for (String beanRef : beanSlots) {
+                BeanBO bean = beans.get(beanRef);
+                if (bean != null && bean.getConstruction() != null && bean.getConstruction() != ConstructionMode.SETTERS) {
+                    constructed.add(beanRef);
+                }
+            }
+            beanRefs = constructed.toArray(new String[constructed.size()]);
+            constructedBeanRefs = beanRefs;
+        }
+        return beanRefs;
+    }
+
+    /**
+     * Get the {@link BeanInstantiationPlan} that creates the beans of the lines without an identity - run as each record starts.
+     *
+     * @return the {@link BeanInstantiationPlan} instance.
+     */
+    public BeanInstantiationPlan getInstantiationPlan() {
+        BeanInstantiationPlan plan = instantiationPlan;
+        if (plan == null) {
+            plan = BeanInstantiationPlan.compile(this, lines);
+            instantiationPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Get the {@link BeanInstantiationPlan} that creates the beans of a line with an identity - run each time the line is read.
+     *
+     * @param line One of the {@link #getLinesWithIdentities()}.
+     * @return the {@link BeanInstantiationPlan} instance.
+     */
+    public BeanInstantiationPlan getInstantiationPlan(LineBO line) {
+        Map<LineBO, BeanInstantiationPlan> plans = lineInstantiationPlans;
+        if (plans == null) {
+            plans = new IdentityHashMap<>();
+            for (LineBO lineWithIdentity : linesWithIdentities) {
+                plans.put(lineWithIdentity, BeanInstantiationPlan.compile(this, lineWithIdentity));
+            }
+            lineInstantiationPlans = plans;
+        }
+        BeanInstantiationPlan plan = plans.get(line);
+        return plan != null ? plan : BeanInstantiationPlan.compile(this, line);
+    }
+
+    /**
+     * Get the {@link LazyRecord.Layout} used to read the record as a {@link LazyRecord} - worked out again whenever one of the lines has
+     * been reconfigured.
+     *
+     * @return the {@link LazyRecord.Layout} instance.
+     * @throws FlatwormParserException should the record have identity lines, which can't be read lazily.
+     */
+    public LazyRecord.Layout getLazyLayout() throws FlatwormParserException {
+        LazyRecord.Layout layout = lazyLayout;
+        if (layout == null || !layout.isCurrent(lines)) {
+            layout = LazyRecord.Layout.compile(parentRecord != null ? parentRecord.getName() : null, this);
+            lazyLayout = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * Discard the child and constructed beans and {@link BeanInstantiationPlan}s worked out from the lines and beans so they are worked out
+     * again - called as the configuration changes.
+     */
+    public void invalidatePlans() {
+        childBeanRefs = null;
+        constructedBeanRefs = null;
+        lazyLayout = null;
+        instantiationPlan = null;
+        lineInstantiationPlans = null;
+    }
+
+    private static void collectChildBeanRefs(CardinalityBO cardinality, List<LineElement> elements, Set<String> beanRefs) {
+        if (cardinality != null && !StringUtils.isBlank(cardinality.getParentBeanRef())
+                && !StringUtils.isBlank(cardinality.getBeanRef())) {
+            beanRefs.add(cardinality.getBeanRef());
+        }
+        for (LineElement element : elements) {
+            if (element instanceof SegmentElementBO) {
+                SegmentElementBO segment = (SegmentElementBO) element;
+                collectChildBeanRefs(segment.getCardinality(), segment.getLineElements(), beanRefs);
+            }
+        }
+    }
 
     @Override
     public String toString() {
@@ -16,7 +16,12 @@
 
 package com.blackbear.flatworm.config;
 
-import java.util.HashMap;
+import com.blackbear.flatworm.Util;
+import com.blackbear.flatworm.converters.ConversionOptionChain;
+import com.blackbear.flatworm.converters.StringDictionary;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import lombok.Getter;
@@ -63,13 +68,20 @@ public class RecordElementBO implements LineElement {
     private boolean trimValue;
     
     // The elements are queried, there are just multiple layers of abstraction that the compiler can't see.
-    @Getter
-    @Setter
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
     private Map<String, ConversionOptionBO> conversionOptions;
 
+    private Map<String, ConversionOptionBO> readOnlyConversionOptions;
+
+    private volatile ConversionOptionChain conversionOptionChain;
+
+    private volatile Integer dedupeMaxSize;
+
+    private volatile StringDictionary stringDictionary;
+
     public RecordElementBO() {
-        conversionOptions = new HashMap<>();
+        conversionOptions = new LinkedHashMap<>();
+        readOnlyConversionOptions = Collections.unmodifiableMap(conversionOptions);
         ignoreField = false;
     }
 
@@ -85,8 +97,80 @@ public class RecordElementBO implements LineElement {
         return fieldLength != null;
     }
 
+    /**
+     * Get the conversion-options - they can only be changed through {@link #addConversionOption(String, ConversionOptionBO)} and {@link
+     * #setConversionOptions(Map)}, so that what is compiled from them is reset.
+     *
+     * @return a read-only view of the conversion-options, by name.
+     */
+    public Map<String, ConversionOptionBO> getConversionOptions() {
+        return readOnlyConversionOptions;
+    }
+
     public void addConversionOption(String name, ConversionOptionBO option) {
+        Integer maxSize = StringDictionary.OPTION.equals(name) ? parseDedupeMaxSize(option) : dedupeMaxSize;
         conversionOptions.put(name, option);
+        conversionOptionChain = null;
+        resetStringDictionary(maxSize);
+    }
+
+    public void setConversionOptions(Map<String, ConversionOptionBO> conversionOptions) {
+        Integer maxSize = parseDedupeMaxSize(conversionOptions.get(StringDictionary.OPTION));
+        this.conversionOptions = new LinkedHashMap<>(conversionOptions);
+        readOnlyConversionOptions = Collections.unmodifiableMap(this.conversionOptions);
+        conversionOptionChain = null;
+        resetStringDictionary(maxSize);
+    }
+
+    /**
+     * Get the {@link ConversionOptionChain} compiled from the conversion-options, in the order they were added - compiled the first time
+     * it's requested after the options change.
+     *
+     * @return the {@link ConversionOptionChain}.
+     */
+    public ConversionOptionChain getConversionOptionChain() {
+        ConversionOptionChain chain = conversionOptionChain;
+        if (chain == null) {
+            chain = ConversionOptionChain.compile(conversionOptions);
+            conversionOptionChain = chain;
+        }
+        return chain;
+    }
+
+    /**
+     * Get the {@link StringDictionary} the field's {@link String} values are canonicalized through, enabled with the {@code dedupe}
+     * conversion-option - created the first time it's requested after the options change, and otherwise kept (along with its counters)
+     * for as long as the configuration is.
+     *
+     * @return the {@link StringDictionary} or {@code null} if the field's values aren't deduplicated.
+     */
+    public StringDictionary getStringDictionary() {
+        StringDictionary dictionary = stringDictionary;
+        if (dictionary == null && dedupeMaxSize != null) {
+            synchronized (this) {
+                dictionary = stringDictionary;
+                Integer maxSize = dedupeMaxSize;
+                if (dictionary == null && maxSize != null) {
+                    dictionary = new StringDictionary(maxSize);
+                    stringDictionary = dictionary;
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    private synchronized void resetStringDictionary(Integer maxSize) {
+        dedupeMaxSize = maxSize;
+        stringDictionary = null;
+    }
+
+    /**
+     * The size of the dictionary - an invalid value, reported by {@link ConfigurationValidator#validateConversionOption(ConversionOptionBO,
+     * java.util.List)}, leaves the values as they are.
+     */
+    private static Integer parseDedupeMaxSize(ConversionOptionBO option) {
+        Integer maxSize = option == null || option.getValue() == null ? null : Util.tryParseInt(option.getValue().trim());
+        return maxSize != null && maxSize > 0 ? maxSize : null;
     }
 
     public void setIgnoreField(Boolean ignoreField) {
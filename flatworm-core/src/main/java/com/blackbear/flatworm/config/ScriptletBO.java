@@ -27,6 +27,10 @@ import org.apache.commons.lang.StringUtils;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
@@ -36,7 +40,9 @@ import javax.script.ScriptException;
 import lombok.Getter;
 
 /**
- * Defines the components of a Scriptlet which allow for external scripts to be run to modify runtime configuration.
+ * Defines the components of a Scriptlet which allow for external scripts to be run to modify runtime configuration. Script engines aren't
+ * safe for concurrent use, so each invocation borrows an idle engine, with the scripts evaluated into it, from a pool held by the
+ * scriptlet - the pool only grows to the number of threads that have invoked the scriptlet at once and lives as long as the scriptlet.
  *
  * @author Alan Henson
  */
@@ -57,10 +63,21 @@ public class ScriptletBO {
 
     private ScriptEngine scriptEngine;
 
+    private PooledEngine primaryEngine;
+
     @Getter
     private String functionName;
 
-    private Invocable scriptInvocable;
+    /**
+     * The scripts evaluated thus far, in order - replayed into each engine added to the pool.
+     */
+    private final List<String> evaluatedScripts = new CopyOnWriteArrayList<>();
+
+    /**
+     * The engines not currently running the script - the most recently used is borrowed first, so a scriptlet only ever invoked from one
+     * thread at a time keeps using the same engine.
+     */
+    private final Deque<PooledEngine> idleEngines = new ConcurrentLinkedDeque<>();
 
     /**
      * Constructor for ScriptletBO. The default Script Engine is used ({@code ScriptletBO.DEFAULT_SCRIPT_ENGINE}) and the default function
@@ -106,7 +123,8 @@ public class ScriptletBO {
             throw new FlatwormConfigurationException(String.format("The %s ScriptEngine could not be found by the given name.",
                     this.scriptEngineName));
         } else {
-            scriptInvocable = (Invocable) scriptEngine;
+            primaryEngine = new PooledEngine(scriptEngine);
+            idleEngines.push(primaryEngine);
         }
     }
 
@@ -122,6 +140,8 @@ public class ScriptletBO {
         this.script = script;
         try {
             scriptEngine.eval(script);
+            evaluatedScripts.add(script);
+            primaryEngine.scriptCount = evaluatedScripts.size();
         } catch (ScriptException e) {
             throw new FlatwormConfigurationException(String.format("The script provided failed to evaluate: %s%n%s",
                     e.getMessage(), script), e);
@@ -153,10 +173,16 @@ public class ScriptletBO {
      */
     public Object invokeFunction() throws FlatwormParserException {
         Object result;
+        PooledEngine engine = null;
         try {
-            result = scriptInvocable.invokeFunction(functionName);
+            engine = borrowEngine();
+            result = engine.invocable.invokeFunction(functionName);
         } catch (Exception e) {
             throw new FlatwormParserException(e.getMessage(), e);
+        } finally {
+            if (engine != null) {
+                idleEngines.push(engine);
+            }
         }
         return result;
     }
@@ -169,14 +195,39 @@ public class ScriptletBO {
      */
     public Object invokeFunction(Object... parameters) throws FlatwormParserException {
         Object result;
+        PooledEngine engine = null;
         try {
-            result = scriptInvocable.invokeFunction(functionName, parameters);
+            engine = borrowEngine();
+            result = engine.invocable.invokeFunction(functionName, parameters);
         } catch (Exception e) {
             throw new FlatwormParserException(e.getMessage(), e);
+        } finally {
+            if (engine != null) {
+                idleEngines.push(engine);
+            }
         }
         return result;
     }
 
+    /**
+     * Take an idle engine from the pool, creating one if all are in use, and bring it up to date with the scripts evaluated so far - the
+     * caller must push it back onto {@link #idleEngines} once done.
+     *
+     * @return the {@link PooledEngine} for the caller's sole use.
+     * @throws ScriptException should evaluating the scripts fail.
+     */
+    private PooledEngine borrowEngine() throws ScriptException {
+        PooledEngine engine = idleEngines.poll();
+        if (engine == null) {
+            engine = new PooledEngine(new ScriptEngineManager().getEngineByName(scriptEngineName));
+        }
+        while (engine.scriptCount < evaluatedScripts.size()) {
+            engine.engine.eval(evaluatedScripts.get(engine.scriptCount));
+            engine.scriptCount++;
+        }
+        return engine;
+    }
+
     @Override
     public String toString() {
         return "ScriptletBO{" +
@@ -186,4 +237,18 @@ public class ScriptletBO {
                 ", script='" + script + '\'' +
                 '}';
     }
+
+    /**
+     * A script engine along with the number of {@link #evaluatedScripts} that have been evaluated into it.
+     */
+    private static class PooledEngine {
+        private final ScriptEngine engine;
+        private final Invocable invocable;
+        private int scriptCount;
+
+        PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+            this.invocable = (Invocable) engine;
+        }
+    }
 }
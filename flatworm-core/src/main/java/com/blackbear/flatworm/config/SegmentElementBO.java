@@ -42,6 +42,16 @@ public class SegmentElementBO extends AbstractLineElementCollection implements L
         return matchesId;
     }
 
+    /**
+     * Determine if the token matches the identity of the segment.
+     *
+     * @param token The value of the token.
+     * @return {@code true} if it matches and {@code false} if not.
+     */
+    public boolean matchesIdentity(String token) {
+        return fieldIdentity != null && fieldIdentity.matchesIdentity(token);
+    }
+
     @Override
     public String toString() {
         return "SegmentElementBO{" +
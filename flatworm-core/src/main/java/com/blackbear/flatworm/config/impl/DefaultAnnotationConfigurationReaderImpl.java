@@ -131,6 +131,10 @@ public class DefaultAnnotationConfigurationReaderImpl implements AnnotationConfi
             ConfigurationValidator.validateFileFormat(fileFormat);
         }
 
+        if (performCleanup) {
+            fileFormat.compile();
+        }
+
         return fileFormat;
     }
 
@@ -631,6 +635,11 @@ public class DefaultAnnotationConfigurationReaderImpl implements AnnotationConfi
             bean.setBeanName(clazz.getName());
             bean.setBeanClass(clazz.getName());
             bean.setBeanObjectClass(clazz);
+            if (clazz.isAnnotationPresent(Record.class)) {
+                Record annotatedRecord = clazz.getAnnotation(Record.class);
+                bean.setConstruction(annotatedRecord.construction());
+                bean.setFactoryMethod(annotatedRecord.factoryMethod());
+            }
             record.getRecordDefinition().addBean(bean);
         }
     }
@@ -19,6 +19,7 @@ package com.blackbear.flatworm.config.impl;
 import com.google.common.base.Joiner;
 
 import com.blackbear.flatworm.CardinalityMode;
+import com.blackbear.flatworm.ConstructionMode;
 import com.blackbear.flatworm.FileFormat;
 import com.blackbear.flatworm.Util;
 import com.blackbear.flatworm.config.BeanBO;
@@ -51,6 +52,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -308,6 +310,7 @@ public class DefaultConfigurationReaderImpl implements ConfigurationReader {
                             String.format("Validation of the configuration content failed. See below:%n%s",
                                 Joiner.on(String.format("%n")).join(errors)));
                 }
+                fileFormat.compile();
                 return fileFormat;
             }
 
@@ -565,6 +568,17 @@ public class DefaultConfigurationReaderImpl implements ConfigurationReader {
         } catch (ClassNotFoundException e) {
             throw new FlatwormConfigurationException("Unable to load class " + bean.getBeanClass(), e);
         }
+
+        String construction = getAttributeValueNamed(node, "construction");
+        if (!StringUtils.isBlank(construction)) {
+            try {
+                bean.setConstruction(ConstructionMode.valueOf(construction.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new FlatwormConfigurationException(String.format("Invalid construction '%s' for bean %s - expected one of %s.",
+                        construction, bean.getBeanName(), Arrays.toString(ConstructionMode.values())), e);
+            }
+        }
+        bean.setFactoryMethod(getAttributeValueNamed(node, "factory-method"));
         return bean;
     }
 
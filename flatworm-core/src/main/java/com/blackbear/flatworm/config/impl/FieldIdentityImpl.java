@@ -18,6 +18,7 @@ package com.blackbear.flatworm.config.impl;
 
 import com.google.common.base.Joiner;
 
+import com.blackbear.flatworm.DelimitedTokenizer;
 import com.blackbear.flatworm.FileFormat;
 import com.blackbear.flatworm.config.LineBO;
 import com.blackbear.flatworm.config.LineToken;
@@ -178,6 +179,29 @@ public class FieldIdentityImpl extends AbstractLineTokenIdentity {
         return matches;
     }
 
+    /**
+     * See if the given token of a {@link DelimitedTokenizer} matches any of the registered matching strings - its position and length are
+     * checked before its value is created.
+     *
+     * @param tokenizer The {@link DelimitedTokenizer} holding the tokens of the line.
+     * @param index     The index of the token to evaluate.
+     * @return {@code true} if a match is found and {@code false} if not.
+     */
+    @Override
+    public boolean matchesIdentity(DelimitedTokenizer tokenizer, int index) {
+        boolean matches = false;
+
+        if (startPosition != null) {
+            matches = tokenizer.getColumnPosition(index) == startPosition;
+        }
+
+        if (matches && fieldLength != null) {
+            matches = tokenizer.getFullTokenLength(index) == fieldLength;
+        }
+
+        return matches && matchesIdentity(tokenizer.token(index));
+    }
+
     @Override
     public boolean matchesIdentity(String token) {
         String tokenToTest = token;
@@ -26,7 +26,8 @@ import com.blackbear.flatworm.errors.FlatwormParserException;
 import lombok.Getter;
 
 /**
- * Manages script identity instances (script-ident) found in the flatworm configuration. This class is not thread safe.
+ * Manages script identity instances (script-ident) found in the flatworm configuration. Scripts running at the same time are run in
+ * separate script engines (see {@link ScriptletBO}).
  *
  * @author Alan Henson
  */
@@ -16,7 +16,6 @@
 
 package com.blackbear.flatworm.converters;
 
-import com.blackbear.flatworm.Util;
 import com.blackbear.flatworm.config.ConversionOptionBO;
 import com.blackbear.flatworm.config.ConverterBO;
 import com.blackbear.flatworm.errors.FlatwormParserException;
@@ -24,11 +23,15 @@ import com.blackbear.flatworm.errors.FlatwormParserException;
 import org.apache.commons.beanutils.PropertyUtils;
 
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,17 +42,21 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class ConversionHelper {
+    private static final MethodType TO_TYPE_TYPE = MethodType.methodType(Object.class, String.class, Map.class);
+    private static final MethodType FROM_TYPE_TYPE = MethodType.methodType(String.class, Object.class, Map.class);
+
     private Map<String, ConverterBO> converters;
 
-    private Map<ConverterBO, Method> converterMethodCache;
-    private Map<ConverterBO, Method> converterToStringMethodCache;
+    // The converters' methods resolved to functions when the converters are added.
+    private Map<String, ToTypeConverterFunction> toTypeFunctions;
+    private Map<String, FromTypeConverterFunction> fromTypeFunctions;
     private Map<String, Object> converterObjectCache;
 
     public ConversionHelper() {
-        converters = new HashMap<>();
-        converterMethodCache = new HashMap<>();
-        converterToStringMethodCache = new HashMap<>();
-        converterObjectCache = new HashMap<>();
+        converters = new ConcurrentHashMap<>();
+        toTypeFunctions = new ConcurrentHashMap<>();
+        fromTypeFunctions = new ConcurrentHashMap<>();
+        converterObjectCache = new ConcurrentHashMap<>();
     }
 
     /**
@@ -64,21 +71,52 @@ public class ConversionHelper {
      */
     public Object convert(String converterName, String fieldChars, Map<String, ConversionOptionBO> options, String beanRef)
             throws FlatwormParserException {
-
         Object value;
 
         try {
-            Object object = getConverterObject(converterName);
-            Method method = getConverterMethod(converterName);
+            ToTypeConverterFunction converter = getToTypeConverterFunction(converterName);
+            if (converter == null) {
+                throw new FlatwormParserException("converterName '" + converterName + "' not registered");
+            }
 
             fieldChars = transformString(fieldChars, options, 0);
+            value = converter.convert(fieldChars, options);
+        } catch (Exception e) {
+            log.error("While running convert method for " + beanRef, e);
+            throw new FlatwormParserException("Converting field " + beanRef + " with value '"
+                    + fieldChars + "'", e);
+        }
+        return value;
+    }
 
-            Object[] args = {fieldChars, options};
-            value = method.invoke(object, args);
+    /**
+     * Same as {@link #convert(String, String, Map, String)} for when the converter has already been looked up with {@link
+     * #getToTypeConverterFunction(String)} and the conversion-options compiled into a {@link ConversionOptionChain}.
+     *
+     * @param converter     The converter function - {@code null} if the converter isn't registered.
+     * @param converterName The name of the converter from the xml configuration file.
+     * @param fieldChars    The value of the field as read from the input file.
+     * @param optionChain   The compiled conversion-options applied to the value before it's converted.
+     * @param options       Map of ConversionOptions (if any) for this field.
+     * @param beanRef       "class.property", used for more descriptive exception messages, should something go wrong.
+     * @return The {@link Object} constructed from the {@code fieldChars} value.
+     * @throws FlatwormParserException should parsing the value to a {@link Object} fail for any reason.
+     */
+    public Object convert(ToTypeConverterFunction converter, String converterName, String fieldChars, ConversionOptionChain optionChain,
+                          Map<String, ConversionOptionBO> options, String beanRef) throws FlatwormParserException {
+        Object value;
+
+        try {
+            if (converter == null) {
+                throw new FlatwormParserException("converterName '" + converterName + "' not registered");
+            }
+
+            fieldChars = optionChain.apply(fieldChars, 0);
+            value = converter.convert(fieldChars, options);
         } catch (Exception e) {
             log.error("While running convert method for " + beanRef, e);
             throw new FlatwormParserException("Converting field " + beanRef + " with value '"
-                    + fieldChars + "'");
+                    + fieldChars + "'", e);
         }
         return value;
     }
@@ -107,6 +145,30 @@ public class ConversionHelper {
         return value;
     }
 
+    /**
+     * Same as {@link #convert(Object, String, String, String, Map)} for when the type of the property has already been looked up.
+     *
+     * @param bean         The {@link Object} that contains the property.
+     * @param propertyType The type of the property.
+     * @param beanName     The name of the bean as configured.
+     * @param propertyName The name of the property that is to be set.
+     * @param fieldChars   The value.
+     * @param options      The {@link ConversionOptionBO}s.
+     * @return The {@link Object} constructed from the {@code fieldChars} value.
+     * @throws FlatwormParserException should parsing the value to a {@link Object} fail for any reason.
+     */
+    public Object convert(Object bean, Class<?> propertyType, String beanName, String propertyName, String fieldChars,
+                          Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        Object value;
+        try {
+            value = ConverterFunctionCache.convertFromString(propertyType, fieldChars, options);
+        } catch (Exception e) {
+            throw new FlatwormParserException(String.format("Failed to convert and set value '%s' on bean %s [%s] for property %s.",
+                    fieldChars, beanName, bean.getClass().getName(), propertyName), e);
+        }
+        return value;
+    }
+
     /**
      * Convert a given {@link Object} to a String.
      *
@@ -120,10 +182,11 @@ public class ConversionHelper {
     public String convert(String type, Object obj, Map<String, ConversionOptionBO> options, String beanRef) throws FlatwormParserException {
         String result;
         try {
-            Object converter = getConverterObject(type);
-            Method method = getToStringConverterMethod(type);
-            Object[] args = {obj, options};
-            result = (String) method.invoke(converter, args);
+            FromTypeConverterFunction converter = fromTypeFunctions.get(type);
+            if (converter == null) {
+                throw new FlatwormParserException("converterName '" + type + "' not registered");
+            }
+            result = converter.convert(obj, options);
         } catch (Exception e) {
             throw new FlatwormParserException("Converting field " + beanRef + " to string for value '" + obj + "'", e);
         }
@@ -149,7 +212,7 @@ public class ConversionHelper {
     }
 
     /**
-     * Handles the processing of the Conversion-Options from the flatworm XML file
+     * Handles the processing of the Conversion-Options from the flatworm XML file, applied in the order they were configured.
      *
      * @param fieldChars The string to be transformed
      * @param options    Collection of ConversionOptionBO objects
@@ -157,38 +220,33 @@ public class ConversionHelper {
      * @return The transformed string
      */
     public String transformString(String fieldChars, Map<String, ConversionOptionBO> options, int length) {
-        // JBL - Implement iteration of conversion-options
-        // Iterate over conversion-options, that way, the xml file
-        // can drive the order of conversions, instead of having them
-        // hard-coded like in 'removePadding' (old way)
-        Set<String> keys = options.keySet();
-        for (String key : keys) {
-            ConversionOptionBO conv = options.get(key);
-
-            if (conv.getName().equals("justify"))
-                fieldChars = Util.justify(fieldChars, conv.getValue(), options, length);
-            if (conv.getName().equals("strip-chars"))
-                fieldChars = Util.strip(fieldChars, conv.getValue(), options);
-            if (conv.getName().equals("substring"))
-                fieldChars = Util.substring(fieldChars, conv.getValue(), options);
-            if (conv.getName().equals("default-value"))
-                fieldChars = Util.defaultValue(fieldChars, conv.getValue(), options);
-        }
-
-        if (length > 0) // Never request string to be zero length
-            if (fieldChars.length() > length) // too long, chop it off
-                fieldChars = fieldChars.substring(0, length);
-
-        return fieldChars;
+        // The xml file drives the order of the conversions, see ConversionOptionChain - fields compile theirs once, see
+        // RecordElementBO.getConversionOptionChain().
+        return ConversionOptionChain.compile(options).apply(fieldChars, length);
     }
 
     /**
-     * Facilitates the storage of multiple converters used by the {@code convert} method during processing.
+     * Facilitates the storage of multiple converters used by the {@code convert} method during processing. The converter's methods are
+     * resolved here, once, rather than for each value converted - should that fail the error is reported when the converter is used.
      *
      * @param converter The converter to be added
      */
     public void addConverter(ConverterBO converter) {
+        addConverter(converter, null, null);
+    }
+
+    /**
+     * Store a converter along with the functions that call its methods - generated code passes functions that call the methods directly.
+     * A function that is {@code null} is resolved from the converter's class and method, as it is by {@link #addConverter(ConverterBO)}.
+     *
+     * @param converter        The converter to be added.
+     * @param toTypeFunction   The function that invokes the converter's {@code (String, Map)} method or {@code null}.
+     * @param fromTypeFunction The function that invokes the converter's {@code (Object, Map)} method or {@code null}.
+     */
+    public void addConverter(ConverterBO converter, ToTypeConverterFunction toTypeFunction, FromTypeConverterFunction fromTypeFunction) {
         converters.put(converter.getName(), converter);
+        toTypeFunctions.put(converter.getName(), toTypeFunction != null ? toTypeFunction : resolveToTypeFunction(converter));
+        fromTypeFunctions.put(converter.getName(), fromTypeFunction != null ? fromTypeFunction : resolveFromTypeFunction(converter));
     }
 
     /**
@@ -209,81 +267,118 @@ public class ConversionHelper {
     }
 
     /**
-     * Retrieve the method to use in performing the conversion based upon the {@code converterName}.
+     * Get the function that invokes the named converter's {@code (String, Map)} method.
+     *
+     * @param converterName The name of the converter.
+     * @return the function or {@code null} if no converter is registered with the name.
+     */
+    public ToTypeConverterFunction getToTypeConverterFunction(String converterName) {
+        return toTypeFunctions.get(converterName);
+    }
+
+    /**
+     * Get the function that invokes the named converter's {@code (Object, Map)} method.
+     *
+     * @param converterName The name of the converter.
+     * @return the function or {@code null} if no converter is registered with the name.
+     */
+    public FromTypeConverterFunction getFromTypeConverterFunction(String converterName) {
+        return fromTypeFunctions.get(converterName);
+    }
+
+    /**
+     * Resolve the method that converts a {@link String} to an {@link Object} into a function.
      *
-     * @param converterName The name of the converter. Used for lookup.
-     * @return Java reflection Object used to represent the conversion method.
+     * @param converter The {@link ConverterBO}.
+     * @return the function - one that fails with the reason if the method can't be found.
      */
-    private Method getConverterMethod(String converterName) throws FlatwormParserException {
+    private ToTypeConverterFunction resolveToTypeFunction(ConverterBO converter) {
         try {
-            ConverterBO c = converters.get(converterName);
-            if (converterMethodCache.get(c) != null)
-                return converterMethodCache.get(c);
-            Method meth;
-            Class<?> cl = Class.forName(c.getConverterClass());
-            Class args[] = {String.class, Map.class};
-            meth = cl.getMethod(c.getMethod(), args);
-            converterMethodCache.put(c, meth);
-            return meth;
+            MethodHandle handle = findConverterMethod(converter, String.class, Map.class).asType(TO_TYPE_TYPE);
+            return (value, options) -> {
+                try {
+                    return (Object) handle.invokeExact(value, options);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new UndeclaredThrowableException(t);
+                }
+            };
         } catch (NoSuchMethodException e) {
-            log.error("Finding method", e);
-            throw new FlatwormParserException("Couldn't Find Method");
+            return failingConverter("Couldn't Find Method", e);
         } catch (ClassNotFoundException e) {
-            log.error("Finding class", e);
-            throw new FlatwormParserException("Couldn't Find Class");
+            return failingConverter("Couldn't Find Class", e);
+        } catch (Exception e) {
+            return failingConverter(e.getMessage(), e);
         }
     }
 
     /**
-     * Get the method that is reponsible for transorming an {@link Object} to a {@link String}.
+     * Resolve the method that converts an {@link Object} to a {@link String} into a function.
      *
-     * @param converterName The name of the converter.
-     * @return The {@link Method} that can turn an {@link Object} into a {@link String}. The expectation is that this functionality is more
-     * advanced than {@code toString()};
-     * @throws FlatwormParserException should attempting to retrieving the {@link Method} fail for any reason.
+     * @param converter The {@link ConverterBO}.
+     * @return the function - one that fails with the reason if the method can't be found.
      */
-    private Method getToStringConverterMethod(String converterName) throws FlatwormParserException {
-        ConverterBO c = converters.get(converterName);
-        if (converterToStringMethodCache.get(c) != null)
-            return converterToStringMethodCache.get(c);
+    private FromTypeConverterFunction resolveFromTypeFunction(ConverterBO converter) {
         try {
-            Class<?> cl = Class.forName(c.getConverterClass());
-            Class args[] = {Object.class, Map.class};
-            Method meth = cl.getMethod(c.getMethod(), args);
-            converterToStringMethodCache.put(c, meth);
-            return meth;
+            MethodHandle handle = findConverterMethod(converter, Object.class, Map.class).asType(FROM_TYPE_TYPE);
+            return (value, options) -> {
+                try {
+                    return (String) handle.invokeExact(value, options);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new UndeclaredThrowableException(t);
+                }
+            };
         } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new FlatwormParserException(e.getMessage(), e);
+            return (value, options) -> {
+                throw new FlatwormParserException(e.getMessage(), e);
+            };
         }
     }
 
+    private static ToTypeConverterFunction failingConverter(String message, Exception cause) {
+        return (value, options) -> {
+            throw new FlatwormParserException(message, cause);
+        };
+    }
+
     /**
-     * Fetch the {@link ConverterBO} object read from the config data.
+     * Find the converter's method with the given parameter types, bound to the converter instance if it isn't static.
      *
-     * @param converterName The name of the converter. Used for lookup.
-     * @return An instance of the conversion class.
-     * @throws FlatwormParserException if there is no ConverterBO registered with the specified name or the {@link Method} failed be
-     *                                 retrieved.
+     * @param converter      The {@link ConverterBO}.
+     * @param parameterTypes The parameter types of the method.
+     * @return the {@link MethodHandle}.
+     * @throws Exception should the class, method or instance not be available.
      */
-    private Object getConverterObject(String converterName) throws FlatwormParserException {
+    private MethodHandle findConverterMethod(ConverterBO converter, Class<?>... parameterTypes) throws Exception {
+        Class<?> converterClass = Class.forName(converter.getConverterClass());
+        Method method = converterClass.getMethod(converter.getMethod(), parameterTypes);
+        MethodHandle handle;
         try {
-            ConverterBO c = converters.get(converterName);
-            if (c == null) {
-                throw new FlatwormParserException("converterName '" + converterName + "' not registered");
-            }
-            if (converterObjectCache.get(c.getConverterClass()) != null)
-                return converterObjectCache.get(c.getConverterClass());
-            Object o;
-            Class<?> cl = Class.forName(c.getConverterClass());
-            Class args[] = new Class[0];
-            Object objArgs[] = new Object[0];
-            o = cl.getConstructor(args).newInstance(objArgs);
-            converterObjectCache.put(c.getConverterClass(), o);
-            return o;
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new FlatwormParserException(e.getMessage(), e);
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // A public method declared on a non-public class - see if we are allowed to open it up.
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method);
+        }
+        return Modifier.isStatic(method.getModifiers()) ? handle : handle.bindTo(getConverterObject(converter));
+    }
+
+    /**
+     * Fetch the instance of the converter's class, creating it the first time the class is used.
+     *
+     * @param converter The {@link ConverterBO}.
+     * @return An instance of the conversion class.
+     * @throws Exception should the instance fail to be created.
+     */
+    private Object getConverterObject(ConverterBO converter) throws Exception {
+        Object o = converterObjectCache.get(converter.getConverterClass());
+        if (o == null) {
+            o = Class.forName(converter.getConverterClass()).getConstructor().newInstance();
+            converterObjectCache.put(converter.getConverterClass(), o);
         }
+        return o;
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.Util;
+import com.blackbear.flatworm.config.ConversionOptionBO;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The string transforming conversion-options of a field ({@code justify} with {@code pad-character}, {@code strip-chars}, {@code
+ * substring} and {@code default-value}) compiled into an ordered chain of transforms - the same results as {@link
+ * ConversionHelper#transformString(String, Map, int)} without looking at the options for each value. The transforms run in the order the
+ * options were configured in.
+ */
+public final class ConversionOptionChain {
+
+    public static final ConversionOptionChain EMPTY = new ConversionOptionChain(Collections.emptyList());
+
+    private final List<Transform> transforms;
+
+    private ConversionOptionChain(List<Transform> transforms) {
+        this.transforms = transforms;
+    }
+
+    /**
+     * Compile the chain for the given conversion-options. Options that don't transform the value (such as {@code append} or a converter's
+     * own options) are left to whatever uses them.
+     *
+     * @param options The conversion-options, iterated in the order they are to be applied.
+     * @return the {@code ConversionOptionChain}.
+     * @throws NumberFormatException if the {@code substring} option isn't two comma separated indexes.
+     */
+    public static ConversionOptionChain compile(Map<String, ConversionOptionBO> options) {
+        List<Transform> transforms = new ArrayList<>();
+        for (ConversionOptionBO option : options.values()) {
+            String value = option.getValue();
+            switch (option.getName()) {
+                case "justify":
+                    transforms.add(new Justify(value, Util.getValue(options, "pad-character")));
+                    break;
+                case "strip-chars":
+                    Pattern pattern = Util.getStripPattern(value);
+                    if (pattern != null) {
+                        transforms.add(new StripChars(pattern));
+                    }
+                    break;
+                case "substring":
+                    String[] args = value.split(",");
+                    transforms.add(new Substring(Integer.parseInt(args[0]), Integer.parseInt(args[1])));
+                    break;
+                case "default-value":
+                    transforms.add(new DefaultValue(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return transforms.isEmpty() ? EMPTY : new ConversionOptionChain(Collections.unmodifiableList(transforms));
+    }
+
+    /**
+     * Apply the transforms to the value.
+     *
+     * @param fieldChars The value.
+     * @param length     The length of the field when writing (pads rather than strips when justifying and truncates the result), {@code 0}
+     *                   when reading.
+     * @return the transformed value.
+     */
+    public String apply(String fieldChars, int length) {
+        for (Transform transform : transforms) {
+            fieldChars = transform.apply(fieldChars, length);
+        }
+
+        if (length > 0 && fieldChars.length() > length) {
+            fieldChars = fieldChars.substring(0, length);
+        }
+        return fieldChars;
+    }
+
+    public boolean isEmpty() {
+        return transforms.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return transforms.toString();
+    }
+
+    private interface Transform {
+        String apply(String value, int length);
+    }
+
+    private static final class Justify implements Transform {
+        private final boolean justifyLeft;
+        private final boolean justifyRight;
+        private final String padChars;
+
+        Justify(String value, String padChars) {
+            String justify = value != null ? value : "both";
+            this.justifyLeft = justify.equalsIgnoreCase("left") || justify.equalsIgnoreCase("both");
+            this.justifyRight = justify.equalsIgnoreCase("right") || justify.equalsIgnoreCase("both");
+            this.padChars = padChars != null ? padChars : " ";
+        }
+
+        @Override
+        public String apply(String value, int length) {
+            if (length == 0) {
+                int end = value.length();
+                if (justifyLeft) {
+                    while (end > 0 && padChars.indexOf(value.charAt(end - 1)) != -1) {
+                        end--;
+                    }
+                }
+                int start = 0;
+                if (justifyRight) {
+                    while (start < end && padChars.indexOf(value.charAt(start)) != -1) {
+                        start++;
+                    }
+                }
+                return value.substring(start, end);
+            } else if (value.length() < length) {
+                String padding = StringUtils.repeat(padChars.substring(0, 1), length - value.length());
+                if (justifyLeft) {
+                    value = value + padding;
+                }
+                if (justifyRight) {
+                    value = padding + value;
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "justify=" + (justifyLeft ? justifyRight ? "both" : "left" : justifyRight ? "right" : "none")
+                    + " pad-character='" + padChars + "'";
+        }
+    }
+
+    private static final class StripChars implements Transform {
+        private final Pattern pattern;
+
+        StripChars(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String apply(String value, int length) {
+            return pattern.matcher(value).replaceAll("");
+        }
+
+        @Override
+        public String toString() {
+            return "strip-chars=" + pattern;
+        }
+    }
+
+    private static final class Substring implements Transform {
+        private final int beginIndex;
+        private final int endIndex;
+
+        Substring(int beginIndex, int endIndex) {
+            this.beginIndex = beginIndex;
+            this.endIndex = endIndex;
+        }
+
+        @Override
+        public String apply(String value, int length) {
+            return value.substring(beginIndex, endIndex);
+        }
+
+        @Override
+        public String toString() {
+            return "substring=" + beginIndex + "," + endIndex;
+        }
+    }
+
+    private static final class DefaultValue implements Transform {
+        private final String defaultValue;
+
+        DefaultValue(String defaultValue) {
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public String apply(String value, int length) {
+            return StringUtils.isBlank(value) ? defaultValue : value;
+        }
+
+        @Override
+        public String toString() {
+            return "default-value='" + defaultValue + "'";
+        }
+    }
+}
@@ -20,11 +20,18 @@ import com.blackbear.flatworm.config.ConversionOptionBO;
 import com.blackbear.flatworm.config.RecordBO;
 
 import java.math.BigDecimal;
-import java.util.Collection;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Goes above and beyond the {@link ConversionHelper} by providing a singleton like experience where multiple converter methods can be
@@ -36,11 +43,32 @@ import java.util.Optional;
  */
 public class ConverterFunctionCache {
 
-    private static Map<String, ToTypeConverterFunction> toTypeConverterFunctionCache = new HashMap<>();
-    private static Map<String, FromTypeConverterFunction> fromTypeConverterFunctionCache = new HashMap<>();
+    private static Map<String, ToTypeConverterFunction> toTypeConverterFunctionCache = new ConcurrentHashMap<>();
+    private static Map<String, FromTypeConverterFunction> fromTypeConverterFunctionCache = new ConcurrentHashMap<>();
+
+    // The function resolved for each class (including none being found) - replaced whenever a function is registered or removed.
+    private static volatile ClassValue<Optional<ToTypeConverterFunction>> toTypeConverterLookup =
+            newLookup(toTypeConverterFunctionCache);
+    private static volatile ClassValue<Optional<FromTypeConverterFunction>> fromTypeConverterLookup =
+            newLookup(fromTypeConverterFunctionCache);
 
     private static CoreConverters coreConverters = new CoreConverters();
 
+    // Converters straight from a range of characters to a primitive - used for primitive bean properties when there is no registered
+    // ToTypeConverterFunction for the primitive type overriding them.
+    private static volatile IntConverterFunction intConverterFunction = coreConverters::parseInt;
+    private static volatile LongConverterFunction longConverterFunction = coreConverters::parseLong;
+    private static volatile DoubleConverterFunction doubleConverterFunction = coreConverters::parseDouble;
+    private static volatile BooleanConverterFunction booleanConverterFunction = coreConverters::parseBoolean;
+    private static volatile CharConverterFunction charConverterFunction = coreConverters::parseCharacter;
+
+    // The built in converters of the primitive types - put back should a converter registered in their place be removed.
+    private static Map<Class<?>, ToTypeConverterFunction> primitiveToTypeConverterFunctions = new HashMap<>();
+
+    // The primitive types for which a ToTypeConverterFunction has been registered since their primitive converter was - the primitive
+    // converter is set aside, rather than dropped, so that it's used again once the ToTypeConverterFunction is removed.
+    private static Set<Class<?>> toTypeOverriddenPrimitives = ConcurrentHashMap.newKeySet();
+
     private ConverterFunctionCache() {
     }
 
@@ -52,6 +80,21 @@ public class ConverterFunctionCache {
         registerToTypeConverterFunction(Long.class, coreConverters::convertLong);
         registerToTypeConverterFunction(Integer.class, coreConverters::convertInteger);
         registerToTypeConverterFunction(Date.class, coreConverters::convertDate);
+        registerToTypeConverterFunction(LocalDate.class, coreConverters::convertLocalDate);
+        registerToTypeConverterFunction(LocalDateTime.class, coreConverters::convertLocalDateTime);
+        registerToTypeConverterFunction(Instant.class, coreConverters::convertInstant);
+        registerToTypeConverterFunction(Boolean.class, coreConverters::convertBoolean);
+        registerToTypeConverterFunction(Character.class, coreConverters::convertCharacter);
+
+        // Primitive properties - the primitive converters below avoid the boxing where the caller supports them.
+        primitiveToTypeConverterFunctions.put(int.class, coreConverters::convertInteger);
+        primitiveToTypeConverterFunctions.put(long.class, coreConverters::convertLong);
+        primitiveToTypeConverterFunctions.put(double.class, coreConverters::convertDouble);
+        primitiveToTypeConverterFunctions.put(float.class, coreConverters::convertFloat);
+        primitiveToTypeConverterFunctions.put(boolean.class, coreConverters::convertBoolean);
+        primitiveToTypeConverterFunctions.put(char.class, coreConverters::convertCharacter);
+        primitiveToTypeConverterFunctions.forEach((type, function) -> toTypeConverterFunctionCache.put(type.getName(), function));
+        toTypeConverterLookup = newLookup(toTypeConverterFunctionCache);
 
         registerFromTypeConverterFunction(String.class, coreConverters::convertChar);
         registerFromTypeConverterFunction(Double.class, coreConverters::convertDouble);
@@ -60,6 +103,11 @@ public class ConverterFunctionCache {
         registerFromTypeConverterFunction(Long.class, coreConverters::convertLong);
         registerFromTypeConverterFunction(Integer.class, coreConverters::convertInteger);
         registerFromTypeConverterFunction(Date.class, coreConverters::convertDate);
+        registerFromTypeConverterFunction(LocalDate.class, coreConverters::convertLocalDate);
+        registerFromTypeConverterFunction(LocalDateTime.class, coreConverters::convertLocalDateTime);
+        registerFromTypeConverterFunction(Instant.class, coreConverters::convertInstant);
+        registerFromTypeConverterFunction(Boolean.class, coreConverters::convertBoolean);
+        registerFromTypeConverterFunction(Character.class, coreConverters::convertCharacter);
     }
 
     /**
@@ -103,15 +151,29 @@ public class ConverterFunctionCache {
      */
     public static void registerToTypeConverterFunction(Class<?> clazz, ToTypeConverterFunction function) {
         toTypeConverterFunctionCache.put(clazz.getName(), function);
+        toTypeConverterLookup = newLookup(toTypeConverterFunctionCache);
+
+        // A converter registered for a primitive type takes over from the primitive converter until it's removed.
+        if (clazz.isPrimitive()) {
+            toTypeOverriddenPrimitives.add(clazz);
+        }
     }
 
     /**
-     * Remove a {@link ToTypeConverterFunction} converter from the cache.
+     * Remove a {@link ToTypeConverterFunction} converter from the cache - removing a converter registered for a primitive type puts
+     * back the built in converters it replaced, including the primitive converter.
      * @param clazz The class for which the {@link ToTypeConverterFunction} was registered.
      * @return the {@link ToTypeConverterFunction} instance removed from cache if found and {@code null} if not.
      */
     public static ToTypeConverterFunction removeToTypeConverterFunction(Class<?> clazz) {
-        return toTypeConverterFunctionCache.remove(clazz.getName());
+        ToTypeConverterFunction removed = toTypeConverterFunctionCache.remove(clazz.getName());
+        ToTypeConverterFunction builtIn = primitiveToTypeConverterFunctions.get(clazz);
+        if (removed != null && builtIn != null && removed != builtIn) {
+            toTypeConverterFunctionCache.put(clazz.getName(), builtIn);
+        }
+        toTypeOverriddenPrimitives.remove(clazz);
+        toTypeConverterLookup = newLookup(toTypeConverterFunctionCache);
+        return removed;
     }
 
     /**
@@ -122,6 +184,7 @@ public class ConverterFunctionCache {
      */
     public static void registerFromTypeConverterFunction(Class<?> clazz, FromTypeConverterFunction function) {
         fromTypeConverterFunctionCache.put(clazz.getName(), function);
+        fromTypeConverterLookup = newLookup(fromTypeConverterFunctionCache);
     }
 
     /**
@@ -130,86 +193,165 @@ public class ConverterFunctionCache {
      * @return the {@link FromTypeConverterFunction} instance removed from cache if found and {@code null} if not.
      */
     public static FromTypeConverterFunction removeFromTypeConverterFunction(Class<?> clazz) {
-        return fromTypeConverterFunctionCache.remove(clazz.getName());
+        FromTypeConverterFunction removed = fromTypeConverterFunctionCache.remove(clazz.getName());
+        fromTypeConverterLookup = newLookup(fromTypeConverterFunctionCache);
+        return removed;
+    }
+
+    /**
+     * Register the {@link IntConverterFunction} used to parse {@code int} properties straight from the line of data.
+     * @param function The {@link IntConverterFunction} function to register.
+     */
+    public static void registerIntConverterFunction(IntConverterFunction function) {
+        intConverterFunction = function;
+        toTypeOverriddenPrimitives.remove(int.class);
+    }
+
+    /**
+     * Get the {@link IntConverterFunction} used to parse {@code int} properties.
+     * @return the {@link IntConverterFunction} or {@code null} if a {@link ToTypeConverterFunction} has been registered for
+     * {@code int} since, in which case that should be used.
+     */
+    public static IntConverterFunction getIntConverterFunction() {
+        return toTypeOverriddenPrimitives.contains(int.class) ? null : intConverterFunction;
+    }
+
+    /**
+     * Register the {@link LongConverterFunction} used to parse {@code long} properties straight from the line of data.
+     * @param function The {@link LongConverterFunction} function to register.
+     */
+    public static void registerLongConverterFunction(LongConverterFunction function) {
+        longConverterFunction = function;
+        toTypeOverriddenPrimitives.remove(long.class);
+    }
+
+    /**
+     * Get the {@link LongConverterFunction} used to parse {@code long} properties.
+     * @return the {@link LongConverterFunction} or {@code null} if a {@link ToTypeConverterFunction} has been registered for
+     * {@code long} since, in which case that should be used.
+     */
+    public static LongConverterFunction getLongConverterFunction() {
+        return toTypeOverriddenPrimitives.contains(long.class) ? null : longConverterFunction;
+    }
+
+    /**
+     * Register the {@link DoubleConverterFunction} used to parse {@code double} properties straight from the line of data.
+     * @param function The {@link DoubleConverterFunction} function to register.
+     */
+    public static void registerDoubleConverterFunction(DoubleConverterFunction function) {
+        doubleConverterFunction = function;
+        toTypeOverriddenPrimitives.remove(double.class);
+    }
+
+    /**
+     * Get the {@link DoubleConverterFunction} used to parse {@code double} properties.
+     * @return the {@link DoubleConverterFunction} or {@code null} if a {@link ToTypeConverterFunction} has been registered for
+     * {@code double} since, in which case that should be used.
+     */
+    public static DoubleConverterFunction getDoubleConverterFunction() {
+        return toTypeOverriddenPrimitives.contains(double.class) ? null : doubleConverterFunction;
+    }
+
+    /**
+     * Register the {@link BooleanConverterFunction} used to parse {@code boolean} properties straight from the line of data.
+     * @param function The {@link BooleanConverterFunction} function to register.
+     */
+    public static void registerBooleanConverterFunction(BooleanConverterFunction function) {
+        booleanConverterFunction = function;
+        toTypeOverriddenPrimitives.remove(boolean.class);
+    }
+
+    /**
+     * Get the {@link BooleanConverterFunction} used to parse {@code boolean} properties.
+     * @return the {@link BooleanConverterFunction} or {@code null} if a {@link ToTypeConverterFunction} has been registered for
+     * {@code boolean} since, in which case that should be used.
+     */
+    public static BooleanConverterFunction getBooleanConverterFunction() {
+        return toTypeOverriddenPrimitives.contains(boolean.class) ? null : booleanConverterFunction;
+    }
+
+    /**
+     * Register the {@link CharConverterFunction} used to parse {@code char} properties straight from the line of data.
+     * @param function The {@link CharConverterFunction} function to register.
+     */
+    public static void registerCharConverterFunction(CharConverterFunction function) {
+        charConverterFunction = function;
+        toTypeOverriddenPrimitives.remove(char.class);
+    }
+
+    /**
+     * Get the {@link CharConverterFunction} used to parse {@code char} properties.
+     * @return the {@link CharConverterFunction} or {@code null} if a {@link ToTypeConverterFunction} has been registered for
+     * {@code char} since, in which case that should be used.
+     */
+    public static CharConverterFunction getCharConverterFunction() {
+        return toTypeOverriddenPrimitives.contains(char.class) ? null : charConverterFunction;
     }
 
     /**
      * Attempt to find a converter from a {@link String} to a {@link Object} instance based
      * upon the {@code clazz} converterName. This will look for an exact match by class name and it will
-     * then look for anything that {@code clazz} inherits from to see if that converter would work.
-     * The best way to avoid having the wrong converter chosen is to have specific converters
-     * for subtypes when the converter for the parent converterName won't work.
+     * then look for the nearest class that {@code clazz} inherits from (superclasses first, then interfaces)
+     * to see if that converter would work. The best way to avoid having the wrong converter chosen is to
+     * have specific converters for subtypes when the converter for the parent converterName won't work.
+     * The result, found or not, is cached for the {@code clazz} until a converter is registered or removed.
      * @param clazz The {@link Class} to find the converter for.
      * @return The {@link ToTypeConverterFunction} function if found by the {@code clazz} or {@code null}.
      */
     public static ToTypeConverterFunction findToTypeConverter(Class<?> clazz) {
-        ToTypeConverterFunction result = null;
-
-        Optional<String> match = findKey(clazz, toTypeConverterFunctionCache.keySet());
-        if (match.isPresent()) {
-            result = toTypeConverterFunctionCache.get(match.get());
-        }
-
-        return result;
+        return toTypeConverterLookup.get(clazz).orElse(null);
     }
 
     /**
      * Attempt to find a converter from an instance of an {@link Object} to a {@link String} based
      * upon the {@code clazz} converterName. This will look for an exact match by class name and it will
-     * then look for anything that {@code clazz} inherits from to see if that converter would work.
-     * The best way to avoid having the wrong converter chosen is to have specific converters
-     * for subtypes when the converter for the parent converterName won't work.
+     * then look for the nearest class that {@code clazz} inherits from (superclasses first, then interfaces)
+     * to see if that converter would work. The best way to avoid having the wrong converter chosen is to
+     * have specific converters for subtypes when the converter for the parent converterName won't work.
+     * The result, found or not, is cached for the {@code clazz} until a converter is registered or removed.
      * @param clazz The {@link Class} to find the converter for.
      * @return The {@link FromTypeConverterFunction} function if found by the {@code clazz} or {@code null}.
      */
     public static FromTypeConverterFunction findFromTypeConverter(Class<?> clazz) {
-        FromTypeConverterFunction result = null;
-
-        Optional<String> match = findKey(clazz, fromTypeConverterFunctionCache.keySet());
-        if (match.isPresent()) {
-            result = fromTypeConverterFunctionCache.get(match.get());
-        }
-        return result;
+        return fromTypeConverterLookup.get(clazz).orElse(null);
     }
 
     /**
-     * See if the given clazz name is in the given {@code keys} collection by direct match and then
-     * by seeing if it represents a subclass of a class that is in the keys collection.
-     * @param clazz The Class to search by.
-     * @param keys The collection of class names that are keys.
-     * @return an {@link Optional} instance that contains the result of the search.
-     */
-    private static Optional<String> findKey(Class<?> clazz, Collection<String> keys) {
-        Optional<String> match = keys
-                .stream()
-                .filter(entry -> entry.equals(clazz.getName()))
-                .findFirst();
-
-        // Try a heavier approach.
-        if (!match.isPresent()) {
-            match = keys.stream()
-                    .map(ConverterFunctionCache::loadClass)
-                    .filter(entry -> entry != null && entry.isAssignableFrom(clazz))
-                    .map(Class::getName)
-                    .findFirst();
-        }
-        return match;
+     * Create the per class cache of the function found in the {@code functions}.
+     * @param functions The registered functions by class name.
+     * @param <T> The type of function.
+     * @return the {@link ClassValue} that finds and caches the function for a class.
+     */
+    private static <T> ClassValue<Optional<T>> newLookup(Map<String, T> functions) {
+        return new ClassValue<Optional<T>>() {
+            @Override
+            protected Optional<T> computeValue(Class<?> type) {
+                return Optional.ofNullable(findFunction(type, functions));
+            }
+        };
     }
 
     /**
-     * Attempt to load a class into memory by name and fail silently if unable to do so.
-     * @param name The name of the class to attempt to load.
-     * @return The loaded class or {@code null} if the class could not be found or failed to load.
+     * Find the function registered for the given class by direct match and then by walking up
+     * its superclasses and then, breadth first, its interfaces.
+     * @param clazz The Class to search by.
+     * @param functions The registered functions by class name.
+     * @param <T> The type of function.
+     * @return the function or {@code null} if there isn't one for the class or anything it inherits from.
      */
-    private static Class<?> loadClass(String name) {
-        Class<?> clazz = null;
-        try {
-            clazz = Class.forName(name);
-        } catch (Exception e) {
-            // Eating this as it technically shouldn't happen since we used the Class
-            // to create the key (generated hot-swapping might create a weird condition so
-            // eating to be safe).
+    private static <T> T findFunction(Class<?> clazz, Map<String, T> functions) {
+        T function = functions.get(clazz.getName());
+
+        List<Class<?>> interfaces = new ArrayList<>(Arrays.asList(clazz.getInterfaces()));
+        for (Class<?> type = clazz.getSuperclass(); function == null && type != null; type = type.getSuperclass()) {
+            function = functions.get(type.getName());
+            interfaces.addAll(Arrays.asList(type.getInterfaces()));
+        }
+        for (int i = 0; function == null && i < interfaces.size(); i++) {
+            Class<?> type = interfaces.get(i);
+            function = functions.get(type.getName());
+            interfaces.addAll(Arrays.asList(type.getInterfaces()));
         }
-        return clazz;
+        return function;
     }
 }
@@ -22,8 +22,10 @@ import com.blackbear.flatworm.errors.FlatwormParserException;
 
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.Map;
 
@@ -49,6 +51,30 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CoreConverters {
 
+    private static final DateFormatCache DEFAULT_DATE_FORMAT = DateFormatCache.forPattern("yyyy-MM-dd");
+
+    private static final String[] TRUE_VALUES = {"true", "yes", "y", "t", "1"};
+
+    private static final String[] FALSE_VALUES = {"false", "no", "n", "f", "0"};
+
+    /**
+     * Powers of ten that are exactly representable as a {@code double}.
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The largest mantissa that is exactly representable as a {@code double}.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Returned by the in place number parsing when the value has to be handed to the parsers of the JDK instead - magnitudes are
+     * accumulated negatively so a positive value can't be a result.
+     */
+    private static final long NOT_SIMPLE = 1;
+
     /**
      * Conversion function for {@code String}, returns the source string with padding removed if requested.
      *
@@ -76,7 +102,9 @@ public class CoreConverters {
     /**
      * Conversion function for {@code Date}, returns the source string with padding removed if requested, converted into a date.  In
      * addition to the standard conversion options, dates also support the following:  <dl> <dt>{@code format}</dt> <dd>A date format string
-     * in {@code SimpleDateFormat} syntax that defines the format to expect, default is yyyy-MM-dd.</dd> </dl>
+     * in {@code SimpleDateFormat} syntax that defines the format to expect, default is yyyy-MM-dd.</dd> <dt>{@code memoize}</dt> <dd>If set
+     * to {@code true}, the most recently seen values are remembered so that a column repeating the same few dates isn't parsed over and
+     * over, see {@link DateFormatCache}.</dd> </dl>
      *
      * @param str     The source string
      * @param options The conversion-option values for the field
@@ -86,16 +114,10 @@ public class CoreConverters {
     public Date convertDate(String str, Map<String, ConversionOptionBO> options)
             throws FlatwormParserException {
         try {
-            String format = Util.getValue(options, "format");
-
-            SimpleDateFormat sdf;
             if (str.length() == 0)
                 return null;
-            if (format == null)
-                format = "yyyy-MM-dd";
-            sdf = new SimpleDateFormat(format);
-            return sdf.parse(str);
-        } catch (ParseException ex) {
+            return getDateFormat(options, DEFAULT_DATE_FORMAT).parseDate(str, isMemoized(options));
+        } catch (DateTimeException ex) {
             log.error("Failed to parse date", ex);
             throw new FlatwormParserException(str);
         }
@@ -109,14 +131,102 @@ public class CoreConverters {
      * @return the string result
      */
     public String convertDate(Object obj, Map<String, ConversionOptionBO> options) {
-        Date date = (Date) obj;
-        String format = Util.getValue(options, "format");
         if (obj == null)
             return null;
-        if (format == null)
-            format = "yyyy-MM-dd";
-        SimpleDateFormat sdf = new SimpleDateFormat(format);
-        return sdf.format(date);
+        return getDateFormat(options, DEFAULT_DATE_FORMAT).format((Date) obj);
+    }
+
+    /**
+     * Conversion function for {@link LocalDate} with the same options as {@link #convertDate(String, Map)} - the default {@code format} is
+     * the ISO date (yyyy-MM-dd).
+     *
+     * @param str     The source string
+     * @param options The conversion-option values for the field
+     * @return The converted date, {@code null} for an empty string.
+     * @throws FlatwormParserException if the date fails to parse correctly.
+     */
+    public LocalDate convertLocalDate(String str, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        try {
+            if (str.length() == 0)
+                return null;
+            return getDateFormat(options, DateFormatCache.ISO_LOCAL_DATE).parseLocalDate(str, isMemoized(options));
+        } catch (DateTimeException ex) {
+            log.error("Failed to parse LocalDate", ex);
+            throw new FlatwormParserException(str);
+        }
+    }
+
+    /**
+     * {@link LocalDate} to String conversion function.
+     *
+     * @param obj     source object of type {@link LocalDate}.
+     * @param options The conversion-option values for the field
+     * @return the string result
+     */
+    public String convertLocalDate(Object obj, Map<String, ConversionOptionBO> options) {
+        return obj == null ? null : getDateFormat(options, DateFormatCache.ISO_LOCAL_DATE).format((LocalDate) obj);
+    }
+
+    /**
+     * Conversion function for {@link LocalDateTime} with the same options as {@link #convertDate(String, Map)} - the default {@code format}
+     * is the ISO date time (yyyy-MM-ddTHH:mm:ss with optional fractions of a second).
+     *
+     * @param str     The source string
+     * @param options The conversion-option values for the field
+     * @return The converted date time, {@code null} for an empty string.
+     * @throws FlatwormParserException if the date fails to parse correctly.
+     */
+    public LocalDateTime convertLocalDateTime(String str, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        try {
+            if (str.length() == 0)
+                return null;
+            return getDateFormat(options, DateFormatCache.ISO_LOCAL_DATE_TIME).parseLocalDateTime(str, isMemoized(options));
+        } catch (DateTimeException ex) {
+            log.error("Failed to parse LocalDateTime", ex);
+            throw new FlatwormParserException(str);
+        }
+    }
+
+    /**
+     * {@link LocalDateTime} to String conversion function.
+     *
+     * @param obj     source object of type {@link LocalDateTime}.
+     * @param options The conversion-option values for the field
+     * @return the string result
+     */
+    public String convertLocalDateTime(Object obj, Map<String, ConversionOptionBO> options) {
+        return obj == null ? null : getDateFormat(options, DateFormatCache.ISO_LOCAL_DATE_TIME).format((LocalDateTime) obj);
+    }
+
+    /**
+     * Conversion function for {@link Instant} with the same options as {@link #convertDate(String, Map)} - the default {@code format} is
+     * the ISO instant (e.g. 2016-01-31T12:00:00Z). A {@code format} without a zone or offset is read in the default time zone.
+     *
+     * @param str     The source string
+     * @param options The conversion-option values for the field
+     * @return The converted instant, {@code null} for an empty string.
+     * @throws FlatwormParserException if the date fails to parse correctly.
+     */
+    public Instant convertInstant(String str, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        try {
+            if (str.length() == 0)
+                return null;
+            return getDateFormat(options, DateFormatCache.ISO_INSTANT).parseInstant(str, isMemoized(options));
+        } catch (DateTimeException ex) {
+            log.error("Failed to parse Instant", ex);
+            throw new FlatwormParserException(str);
+        }
+    }
+
+    /**
+     * {@link Instant} to String conversion function.
+     *
+     * @param obj     source object of type {@link Instant}.
+     * @param options The conversion-option values for the field
+     * @return the string result
+     */
+    public String convertInstant(Object obj, Map<String, ConversionOptionBO> options) {
+        return obj == null ? null : getDateFormat(options, DateFormatCache.ISO_INSTANT).format((Instant) obj);
     }
 
     /**
@@ -126,7 +236,8 @@ public class CoreConverters {
      * In addition to the standard conversion options, doubles also support the following:  <dl> <dt>{@code decimal-implied}</dt> <dd>If set
      * to {@code true}, the decimal point is positionally implied rather than explicitly included. If set, {@code decimal-places} is
      * required.</dd> <dt>{@code decimal-places}</dt> <dd>The number of digits in the string which are to the right of the decimal point, if
-     * {@code decimal-implied} is set.</dd> </dl>
+     * {@code decimal-implied} is set.</dd> <dt>{@code sign}</dt> <dd>Where the sign is found -
+     * {@code leading}, {@code trailing} or {@code overpunch}, see {@link #parseLong(CharSequence, int, int, Map)}.</dd> </dl>
      *
      * @param str     The source string
      * @param options The conversion-option values for the field
@@ -135,31 +246,7 @@ public class CoreConverters {
      *                                 integer value.
      */
     public Double convertDouble(String str, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
-        try {
-            int decimalPlaces = 0;
-            ConversionOptionBO conv = options.get("decimal-places");
-
-            String decimalPlacesOption = null;
-            if (null != conv)
-                decimalPlacesOption = conv.getValue();
-
-            boolean decimalImplied = "true".equals(Util.getValue(options, "decimal-implied"));
-
-            if (decimalPlacesOption != null)
-                decimalPlaces = Integer.parseInt(decimalPlacesOption);
-
-            if (str.length() == 0)
-                return 0.0D;
-
-            if (decimalImplied)
-                return Double.parseDouble(str) / Math.pow(10D, decimalPlaces);
-            else
-                return Double.valueOf(str);
-
-        } catch (NumberFormatException ex) {
-            log.error("Failed to parse double value", ex);
-            throw new FlatwormParserException(str);
-        }
+        return parseDouble(str, 0, str.length(), options);
     }
 
     /**
@@ -292,7 +379,8 @@ public class CoreConverters {
     }
 
     /**
-     * Conversion function for {@code Integer}, returns the source string with padding removed if requested, converted into a integer.
+     * Conversion function for {@code Integer}, returns the source string with padding removed if requested, converted into an integer.
+     * The {@code sign} option is supported, see {@link #parseLong(CharSequence, int, int, Map)}.
      *
      * @param str     The source string
      * @param options The conversion-option values for the field
@@ -301,16 +389,7 @@ public class CoreConverters {
      */
     public Integer convertInteger(String str, Map<String, ConversionOptionBO> options)
             throws FlatwormParserException {
-        try {
-            if (str.length() == 0) {
-                return 0;
-            } else {
-                return Integer.valueOf(str);
-            }
-        } catch (NumberFormatException ex) {
-            log.error("Failed to parse Integer", ex);
-            throw new FlatwormParserException(str);
-        }
+        return parseInt(str, 0, str.length(), options);
     }
 
     /**
@@ -329,7 +408,8 @@ public class CoreConverters {
     }
 
     /**
-     * Conversion function for {@code Long}, returns the source string with padding removed if requested, converted into a long.
+     * Conversion function for {@code Long}, returns the source string with padding removed if requested, converted into a long. The
+     * {@code sign} option is supported, see {@link #parseLong(CharSequence, int, int, Map)}.
      *
      * @param str     The source string
      * @param options The conversion-option values for the field
@@ -338,16 +418,7 @@ public class CoreConverters {
      */
     public Long convertLong(String str, Map<String, ConversionOptionBO> options)
             throws FlatwormParserException {
-        try {
-            if (str.length() == 0) {
-                return 0L;
-            } else {
-                return Long.valueOf(str);
-            }
-        } catch (NumberFormatException ex) {
-            log.error("Failed to parse Long", ex);
-            throw new FlatwormParserException(str);
-        }
+        return parseLong(str, 0, str.length(), options);
     }
 
     /**
@@ -372,7 +443,8 @@ public class CoreConverters {
      * In addition to the standard conversion options, big decimals also support the following:  <dl> <dt>{@code decimal-implied}</dt>
      * <dd>If set to {@code true}, the decimal point is positionally implied rather than explicitly included. If set, {@code decimal-places}
      * is required.</dd> <dt>{@code decimal-places}</dt> <dd>The number of digits in the string which are to the right of the decimal point,
-     * if {@code decimal-implied} is set.</dd> </dl>
+     * if {@code decimal-implied} is set.</dd> <dt>{@code sign}</dt> <dd>Where the sign is found -
+     * {@code leading}, {@code trailing} or {@code overpunch}, see {@link #parseLong(CharSequence, int, int, Map)}.</dd> </dl>
      *
      * @param str     The source string.
      * @param options The conversion-option values for the field.
@@ -382,26 +454,7 @@ public class CoreConverters {
      */
     public BigDecimal convertBigDecimal(String str, Map<String, ConversionOptionBO> options)
             throws FlatwormParserException {
-        try {
-            int decimalPlaces = 0;
-            String decimalPlacesOption = (String) Util.getValue(options, "decimal-places");
-            boolean decimalImplied = "true".equals(Util.getValue(options, "decimal-implied"));
-
-            if (decimalPlacesOption != null)
-                decimalPlaces = Integer.parseInt(decimalPlacesOption);
-
-            if (str.length() == 0)
-                return new BigDecimal(0.0D);
-
-            BigDecimal b = new BigDecimal(str);
-            if (decimalImplied)
-            	return b.divide(new BigDecimal(Math.pow(10,decimalPlaces)));
-            else
-                return b;
-        } catch (NumberFormatException ex) {
-            log.error("Failed to convert BigDecimal", ex);
-            throw new FlatwormParserException(str);
-        }
+        return parseBigDecimal(str, 0, str.length(), options);
     }
 
     /**
@@ -442,4 +495,422 @@ public class CoreConverters {
         	return df.format(tmp);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Conversion function for {@code Boolean}, see {@link #parseBoolean(CharSequence, int, int, Map)}.
+     *
+     * @param str     The source string
+     * @param options The conversion-option values for the field
+     * @return The converted boolean value
+     * @throws FlatwormParserException If the source string isn't a recognized boolean value.
+     */
+    public Boolean convertBoolean(String str, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        return parseBoolean(str, 0, str.length(), options);
+    }
+
+    /**
+     * Convert a {@link Boolean} to a {@link String}.
+     *
+     * @param obj     The {@code obj} to convert.
+     * @param options The {@code ConversionOptionBO} provided.
+     * @return the {@code obj} converted to a {@link String}.
+     */
+    public String convertBoolean(Object obj, Map<String, ConversionOptionBO> options) {
+        return obj == null ? null : obj.toString();
+    }
+
+    /**
+     * Conversion function for {@code Character}, see {@link #parseCharacter(CharSequence, int, int, Map)}.
+     *
+     * @param str     The source string
+     * @param options The conversion-option values for the field
+     * @return The converted character value
+     */
+    public Character convertCharacter(String str, Map<String, ConversionOptionBO> options) {
+        return parseCharacter(str, 0, str.length(), options);
+    }
+
+    /**
+     * Convert a {@link Character} to a {@link String}.
+     *
+     * @param obj     The {@code obj} to convert.
+     * @param options The {@code ConversionOptionBO} provided.
+     * @return the {@code obj} converted to a {@link String}.
+     */
+    public String convertCharacter(Object obj, Map<String, ConversionOptionBO> options) {
+        return obj == null ? null : obj.toString();
+    }
+
+    /**
+     * Parse an {@code int} from a range of characters - the same values as {@link #convertInteger(String, Map)} are accepted, including an
+     * empty range being {@code 0}. The {@code sign} option is supported, see {@link #parseLong(CharSequence, int, int, Map)}.
+     *
+     * @param value   The characters.
+     * @param start   The index of the first character of the field.
+     * @param end     The index after the last character of the field.
+     * @param options The conversion-option values for the field
+     * @return The converted value.
+     * @throws FlatwormParserException If the characters don't represent an integer value.
+     */
+    public int parseInt(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        if (start == end) {
+            return 0;
+        }
+        SignFormat sign = SignFormat.of(options);
+        boolean negative = isNegative(value, start, end, sign);
+        long result = negatedMagnitude(value, start, end, sign, false, negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE);
+        if (result == NOT_SIMPLE) {
+            throw numberFormatError(value, start, end, "Integer");
+        }
+        return (int) (negative ? result : -result);
+    }
+
+    /**
+     * Parse a {@code long} from a range of characters - the same values as {@link #convertLong(String, Map)} are accepted, including an
+     * empty range being {@code 0}.
+     *
+     * Integer, long, double and big decimal values all support the {@code sign} conversion option, which defines where the sign of the
+     * number is found: <ul> <li>{@code leading} (the default) for an optional leading {@code +} or {@code -}</li> <li>{@code trailing} to
+     * also allow the sign after the digits, e.g. {@code 00123-}</li> <li>{@code overpunch} for the signed overpunch (zoned decimal) form
+     * where the last digit carries the sign - {@code A} through {@code I} for positive 1-9 (an opening brace for 0) and {@code J} through
+     * {@code R} for negative 1-9 (a closing brace for 0), e.g. {@code 0012L} is {@code -123}</li> </ul> Leading zeros are always allowed.
+     *
+     * @param value   The characters.
+     * @param start   The index of the first character of the field.
+     * @param end     The index after the last character of the field.
+     * @param options The conversion-option values for the field
+     * @return The converted value.
+     * @throws FlatwormParserException If the characters don't represent a long value.
+     */
+    public long parseLong(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options) throws FlatwormParserException {
+        if (start == end) {
+            return 0;
+        }
+        SignFormat sign = SignFormat.of(options);
+        boolean negative = isNegative(value, start, end, sign);
+        long result = negatedMagnitude(value, start, end, sign, false, negative ? Long.MIN_VALUE : -Long.MAX_VALUE);
+        if (result == NOT_SIMPLE) {
+            throw numberFormatError(value, start, end, "Long");
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parse a {@code double} from a range of characters with the same results and options as {@link #convertDouble(String, Map)}. Decimal
+     * numbers with a mantissa of up to 2^53 are parsed in place and scaled with a single, exact, division (taking into account any
+     * implied decimal places); anything else (exponents, very long numbers, etc.) goes through {@link Double#parseDouble(String)}. The
+     * {@code sign} option is supported, see {@link #parseLong(CharSequence, int, int, Map)}.
+     *
+     * @param value   The characters.
+     * @param start   The index of the first character of the field.
+     * @param end     The index after the last character of the field.
+     * @param options The conversion-option values for the field
+     * @return The converted value.
+     * @throws FlatwormParserException If the characters don't represent a double value or the decimal places option fails to parse as an
+     *                                 integer value.
+     */
+    public double parseDouble(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options)
+            throws FlatwormParserException {
+        try {
+            int impliedDecimalPlaces = getImpliedDecimalPlaces(options);
+
+            if (start == end)
+                return 0.0D;
+
+            SignFormat sign = SignFormat.of(options);
+            boolean negative = isNegative(value, start, end, sign);
+            long result = negatedMagnitude(value, start, end, sign, true, -MAX_EXACT_MANTISSA);
+            double magnitude;
+            if (result != NOT_SIMPLE) {
+                int scale = fractionDigits(value, start, end, sign) + impliedDecimalPlaces;
+                magnitude = scale < EXACT_POWERS_OF_TEN.length
+                        ? -result / EXACT_POWERS_OF_TEN[scale]
+                        : BigDecimal.valueOf(-result, scale).doubleValue();
+            } else {
+                magnitude = Double.parseDouble(normalize(value, start, end, sign));
+                if (impliedDecimalPlaces > 0) {
+                    magnitude /= impliedDecimalPlaces < EXACT_POWERS_OF_TEN.length
+                            ? EXACT_POWERS_OF_TEN[impliedDecimalPlaces]
+                            : Math.pow(10D, impliedDecimalPlaces);
+                }
+                // The sign is already part of the normalized value.
+                negative = false;
+            }
+            return negative ? -magnitude : magnitude;
+        } catch (NumberFormatException ex) {
+            log.error("Failed to parse double value", ex);
+            throw new FlatwormParserException(value.subSequence(start, end).toString());
+        }
+    }
+
+    /**
+     * Parse a {@link BigDecimal} from a range of characters with the same options as {@link #convertBigDecimal(String, Map)}. Decimal
+     * numbers of up to 18 digits are parsed in place and built with {@link BigDecimal#valueOf(long, int)}, the implied decimal places
+     * simply being added to the scale; anything else (exponents, very long numbers, etc.) goes through {@link
+     * BigDecimal#BigDecimal(String)}. The {@code sign} option is supported, see {@link #parseLong(CharSequence, int, int, Map)}.
+     *
+     * @param value   The characters.
+     * @param start   The index of the first character of the field.
+     * @param end     The index after the last character of the field.
+     * @param options The conversion-option values for the field
+     * @return The converted value, {@link BigDecimal#ZERO} for an empty range.
+     * @throws FlatwormParserException If the characters don't represent a big decimal or the decimal places option fails to parse as an
+     *                                 integer value.
+     */
+    public BigDecimal parseBigDecimal(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options)
+            throws FlatwormParserException {
+        try {
+            int impliedDecimalPlaces = getImpliedDecimalPlaces(options);
+
+            if (start == end)
+                return BigDecimal.ZERO;
+
+            SignFormat sign = SignFormat.of(options);
+            boolean negative = isNegative(value, start, end, sign);
+            long result = negatedMagnitude(value, start, end, sign, true, -Long.MAX_VALUE);
+            if (result != NOT_SIMPLE) {
+                return BigDecimal.valueOf(negative ? result : -result, fractionDigits(value, start, end, sign) + impliedDecimalPlaces);
+            }
+
+            BigDecimal b = new BigDecimal(normalize(value, start, end, sign));
+            return impliedDecimalPlaces > 0 ? b.scaleByPowerOfTen(-impliedDecimalPlaces) : b;
+        } catch (NumberFormatException ex) {
+            log.error("Failed to convert BigDecimal", ex);
+            throw new FlatwormParserException(value.subSequence(start, end).toString());
+        }
+    }
+
+    /**
+     * Parse a {@code boolean} from a range of characters. {@code true}, {@code yes}, {@code y}, {@code t} and {@code 1} are {@code true}
+     * and {@code false}, {@code no}, {@code n}, {@code f}, {@code 0} and an empty range are {@code false} - all ignoring case.
+     *
+     * @param value   The characters.
+     * @param start   The index of the first character of the field.
+     * @param end     The index after the last character of the field.
+     * @param options The conversion-option values for the field
+     * @return The converted value.
+     * @throws FlatwormParserException If the characters aren't one of the recognized values.
+     */
+    public boolean parseBoolean(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options)
+            throws FlatwormParserException {
+        if (start == end) {
+            return false;
+        }
+        for (String candidate : TRUE_VALUES) {
+            if (regionEqualsIgnoreCase(value, start, end, candidate)) {
+                return true;
+            }
+        }
+        for (String candidate : FALSE_VALUES) {
+            if (regionEqualsIgnoreCase(value, start, end, candidate)) {
+                return false;
+            }
+        }
+        String str = value.subSequence(start, end).toString();
+        log.error("Failed to parse Boolean: " + str);
+        throw new FlatwormParserException(str);
+    }
+
+    /**
+     * Parse a {@code char} from a range of characters - the first character of the range, or {@code '\0'} if it is empty.
+     *
+     * @param value   The characters.
+     * @param start   The index of the first character of the field.
+     * @param end     The index after the last character of the field.
+     * @param options The conversion-option values for the field
+     * @return The converted value.
+     */
+    public char parseCharacter(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options) {
+        return start == end ? '\0' : value.charAt(start);
+    }
+
+    private static boolean regionEqualsIgnoreCase(CharSequence value, int start, int end, String candidate) {
+        if (end - start != candidate.length()) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            if (Character.toLowerCase(value.charAt(start + i)) != candidate.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The cached formats for the {@code format} option, or the given default if there isn't one.
+     */
+    private static DateFormatCache getDateFormat(Map<String, ConversionOptionBO> options, DateFormatCache defaultFormat) {
+        String format = Util.getValue(options, "format");
+        return format != null ? DateFormatCache.forPattern(format) : defaultFormat;
+    }
+
+    private static boolean isMemoized(Map<String, ConversionOptionBO> options) {
+        return "true".equals(Util.getValue(options, "memoize"));
+    }
+
+    /**
+     * The number of implied decimal places - zero unless {@code decimal-implied} is {@code true}.
+     */
+    private static int getImpliedDecimalPlaces(Map<String, ConversionOptionBO> options) {
+        String decimalPlacesOption = Util.getValue(options, "decimal-places");
+        int decimalPlaces = decimalPlacesOption != null ? Integer.parseInt(decimalPlacesOption) : 0;
+        return "true".equals(Util.getValue(options, "decimal-implied")) ? decimalPlaces : 0;
+    }
+
+    /**
+     * Determine if the (non-empty) range of characters holds a negative number.
+     */
+    private static boolean isNegative(CharSequence value, int start, int end, SignFormat sign) {
+        if (value.charAt(start) == '-') {
+            return true;
+        }
+        char last = value.charAt(end - 1);
+        switch (sign) {
+            case TRAILING:
+                return end - start > 1 && last == '-';
+            case OVERPUNCH:
+                return last == '}' || (last >= 'J' && last <= 'R');
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Accumulate the digits of {@code [sign]digits[.digits][sign]} (as allowed by the {@code sign} format) without creating any objects.
+     * The magnitude is accumulated negatively as the negative range is the larger one.
+     *
+     * @param allowPoint Whether or not a single decimal point is allowed.
+     * @param limit      The (negative) limit of the magnitude.
+     * @return the negated magnitude or {@link #NOT_SIMPLE} if the characters aren't valid or the magnitude exceeds the limit.
+     */
+    private static long negatedMagnitude(CharSequence value, int start, int end, SignFormat sign, boolean allowPoint, long limit) {
+        int i = start;
+        char first = value.charAt(i);
+        if (first == '-' || first == '+') {
+            i++;
+        }
+
+        int last = end;
+        int overpunchIndex = -1;
+        if (last > i) {
+            char c = value.charAt(last - 1);
+            if (sign == SignFormat.TRAILING && (c == '-' || c == '+')) {
+                last--;
+            } else if (sign == SignFormat.OVERPUNCH && overpunchDigit(c) >= 0) {
+                overpunchIndex = last - 1;
+            }
+        }
+
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        int digits = 0;
+        boolean pointSeen = false;
+        for (; i < last; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && allowPoint && !pointSeen) {
+                pointSeen = true;
+                continue;
+            }
+            int digit = i == overpunchIndex ? overpunchDigit(c) : Character.digit(c, 10);
+            if (digit < 0 || result < multiplyLimit) {
+                return NOT_SIMPLE;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return NOT_SIMPLE;
+            }
+            result -= digit;
+            digits++;
+        }
+        return digits > 0 ? result : NOT_SIMPLE;
+    }
+
+    /**
+     * The number of digits after the decimal point, if there is one.
+     */
+    private static int fractionDigits(CharSequence value, int start, int end, SignFormat sign) {
+        int last = end;
+        if (sign == SignFormat.TRAILING && end - start > 1) {
+            char c = value.charAt(end - 1);
+            if (c == '-' || c == '+') {
+                last--;
+            }
+        }
+        for (int i = start; i < last; i++) {
+            if (value.charAt(i) == '.') {
+                return last - i - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The digit of a signed overpunch character or {@code -1} if it isn't one.
+     */
+    private static int overpunchDigit(char c) {
+        if (c == '{' || c == '}') {
+            return 0;
+        } else if (c >= 'A' && c <= 'I') {
+            return c - 'A' + 1;
+        } else if (c >= 'J' && c <= 'R') {
+            return c - 'J' + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Rewrite the range of characters with a leading sign for the parsers of the JDK - used for the values that can't be parsed in place.
+     */
+    private static String normalize(CharSequence value, int start, int end, SignFormat sign) {
+        if (sign == SignFormat.LEADING) {
+            return value.subSequence(start, end).toString();
+        }
+
+        int i = start;
+        char first = value.charAt(i);
+        if (first == '-' || first == '+') {
+            i++;
+        }
+        int last = end;
+        char lastChar = value.charAt(end - 1);
+        if (sign == SignFormat.TRAILING && last > i && (lastChar == '-' || lastChar == '+')) {
+            last--;
+        }
+
+        StringBuilder normalized = new StringBuilder(end - start + 1);
+        if (isNegative(value, start, end, sign)) {
+            normalized.append('-');
+        }
+        normalized.append(value, i, last);
+        if (sign == SignFormat.OVERPUNCH && last > i && overpunchDigit(lastChar) >= 0) {
+            normalized.setCharAt(normalized.length() - 1, (char) ('0' + overpunchDigit(lastChar)));
+        }
+        return normalized.toString();
+    }
+
+    private static FlatwormParserException numberFormatError(CharSequence value, int start, int end, String typeName) {
+        String str = value.subSequence(start, end).toString();
+        NumberFormatException ex = new NumberFormatException("For input string: \"" + str + "\"");
+        log.error("Failed to parse " + typeName, ex);
+        return new FlatwormParserException(str);
+    }
+
+    /**
+     * Where the sign of a number is found, as configured by the {@code sign} conversion option.
+     */
+    private enum SignFormat {
+        LEADING, TRAILING, OVERPUNCH;
+
+        static SignFormat of(Map<String, ConversionOptionBO> options) {
+            String sign = Util.getValue(options, "sign");
+            if (sign == null || "leading".equalsIgnoreCase(sign)) {
+                return LEADING;
+            } else if ("trailing".equalsIgnoreCase(sign)) {
+                return TRAILING;
+            } else if ("overpunch".equalsIgnoreCase(sign)) {
+                return OVERPUNCH;
+            }
+            throw new IllegalArgumentException("Unsupported sign conversion-option: " + sign);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.WeekFields;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.Getter;
+
+/**
+ * Holds the {@link DateTimeFormatter} for a date format (the {@code format} conversion-option) so that it's built once and shared by every
+ * thread rather than creating a {@code SimpleDateFormat} for each value. Dates without a time are at the start of the day and dates without
+ * a zone or offset are in the default time zone, the same as {@code SimpleDateFormat}.
+ *
+ * Each format also keeps a small memo of the values it most recently parsed per type - used when the {@code memoize} conversion-option is
+ * {@code true} for columns that repeat the same few dates across every row.
+ */
+public final class DateFormatCache {
+
+    /**
+     * The number of distinct values remembered per type when memoizing.
+     */
+    private static final int MEMO_SIZE = 8;
+
+    private static final ConcurrentMap<String, DateFormatCache> FORMATS = new ConcurrentHashMap<>();
+
+    public static final DateFormatCache ISO_LOCAL_DATE = new DateFormatCache("ISO_LOCAL_DATE", DateTimeFormatter.ISO_LOCAL_DATE);
+
+    public static final DateFormatCache ISO_LOCAL_DATE_TIME = new DateFormatCache("ISO_LOCAL_DATE_TIME",
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+    public static final DateFormatCache ISO_INSTANT = new DateFormatCache("ISO_INSTANT", DateTimeFormatter.ISO_INSTANT);
+
+    @Getter
+    private final String pattern;
+
+    @Getter
+    private final DateTimeFormatter formatter;
+
+    private final RecentValues<Instant> recentInstants = new RecentValues<>(MEMO_SIZE);
+    private final RecentValues<LocalDate> recentLocalDates = new RecentValues<>(MEMO_SIZE);
+    private final RecentValues<LocalDateTime> recentLocalDateTimes = new RecentValues<>(MEMO_SIZE);
+
+    private DateFormatCache(String pattern, DateTimeFormatter formatter) {
+        this.pattern = pattern;
+        this.formatter = formatter;
+    }
+
+    /**
+     * Get the cached formats for the given pattern, building them the first time the pattern is seen.
+     *
+     * @param pattern The date format in {@code SimpleDateFormat} syntax.
+     * @return the {@code DateFormatCache} for the pattern.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     * @see #compile(String, Locale)
+     */
+    public static DateFormatCache forPattern(String pattern) {
+        DateFormatCache formats = FORMATS.get(pattern);
+        if (formats == null) {
+            formats = FORMATS.computeIfAbsent(pattern, key -> new DateFormatCache(key, compile(key, Locale.getDefault())));
+        }
+        return formats;
+    }
+
+    /**
+     * Build the {@link DateTimeFormatter} for a {@code SimpleDateFormat} pattern. Most pattern letters mean the same to both, the ones
+     * that don't are translated so that values are read as {@code SimpleDateFormat} would have read them:
+     * <ul>
+     * <li>{@code yy} and {@code YY} - two digit years are within 80 years before and 20 years after today, not in 2000-2099.</li>
+     * <li>{@code S} - the milliseconds, not a fraction of the second.</li>
+     * <li>{@code u} - the number of the day of the week (1 is Monday), not the year.</li>
+     * </ul>
+     * The text outside of quotes that isn't a pattern letter is always a literal, and {@code F} (the day of the week in the month) is
+     * rejected as {@link DateTimeFormatter} has no equivalent.
+     *
+     * @param pattern The date format in {@code SimpleDateFormat} syntax.
+     * @param locale  The locale of the text.
+     * @return the {@link DateTimeFormatter}.
+     * @throws IllegalArgumentException if the pattern is invalid.
+     */
+    static DateTimeFormatter compile(String pattern, Locale locale) {
+        LocalDate twoDigitYearStart = LocalDate.now().minusYears(80);
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder().parseCaseInsensitive();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                StringBuilder literal = new StringBuilder();
+                int end = i + 1;
+                while (true) {
+                    if (end >= pattern.length()) {
+                        throw new IllegalArgumentException("Unterminated quote in the date format: " + pattern);
+                    }
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+                            end++;
+                        } else {
+                            break;
+                        }
+                    }
+                    literal.append(pattern.charAt(end++));
+                }
+                // A pair of quotes on their own is a quote.
+                builder.appendLiteral(end == i + 1 ? "'" : literal.toString());
+                i = end + 1;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                int count = 1;
+                while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+                if (c == 'y' && count == 2) {
+                    builder.appendValueReduced(ChronoField.YEAR_OF_ERA, 2, 2, twoDigitYearStart);
+                } else if (c == 'Y' && count == 2) {
+                    builder.appendValueReduced(WeekFields.of(locale).weekBasedYear(), 2, 2, twoDigitYearStart);
+                } else if (c == 'S') {
+                    if (count < 3) {
+                        builder.appendValue(ChronoField.MILLI_OF_SECOND, count, 3, SignStyle.NOT_NEGATIVE);
+                    } else {
+                        builder.appendValue(ChronoField.MILLI_OF_SECOND, count);
+                    }
+                } else if (c == 'u') {
+                    builder.appendValue(ChronoField.DAY_OF_WEEK, count);
+                } else if (c == 'F') {
+                    throw new IllegalArgumentException("The day of the week in the month (F) isn't supported in the date format: "
+                            + pattern);
+                } else {
+                    builder.appendPattern(pattern.substring(i, i + count));
+                }
+                i += count;
+            } else {
+                builder.appendLiteral(c);
+                i++;
+            }
+        }
+        return builder.toFormatter(locale);
+    }
+
+    /**
+     * Parse a {@link Date} - see {@link #parseInstant(String, boolean)}.
+     *
+     * @param text    The text to parse.
+     * @param memoize Whether or not to look up and remember the value in the memo of recently parsed values.
+     * @return the {@link Date}.
+     * @throws java.time.format.DateTimeParseException if the text can't be parsed.
+     */
+    public Date parseDate(String text, boolean memoize) {
+        return Date.from(parseInstant(text, memoize));
+    }
+
+    /**
+     * Parse an {@link Instant} - values without a zone or offset are taken to be in the default time zone.
+     *
+     * @param text    The text to parse.
+     * @param memoize Whether or not to look up and remember the value in the memo of recently parsed values.
+     * @return the {@link Instant}.
+     * @throws java.time.format.DateTimeParseException if the text can't be parsed.
+     */
+    public Instant parseInstant(String text, boolean memoize) {
+        Instant value = memoize ? recentInstants.get(text) : null;
+        if (value == null) {
+            TemporalAccessor parsed = formatter.parseBest(text, Instant::from, LocalDateTime::from, LocalDate::from);
+            if (parsed instanceof Instant) {
+                value = (Instant) parsed;
+            } else if (parsed instanceof LocalDateTime) {
+                value = ((LocalDateTime) parsed).atZone(ZoneId.systemDefault()).toInstant();
+            } else {
+                value = ((LocalDate) parsed).atStartOfDay(ZoneId.systemDefault()).toInstant();
+            }
+            if (memoize) {
+                recentInstants.put(text, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Parse a {@link LocalDate}.
+     *
+     * @param text    The text to parse.
+     * @param memoize Whether or not to look up and remember the value in the memo of recently parsed values.
+     * @return the {@link LocalDate}.
+     * @throws java.time.format.DateTimeParseException if the text can't be parsed.
+     */
+    public LocalDate parseLocalDate(String text, boolean memoize) {
+        LocalDate value = memoize ? recentLocalDates.get(text) : null;
+        if (value == null) {
+            value = formatter.parse(text, LocalDate::from);
+            if (memoize) {
+                recentLocalDates.put(text, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Parse a {@link LocalDateTime} - values without a time are at the start of the day.
+     *
+     * @param text    The text to parse.
+     * @param memoize Whether or not to look up and remember the value in the memo of recently parsed values.
+     * @return the {@link LocalDateTime}.
+     * @throws java.time.format.DateTimeParseException if the text can't be parsed.
+     */
+    public LocalDateTime parseLocalDateTime(String text, boolean memoize) {
+        LocalDateTime value = memoize ? recentLocalDateTimes.get(text) : null;
+        if (value == null) {
+            TemporalAccessor parsed = formatter.parseBest(text, LocalDateTime::from, LocalDate::from);
+            value = parsed instanceof LocalDateTime ? (LocalDateTime) parsed : ((LocalDate) parsed).atStartOfDay();
+            if (memoize) {
+                recentLocalDateTimes.put(text, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Format a {@link Date} in the default time zone.
+     *
+     * @param date The {@link Date}.
+     * @return the formatted value.
+     */
+    public String format(Date date) {
+        return format(date.toInstant());
+    }
+
+    /**
+     * Format an {@link Instant} in the default time zone.
+     *
+     * @param instant The {@link Instant}.
+     * @return the formatted value.
+     */
+    public String format(Instant instant) {
+        return formatter.format(instant.atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Format a date/time such as a {@link LocalDate} or {@link LocalDateTime}.
+     *
+     * @param temporal The date/time.
+     * @return the formatted value.
+     */
+    public String format(TemporalAccessor temporal) {
+        return formatter.format(temporal);
+    }
+
+    @Override
+    public String toString() {
+        return "DateFormatCache{pattern='" + pattern + "'}";
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.config.ConversionOptionBO;
+
+import java.util.Map;
+
+/**
+ * Converts a range of characters straight to {@code long} - no substring is taken and no Long is boxed.
+ *
+ * @see ConverterFunctionCache#registerLongConverterFunction(LongConverterFunction)
+ */
+@FunctionalInterface
+public interface LongConverterFunction {
+
+    /**
+     * Convert the characters from {@code start} (inclusive) to {@code end} (exclusive) of {@code value}.
+     * @param value The characters - typically the whole line of data.
+     * @param start The index of the first character of the field.
+     * @param end The index after the last character of the field.
+     * @param options Any {@link ConversionOptionBO}s that were configured to go along with the converter.
+     * @return The converted value.
+     * @throws Exception should the characters not represent a {@code long}.
+     */
+    long convert(CharSequence value, int start, int end, Map<String, ConversionOptionBO> options) throws Exception;
+}
@@ -0,0 +1,78 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A small, lock free, memo of the most recently converted values keyed by their text. Meant for columns that only ever hold a handful of
+ * distinct values (business dates and the like) - when the memo is full the oldest entry is replaced. Values must be immutable as they are
+ * handed out to every caller that converts the same text.
+ *
+ * @param <T> The type of the converted values.
+ */
+final class RecentValues<T> {
+
+    private final AtomicReferenceArray<Entry<T>> entries;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    RecentValues(int size) {
+        entries = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Get the value previously converted from the {@code text}.
+     *
+     * @param text The text.
+     * @return the value or {@code null} if the {@code text} isn't in the memo.
+     */
+    T get(String text) {
+        for (int i = 0; i < entries.length(); i++) {
+            Entry<T> entry = entries.get(i);
+            if (entry == null) {
+                break;
+            }
+            if (entry.text.equals(text)) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remember the value converted from the {@code text}, replacing the oldest entry if the memo is full.
+     *
+     * @param text  The text.
+     * @param value The value converted from the {@code text}.
+     */
+    void put(String text, T value) {
+        int slot = Math.floorMod(nextSlot.getAndIncrement(), entries.length());
+        entries.set(slot, new Entry<>(text, value));
+    }
+
+    private static final class Entry<T> {
+        private final String text;
+        private final T value;
+
+        Entry(String text, T value) {
+            this.text = text;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.converters;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalizes the {@link String} values of a field so that every bean given the same text shares one instance - for low cardinality
+ * fields (currency codes, status flags and the like) of beans that are held onto in great numbers. Configured with the {@code dedupe}
+ * conversion-option, whose value is the most distinct values to keep: once that many are held new values are handed back as they are
+ * rather than added, so a field that turns out to have more distinct values than expected costs a lookup but doesn't grow without bound.
+ * Safe to share between threads parsing with the same {@link com.blackbear.flatworm.FileFormat} - under contention the dictionary can end
+ * up holding slightly more than its maximum.
+ */
+public final class StringDictionary {
+
+    /**
+     * The name of the conversion-option that enables the dictionary.
+     */
+    public static final String OPTION = "dedupe";
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a dictionary.
+     *
+     * @param maxSize The most distinct values to hold.
+     */
+    public StringDictionary(int maxSize) {
+        Preconditions.checkArgument(maxSize > 0, "The size of the dictionary must be greater than zero.");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the canonical instance of a value, adding the value to the dictionary if it isn't there and there's room.
+     *
+     * @param value The value.
+     * @return the instance held by the dictionary - {@code value} itself if it was added or the dictionary is full.
+     */
+    public String canonicalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = values.get(value);
+        if (canonical != null) {
+            hits.increment();
+            return canonical;
+        }
+        misses.increment();
+        if (values.size() < maxSize) {
+            canonical = values.putIfAbsent(value, value);
+            if (canonical != null) {
+                return canonical;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of values found in the dictionary.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of values not found in the dictionary - whether they were then added or not.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of distinct values held.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return the most distinct values the dictionary holds.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Drop the values held and reset the counters.
+     */
+    public void clear() {
+        values.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "StringDictionary{" +
+                "size=" + size() +
+                ", maxSize=" + maxSize +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                '}';
+    }
+}
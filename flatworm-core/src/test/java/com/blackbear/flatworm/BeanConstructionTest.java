@@ -0,0 +1,211 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.annotations.beans.ImmutableShipment;
+import com.blackbear.flatworm.config.BeanBO;
+import com.blackbear.flatworm.config.ConfigurationValidator;
+import com.blackbear.flatworm.config.impl.DefaultAnnotationConfigurationReaderImpl;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.errors.FlatwormConfigurationException;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Value;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BeanConstructionTest {
+
+    private static final String INPUT = "Cbolt      12  1.25\n"
+            + "Fnut        7   0.5\n"
+            + "Bwasher    30 0.125\n";
+
+    @Test
+    public void constructedFromXmlConfiguration() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("construction-example.xml"));
+            for (boolean methodHandles : new boolean[]{false, true}) {
+                if (methodHandles) {
+                    // The generated parsers hand the fields of a PendingBean back to their bindings.
+                    fileFormat.setBeanMappingStrategy(new MethodHandleMappingStrategy());
+                    fileFormat.setParseMode(ParseMode.GENERATED);
+                }
+                BufferedReader in = new BufferedReader(new StringReader(INPUT));
+
+                ConstructedPart constructed = (ConstructedPart) fileFormat.nextRecord(in).getBean("part");
+                assertEquals(new ConstructedPart("bolt", 12, 1.25), constructed);
+
+                FactoryPart factory = (FactoryPart) fileFormat.nextRecord(in).getBean("part");
+                assertEquals("nut", factory.getName());
+                assertEquals(7, factory.getQuantity());
+                assertEquals(0.5, factory.getWeight(), 0.0);
+
+                BuiltPart built = (BuiltPart) fileFormat.nextRecord(in).getBean("part");
+                assertEquals(BuiltPart.builder().name("washer").quantity(30).weight(0.125).build(), built);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse constructed beans: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void appendedOnlyWhenTrue() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("construction-example.xml"));
+            BufferedReader in = new BufferedReader(new StringReader("Aboltnut pin   12  1.25\n"));
+            assertEquals(new ConstructedPart("nutpin", 12, 1.25), fileFormat.nextRecord(in).getBean("part"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse constructed beans: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void constructedFromAnnotations() {
+        try {
+            FileFormat fileFormat = new DefaultAnnotationConfigurationReaderImpl().loadConfiguration(ImmutableShipment.class);
+            BeanBO bean = fileFormat.getRecord("ImmutableShipment").getRecordDefinition().getBeanMap()
+                    .get(ImmutableShipment.class.getName());
+            assertEquals(ConstructionMode.CONSTRUCTOR, bean.getConstruction());
+
+            List<Object> shipments = new ArrayList<>();
+            BufferedReader in = new BufferedReader(new StringReader("IMMA123450042UPS  \nIMMB98765 001FEDEX\n"));
+            MatchedRecord record;
+            while ((record = fileFormat.nextRecord(in)) != null) {
+                shipments.add(record.getBean(ImmutableShipment.class.getName()));
+            }
+            assertEquals(Arrays.asList(new ImmutableShipment("A12345", 42, "UPS"), new ImmutableShipment("B98765", 1, "FEDEX")),
+                    shipments);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse constructed beans: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void parameterResolution() {
+        try {
+            BeanConstruction byParameterNames = BeanConstruction.resolve(FactoryPart.class, ConstructionMode.FACTORY, "of");
+            assertArrayEquals(new String[]{"name", "quantity", "weight"}, byParameterNames.getProperties());
+
+            BeanConstruction byBuilder = BeanConstruction.resolve(BuiltPart.class, ConstructionMode.BUILDER, null);
+            assertEquals(int.class, byBuilder.getPropertyType(byBuilder.getSlot("quantity")));
+            assertEquals(-1, byBuilder.getSlot("colour"));
+
+            // A value that was never read is left at the default of its type.
+            PendingBean pending = BeanConstruction.resolve(ConstructedPart.class, ConstructionMode.CONSTRUCTOR, null).newPendingBean();
+            pending.set("name", "spring");
+            assertEquals(new ConstructedPart("spring", 0, 0.0), pending.construct());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to resolve the construction: " + e.getMessage());
+        }
+
+        try {
+            BeanConstruction.resolve(FactoryPart.class, ConstructionMode.FACTORY, "create");
+            fail("There is no such factory method");
+        } catch (FlatwormConfigurationException e) {
+            // Expected.
+        }
+
+        try {
+            // The JDK isn't compiled with -parameters, and the order of the declared fields is no substitute.
+            BeanConstruction.resolve(AbstractMap.SimpleEntry.class, ConstructionMode.CONSTRUCTOR, null);
+            fail("The constructor parameters can't be matched to the properties");
+        } catch (FlatwormConfigurationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("@ConstructorProperties"));
+        }
+    }
+
+    @Test
+    public void invalidConstruction() {
+        BeanBO bean = new BeanBO();
+        bean.setBeanName("part");
+        bean.setBeanClass(ConstructedPart.class.getName());
+        bean.setBeanObjectClass(ConstructedPart.class);
+        bean.setConstruction(ConstructionMode.BUILDER);
+
+        List<String> errors = new ArrayList<>();
+        ConfigurationValidator.validateBean(bean, errors);
+        assertFalse(errors.isEmpty());
+        assertTrue(errors.get(0), errors.get(0).contains("builder()"));
+
+        bean.setConstruction(ConstructionMode.CONSTRUCTOR);
+        errors.clear();
+        ConfigurationValidator.validateBean(bean, errors);
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+    @Value
+    public static class ConstructedPart {
+        String name;
+        int quantity;
+        double weight;
+    }
+
+    @Value
+    @Builder
+    public static class BuiltPart {
+        String name;
+        int quantity;
+        double weight;
+    }
+
+    public static final class FactoryPart {
+        private final String name;
+        private final int quantity;
+        private final double weight;
+
+        private FactoryPart(String name, int quantity, double weight) {
+            this.name = name;
+            this.quantity = quantity;
+            this.weight = weight;
+        }
+
+        public static FactoryPart of(String name, int quantity, double weight) {
+            return new FactoryPart(name, quantity, weight);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.test.domain.Book;
+import com.blackbear.flatworm.test.domain.Film;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class BeanReuseTest {
+
+    @Test
+    public void beansAreReusedAcrossRecords() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            fileFormat.getRecord("book").getRecordDefinition().getBeanMap().get("book").setBeanObjectClass(ResettableBook.class);
+            File input = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+
+            List<MatchedRecord> records = new ArrayList<>();
+            List<Object> books = new ArrayList<>();
+            List<String> titles = new ArrayList<>();
+            List<Object> films = new ArrayList<>();
+
+            FileParser parser = new FileParser(fileFormat, input);
+            parser.setReuseBeans(true);
+            parser.registerRecordCallback("book", record -> {
+                Book book = (Book) record.getBean("book");
+                records.add(record);
+                books.add(book);
+                titles.add(book.getTitle());
+            });
+            parser.registerRecordCallback("videotape", record -> {
+                records.add(record);
+                films.add(record.getBean("film"));
+            });
+            parser.registerExceptionCallback((exception, errorMessage, lastLine) -> fail(errorMessage));
+            parser.open();
+            try {
+                parser.read();
+            } finally {
+                parser.close();
+            }
+
+            assertEquals(4, records.size());
+            records.forEach(record -> assertSame(records.get(0), record));
+            assertEquals(2, books.size());
+            assertSame(books.get(0), books.get(1));
+            assertEquals(1, ((ResettableBook) books.get(0)).resets);
+            assertEquals("HE KNOWS WHEN YOU\"RE CODING", titles.get(0));
+            assertEquals("THE GC ALWAYS RINGS TWICE", titles.get(1));
+            assertEquals(2, films.size());
+            assertSame(films.get(0), films.get(1));
+            assertEquals("DATA AND DATATYPES", ((Film) films.get(1)).getTitle());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse reusing beans: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void beansAreCreatedByDefault() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            // Past the header, which is identified by its line number.
+            ParseCursor cursor = new ParseCursor(1);
+            MatchedRecord first = fileFormat.nextRecord(new BufferedReader(new StringReader(
+                    "546234476HE KNOWS WHEN YOU\"RE CODING   JAVALANG OBJECT                 13.952003-11-10")), cursor);
+            MatchedRecord second = fileFormat.nextRecord(new BufferedReader(new StringReader(
+                    "546543476THE GC ALWAYS RINGS TWICE     JAVAUTIL HASHMAP                23.432004-12-19")), cursor);
+            assertNotSame(first, second);
+            assertNotSame(first.getBean("book"), second.getBean("book"));
+            assertEquals("HE KNOWS WHEN YOU\"RE CODING", ((Book) first.getBean("book")).getTitle());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse creating beans: " + e.getMessage());
+        }
+    }
+
+    public static class ResettableBook extends Book implements ReusableBean {
+        private int resets;
+
+        @Override
+        public void reset() {
+            resets++;
+            setTitle(null);
+            setAuthor(null);
+            setPrice(0.0);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.LineBO;
+import com.blackbear.flatworm.config.LineToken;
+import com.blackbear.flatworm.config.impl.FieldIdentityImpl;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DelimitedTokenizerTest {
+
+    @Test
+    public void quotedFields() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", '"');
+        assertEquals(Arrays.asList("a", "b,c", "", "d"), tokens(tokenizer, "a,\"b,c\",,d"));
+        assertEquals(Arrays.asList("say \"hi\"", "\"", ""), tokens(tokenizer, "\"say \"\"hi\"\"\",\"\"\"\",\"\""));
+        assertEquals(Arrays.asList("abc", "x"), tokens(tokenizer, "a\"b\"c,x"));
+        assertEquals(Arrays.asList(""), tokens(tokenizer, ""));
+
+        // No quote character - quotes are data.
+        assertEquals(Arrays.asList("\"a", "b\""), tokens(new DelimitedTokenizer(",", '\0'), "\"a,b\""));
+    }
+
+    @Test
+    public void multiCharacterDelimiters() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("||", '\'');
+        assertEquals(Arrays.asList("a", "b|c", "d||e", ""), tokens(tokenizer, "a||b|c||'d||e'||"));
+
+        assertEquals("\t", DelimitedTokenizer.resolveDelimiter("\\t"));
+        assertEquals("\r\n", DelimitedTokenizer.resolveDelimiter("\\r\\n"));
+        assertEquals("\\x", DelimitedTokenizer.resolveDelimiter("\\x"));
+        assertEquals(Arrays.asList("a", "b"), tokens(new DelimitedTokenizer("\\t", '\0'), "a\tb"));
+    }
+
+    @Test
+    public void positionsAndRemoval() {
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", '"');
+        tokenizer.tokenize("ID,\"x\",y,ID");
+        assertEquals(3, tokenizer.getColumnPosition(1));
+        assertEquals(3, tokenizer.getFullTokenLength(1));
+
+        LineToken lineToken = tokenizer.lineToken(1);
+        assertEquals("x", lineToken.getToken());
+        assertEquals(3, lineToken.getColumnPosition());
+        assertEquals(3, lineToken.getFullTokenLength());
+
+        FieldIdentityImpl identity = new FieldIdentityImpl(false);
+        identity.setStartPosition(0);
+        identity.setFieldLength(2);
+        identity.addMatchingString("ID");
+        assertEquals(3, tokenizer.removeTokens(index -> identity.matchesIdentity(tokenizer, index)));
+        assertEquals("x", tokenizer.token(0));
+        assertEquals("ID", tokenizer.token(2));
+
+        try {
+            tokenizer.token(3);
+            fail("Expected an IndexOutOfBoundsException.");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void matchesUtilSplit() {
+        String[] lines = {"", "a", "a|b", "|a||", "'a|b'|c", "x'y'z|'w'"};
+        DelimitedTokenizer tokenizer = new DelimitedTokenizer("|", '\'');
+        for (String line : lines) {
+            List<LineToken> lineTokens = Util.split(line, '|', '\'');
+            assertEquals(line, lineTokens.size(), tokenizer.tokenize(line));
+            for (int i = 0; i < lineTokens.size(); i++) {
+                assertEquals(line, lineTokens.get(i).getToken(), tokenizer.token(i));
+                assertEquals(line, lineTokens.get(i).getColumnPosition(), tokenizer.getColumnPosition(i));
+                assertEquals(line, lineTokens.get(i).getFullTokenLength(), tokenizer.getFullTokenLength(i));
+            }
+        }
+    }
+
+    @Test
+    public void quotedFieldsSpanLines() {
+        try {
+            DelimitedTokenizer tokenizer = new DelimitedTokenizer(",", '"');
+            assertTrue(tokenizer.hasOpenQuote("1,\"first"));
+            assertFalse(tokenizer.hasOpenQuote("1,\"a\"\"b\",2"));
+
+            LineBO line = new LineBO();
+            line.setDelimiter(",");
+            line.setQuoteChar('"');
+            BufferedReader in = new BufferedReader(new StringReader("second\nthird\",4\nnext"));
+            String completeLine = line.getPlan().completeLine("1,\"first", in);
+            assertEquals("1,\"first\nsecond\nthird\",4", completeLine);
+            assertEquals(Arrays.asList("1", "first\nsecond\nthird", "4"), tokens(tokenizer, completeLine));
+            assertEquals("next", in.readLine());
+
+            assertEquals("1,2", line.getPlan().completeLine("1,2", in));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to join quoted lines: " + e.getMessage());
+        }
+    }
+
+    private static List<String> tokens(DelimitedTokenizer tokenizer, String line) {
+        int count = tokenizer.tokenize(line);
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add(tokenizer.token(i));
+        }
+        return tokens;
+    }
+}
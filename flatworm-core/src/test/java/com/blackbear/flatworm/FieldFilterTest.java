@@ -0,0 +1,116 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.test.domain.Book;
+import com.blackbear.flatworm.test.domain.Film;
+import com.blackbear.flatworm.test.domain.Videotape;
+import com.blackbear.flatworm.test.domain.segment.ClassPeriod;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FieldFilterTest {
+
+    @Test
+    public void failingRecordsAreSkipped() {
+        try {
+            FileParser parser = new FileParser(load("complex-example.xml"), resource("complex_input.txt"));
+            // The filters see the raw field - before the conversion-options strip the leading zeros.
+            parser.registerFieldFilter("videotape", "video.sku", sku -> "002346542".contentEquals(sku));
+            parser.registerFieldFilter("book", "sku", sku -> sku.charAt(3) == '5');
+            parser.registerFieldFilter("book", "book.price", price -> !"  13.95".contentEquals(price));
+            List<String> results = parse(parser);
+
+            assertEquals(Arrays.asList("header", "dvd", "videotape:2346542:WHEN A STRANGER IMPLEMENTS", "book:546543476"), results);
+
+            assertTrue(parser.removeFieldFilters("book"));
+            parser.open();
+            assertEquals(Arrays.asList("header", "dvd", "book:546234476", "videotape:2346542:WHEN A STRANGER IMPLEMENTS",
+                    "book:546543476"), parse(parser));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse with field filters: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void delimitedFields() {
+        try {
+            FileParser parser = new FileParser(load("segment-class-tabs.xml"), resource("segment-class-tabs-input.txt"));
+            parser.registerFieldFilter("class", "class.teacher", teacher -> "Mr Hermann".contentEquals(teacher));
+            List<String> subjects = new ArrayList<>();
+            parser.registerRecordCallback("class", record -> subjects.add(((ClassPeriod) record.getBean("class")).getSubject()));
+            parser.open();
+            parser.read();
+            parser.close();
+            assertEquals(Arrays.asList("Arithmetic"), subjects);
+
+            // Fields following a segment can't be found without parsing the segment.
+            parser = new FileParser(load("segment-class-tabs.xml"), resource("segment-class-tabs-input.txt"));
+            parser.registerFieldFilter("class", "room", room -> true);
+            List<String> errors = new ArrayList<>();
+            parser.registerExceptionCallback((ex, message, line) -> errors.add(message));
+            parser.open();
+            parser.read();
+            parser.close();
+            assertTrue(!errors.isEmpty() && errors.get(0).contains("room"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to filter delimited records: " + e.getMessage());
+        }
+    }
+
+    private List<String> parse(FileParser parser) throws Exception {
+        parser.open();
+        try {
+            return parser.stream().map(FieldFilterTest::describe).collect(Collectors.toList());
+        } finally {
+            parser.close();
+        }
+    }
+
+    private FileFormat load(String config) throws Exception {
+        return new DefaultConfigurationReaderImpl().loadConfigurationFile(getClass().getClassLoader().getResourceAsStream(config));
+    }
+
+    private File resource(String name) throws Exception {
+        return new File(getClass().getClassLoader().getResource(name).toURI());
+    }
+
+    private static String describe(MatchedRecord record) {
+        switch (record.getRecordName()) {
+            case "book":
+                return "book:" + ((Book) record.getBean("book")).getSku();
+            case "videotape":
+                return "videotape:" + ((Videotape) record.getBean("video")).getSku() + ":" + ((Film) record.getBean("film")).getTitle();
+            default:
+                return record.getRecordName();
+        }
+    }
+}
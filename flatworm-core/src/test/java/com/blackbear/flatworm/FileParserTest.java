@@ -18,12 +18,25 @@ package com.blackbear.flatworm;
 
 import com.blackbear.flatworm.callbacks.ExceptionCallback;
 import com.blackbear.flatworm.callbacks.RecordCallback;
+import com.blackbear.flatworm.test.domain.Book;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -56,6 +69,56 @@ public class FileParserTest {
 //        verify(callback, atMost(1)).processRecord(matchedRecord);
     }
 
+    @Test
+    public void streamStopsEarly() {
+        try {
+            FileParser parser = new FileParser(resource("complex-example.xml"), resource("complex_input.txt"));
+            parser.open();
+
+            List<String> firstTwo = parser.stream()
+                    .limit(2)
+                    .map(MatchedRecord::getRecordName)
+                    .collect(Collectors.toList());
+            assertEquals(Arrays.asList("header", "dvd"), firstTwo);
+
+            // Only the records pulled so far were read - the iterator picks up where the stream left off.
+            Iterator<MatchedRecord> iterator = parser.iterator();
+            assertEquals("book", iterator.next().getRecordName());
+
+            List<String> remaining = new ArrayList<>();
+            iterator.forEachRemaining(record -> remaining.add(record.getRecordName()));
+            assertEquals(Arrays.asList("videotape", "book", "videotape"), remaining);
+            assertFalse(iterator.hasNext());
+            parser.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to stream records: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void streamFindFirst() {
+        try {
+            FileParser parser = new FileParser(resource("complex-example.xml"), resource("complex_input.txt"));
+            parser.open();
+            try (Stream<MatchedRecord> records = parser.stream()) {
+                Optional<Book> book = records
+                        .filter(record -> "book".equals(record.getRecordName()))
+                        .map(record -> (Book) record.getBean("book"))
+                        .findFirst();
+                assertTrue(book.isPresent());
+                assertEquals("546234476", book.get().getSku());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to stream records: " + e.getMessage());
+        }
+    }
+
+    private File resource(String name) throws Exception {
+        return new File(getClass().getClassLoader().getResource(name).toURI());
+    }
+
     @Test
     public void registerAndUnregisterExceptionCallback() {
         ExceptionCallback callback = mock(ExceptionCallback.class);
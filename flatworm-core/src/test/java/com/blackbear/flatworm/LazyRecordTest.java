@@ -0,0 +1,132 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+import com.blackbear.flatworm.test.domain.Book;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LazyRecordTest {
+
+    @Test
+    public void fieldsAreConvertedOnDemand() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            File input = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+
+            List<LazyRecord> books = new ArrayList<>();
+            List<String> titles = new ArrayList<>();
+            List<Object> films = new ArrayList<>();
+
+            FileParser parser = new FileParser(fileFormat, input);
+            parser.registerLazyRecord("book");
+            parser.registerRecordCallback("book", record -> {
+                assertTrue(record.isLazy());
+                assertEquals(0, record.getBeanSlotCount());
+                LazyRecord book = record.getLazyRecord();
+                try {
+                    titles.add(book.get("title", String.class));
+                } catch (FlatwormParserException e) {
+                    fail(e.getMessage());
+                }
+                books.add(book);
+            });
+            parser.registerRecordCallback("videotape", record -> films.add(record.getBean("film")));
+            parser.registerExceptionCallback((exception, errorMessage, lastLine) -> fail(errorMessage));
+            parser.open();
+            try {
+                parser.read();
+            } finally {
+                parser.close();
+            }
+
+            assertEquals(2, books.size());
+            assertEquals(2, films.size());
+            assertEquals("HE KNOWS WHEN YOU\"RE CODING", titles.get(0));
+            assertEquals("THE GC ALWAYS RINGS TWICE", titles.get(1));
+
+            LazyRecord book = books.get(0);
+            assertEquals("book", book.getRecordName());
+            assertEquals(Collections.singletonList("546234476HE KNOWS WHEN YOU\"RE CODING   JAVALANG OBJECT                 "
+                    + "13.952003-11-10"), book.getLines());
+            assertTrue(book.isConverted("book.title"));
+            assertFalse(book.isConverted("price"));
+            assertEquals("  13.95", book.getRaw("book.price").toString());
+            assertEquals(13.95, book.get("price", Double.class), 0.0);
+            assertTrue(book.isConverted("price"));
+            assertTrue(book.get("releaseDate") instanceof Date);
+            assertTrue(book.hasProperty("book.author"));
+            assertFalse(book.hasProperty("studio"));
+
+            // The same as the bean would have been given.
+            Book eager = (Book) fileFormat.nextRecord(new BufferedReader(new StringReader(book.getLines().get(0))),
+                    new ParseCursor(1)).getBean("book");
+            assertEquals(eager.getAuthor(), book.get("author"));
+            assertEquals(eager.getReleaseDate(), book.get("releaseDate"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse lazy records: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void fieldsAreConvertedByPropertyType() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("primitive-example.xml"));
+            ParseCursor cursor = new ParseCursor();
+            cursor.setLazy("reading", true);
+            LazyRecord reading = fileFormat.nextRecord(new BufferedReader(new StringReader("   42 -12345678901  -12.50YA1.5 ")),
+                    cursor).getLazyRecord();
+            assertEquals(42, reading.get("count"));
+            assertEquals(-12345678901L, reading.get("reading.total"));
+            assertEquals(Boolean.TRUE, reading.get("active"));
+            assertEquals('A', reading.get("grade"));
+
+            try {
+                reading.get("colour");
+                fail("The record has no such field");
+            } catch (FlatwormParserException e) {
+                // Expected.
+            }
+
+            cursor.setLazy("reading", false);
+            assertNull(fileFormat.nextRecord(new BufferedReader(new StringReader("      000000000000        nz    ")), cursor)
+                    .getLazyRecord());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse lazy records: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.test.domain.Book;
+import com.blackbear.flatworm.test.domain.Dvd;
+import com.blackbear.flatworm.test.domain.Header;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedFileParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mappedLinesMatchBufferedReader() {
+        String content = "first\nsecond\r\nthird\r\rfifth line that is longer than the window\nété café\r\nlast";
+        try {
+            File file = folder.newFile("lines.txt");
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+            List<String> expected = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    expected.add(line);
+                }
+            }
+
+            // A tiny window forces remapping mid-line, across \r\n pairs and growth for lines longer than the window.
+            for (int windowSize : new int[]{1, 3, 7, 1024}) {
+                List<String> actual = new ArrayList<>();
+                try (MappedLineReader reader = new MappedLineReader(file.toPath(), StandardCharsets.UTF_8, windowSize)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        actual.add(line);
+                    }
+                    assertEquals(reader.getFileSize(), reader.getPosition());
+                }
+                assertEquals("Window size " + windowSize, expected, actual);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to read mapped lines: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void windowIsOnlyRemappedAtItsEnd() {
+        try {
+            File file = folder.newFile("many-lines.txt");
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 2000; i++) {
+                content.append(String.format("line%04d%n", i));
+            }
+            Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+            int windowSize = 4096;
+            try (MappedLineReader reader = new MappedLineReader(file.toPath(), StandardCharsets.UTF_8, windowSize)) {
+                int lines = 0;
+                while (reader.readLine() != null) {
+                    lines++;
+                }
+                assertEquals(2000, lines);
+                // Each window is read to its end before the next is mapped from the start of the line it cuts through.
+                long windows = (reader.getFileSize() + windowSize - 1) / windowSize;
+                assertTrue("Mapped " + reader.getMapCount() + " windows", reader.getMapCount() <= windows + 1);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to read mapped lines: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void charsetSupport() {
+        assertTrue(MappedLineReader.isSupported(StandardCharsets.UTF_8));
+        assertTrue(MappedLineReader.isSupported(StandardCharsets.ISO_8859_1));
+        assertTrue(MappedLineReader.isSupported(StandardCharsets.US_ASCII));
+        assertFalse(MappedLineReader.isSupported(StandardCharsets.UTF_16));
+    }
+
+    @Test
+    public void parseComplexFile() {
+        try {
+            File config = new File(getClass().getClassLoader().getResource("complex-example.xml").toURI());
+            File input = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+
+            List<MatchedRecord> expected = parse(new FileParser(config, input));
+
+            MappedFileParser mappedParser = new MappedFileParser(config, input);
+            mappedParser.setWindowSize(16);
+            List<MatchedRecord> actual = parse(mappedParser);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getRecordName(), actual.get(i).getRecordName());
+            }
+
+            Header header = (Header) actual.get(0).getBean("header");
+            assertEquals("IMDB", header.getSource());
+            Dvd dvd = (Dvd) actual.get(1).getBean("dvd");
+            assertEquals("55512121", dvd.getSku());
+            Book book = (Book) actual.get(2).getBean("book");
+            assertEquals("JAVALANG OBJECT", book.getAuthor());
+            assertNull(actual.get(2).getBean("dvd"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the memory mapped file: " + e.getMessage());
+        }
+    }
+
+    private List<MatchedRecord> parse(FileParser parser) throws Exception {
+        List<MatchedRecord> records = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        try {
+            parser.open();
+            parser.registerRecordCallback("header", records::add);
+            parser.registerRecordCallback("dvd", records::add);
+            parser.registerRecordCallback("book", records::add);
+            parser.registerRecordCallback("videotape", records::add);
+            parser.registerExceptionCallback((ex, message, line) -> errors.add(message));
+            parser.read();
+        } finally {
+            parser.close();
+        }
+        assertTrue("Parse errors: " + errors, errors.isEmpty());
+        return records;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.blackbear.flatworm.config.RecordDefinitionBO;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.test.domain.Dvd;
+import com.blackbear.flatworm.test.domain.Film;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MatchedRecordTest {
+
+    @Test
+    public void beansAreRetrievedByNameAndSlot() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            RecordDefinitionBO definition = fileFormat.getRecord("dvd").getRecordDefinition();
+            int dvdSlot = definition.getBeanSlot("dvd");
+            int filmSlot = definition.getBeanSlot("film");
+            assertEquals(-1, definition.getBeanSlot("book"));
+
+            // Past the header, which is identified by its line number.
+            MatchedRecord record = fileFormat.nextRecord(new BufferedReader(new StringReader(
+                    "DIAL J FOR JAVA               RUN ANYWHERE STUDIO           2004011555512121   49.95Y")), new ParseCursor(1));
+            assertEquals(2, record.getBeanSlotCount());
+            Dvd dvd = record.getBean("dvd", Dvd.class);
+            assertEquals("55512121", dvd.getSku());
+            assertSame(dvd, record.getBean(dvdSlot));
+            assertSame(record.getBean("film"), record.getBean(filmSlot, Film.class));
+            assertEquals("DIAL J FOR JAVA", record.getBean(filmSlot, Film.class).getTitle());
+            assertNull(record.getBean("book"));
+
+            try {
+                record.getBean("dvd", Film.class);
+                fail("Expected a ClassCastException.");
+            } catch (ClassCastException e) {
+                // Expected.
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to retrieve the beans: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void beansFromAMapAreCopied() {
+        Map<String, Object> beans = new HashMap<>();
+        beans.put("film", new Film());
+        MatchedRecord record = new MatchedRecord("film", beans, "line");
+        beans.clear();
+
+        assertTrue(record.getBean("film") instanceof Film);
+        assertEquals(1, record.getBeanSlotCount());
+        assertSame(record.getBean("film"), record.getBean(0));
+    }
+
+    @Test
+    public void beanSlotMapOverflows() {
+        BeanSlotMap beans = new BeanSlotMap(new String[]{"dvd", "film"});
+        Film film = new Film();
+        assertFalse(beans.containsKey("film"));
+        assertNull(beans.put("film", film));
+        beans.put("script", "added by a script");
+
+        assertEquals(2, beans.size());
+        assertEquals(ImmutableMap.of("film", film, "script", "added by a script"), beans);
+        assertSame(film, beans.remove("film"));
+        assertFalse(beans.containsKey("film"));
+        assertEquals(ImmutableMap.of("script", "added by a script"), new HashMap<>(beans));
+
+        beans.clear();
+        assertTrue(beans.isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+import com.blackbear.flatworm.test.domain.Dvd;
+import com.blackbear.flatworm.test.domain.Film;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MethodHandleMappingStrategyTest {
+
+    @Test
+    public void parseWithMethodHandles() {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("complex_input.txt")) {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            fileFormat.setBeanMappingStrategy(new MethodHandleMappingStrategy());
+            assertTrue(fileFormat.getRecord("dvd").getRecordDefinition().getLines().get(0).getPlan().getMappingStrategy()
+                    instanceof MethodHandleMappingStrategy);
+
+            BufferedReader bufIn = new BufferedReader(new InputStreamReader(in));
+            assertEquals("header", fileFormat.nextRecord(bufIn).getRecordName());
+
+            MatchedRecord results = fileFormat.nextRecord(bufIn);
+            assertEquals("dvd", results.getRecordName());
+            Dvd dvd = (Dvd) results.getBean("dvd");
+            Film film = (Film) results.getBean("film");
+            assertEquals("55512121", dvd.getSku());
+            assertEquals(49.95, dvd.getPrice(), 0.01);
+            assertEquals("Y", dvd.getDualLayer());
+            assertEquals("DIAL J FOR JAVA", film.getTitle());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void subclassSeesPrimitiveProperties() {
+        List<String> mapped = new ArrayList<>();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("complex_input.txt")) {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            fileFormat.setBeanMappingStrategy(new MethodHandleMappingStrategy() {
+                @Override
+                public void mapBean(Object bean, String beanName, String property, Object value,
+                                    Map<String, ConversionOptionBO> conv) throws FlatwormParserException {
+                    mapped.add(beanName + "." + property);
+                    super.mapBean(bean, beanName, property, value, conv);
+                }
+            });
+
+            BufferedReader bufIn = new BufferedReader(new InputStreamReader(in));
+            fileFormat.nextRecord(bufIn);
+            Dvd dvd = (Dvd) fileFormat.nextRecord(bufIn).getBean("dvd");
+            assertEquals(49.95, dvd.getPrice(), 0.01);
+            assertTrue(mapped.contains("dvd.price"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void mapBean() {
+        MethodHandleMappingStrategy strategy = new MethodHandleMappingStrategy();
+        Map<String, ConversionOptionBO> noOptions = Collections.emptyMap();
+        Map<String, ConversionOptionBO> append = Collections.singletonMap("append", new ConversionOptionBO("append", "true"));
+        try {
+            Dvd dvd = new Dvd();
+            strategy.mapBean(dvd, "dvd", "price", 12.5, noOptions);
+            assertEquals(12.5, dvd.getPrice(), 0.001);
+
+            // Primitive properties accept any wrapper that widens to them - just like reflection does.
+            strategy.mapBean(dvd, "dvd", "price", 7, noOptions);
+            assertEquals(7.0, dvd.getPrice(), 0.001);
+
+            strategy.mapBean(dvd, "dvd", "sku", "123", noOptions);
+            strategy.mapBean(dvd, "dvd", "sku", "456", append);
+            assertEquals("123456", dvd.getSku());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+
+        try {
+            strategy.mapBean(new Dvd(), "dvd", "price", "not a number", noOptions);
+            fail("Setting a value of the wrong type should fail");
+        } catch (FlatwormParserException e) {
+            assertEquals("Setting field dvd.price", e.getMessage());
+        }
+
+        try {
+            strategy.mapBean(new Dvd(), "dvd", "noSuchProperty", "value", noOptions);
+            fail("Setting a property that doesn't exist should fail");
+        } catch (FlatwormParserException e) {
+            assertEquals("Setting field dvd.noSuchProperty", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.columnar.DictionaryColumn;
+import com.blackbear.flatworm.test.domain.Book;
+import com.blackbear.flatworm.test.domain.Dvd;
+import com.blackbear.flatworm.test.domain.Film;
+import com.blackbear.flatworm.test.domain.Header;
+import com.blackbear.flatworm.test.domain.Videotape;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelReadTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File config;
+    private File input;
+
+    @Before
+    public void setUp() throws Exception {
+        config = new File(getClass().getClassLoader().getResource("complex-example.xml").toURI());
+        List<String> lines = Files.readAllLines(
+                new File(getClass().getClassLoader().getResource("complex_input.txt").toURI()).toPath(), StandardCharsets.UTF_8);
+
+        // Repeat the detail records so that chunk boundaries fall in the middle of the multi-line videotape records.
+        StringBuilder content = new StringBuilder(lines.get(0)).append("\n");
+        for (int i = 0; i < 200; i++) {
+            for (String line : lines.subList(1, lines.size())) {
+                content.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+            }
+        }
+        input = folder.newFile("parallel_input.txt");
+        Files.write(input.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void orderedMatchesSequential() {
+        try {
+            List<String> expected = new ArrayList<>();
+            List<String> expectedErrors = new ArrayList<>();
+            FileParser parser = createParser(expected, expectedErrors);
+            parser.read();
+            parser.close();
+            assertEquals(1 + 200 * 5, expected.size());
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            for (long chunkSize : new long[]{1, 97, 333, 4096, 1024 * 1024}) {
+                List<String> actual = new ArrayList<>();
+                List<String> actualErrors = new ArrayList<>();
+                parser = createParser(actual, actualErrors);
+                parser.read(ParallelReadOptions.builder().pool(pool).chunkSize(chunkSize).maxChunksInFlight(3).build());
+                parser.close();
+
+                assertEquals("Chunk size " + chunkSize, expected, actual);
+                assertEquals("Chunk size " + chunkSize, expectedErrors, actualErrors);
+            }
+            pool.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the file in parallel: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void unorderedDeliversAllRecords() {
+        try {
+            List<String> expected = new ArrayList<>();
+            FileParser parser = createParser(expected, new ArrayList<>());
+            parser.read();
+            parser.close();
+
+            List<String> actual = Collections.synchronizedList(new ArrayList<>());
+            parser = createParser(actual, Collections.synchronizedList(new ArrayList<>()));
+            ForkJoinPool pool = new ForkJoinPool(4);
+            parser.read(ParallelReadOptions.builder().pool(pool).chunkSize(200).unordered(true).build());
+            parser.close();
+            pool.shutdown();
+
+            Collections.sort(expected);
+            List<String> sorted = new ArrayList<>(actual);
+            Collections.sort(sorted);
+            assertEquals(expected, sorted);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the file in parallel: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void columnarRowsMatchSequential() {
+        try {
+            List<String> expected = new ArrayList<>();
+            FileParser parser = createParser(new ArrayList<>(), new ArrayList<>());
+            registerSkuColumn(parser, expected);
+            parser.read();
+            parser.close();
+            assertEquals(200 * 2, expected.size());
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            for (long chunkSize : new long[]{97, 200, 4096}) {
+                List<String> actual = new ArrayList<>();
+                parser = createParser(new ArrayList<>(), new ArrayList<>());
+                registerSkuColumn(parser, actual);
+                parser.read(ParallelReadOptions.builder().pool(pool).chunkSize(chunkSize).maxChunksInFlight(3).build());
+                parser.close();
+
+                // Rows of chunks that were parsed from the wrong offset, and then again, must only be delivered once.
+                assertEquals("Chunk size " + chunkSize, expected, actual);
+            }
+            pool.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the file in parallel: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void unorderedColumnarBatchesAreNotConcurrent() {
+        try {
+            List<String> expected = new ArrayList<>();
+            FileParser parser = createParser(new ArrayList<>(), new ArrayList<>());
+            registerSkuColumn(parser, expected);
+            parser.read();
+            parser.close();
+
+            // The consumer isn't thread-safe - it must never be given batches from two chunks at once.
+            List<String> actual = new ArrayList<>();
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            parser = createParser(new ArrayList<>(), new ArrayList<>());
+            parser.registerColumnarSink("videotape", 2, batch -> {
+                if (active.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                DictionaryColumn column = batch.getDictionaryColumn("video.sku");
+                for (int row = 0; row < batch.getRowCount(); row++) {
+                    actual.add(column.get(row));
+                    Thread.yield();
+                }
+                active.decrementAndGet();
+            });
+            ForkJoinPool pool = new ForkJoinPool(4);
+            parser.read(ParallelReadOptions.builder().pool(pool).chunkSize(97).unordered(true).build());
+            parser.close();
+            pool.shutdown();
+
+            assertEquals(0, overlaps.get());
+            Collections.sort(expected);
+            Collections.sort(actual);
+            assertEquals(expected, actual);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the file in parallel: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void readFailureEndsTheRead() {
+        try {
+            // Every record fails to be read - like the sequential read, the parallel read gives up at the first failure.
+            FileFormat failing = new FileFormat() {
+                @Override
+                public MatchedRecord nextRecord(BufferedReader in, ParseCursor cursor) throws IOException {
+                    throw new IOException("The input went away.");
+                }
+            };
+            failing.setEncoding(StandardCharsets.UTF_8.name());
+
+            for (boolean parallel : new boolean[]{false, true}) {
+                List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+                FileParser parser = new FileParser(failing, input);
+                parser.registerExceptionCallback((ex, message, line) -> errors.add(ex));
+                parser.open();
+                if (parallel) {
+                    ForkJoinPool pool = new ForkJoinPool(4);
+                    parser.read(ParallelReadOptions.builder().pool(pool).chunkSize(97).build());
+                    pool.shutdown();
+                } else {
+                    parser.read();
+                }
+                parser.close();
+
+                assertEquals("Parallel " + parallel, 1, errors.size());
+                assertTrue("Parallel " + parallel, errors.get(0) instanceof IOException);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the file: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void contentFallsBackToSequential() {
+        try {
+            List<String> records = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            FileParser parser = new FileParser(config, new String(Files.readAllBytes(input.toPath()), StandardCharsets.UTF_8));
+            register(parser, records, errors);
+            parser.open();
+            parser.read(new ParallelReadOptions());
+            parser.close();
+            assertEquals(1 + 200 * 5, records.size());
+            assertTrue(errors.isEmpty());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse the content: " + e.getMessage());
+        }
+    }
+
+    private FileParser createParser(List<String> records, List<String> errors) throws Exception {
+        FileParser parser = new FileParser(config, input);
+        register(parser, records, errors);
+        parser.open();
+        return parser;
+    }
+
+    private void registerSkuColumn(FileParser parser, List<String> skus) {
+        parser.registerColumnarSink("videotape", 16, batch -> {
+            DictionaryColumn column = batch.getDictionaryColumn("video.sku");
+            for (int row = 0; row < batch.getRowCount(); row++) {
+                skus.add(column.get(row));
+            }
+        });
+    }
+
+    private void register(FileParser parser, List<String> records, List<String> errors) {
+        parser.registerRecordCallback("header", record -> records.add("header:" + ((Header) record.getBean("header")).getSource()));
+        parser.registerRecordCallback("dvd", record -> records.add("dvd:" + ((Dvd) record.getBean("dvd")).getSku()));
+        parser.registerRecordCallback("book", record -> records.add("book:" + ((Book) record.getBean("book")).getSku()));
+        parser.registerRecordCallback("videotape", record -> records.add("videotape:"
+                + ((Videotape) record.getBean("video")).getSku() + ":" + ((Film) record.getBean("film")).getTitle()));
+        parser.registerExceptionCallback((ex, message, line) -> errors.add(message));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.blackbear.flatworm.config.LineBO;
+import com.blackbear.flatworm.config.LinePlan;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.test.domain.Dvd;
+import com.blackbear.flatworm.test.domain.Film;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ProjectionTest {
+
+    @Test
+    public void onlyProjectedPropertiesAreMapped() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            File input = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+
+            FileParser projected = new FileParser(fileFormat, input);
+            projected.registerProjection("dvd", "dvd.sku", "title");
+            projected.open();
+            List<MatchedRecord> records;
+            try {
+                records = projected.stream().collect(Collectors.toList());
+            } finally {
+                projected.close();
+            }
+            MatchedRecord dvdRecord = records.stream().filter(record -> "dvd".equals(record.getRecordName())).findFirst().get();
+            Dvd dvd = (Dvd) dvdRecord.getBean("dvd");
+            Film film = (Film) dvdRecord.getBean("film");
+            assertEquals("55512121", dvd.getSku());
+            assertEquals(0.0, dvd.getPrice(), 0.0);
+            assertEquals("DIAL J FOR JAVA", film.getTitle());
+            assertNull(film.getStudio());
+            assertNull(film.getReleaseDate());
+
+            // Other records, and other parsers sharing the FileFormat, still map every field.
+            assertEquals(6, records.size());
+            FileParser full = new FileParser(fileFormat, input);
+            full.open();
+            try {
+                dvdRecord = full.stream().filter(record -> "dvd".equals(record.getRecordName())).findFirst().get();
+            } finally {
+                full.close();
+            }
+            assertEquals(49.95, ((Dvd) dvdRecord.getBean("dvd")).getPrice(), 0.001);
+            assertEquals("RUN ANYWHERE STUDIO", ((Film) dvdRecord.getBean("film")).getStudio());
+            assertNotNull(((Film) dvdRecord.getBean("film")).getReleaseDate());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse with a projection: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void projectedPlansAreCompiledOnce() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            LineBO line = fileFormat.getRecord("dvd").getRecordDefinition().getLines().get(0);
+            LinePlan plan = line.getPlan();
+            Set<String> projection = ImmutableSet.of("sku");
+
+            assertSame(plan, plan.project(null));
+            LinePlan projected = plan.project(projection);
+            assertSame(projected, plan.project(ImmutableSet.of("sku")));
+            assertSame(projected, projected.project(projection));
+            assertEquals(projection, projected.getProjection());
+            assertEquals(plan.getFieldBindings().size(), projected.getFieldBindings().size());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to compile a projected plan: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.Identity;
+import com.blackbear.flatworm.config.RecordBO;
+import com.blackbear.flatworm.config.impl.FieldIdentityImpl;
+import com.blackbear.flatworm.config.impl.LengthIdentityImpl;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class RecordDispatchTest {
+
+    @Test
+    public void matchesLinearScan() {
+        try {
+            List<RecordBO> records = new ArrayList<>();
+            FileFormat fileFormat = new FileFormat();
+
+            records.add(record("exact", fieldIdentity(0, 2, false, "AB", "Ax")));
+            records.add(record("prefix", fieldIdentity(0, 3, true, "a", "XyZ")));
+            records.add(record("shortLines", lengthIdentity(0, 3)));
+            records.add(record("custom", new LengthIdentityImpl() {
+                @Override
+                public boolean matchesIdentity(RecordBO record, FileFormat fileFormat, String line) {
+                    return line.endsWith("!");
+                }
+            }));
+            records.add(record("middle", fieldIdentity(2, 1, false, "x", "")));
+            records.add(record("mediumLines", lengthIdentity(5, 7)));
+            records.add(record("overlappingLines", lengthIdentity(6, 12)));
+            records.add(record("default", null));
+            records.forEach(fileFormat::addRecord);
+            fileFormat.compile();
+
+            Random random = new Random(42);
+            String alphabet = "aAbBxXyYzZ!";
+            for (int i = 0; i < 5000; i++) {
+                StringBuilder line = new StringBuilder();
+                int length = random.nextInt(14);
+                for (int c = 0; c < length; c++) {
+                    line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                assertSame(line.toString(), linearScan(records, fileFormat, line.toString()),
+                        fileFormat.findMatchingRecord(line.toString()));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to dispatch records: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void identityChangesRebuildIndex() {
+        try {
+            FileFormat fileFormat = new FileFormat();
+            RecordBO record = record("record", fieldIdentity(0, 1, false, "A"));
+            fileFormat.addRecord(record);
+
+            assertEquals("record", fileFormat.findMatchingRecord("A1").getName());
+            assertNull(fileFormat.findMatchingRecord("B1"));
+
+            record.setRecordIdentity(fieldIdentity(0, 1, false, "B"));
+            assertNull(fileFormat.findMatchingRecord("A1"));
+            assertEquals("record", fileFormat.findMatchingRecord("B1").getName());
+
+            ((FieldIdentityImpl) record.getRecordIdentity()).addMatchingString("C");
+            fileFormat.compile();
+            assertEquals("record", fileFormat.findMatchingRecord("C1").getName());
+
+            fileFormat.addRecord(record("fallback", null));
+            assertEquals("fallback", fileFormat.findMatchingRecord("D1").getName());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to rebuild the record dispatch index: " + e.getMessage());
+        }
+    }
+
+    private static RecordBO linearScan(List<RecordBO> records, FileFormat fileFormat, String line) throws FlatwormParserException {
+        for (RecordBO record : records) {
+            if (record.matchesLine(fileFormat, line)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private static RecordBO record(String name, Identity identity) {
+        RecordBO record = new RecordBO();
+        record.setName(name);
+        record.setRecordIdentity(identity);
+        return record;
+    }
+
+    private static FieldIdentityImpl fieldIdentity(int startPosition, int fieldLength, boolean ignoreCase, String... matchingStrings) {
+        FieldIdentityImpl identity = new FieldIdentityImpl(ignoreCase);
+        identity.setStartPosition(startPosition);
+        identity.setFieldLength(fieldLength);
+        for (String matchingString : matchingStrings) {
+            identity.addMatchingString(matchingString);
+        }
+        return identity;
+    }
+
+    private static LengthIdentityImpl lengthIdentity(int minLength, int maxLength) {
+        LengthIdentityImpl identity = new LengthIdentityImpl();
+        identity.setMinLength(minLength);
+        identity.setMaxLength(maxLength);
+        return identity;
+    }
+}
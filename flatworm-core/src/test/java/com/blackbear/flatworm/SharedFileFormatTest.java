@@ -0,0 +1,132 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm;
+
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.test.domain.Book;
+import com.blackbear.flatworm.test.domain.Dvd;
+import com.blackbear.flatworm.test.domain.Film;
+import com.blackbear.flatworm.test.domain.Videotape;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SharedFileFormatTest {
+
+    private static final List<String> EXPECTED = Arrays.asList(
+            "header", "dvd:55512121", "book:546234476", "videotape:2346542:WHEN A STRANGER IMPLEMENTS",
+            "book:546543476", "videotape:2435542:DATA AND DATATYPES");
+
+    @Test
+    public void interleavedCursors() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+
+            try (BufferedReader first = open(); BufferedReader second = open()) {
+                ParseCursor firstCursor = new ParseCursor();
+                ParseCursor secondCursor = new ParseCursor();
+
+                // Advance the first parse past the header and into the multi-line records before starting the second.
+                List<String> firstResults = new ArrayList<>();
+                firstResults.add(describe(fileFormat.nextRecord(first, firstCursor)));
+                firstResults.add(describe(fileFormat.nextRecord(first, firstCursor)));
+                firstResults.add(describe(fileFormat.nextRecord(first, firstCursor)));
+
+                List<String> secondResults = new ArrayList<>();
+                MatchedRecord record;
+                while ((record = fileFormat.nextRecord(second, secondCursor)) != null) {
+                    secondResults.add(describe(record));
+                    MatchedRecord other = fileFormat.nextRecord(first, firstCursor);
+                    if (other != null) {
+                        firstResults.add(describe(other));
+                    }
+                }
+
+                assertEquals(EXPECTED, firstResults);
+                assertEquals(EXPECTED, secondResults);
+                assertEquals(0, fileFormat.getLineNumber());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse with interleaved cursors: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void concurrentParsers() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            File input = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+
+            List<Callable<List<String>>> tasks = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tasks.add(() -> {
+                    FileParser parser = new FileParser(fileFormat, input);
+                    parser.open();
+                    try {
+                        return parser.stream().map(SharedFileFormatTest::describe).collect(Collectors.toList());
+                    } finally {
+                        parser.close();
+                    }
+                });
+            }
+
+            for (Future<List<String>> result : executor.invokeAll(tasks)) {
+                assertEquals(EXPECTED, result.get());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse concurrently with a shared FileFormat: " + e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BufferedReader open() {
+        return new BufferedReader(new InputStreamReader(getClass().getClassLoader().getResourceAsStream("complex_input.txt")));
+    }
+
+    private static String describe(MatchedRecord record) {
+        switch (record.getRecordName()) {
+            case "dvd":
+                return "dvd:" + ((Dvd) record.getBean("dvd")).getSku();
+            case "book":
+                return "book:" + ((Book) record.getBean("book")).getSku();
+            case "videotape":
+                return "videotape:" + ((Videotape) record.getBean("video")).getSku() + ":" + ((Film) record.getBean("film")).getTitle();
+            default:
+                return record.getRecordName();
+        }
+    }
+}
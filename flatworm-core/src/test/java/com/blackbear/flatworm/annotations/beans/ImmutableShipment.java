@@ -0,0 +1,47 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.annotations.beans;
+
+import com.blackbear.flatworm.ConstructionMode;
+import com.blackbear.flatworm.annotations.DataIdentity;
+import com.blackbear.flatworm.annotations.FieldIdentity;
+import com.blackbear.flatworm.annotations.Line;
+import com.blackbear.flatworm.annotations.Record;
+import com.blackbear.flatworm.annotations.RecordElement;
+
+import lombok.Value;
+
+/**
+ * Bean for testing a record that is created through its constructor - it has no setters.
+ */
+@Value
+@Record(
+        name = "ImmutableShipment",
+        identity = @DataIdentity(fieldIdentity = @FieldIdentity(fieldLength = 3, enabled = true, matchIdentities = {"IMM"})),
+        lines = @Line,
+        construction = ConstructionMode.CONSTRUCTOR
+)
+public class ImmutableShipment {
+    @RecordElement(order = 1, length = 6)
+    String id;
+
+    @RecordElement(order = 2, length = 4)
+    int quantity;
+
+    @RecordElement(order = 3, length = 5)
+    String carrier;
+}
@@ -0,0 +1,106 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.columnar;
+
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.FileParser;
+import com.blackbear.flatworm.MatchedRecord;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnarSinkTest {
+
+    private static final String INPUT = "   42 -12345678901  -12.50YA1.5 \n"
+            + "      000000000000        nz    \n"
+            + "     7000000000005    1.25NB0.5 \n";
+
+    @Test
+    public void primitiveColumns() {
+        try {
+            FileParser parser = new FileParser(load("primitive-example.xml"), INPUT);
+            List<String> batches = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            parser.registerColumnarSink("reading", 2, batch -> {
+                IntColumn count = batch.getIntColumn("reading.count");
+                LongColumn total = batch.getLongColumn("reading.total");
+                DoubleColumn amount = batch.getDoubleColumn("reading.amount");
+                DictionaryColumn grade = batch.getDictionaryColumn("reading.grade");
+                ObjectColumn active = batch.getObjectColumn("reading.active");
+                for (int row = 0; row < batch.getRowCount(); row++) {
+                    counts.add(count.get(row));
+                    batches.add(batch.getRowCount() + ":" + total.get(row) + ":" + amount.get(row) + ":" + grade.get(row) + ":"
+                            + active.get(row));
+                }
+                assertEquals(Arrays.asList("A", "z", "B").subList(0, grade.getDictionary().size()), grade.getDictionary());
+            });
+            parser.open();
+            List<MatchedRecord> records = parser.stream().collect(Collectors.toList());
+
+            assertTrue(records.isEmpty());
+            assertEquals(Arrays.asList(42, 0, 7), counts);
+            assertEquals(Arrays.asList("2:-12345678901:-12.5:A:true", "2:0:0.0:z:false", "1:5:1.25:B:false"), batches);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to collect columns: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void namedConverters() {
+        try {
+            File input = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+            FileParser parser = new FileParser(load("complex-example.xml"), input);
+            List<Object[]> rows = new ArrayList<>();
+            parser.registerColumnarSink("book", 10, batch -> {
+                assertEquals(Arrays.asList("book.sku", "book.title", "book.author", "book.price", "book.releaseDate"),
+                        batch.getColumns().stream().map(Column::getName).collect(Collectors.toList()));
+                for (int row = 0; row < batch.getRowCount(); row++) {
+                    rows.add(new Object[]{batch.getDictionaryColumn("book.sku").get(row), batch.getDoubleColumn("book.price").get(row),
+                            batch.getObjectColumn("book.releaseDate").get(row) instanceof Date});
+                }
+            });
+            parser.open();
+            List<String> records = parser.stream().map(MatchedRecord::getRecordName).collect(Collectors.toList());
+
+            assertEquals(Arrays.asList("header", "dvd", "videotape", "videotape"), records);
+            assertEquals(2, rows.size());
+            assertArrayEquals(new Object[]{"546234476", 13.95, true}, rows.get(0));
+            assertArrayEquals(new Object[]{"546543476", 23.43, true}, rows.get(1));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to collect columns with named converters: " + e.getMessage());
+        }
+    }
+
+    private FileFormat load(String config) throws Exception {
+        return new DefaultConfigurationReaderImpl().loadConfigurationFile(getClass().getClassLoader().getResourceAsStream(config));
+    }
+}
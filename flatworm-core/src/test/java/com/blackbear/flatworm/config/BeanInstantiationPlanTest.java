@@ -0,0 +1,142 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.blackbear.flatworm.BeanConstructor;
+import com.blackbear.flatworm.config.impl.FieldIdentityImpl;
+import com.blackbear.flatworm.test.domain.segment.Account;
+import com.blackbear.flatworm.test.domain.segment.Consumer;
+import com.blackbear.flatworm.test.domain.segment.Phone;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BeanInstantiationPlanTest {
+
+    @Test
+    public void hierarchyIsWorkedOutOnce() {
+        try {
+            RecordDefinitionBO definition = new RecordDefinitionBO();
+            definition.addBean(bean("account", Account.class));
+            definition.addBean(bean("consumer", Consumer.class));
+            definition.addBean(bean("phone", Phone.class));
+
+            LineBO accountLine = new LineBO();
+            RecordElementBO accountNumber = new RecordElementBO();
+            accountNumber.setCardinality(cardinality("accountNumber", "account", null));
+            accountLine.addLineElement(accountNumber);
+            definition.addLine(accountLine);
+
+            LineBO consumerLine = identityLine("C", cardinality("consumers", "consumer", "account"));
+            definition.addLine(consumerLine);
+            LineBO phoneLine = identityLine("P", cardinality("phone", "phone", "consumer"));
+            definition.addLine(phoneLine);
+
+            assertEquals(ImmutableSet.of("consumer", "phone"), definition.getChildBeanRefs());
+            assertEquals(Arrays.asList("account"), definition.getInstantiationPlan().getBeanRefs());
+            assertSame(definition.getInstantiationPlan(), definition.getInstantiationPlan());
+
+            // The consumer's phone is created along with the consumer, as though the phone line had been read.
+            BeanInstantiationPlan consumerPlan = definition.getInstantiationPlan(consumerLine);
+            assertEquals(Arrays.asList("account", "consumer", "consumer", "phone"), consumerPlan.getBeanRefs());
+            assertSame(consumerPlan, definition.getInstantiationPlan(consumerLine));
+            assertEquals(Arrays.asList("consumer", "phone"), definition.getInstantiationPlan(phoneLine).getBeanRefs());
+
+            Map<String, Object> beans = new HashMap<>();
+            definition.getInstantiationPlan().instantiate(beans, false);
+            Object account = beans.get("account");
+            assertTrue(account instanceof Account);
+
+            consumerPlan.instantiate(beans, false);
+            Object consumer = beans.get("consumer");
+            assertSame(account, beans.get("account"));
+            assertTrue(consumer instanceof Consumer);
+            assertTrue(beans.get("phone") instanceof Phone);
+
+            // Only the parent is reused - the children are added to it and so are always new.
+            definition.getInstantiationPlan().instantiate(beans, true);
+            consumerPlan.instantiate(beans, true);
+            assertSame(account, beans.get("account"));
+            assertNotSame(consumer, beans.get("consumer"));
+
+            // Changing the configuration discards the plans.
+            definition.addBean(bean("other", Account.class));
+            assertNotSame(consumerPlan, definition.getInstantiationPlan(consumerLine));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to compile the bean instantiation plan: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void constructorsAreCached() {
+        BeanConstructor constructor = BeanConstructor.find(Account.class);
+        assertSame(constructor, BeanConstructor.find(Account.class));
+        assertTrue(constructor.isAvailable());
+        try {
+            assertTrue(constructor.newInstance() instanceof Account);
+        } catch (Exception e) {
+            fail("Failed to create the bean: " + e.getMessage());
+        }
+
+        BeanConstructor noDefault = BeanConstructor.find(Integer.class);
+        assertFalse(noDefault.isAvailable());
+        try {
+            noDefault.newInstance();
+            fail("Expected an InstantiationException.");
+        } catch (Exception e) {
+            assertTrue(e instanceof InstantiationException);
+        }
+    }
+
+    private static BeanBO bean(String name, Class<?> beanClass) {
+        BeanBO bean = new BeanBO();
+        bean.setBeanName(name);
+        bean.setBeanClass(beanClass.getName());
+        bean.setBeanObjectClass(beanClass);
+        return bean;
+    }
+
+    private static CardinalityBO cardinality(String propertyName, String beanRef, String parentBeanRef) {
+        CardinalityBO cardinality = new CardinalityBO();
+        cardinality.setPropertyName(propertyName);
+        cardinality.setBeanRef(beanRef);
+        cardinality.setParentBeanRef(parentBeanRef);
+        return cardinality;
+    }
+
+    private static LineBO identityLine(String match, CardinalityBO cardinality) {
+        FieldIdentityImpl identity = new FieldIdentityImpl();
+        identity.addMatchingString(match);
+        LineBO line = new LineBO();
+        line.setLineIdentity(identity);
+        line.setCardinality(cardinality);
+        return line;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.FileParser;
+import com.blackbear.flatworm.MatchedRecord;
+import com.blackbear.flatworm.ParseMode;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LineParserGeneratorTest {
+
+    @Test
+    public void generatedMatchesInterpreted() {
+        try {
+            File content = new File(getClass().getClassLoader().getResource("complex_input.txt").toURI());
+
+            FileFormat generated = loadFileFormat();
+            generated.setParseMode(ParseMode.GENERATED);
+            generated.compile();
+            for (RecordBO record : generated.getRecords()) {
+                for (LineBO line : record.getRecordDefinition().getLines()) {
+                    assertTrue(line.getPlan().describe(), line.getPlan().isGenerated());
+                    assertTrue(line.getPlan().describe().contains("fixed-width, generated"));
+                }
+            }
+
+            List<String> expected = parse(loadFileFormat(), content);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, parse(generated, content));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void projectionsAreInterpreted() {
+        try {
+            FileFormat fileFormat = loadFileFormat();
+            fileFormat.setParseMode(ParseMode.GENERATED);
+            LinePlan plan = fileFormat.getRecord("dvd").getRecordDefinition().getLines().get(0).getPlan();
+            assertTrue(plan.isGenerated());
+            assertFalse(plan.project(ImmutableSet.of("sku")).isGenerated());
+
+            fileFormat.setParseMode(ParseMode.INTERPRETED);
+            assertFalse(fileFormat.getRecord("dvd").getRecordDefinition().getLines().get(0).getPlan().isGenerated());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void shortLine() {
+        try {
+            FileFormat fileFormat = loadFileFormat();
+            fileFormat.setParseMode(ParseMode.GENERATED);
+            LinePlan plan = fileFormat.getRecord("dvd").getRecordDefinition().getLines().get(0).getPlan();
+            assertTrue(plan.isGenerated());
+            try {
+                plan.parse("DIAL J FOR JAVA", null, fileFormat.getRecord("dvd").getRecordDefinition().newBeanMap(),
+                        fileFormat.getConversionHelper());
+                fail("The field past the end of the line should have failed the parse.");
+            } catch (Exception e) {
+                assertEquals("Looking for field film.title at pos 0, end 30, input length = 15", e.getMessage());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void generatedMatchesInterpretedOnPrimitives() {
+        try {
+            String content = "AAAA000012\nBBBB-00034\n";
+            List<String> expected = parse(loadCountFileFormat("int", ParseMode.INTERPRETED), content);
+            assertEquals(2, expected.size());
+            assertEquals("count AAAA=12", expected.get(0));
+            assertEquals(expected, parse(loadCountFileFormat("int", ParseMode.GENERATED), content));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void generatedMatchesInterpretedOnMismatchedTypes() {
+        try {
+            // The converter returns a Long for an int property - neither mode narrows it.
+            String content = "AAAA000012\n";
+            List<String> expected = parse(loadCountFileFormat("long", ParseMode.INTERPRETED), content);
+            assertEquals(1, expected.size());
+            assertTrue(expected.get(0), expected.get(0).startsWith("error: "));
+            assertEquals(expected, parse(loadCountFileFormat("long", ParseMode.GENERATED), content));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    private FileFormat loadFileFormat() throws Exception {
+        return new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+    }
+
+    /**
+     * A format of one line holding a name and an {@code int} count, the count converted by the named converter.
+     */
+    private FileFormat loadCountFileFormat(String converterName, ParseMode parseMode) throws Exception {
+        String configuration = "<file-format>\n"
+                + "  <converter name=\"int\" class=\"com.blackbear.flatworm.converters.CoreConverters\" method=\"convertInteger\""
+                + " return-type=\"java.lang.Integer\"/>\n"
+                + "  <converter name=\"long\" class=\"com.blackbear.flatworm.converters.CoreConverters\" method=\"convertLong\""
+                + " return-type=\"java.lang.Long\"/>\n"
+                + "  <record name=\"count\">\n"
+                + "    <record-definition>\n"
+                + "      <bean name=\"count\" class=\"" + Count.class.getName() + "\"/>\n"
+                + "      <line>\n"
+                + "        <record-element length=\"4\" beanref=\"count.name\"/>\n"
+                + "        <record-element length=\"6\" beanref=\"count.count\" converter-name=\"" + converterName + "\"/>\n"
+                + "      </line>\n"
+                + "    </record-definition>\n"
+                + "  </record>\n"
+                + "</file-format>\n";
+        FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                new ByteArrayInputStream(configuration.getBytes(StandardCharsets.UTF_8)));
+        fileFormat.setParseMode(parseMode);
+        LinePlan plan = fileFormat.getRecord("count").getRecordDefinition().getLines().get(0).getPlan();
+        assertEquals(parseMode == ParseMode.GENERATED, plan.isGenerated());
+        return fileFormat;
+    }
+
+    private List<String> parse(FileFormat fileFormat, String content) throws Exception {
+        List<String> results = new ArrayList<>();
+        try (FileParser parser = new FileParser(fileFormat, content)) {
+            parser.registerExceptionCallback((e, message, line) -> results.add("error: " + message));
+            parser.open();
+            for (MatchedRecord record : (Iterable<MatchedRecord>) parser::iterator) {
+                results.add(record.getRecordName() + " " + record.getBean("count"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Parse the content, describing each record by its name and the {@code toString()} of its beans.
+     */
+    private List<String> parse(FileFormat fileFormat, File content) throws Exception {
+        List<String> results = new ArrayList<>();
+        try (FileParser parser = new FileParser(fileFormat, content)) {
+            parser.registerExceptionCallback((e, message, line) -> results.add("error: " + message));
+            parser.open();
+            for (MatchedRecord record : (Iterable<MatchedRecord>) parser::iterator) {
+                StringBuilder result = new StringBuilder(record.getRecordName());
+                for (int slot = 0; slot < record.getBeanSlotCount(); slot++) {
+                    result.append(' ').append(record.getBean(slot));
+                }
+                results.add(result.toString());
+            }
+        }
+        return results;
+    }
+
+    public static class Count {
+        private String name;
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + count;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LinePlanTest {
+
+    @Test
+    public void fixedWidthPlan() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            LineBO line = fileFormat.getRecord("dvd").getRecordDefinition().getLines().get(0);
+
+            LinePlan plan = line.getPlan();
+            assertSame("Plan should be compiled when the configuration is loaded", plan, line.getPlan());
+            assertFalse(plan.isDelimited());
+            assertTrue(plan.isEnforceLineLengths());
+
+            List<String> properties = plan.getFieldBindings().stream()
+                    .map(binding -> binding.getBeanRef() + "." + binding.getPropertyName())
+                    .collect(Collectors.toList());
+            assertEquals("[film.title, film.studio, film.releaseDate, dvd.sku, dvd.price, dvd.dualLayer]", properties.toString());
+            assertEquals("date", plan.getFieldBindings().get(2).getConverterName());
+
+            String description = plan.describe();
+            assertTrue(description, description.contains("[0] field start=<previous end> length=30 film.title converter=char"));
+            assertTrue(description, description.contains("[5] field start=<previous end> length=1 dvd.dualLayer converter=char"));
+
+            fileFormat.setEnforceLineLengths(false);
+            LinePlan relaxed = line.getPlan();
+            assertNotSame(plan, relaxed);
+            assertFalse(relaxed.isEnforceLineLengths());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to compile the line plan: " + e.getMessage());
+        }
+    }
+}
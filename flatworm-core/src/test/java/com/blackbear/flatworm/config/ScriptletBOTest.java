@@ -0,0 +1,84 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.config;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ScriptletBOTest {
+
+    private static final String COUNTER_SCRIPT = "var count = 0; function next(step) { count += step; return count; }";
+
+    @Test
+    public void enginesAreSharedBetweenThreads() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ScriptletBO scriptlet = new ScriptletBO(ScriptletBO.DEFAULT_SCRIPT_ENGINE, "next");
+            scriptlet.setScript(COUNTER_SCRIPT);
+
+            // One call at a time, each on whichever thread picks it up - an engine per thread would restart the count on each thread.
+            for (int i = 1; i <= 8; i++) {
+                Future<Object> result = executor.submit(() -> scriptlet.invokeFunction(1));
+                assertEquals(i, ((Number) result.get()).intValue());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to invoke the scriptlet: " + e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void concurrentCallsUseSeparateEngines() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ScriptletBO scriptlet = new ScriptletBO(ScriptletBO.DEFAULT_SCRIPT_ENGINE, "next");
+            scriptlet.setScript(COUNTER_SCRIPT);
+
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                results.add(executor.submit(() -> scriptlet.invokeFunction(1)));
+            }
+
+            // Each engine counts the calls it ran - 1, 2, 3... - so no count can turn up more often than a lower one and the number of 1s
+            // is the number of engines created, which is never more than the number of threads.
+            int[] occurrences = new int[results.size() + 2];
+            for (Future<Object> result : results) {
+                occurrences[((Number) result.get()).intValue()]++;
+            }
+            assertTrue("Engines created: " + occurrences[1], occurrences[1] >= 1 && occurrences[1] <= 4);
+            for (int count = 1; count <= results.size(); count++) {
+                assertTrue("Count " + count + " repeated", occurrences[count + 1] <= occurrences[count]);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to invoke the scriptlet: " + e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.config.ConverterBO;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConversionHelperTest {
+
+    private final Map<String, ConversionOptionBO> noOptions = Collections.emptyMap();
+
+    @Test
+    public void namedConverters() {
+        ConversionHelper helper = new ConversionHelper();
+        helper.addConverter(converter("reverse", "reverse"));
+        helper.addConverter(converter("shout", "shout"));
+        try {
+            assertEquals("cba", helper.convert("reverse", "abc", noOptions, "bean.property"));
+            assertEquals("<cba>", helper.convert("reverse", (Object) "abc", noOptions, "bean.property"));
+            assertEquals("ABC", helper.convert("shout", "abc", noOptions, "bean.property"));
+
+            ToTypeConverterFunction function = helper.getToTypeConverterFunction("reverse");
+            assertNotNull(function);
+            assertEquals("zyx", helper.convert(function, "reverse", "xyz", ConversionOptionChain.EMPTY, noOptions, "bean.property"));
+            assertNull(helper.getToTypeConverterFunction("missing"));
+        } catch (FlatwormParserException e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void failuresReportTheBeanRef() {
+        ConversionHelper helper = new ConversionHelper();
+        helper.addConverter(converter("reverse", "reverse"));
+        helper.addConverter(converter("noSuchMethod", "noSuchMethod"));
+        helper.addConverter(ConverterBO.builder().name("noSuchClass").converterClass("com.example.Missing").method("convert").build());
+
+        assertFailure(() -> helper.convert("reverse", "bad", noOptions, "bean.property"), "bean.property");
+        assertFailure(() -> helper.convert("noSuchMethod", "abc", noOptions, "bean.other"), "bean.other");
+        assertFailure(() -> helper.convert("noSuchClass", "abc", noOptions, "bean.third"), "bean.third");
+        assertFailure(() -> helper.convert("missing", "abc", noOptions, "bean.fourth"), "bean.fourth");
+        assertFailure(() -> helper.convert("shout", (Object) "abc", noOptions, "bean.fifth"), "bean.fifth");
+    }
+
+    private static ConverterBO converter(String name, String method) {
+        return ConverterBO.builder().name(name).converterClass(TextConverters.class.getName()).method(method).build();
+    }
+
+    private static void assertFailure(Conversion conversion, String beanRef) {
+        try {
+            conversion.run();
+            fail("The conversion should have failed");
+        } catch (FlatwormParserException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(beanRef));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversion {
+        void run() throws FlatwormParserException;
+    }
+
+    public static class TextConverters {
+        public String reverse(String str, Map<String, ConversionOptionBO> options) {
+            if ("bad".equals(str)) {
+                throw new IllegalArgumentException("Can't reverse " + str);
+            }
+            return new StringBuilder(str).reverse().toString();
+        }
+
+        public String reverse(Object obj, Map<String, ConversionOptionBO> options) {
+            return "<" + reverse(obj.toString(), options) + ">";
+        }
+
+        public static String shout(String str, Map<String, ConversionOptionBO> options) {
+            return str.toUpperCase();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.Util;
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.config.RecordElementBO;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConversionOptionChainTest {
+
+    @Test
+    public void appliedInConfiguredOrder() {
+        Map<String, ConversionOptionBO> substringFirst = options("substring", "0,3", "default-value", "none");
+        Map<String, ConversionOptionBO> defaultFirst = options("default-value", "none", "substring", "0,3");
+
+        assertEquals("none", ConversionOptionChain.compile(substringFirst).apply("   abc", 0));
+        assertEquals("   ", ConversionOptionChain.compile(defaultFirst).apply("   abc", 0));
+        assertEquals("non", ConversionOptionChain.compile(defaultFirst).apply("", 0));
+
+        Map<String, ConversionOptionBO> stripThenJustify = options("strip-chars", "non-numeric", "justify", "right",
+                "pad-character", "0");
+        assertEquals("1234", ConversionOptionChain.compile(stripThenJustify).apply("$00,1234", 0));
+        assertEquals("0001234", ConversionOptionChain.compile(stripThenJustify).apply("1,234", 7));
+    }
+
+    @Test
+    public void matchesUtilJustify() {
+        String[] values = {"", "   ", "  abc  ", "xxabcxx", "abc", "x a x"};
+        String[] justifications = {"left", "right", "both", "center"};
+        for (String justify : justifications) {
+            for (String padCharacter : new String[]{" ", "x ", "0"}) {
+                Map<String, ConversionOptionBO> options = options("justify", justify, "pad-character", padCharacter);
+                ConversionOptionChain chain = ConversionOptionChain.compile(options);
+                for (String value : values) {
+                    for (int length : new int[]{0, 2, 9}) {
+                        String expected = Util.justify(value, justify, options, length);
+                        if (length > 0 && expected.length() > length) {
+                            expected = expected.substring(0, length);
+                        }
+                        assertEquals(justify + "/" + padCharacter + "/" + value + "/" + length, expected, chain.apply(value, length));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void compiledOncePerElement() {
+        RecordElementBO element = new RecordElementBO();
+        assertSame(ConversionOptionChain.EMPTY, element.getConversionOptionChain());
+        assertTrue(ConversionOptionChain.compile(Collections.singletonMap("append", new ConversionOptionBO("append", "true"))).isEmpty());
+
+        element.addConversionOption("justify", new ConversionOptionBO("justify", "both"));
+        ConversionOptionChain chain = element.getConversionOptionChain();
+        assertSame(chain, element.getConversionOptionChain());
+        assertEquals("abc", chain.apply("  abc ", 0));
+
+        element.addConversionOption("default-value", new ConversionOptionBO("default-value", "?"));
+        assertEquals("?", element.getConversionOptionChain().apply("    ", 0));
+        assertEquals("[justify=both pad-character=' ', default-value='?']", element.getConversionOptionChain().toString());
+    }
+
+    private static Map<String, ConversionOptionBO> options(String... namesAndValues) {
+        Map<String, ConversionOptionBO> options = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            options.put(namesAndValues[i], new ConversionOptionBO(namesAndValues[i], namesAndValues[i + 1]));
+        }
+        return options;
+    }
+}
@@ -38,6 +38,7 @@ import static com.blackbear.flatworm.converters.ConverterFunctionCache.removeToT
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 /**
@@ -116,6 +117,29 @@ public class ConverterFunctionCacheTest {
     }
 
 
+    @Test
+    public void primitiveConverterIsBackOnceOverrideRemoved() {
+        IntConverterFunction builtIn = ConverterFunctionCache.getIntConverterFunction();
+        assertNotNull("The int fast path should be enabled.", builtIn);
+        ToTypeConverterFunction override = (value, options) -> 42;
+
+        try {
+            registerToTypeConverterFunction(int.class, override);
+            assertNull("The int fast path should give way to the registered converter.", ConverterFunctionCache.getIntConverterFunction());
+            assertEquals(42, convertFromString(int.class, "7", Collections.emptyMap()));
+
+            assertSame(override, removeToTypeConverterFunction(int.class));
+            assertSame("The int fast path should be back.", builtIn, ConverterFunctionCache.getIntConverterFunction());
+            assertEquals("The built in int converter should be back.", 7, convertFromString(int.class, "7", Collections.emptyMap()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        } finally {
+            if (ConverterFunctionCache.findToTypeConverter(int.class) == override) {
+                removeToTypeConverterFunction(int.class);
+            }
+        }
+    }
     @Test
     public void nullTestConvertFromStringClass() throws Exception {
         thrown.expect(NullPointerException.class);
@@ -220,6 +244,34 @@ public class ConverterFunctionCacheTest {
         convertToString(new Date(), null);
     }
 
+    @Test
+    public void cachedLookups() {
+        ToTypeConverterFunction levelOne = (value, options) -> "one";
+        ToTypeConverterFunction marked = (value, options) -> "marked";
+        try {
+            // A miss is cached until something is registered.
+            assertNull(ConverterFunctionCache.findToTypeConverter(LevelThree.class));
+            registerToTypeConverterFunction(Marker.class, marked);
+            assertEquals("marked", convertFromString(LevelThree.class, "", Collections.emptyMap()));
+
+            // The nearest superclass wins over an interface.
+            registerToTypeConverterFunction(LevelOne.class, levelOne);
+            assertEquals("one", convertFromString(LevelThree.class, "", Collections.emptyMap()));
+            assertEquals("one", convertFromString(LevelTwo.class, "", Collections.emptyMap()));
+
+            removeToTypeConverterFunction(LevelOne.class);
+            assertEquals("marked", convertFromString(LevelThree.class, "", Collections.emptyMap()));
+            assertNull(ConverterFunctionCache.findToTypeConverter(LevelTwo.class));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        } finally {
+            removeToTypeConverterFunction(Marker.class);
+            removeToTypeConverterFunction(LevelOne.class);
+        }
+        assertNull(ConverterFunctionCache.findToTypeConverter(LevelThree.class));
+    }
+
     public static class LevelOne {
 
     }
@@ -227,4 +279,12 @@ public class ConverterFunctionCacheTest {
     public static class LevelTwo extends LevelOne {
 
     }
+
+    public interface Marker {
+
+    }
+
+    public static class LevelThree extends LevelTwo implements Marker {
+
+    }
 }
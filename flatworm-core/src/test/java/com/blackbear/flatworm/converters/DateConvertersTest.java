@@ -0,0 +1,183 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.Util;
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class DateConvertersTest {
+
+    private final CoreConverters converters = new CoreConverters();
+
+    @Test
+    public void javaTimeTypes() {
+        Map<String, ConversionOptionBO> noOptions = Collections.emptyMap();
+        Map<String, ConversionOptionBO> compact = options("format", "yyyyMMdd");
+        try {
+            assertEquals(LocalDate.of(2016, 2, 29), converters.convertLocalDate("2016-02-29", noOptions));
+            assertEquals(LocalDate.of(2016, 2, 29), converters.convertLocalDate("20160229", compact));
+            assertEquals("20160229", converters.convertLocalDate(LocalDate.of(2016, 2, 29), compact));
+            assertNull(converters.convertLocalDate("", noOptions));
+
+            assertEquals(LocalDateTime.of(2016, 2, 29, 13, 45, 10), converters.convertLocalDateTime("2016-02-29T13:45:10", noOptions));
+            assertEquals(LocalDateTime.of(2016, 2, 29, 0, 0), converters.convertLocalDateTime("20160229", compact));
+            assertEquals("2016-02-29 13:45", converters.convertLocalDateTime(LocalDateTime.of(2016, 2, 29, 13, 45),
+                    options("format", "yyyy-MM-dd HH:mm")));
+
+            Instant instant = Instant.parse("2016-02-29T13:45:10Z");
+            assertEquals(instant, converters.convertInstant("2016-02-29T13:45:10Z", noOptions));
+            assertEquals("2016-02-29T13:45:10Z", converters.convertInstant(instant, noOptions));
+            assertEquals(instant, converters.convertInstant("2016-02-29 13:45:10 +0000", options("format", "yyyy-MM-dd HH:mm:ss Z")));
+
+            assertEquals(LocalDate.class, ConverterFunctionCache.convertFromString(LocalDate.class, "2016-02-29", noOptions).getClass());
+            assertEquals("2016-02-29T13:45:10Z", ConverterFunctionCache.convertToString(instant, noOptions));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        }
+
+        try {
+            converters.convertLocalDate("2016-13-01", noOptions);
+            fail("The month is invalid");
+        } catch (FlatwormParserException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void datesMatchSimpleDateFormat() {
+        try {
+            String[] patterns = {"yyyy-MM-dd", "yyyyMMdd", "yyyy/MM/dd HH:mm:ss", "dd MMM yyyy"};
+            Date date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2015-07-04 09:08:07");
+            for (String pattern : patterns) {
+                Map<String, ConversionOptionBO> options = options("format", pattern);
+                String expected = new SimpleDateFormat(pattern).format(date);
+                assertEquals(pattern, expected, converters.convertDate(date, options));
+                assertEquals(pattern, new SimpleDateFormat(pattern).parse(expected), converters.convertDate(expected, options));
+                assertEquals(pattern, expected, Util.formatDate(date, null, options));
+            }
+            assertEquals("2015-07-04", Util.formatDate(date, "yyyy-MM-dd", Collections.emptyMap()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void simpleDateFormatLetters() {
+        try {
+            // Two digit years are within 80 years before and 20 years after today.
+            int thisYear = LocalDate.now().getYear();
+            int past = (thisYear - 79) % 100;
+            int future = (thisYear + 19) % 100;
+            Map<String, ConversionOptionBO> twoDigitYear = options("format", "MM/dd/yy");
+            assertEquals(LocalDate.of(thisYear - 79, 12, 31), converters.convertLocalDate(String.format("12/31/%02d", past), twoDigitYear));
+            assertEquals(LocalDate.of(thisYear + 19, 12, 31), converters.convertLocalDate(String.format("12/31/%02d", future),
+                    twoDigitYear));
+            assertEquals("12/31/75", converters.convertLocalDate(LocalDate.of(1975, 12, 31), twoDigitYear));
+
+            Date date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").parse("2015-07-04 09:08:07.005");
+            String[] patterns = {"MM/dd/yy", "yyyy-MM-dd HH:mm:ss.S", "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd u",
+                    "[yyyy-MM-dd] 'at' HH 'o''clock'"};
+            for (String pattern : patterns) {
+                Map<String, ConversionOptionBO> options = options("format", pattern);
+                String expected = new SimpleDateFormat(pattern).format(date);
+                assertEquals(pattern, expected, converters.convertDate(date, options));
+                assertEquals(pattern, new SimpleDateFormat(pattern).parse(expected), converters.convertDate(expected, options));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        }
+
+        try {
+            DateFormatCache.forPattern("yyyy-MM F");
+            fail("There is no equivalent of F");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void memoizedValues() {
+        Map<String, ConversionOptionBO> options = options("format", "yyyyMMdd", "memoize", "true");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            LocalDate first = converters.convertLocalDate("20160101", options);
+            assertSame(first, converters.convertLocalDate("20160101", options));
+            assertNotSame(first, converters.convertLocalDate("20160101", options("format", "yyyyMMdd")));
+
+            // Dates are mutable, so each caller still gets its own instance.
+            Date date = converters.convertDate("20160101", options);
+            Date again = converters.convertDate("20160101", options);
+            assertEquals(date, again);
+            assertNotSame(date, again);
+
+            // More distinct values than the memo holds, from several threads at once.
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        int day = 1 + i % 20;
+                        assertEquals(LocalDate.of(2016, 3, day), converters.convertLocalDate(String.format("201603%02d", day), options));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to convert: " + e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Map<String, ConversionOptionBO> options(String... namesAndValues) {
+        Map<String, ConversionOptionBO> options = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            options.put(namesAndValues[i], new ConversionOptionBO(namesAndValues[i], namesAndValues[i + 1]));
+        }
+        return options;
+    }
+}
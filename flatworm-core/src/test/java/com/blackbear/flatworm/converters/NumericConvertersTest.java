@@ -0,0 +1,123 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NumericConvertersTest {
+
+    private final CoreConverters converters = new CoreConverters();
+
+    @Test
+    public void impliedDecimals() {
+        Map<String, ConversionOptionBO> implied = options("decimal-implied", "true", "decimal-places", "2");
+        try {
+            String line = "ACCT0001234550-0000000001";
+            assertEquals(new BigDecimal("12345.50"), converters.parseBigDecimal(line, 4, 14, implied));
+            assertEquals(new BigDecimal("-0.01"), converters.parseBigDecimal(line, 14, 25, implied));
+            assertEquals(12345.5, converters.parseDouble(line, 4, 14, implied), 0.0);
+            assertEquals(new BigDecimal("1.234"), converters.convertBigDecimal("123.4", implied));
+            assertEquals(new BigDecimal("12345.50"), converters.convertBigDecimal("0001234550", implied));
+
+            // Too many digits to be parsed in place.
+            assertEquals(new BigDecimal("1234567890123456789012.34"),
+                    converters.convertBigDecimal("123456789012345678901234", implied));
+            assertEquals(new BigDecimal("15"), converters.convertBigDecimal("1.5E3", implied));
+
+            Map<String, ConversionOptionBO> noOptions = Collections.emptyMap();
+            Random random = new Random(11);
+            for (int i = 0; i < 10000; i++) {
+                String value = String.format("%d.%0" + (1 + random.nextInt(8)) + "d",
+                        random.nextLong() % 100000000000L, random.nextInt(100000));
+                assertEquals(value, new BigDecimal(value), converters.parseBigDecimal(value, 0, value.length(), noOptions));
+                assertEquals(value, Double.parseDouble(value), converters.parseDouble(value, 0, value.length(), noOptions), 0.0);
+            }
+            assertEquals(BigDecimal.ZERO, converters.parseBigDecimal("   ", 1, 1, noOptions));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse: " + e.getMessage());
+        }
+        assertInvalid(() -> converters.parseBigDecimal("12a4", 0, 4, implied));
+        assertInvalid(() -> converters.parseBigDecimal("1.2.3", 0, 5, implied));
+    }
+
+    @Test
+    public void signFormats() {
+        Map<String, ConversionOptionBO> trailing = options("sign", "trailing");
+        Map<String, ConversionOptionBO> overpunch = options("sign", "overpunch", "decimal-implied", "true", "decimal-places", "2");
+        try {
+            assertEquals(-123, converters.parseInt("00123-", 0, 6, trailing));
+            assertEquals(123L, converters.parseLong("00123+", 0, 6, trailing));
+            assertEquals(-45L, converters.parseLong("-45", 0, 3, trailing));
+            assertEquals(-1.5, converters.parseDouble("1.50-", 0, 5, trailing), 0.0);
+            assertEquals(new BigDecimal("-7.25"), converters.convertBigDecimal("7.25-", trailing));
+
+            Map<String, ConversionOptionBO> wholeOverpunch = options("sign", "overpunch");
+            assertEquals(-123L, converters.parseLong("0012L", 0, 5, wholeOverpunch));
+            assertEquals(123, converters.parseInt("0012C", 0, 5, wholeOverpunch));
+            assertEquals(0, converters.parseInt("000}", 0, 4, wholeOverpunch));
+            assertEquals(42, converters.parseInt("42", 0, 2, wholeOverpunch));
+
+            assertEquals(new BigDecimal("-1.20"), converters.parseBigDecimal("0012}", 0, 5, overpunch));
+            assertEquals(new BigDecimal("123.41"), converters.parseBigDecimal("01234A", 0, 6, overpunch));
+            assertEquals(-1.2, converters.parseDouble("0012}", 0, 5, overpunch), 0.0);
+            assertEquals(new BigDecimal("-12345678901234567890.19"),
+                    converters.parseBigDecimal("123456789012345678901R", 0, 22, overpunch));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse: " + e.getMessage());
+        }
+        assertInvalid(() -> converters.parseInt("12-", 0, 3, Collections.emptyMap()));
+        assertInvalid(() -> converters.parseInt("12L", 0, 3, trailing));
+        assertInvalid(() -> converters.parseLong("}", 0, 1, Collections.emptyMap()));
+    }
+
+    private static Map<String, ConversionOptionBO> options(String... namesAndValues) {
+        Map<String, ConversionOptionBO> options = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            options.put(namesAndValues[i], new ConversionOptionBO(namesAndValues[i], namesAndValues[i + 1]));
+        }
+        return options;
+    }
+
+    private static void assertInvalid(Conversion conversion) {
+        try {
+            conversion.run();
+            fail("The value should not have been converted");
+        } catch (FlatwormParserException e) {
+            // Expected.
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversion {
+        void run() throws FlatwormParserException;
+    }
+}
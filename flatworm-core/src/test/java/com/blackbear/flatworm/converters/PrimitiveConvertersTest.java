@@ -0,0 +1,165 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.MatchedRecord;
+import com.blackbear.flatworm.MethodHandleMappingStrategy;
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import lombok.Data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrimitiveConvertersTest {
+
+    private static final String INPUT = "   42 -12345678901  -12.50YA1.5 \n"
+            + "      000000000000        nz    \n";
+
+    @Test
+    public void primitiveProperties() {
+        try {
+            Reading[] viaPropertyUtils = read(false);
+            Reading[] viaMethodHandles = read(true);
+
+            assertEquals(42, viaMethodHandles[0].getCount());
+            assertEquals(-12345678901L, viaMethodHandles[0].getTotal());
+            assertEquals(-12.5, viaMethodHandles[0].getAmount(), 0.0);
+            assertTrue(viaMethodHandles[0].isActive());
+            assertEquals('A', viaMethodHandles[0].getGrade());
+            assertEquals(1.5F, viaMethodHandles[0].getRatio(), 0.0F);
+
+            assertEquals(0, viaMethodHandles[1].getCount());
+            assertEquals(0.0, viaMethodHandles[1].getAmount(), 0.0);
+            assertFalse(viaMethodHandles[1].isActive());
+            assertEquals('z', viaMethodHandles[1].getGrade());
+
+            for (int i = 0; i < viaMethodHandles.length; i++) {
+                assertEquals(viaPropertyUtils[i], viaMethodHandles[i]);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse primitive properties: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void registeredPrimitiveConverter() {
+        IntConverterFunction original = ConverterFunctionCache.getIntConverterFunction();
+        try {
+            // Count the characters of the field rather than parse them - only the primitive path is given the range.
+            ConverterFunctionCache.registerIntConverterFunction((value, start, end, options) -> end - start);
+            assertEquals(2, read(true)[0].getCount());
+            assertEquals(42, read(false)[0].getCount());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse primitive properties: " + e.getMessage());
+        } finally {
+            ConverterFunctionCache.registerIntConverterFunction(original);
+        }
+    }
+
+    @Test
+    public void parseFromRange() {
+        CoreConverters converters = new CoreConverters();
+        Map<String, ConversionOptionBO> noOptions = Collections.emptyMap();
+        try {
+            assertEquals(Integer.MIN_VALUE, converters.parseInt("x-2147483648x", 1, 12, noOptions));
+            assertEquals(Integer.MAX_VALUE, converters.parseInt("+2147483647", 0, 11, noOptions));
+            assertEquals(0, converters.parseInt("abc", 1, 1, noOptions));
+            assertEquals(Long.MIN_VALUE, converters.parseLong("-9223372036854775808", 0, 20, noOptions));
+            assertTrue(converters.parseBoolean("YES", 0, 3, noOptions));
+            assertFalse(converters.parseBoolean("0", 0, 1, noOptions));
+            assertEquals('b', converters.parseCharacter("abc", 1, 2, noOptions));
+
+            Random random = new Random(7);
+            for (int i = 0; i < 10000; i++) {
+                String value = String.format("%d.%0" + (1 + random.nextInt(6)) + "d",
+                        random.nextInt(2000000) - 1000000, random.nextInt(100000));
+                assertEquals(value, Double.parseDouble(value), converters.parseDouble(value, 0, value.length(), noOptions), 0.0);
+            }
+            assertEquals(1.5e10, converters.parseDouble("1.5e10", 0, 6, noOptions), 0.0);
+
+            Map<String, ConversionOptionBO> implied = new HashMap<>();
+            implied.put("decimal-implied", new ConversionOptionBO("decimal-implied", "true"));
+            implied.put("decimal-places", new ConversionOptionBO("decimal-places", "2"));
+            assertEquals(converters.convertDouble("-001250", implied), converters.parseDouble("-001250", 0, 7, implied), 0.0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse: " + e.getMessage());
+        }
+
+        assertInvalid(() -> converters.parseInt("2147483648", 0, 10, noOptions));
+        assertInvalid(() -> converters.parseInt("-", 0, 1, noOptions));
+        assertInvalid(() -> converters.parseLong("12 3", 0, 4, noOptions));
+        assertInvalid(() -> converters.parseDouble("1.2.3", 0, 5, noOptions));
+        assertInvalid(() -> converters.parseBoolean("maybe", 0, 5, noOptions));
+    }
+
+    private Reading[] read(boolean methodHandles) throws Exception {
+        FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                getClass().getClassLoader().getResourceAsStream("primitive-example.xml"));
+        if (methodHandles) {
+            fileFormat.setBeanMappingStrategy(new MethodHandleMappingStrategy());
+        }
+        BufferedReader in = new BufferedReader(new StringReader(INPUT));
+        Reading[] readings = new Reading[2];
+        for (int i = 0; i < readings.length; i++) {
+            MatchedRecord record = fileFormat.nextRecord(in);
+            readings[i] = (Reading) record.getBean("reading");
+        }
+        return readings;
+    }
+
+    private static void assertInvalid(Conversion conversion) {
+        try {
+            conversion.run();
+            fail("The value should not have been converted");
+        } catch (FlatwormParserException e) {
+            // Expected.
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversion {
+        void run() throws FlatwormParserException;
+    }
+
+    @Data
+    public static class Reading {
+        private int count;
+        private long total;
+        private double amount;
+        private boolean active;
+        private char grade;
+        private float ratio;
+    }
+}
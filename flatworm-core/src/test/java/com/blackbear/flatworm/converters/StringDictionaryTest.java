@@ -0,0 +1,179 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.converters;
+
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.ParseCursor;
+import com.blackbear.flatworm.config.ConfigurationValidator;
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.config.LineBO;
+import com.blackbear.flatworm.config.RecordElementBO;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+import com.blackbear.flatworm.errors.FlatwormConfigurationException;
+import com.blackbear.flatworm.test.domain.Book;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void boundedCanonicalization() {
+        StringDictionary dictionary = new StringDictionary(2);
+        String usd = new String("USD");
+        assertSame(usd, dictionary.canonicalize(usd));
+        assertSame(usd, dictionary.canonicalize(new String("USD")));
+        String eur = new String("EUR");
+        assertSame(eur, dictionary.canonicalize(eur));
+        assertSame(eur, dictionary.canonicalize(new String("EUR")));
+
+        // Full - new values are handed back without being added.
+        String gbp = new String("GBP");
+        assertSame(gbp, dictionary.canonicalize(gbp));
+        assertNotSame(gbp, dictionary.canonicalize(new String("GBP")));
+        assertNull(dictionary.canonicalize(null));
+
+        assertEquals(2, dictionary.size());
+        assertEquals(2, dictionary.getHitCount());
+        assertEquals(4, dictionary.getMissCount());
+
+        dictionary.clear();
+        assertEquals(0, dictionary.size());
+        assertEquals(0, dictionary.getHitCount() + dictionary.getMissCount());
+    }
+
+    @Test
+    public void dedupeConversionOption() {
+        try {
+            FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(
+                    getClass().getClassLoader().getResourceAsStream("complex-example.xml"));
+            LineBO line = fileFormat.getRecord("book").getRecordDefinition().getLines().get(0);
+            RecordElementBO author = (RecordElementBO) line.getLineElements().get(2);
+            author.addConversionOption(StringDictionary.OPTION, new ConversionOptionBO(StringDictionary.OPTION, "16"));
+            line.invalidatePlan();
+
+            BufferedReader in = new BufferedReader(new StringReader(
+                    "546234476HE KNOWS WHEN YOU\"RE CODING   JAVALANG OBJECT                 13.952003-11-10\n"
+                            + "546543476THE GC ALWAYS RINGS TWICE     JAVALANG OBJECT                 23.432004-12-19\n"));
+            ParseCursor cursor = new ParseCursor(1);
+            List<Book> books = new ArrayList<>();
+            books.add((Book) fileFormat.nextRecord(in, cursor).getBean("book"));
+            books.add((Book) fileFormat.nextRecord(in, cursor).getBean("book"));
+
+            assertEquals("JAVALANG OBJECT", books.get(0).getAuthor());
+            assertSame(books.get(0).getAuthor(), books.get(1).getAuthor());
+            assertNotSame(books.get(0).getTitle(), books.get(1).getTitle());
+
+            StringDictionary dictionary = author.getStringDictionary();
+            assertEquals(1, dictionary.getHitCount());
+            assertEquals(1, dictionary.getMissCount());
+            assertSame(dictionary, line.getPlan().getFieldBindings().get(2).getStringDictionary());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Failed to parse deduplicated values: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void invalidDedupeOption() {
+        List<String> errors = new ArrayList<>();
+        ConfigurationValidator.validateConversionOption(new ConversionOptionBO(StringDictionary.OPTION, "0"), errors);
+        assertFalse(errors.isEmpty());
+
+        errors.clear();
+        ConfigurationValidator.validateConversionOption(new ConversionOptionBO(StringDictionary.OPTION, "256"), errors);
+        assertTrue(errors.toString(), errors.isEmpty());
+
+        errors.clear();
+        ConfigurationValidator.validateConversionOption(new ConversionOptionBO(StringDictionary.OPTION, "many"), errors);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("'many'"));
+
+        // The element itself leaves the values alone until the option is valid.
+        RecordElementBO element = new RecordElementBO();
+        element.addConversionOption(StringDictionary.OPTION, new ConversionOptionBO(StringDictionary.OPTION, "many"));
+        assertNull(element.getStringDictionary());
+        element.addConversionOption(StringDictionary.OPTION, new ConversionOptionBO(StringDictionary.OPTION, "8"));
+        assertEquals(8, element.getStringDictionary().getMaxSize());
+    }
+
+    @Test
+    public void invalidDedupeOptionFailsTheLoad() {
+        try {
+            new DefaultConfigurationReaderImpl().loadConfigurationFile(new ByteArrayInputStream((
+                    "<file-format><record name=\"book\"><record-definition>"
+                            + "<bean name=\"book\" class=\"" + Book.class.getName() + "\"/>"
+                            + "<line><record-element length=\"4\" beanref=\"book.author\">"
+                            + "<conversion-option name=\"dedupe\" value=\"many\"/>"
+                            + "</record-element></line>"
+                            + "</record-definition></record></file-format>").getBytes(StandardCharsets.UTF_8)));
+            fail("The dedupe conversion-option must be a number.");
+        } catch (FlatwormConfigurationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("'many'"));
+        } catch (IOException e) {
+            e.printStackTrace();
+            fail("Failed to read the configuration: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void conversionOptionsAreReadOnly() {
+        RecordElementBO element = new RecordElementBO();
+        element.addConversionOption(StringDictionary.OPTION, new ConversionOptionBO(StringDictionary.OPTION, "16"));
+        StringDictionary dictionary = element.getStringDictionary();
+        try {
+            element.getConversionOptions().remove(StringDictionary.OPTION);
+            fail("The conversion-options should only be changed through the setters.");
+        } catch (UnsupportedOperationException e) {
+            assertSame(dictionary, element.getStringDictionary());
+        }
+
+        element.setConversionOptions(Collections.emptyMap());
+        assertTrue(element.getConversionOptions().isEmpty());
+        assertNull(element.getStringDictionary());
+    }
+
+    @Test
+    public void oneDictionaryPerElement() {
+        RecordElementBO element = new RecordElementBO();
+        element.addConversionOption(StringDictionary.OPTION, new ConversionOptionBO(StringDictionary.OPTION, "16"));
+        Set<StringDictionary> dictionaries = IntStream.range(0, 64).parallel()
+                .mapToObj(i -> element.getStringDictionary())
+                .collect(Collectors.toSet());
+        assertEquals(1, dictionaries.size());
+        assertEquals(16, dictionaries.iterator().next().getMaxSize());
+    }
+}
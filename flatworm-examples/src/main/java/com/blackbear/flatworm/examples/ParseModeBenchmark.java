@@ -0,0 +1,94 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.examples;
+
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.MethodHandleMappingStrategy;
+import com.blackbear.flatworm.ParseCursor;
+import com.blackbear.flatworm.ParseMode;
+import com.blackbear.flatworm.config.impl.DefaultConfigurationReaderImpl;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Compares how long the same file takes to parse with interpreted line plans and with generated line parsers. Arguments are the
+ * configuration file, the data file and optionally how many times the data is repeated in memory (default 10000) and how many rounds are
+ * timed for each mode (default 10 - after as many warm up rounds). For example:
+ *
+ * <pre>ParseModeBenchmark read_fixed_movies.xml in_fixed_movies.txt</pre>
+ */
+public class ParseModeBenchmark {
+    public static void main(String[] args) {
+        try {
+            String data = new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8);
+            int copies = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+            int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < copies; i++) {
+                content.append(data);
+                if (!data.endsWith("\n")) {
+                    content.append('\n');
+                }
+            }
+
+            for (ParseMode mode : ParseMode.values()) {
+                FileFormat fileFormat = new DefaultConfigurationReaderImpl().loadConfigurationFile(args[0]);
+                fileFormat.setBeanMappingStrategy(new MethodHandleMappingStrategy());
+                fileFormat.setParseMode(mode);
+                long compileStart = System.nanoTime();
+                fileFormat.compile();
+                long compileTime = System.nanoTime() - compileStart;
+
+                for (int i = 0; i < rounds; i++) {
+                    parse(fileFormat, content.toString());
+                }
+                long records = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    records += parse(fileFormat, content.toString());
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%-11s compile %6.1f ms, %8.1f ms per round, %6.0f ns per record%n", mode, compileTime / 1e6,
+                        elapsed / 1e6 / rounds, (double) elapsed / records);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static long parse(FileFormat fileFormat, String content) throws Exception {
+        BufferedReader in = new BufferedReader(new StringReader(content));
+        ParseCursor cursor = new ParseCursor();
+        long records = 0;
+        while (true) {
+            try {
+                if (fileFormat.nextRecord(in, cursor) == null) {
+                    break;
+                }
+                records++;
+            } catch (Exception e) {
+                // Lines that don't parse cost the same in both modes - skip them.
+            }
+        }
+        return records;
+    }
+}
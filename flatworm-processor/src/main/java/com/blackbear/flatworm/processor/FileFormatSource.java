@@ -0,0 +1,531 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor;
+
+import com.blackbear.flatworm.CardinalityMode;
+import com.blackbear.flatworm.ConstructionMode;
+import com.blackbear.flatworm.annotations.Cardinality;
+import com.blackbear.flatworm.annotations.ConversionOption;
+import com.blackbear.flatworm.annotations.Converter;
+import com.blackbear.flatworm.annotations.DataIdentity;
+import com.blackbear.flatworm.annotations.FieldIdentity;
+import com.blackbear.flatworm.annotations.ForProperty;
+import com.blackbear.flatworm.annotations.LengthIdentity;
+import com.blackbear.flatworm.annotations.Line;
+import com.blackbear.flatworm.annotations.Record;
+import com.blackbear.flatworm.annotations.RecordElement;
+import com.blackbear.flatworm.annotations.Scriptlet;
+import com.blackbear.flatworm.annotations.SegmentElement;
+import com.blackbear.flatworm.config.BeanBO;
+import com.blackbear.flatworm.config.CardinalityBO;
+import com.blackbear.flatworm.config.ConversionOptionBO;
+import com.blackbear.flatworm.config.ConverterBO;
+import com.blackbear.flatworm.config.LineBO;
+import com.blackbear.flatworm.config.RecordBO;
+import com.blackbear.flatworm.config.RecordDefinitionBO;
+import com.blackbear.flatworm.config.RecordElementBO;
+import com.blackbear.flatworm.config.ScriptletBO;
+import com.blackbear.flatworm.config.impl.FieldIdentityImpl;
+import com.blackbear.flatworm.config.impl.LengthIdentityImpl;
+import com.blackbear.flatworm.config.impl.ScriptIdentityImpl;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * The statements of the generated {@code fileFormat()} method, which build the {@link com.blackbear.flatworm.FileFormat} of a {@link
+ * Record} annotated class the way {@link com.blackbear.flatworm.config.impl.DefaultAnnotationConfigurationReaderImpl} does - in the same
+ * order and with the same values - but with the annotation values written out, so nothing is read reflectively when the method is called.
+ * The methods of the record's {@link Converter}s are called directly where they can be seen.
+ * <p>
+ * The reader loads the class of a {@link SegmentElement} as a record of its own, so a record that has one - or that reaches a class the
+ * generated code can't name - is still loaded by the reader.
+ */
+class FileFormatSource {
+    private final ProcessingEnvironment env;
+    private final TypeElement recordClass;
+    private final Predicate<Element> accessible;
+
+    private final StringBuilder statements = new StringBuilder();
+    private final Set<String> imports = new TreeSet<>();
+
+    /**
+     * The variable of the last line loaded for each index - the reader looks the line of a {@link RecordElement} up the same way.
+     */
+    private final Map<Integer, String> lineCache = new HashMap<>();
+    private final Set<TypeElement> beans = new HashSet<>();
+    private final Map<TypeElement, String> converterInstances = new HashMap<>();
+    private int variables;
+
+    private Element unsupportedElement;
+    private String unsupportedReason;
+    private boolean valid = true;
+
+    FileFormatSource(ProcessingEnvironment env, TypeElement recordClass, Predicate<Element> accessible) {
+        this.env = env;
+        this.recordClass = recordClass;
+        this.accessible = accessible;
+    }
+
+    /**
+     * Build the statements, reporting anything the annotation reader would fail on at runtime.
+     *
+     * @return {@code true} if no errors were reported and {@code false} if they were.
+     */
+    boolean build() {
+        Record record = recordClass.getAnnotation(Record.class);
+        statement("%s record = new %s();", type(RecordBO.class), type(RecordBO.class));
+        statement("record.setRecordDefinition(new %s(record));", type(RecordDefinitionBO.class));
+        statement("record.setName(%s);", literal(record.name()));
+        String identity = identity(record.identity());
+        if (identity != null) {
+            statement("record.setRecordIdentity(%s);", identity);
+        }
+        for (Converter converter : record.converters()) {
+            converter(converter);
+        }
+        for (Line annotatedLine : record.lines()) {
+            String line = line(annotatedLine);
+            statement("record.getRecordDefinition().addLine(%s);", line);
+        }
+        statement("fileFormat.setEncoding(%s);", literal(record.encoding()));
+        if (record.beforeReadRecordScript().enabled()) {
+            String scriptlet = scriptlet(record.beforeReadRecordScript());
+            statement("record.setBeforeScriptlet(%s);", scriptlet);
+        }
+        if (record.afterReadRecordScript().enabled()) {
+            String scriptlet = scriptlet(record.afterReadRecordScript());
+            statement("record.setAfterScriptlet(%s);", scriptlet);
+        }
+        statement("fileFormat.addRecord(record);");
+
+        Deque<TypeElement> path = new ArrayDeque<>();
+        path.push(recordClass);
+        fields(recordClass, new ArrayDeque<>(), path);
+        statement("record.getRecordDefinition().getLines().forEach(%s::sortLineElements);", type(LineBO.class));
+
+        if (unsupportedElement != null) {
+            env.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format(
+                    "%s %s - the FileFormat of %s will be loaded by the annotation reader.", unsupportedElement.getSimpleName(),
+                    unsupportedReason, recordClass.getSimpleName()), unsupportedElement);
+        }
+        return valid;
+    }
+
+    /**
+     * Determine if the statements build the whole {@link com.blackbear.flatworm.FileFormat}.
+     *
+     * @return {@code true} if they do and {@code false} if the annotation reader has to be used instead.
+     */
+    boolean isComplete() {
+        return unsupportedElement == null;
+    }
+
+    String getStatements() {
+        return statements.toString();
+    }
+
+    Set<String> getImports() {
+        return imports;
+    }
+
+    private void fields(TypeElement beanClass, Deque<String> lines, Deque<TypeElement> path) {
+        for (VariableElement field : ElementFilter.fieldsIn(beanClass.getEnclosedElements())) {
+            if (unsupportedElement != null) {
+                return;
+            }
+            if (field.getAnnotation(RecordElement.class) != null) {
+                recordElement(beanClass, field, lines);
+            } else if (field.getAnnotation(SegmentElement.class) != null) {
+                unsupported(field, "is a " + SegmentElement.class.getSimpleName());
+            } else if (field.getAnnotation(Line.class) != null) {
+                childLine(beanClass, field, lines, path);
+            }
+        }
+    }
+
+    private void recordElement(TypeElement beanClass, VariableElement field, Deque<String> lines) {
+        RecordElement annotatedElement = field.getAnnotation(RecordElement.class);
+        String line = lines.isEmpty() ? lineCache.get(annotatedElement.lineIndex()) : lines.getLast();
+        addBean(beanClass);
+        if (line == null) {
+            // The reader drops the element - RecordSource warns about it.
+            return;
+        }
+
+        String cardinality = variable("cardinality");
+        statement("%s %s = new %s();", type(CardinalityBO.class), cardinality, type(CardinalityBO.class));
+        statement("%s.setBeanRef(%s);", cardinality, literal(binaryName(beanClass)));
+        statement("%s.setPropertyName(%s);", cardinality, literal(field.getSimpleName().toString()));
+        statement("%s.setCardinalityMode(%s.%s);", cardinality, type(CardinalityMode.class), CardinalityMode.SINGLE);
+
+        String element = variable("element");
+        statement("%s %s = new %s();", type(RecordElementBO.class), element, type(RecordElementBO.class));
+        statement("%s.setCardinality(%s);", element, cardinality);
+        statement("%s.setOrder(%d);", element, annotatedElement.order());
+        statement("%s.setConverterName(%s);", element, literal(annotatedElement.converterName()));
+        statement("%s.setTrimValue(%b);", element, annotatedElement.trimValue());
+        if (annotatedElement.length() != -1) {
+            statement("%s.setFieldLength(%d);", element, annotatedElement.length());
+        }
+        if (annotatedElement.startPosition() != -1) {
+            statement("%s.setFieldStart(%d);", element, annotatedElement.startPosition());
+        }
+        if (annotatedElement.endPosition() != -1) {
+            statement("%s.setFieldEnd(%d);", element, annotatedElement.endPosition());
+        }
+        for (ConversionOption option : annotatedElement.conversionOptions()) {
+            statement("%s.addConversionOption(%s, new %s(%s, %s));", element, literal(option.name()), type(ConversionOptionBO.class),
+                    literal(option.name()), literal(option.option()));
+        }
+        statement("%s.addLineElement(%s);", line, element);
+    }
+
+    private void childLine(TypeElement beanClass, VariableElement field, Deque<String> lines, Deque<TypeElement> path) {
+        Line annotatedLine = field.getAnnotation(Line.class);
+        ForProperty forProperty = annotatedLine.forProperty();
+        if (!forProperty.enabled()) {
+            // The reader fails on these at runtime - leave it to do so.
+            unsupported(field, "is a " + Line.class.getSimpleName() + " without an enabled " + ForProperty.class.getSimpleName());
+            return;
+        }
+        TypeElement childClass = RecordSource.asTypeElement(RecordSource.actualType(field.asType()));
+        if (childClass == null) {
+            unsupported(field, "is a " + Line.class.getSimpleName() + " of " + field.asType());
+            return;
+        }
+        if (path.contains(childClass)) {
+            env.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("%s is reached through its own %s fields.",
+                    childClass.getSimpleName(), Line.class.getSimpleName()), field);
+            valid = false;
+            return;
+        }
+
+        String line = line(annotatedLine);
+        Cardinality annotatedCardinality = forProperty.cardinality();
+        CardinalityMode mode = annotatedCardinality.cardinalityMode();
+        if (mode == CardinalityMode.AUTO_RESOLVE) {
+            mode = resolveCardinality(field.asType());
+        }
+        String cardinality = variable("cardinality");
+        statement("%s %s = new %s();", type(CardinalityBO.class), cardinality, type(CardinalityBO.class));
+        statement("%s.setCardinalityMode(%s.%s);", cardinality, type(CardinalityMode.class), mode);
+        statement("%s.setMinCount(%d);", cardinality, annotatedCardinality.mintCount());
+        statement("%s.setMaxCount(%d);", cardinality, annotatedCardinality.maxCount());
+        statement("%s.setAddMethod(%s);", cardinality, literal(annotatedCardinality.addMethod()));
+        statement("%s.setParentBeanRef(%s);", cardinality, literal(binaryName(beanClass)));
+        statement("%s.setBeanRef(%s);", cardinality, literal(binaryName(childClass)));
+        statement("%s.setPropertyName(%s);", cardinality, literal(field.getSimpleName().toString()));
+        statement("%s.setCardinality(%s);", line, cardinality);
+
+        addBean(beanClass);
+        addBean(childClass);
+        statement("record.getRecordDefinition().addLine(%s);", line);
+
+        lines.addLast(line);
+        path.push(childClass);
+        fields(childClass, lines, path);
+        path.pop();
+        lines.removeLast();
+    }
+
+    /**
+     * The cardinality {@link com.blackbear.flatworm.ParseUtils#resolveCardinality(Class)} resolves for the type.
+     */
+    private CardinalityMode resolveCardinality(TypeMirror type) {
+        Types types = env.getTypeUtils();
+        TypeMirror erasure = types.erasure(type);
+        TypeMirror collection = types.erasure(env.getElementUtils().getTypeElement(Collection.class.getName()).asType());
+        boolean multiple = erasure.getKind() == TypeKind.ARRAY || types.isAssignable(erasure, collection);
+        return multiple ? CardinalityMode.LOOSE : CardinalityMode.SINGLE;
+    }
+
+    private void addBean(TypeElement beanClass) {
+        if (!beans.add(beanClass)) {
+            return;
+        }
+        if (!accessible.test(beanClass)) {
+            unsupported(beanClass, "can't be seen from " + recordClass.getSimpleName() + RecordSource.SUFFIX);
+            return;
+        }
+        String bean = variable("bean");
+        statement("%s %s = new %s();", type(BeanBO.class), bean, type(BeanBO.class));
+        statement("%s.setBeanName(%s);", bean, literal(binaryName(beanClass)));
+        statement("%s.setBeanClass(%s);", bean, literal(binaryName(beanClass)));
+        statement("%s.setBeanObjectClass(%s.class);", bean, env.getTypeUtils().erasure(beanClass.asType()));
+        Record annotatedRecord = beanClass.getAnnotation(Record.class);
+        if (annotatedRecord != null) {
+            statement("%s.setConstruction(%s.%s);", bean, type(ConstructionMode.class), annotatedRecord.construction());
+            statement("%s.setFactoryMethod(%s);", bean, literal(annotatedRecord.factoryMethod()));
+        }
+        statement("record.getRecordDefinition().addBean(%s);", bean);
+    }
+
+    private String line(Line annotatedLine) {
+        String line = variable("line");
+        statement("%s %s = new %s();", type(LineBO.class), line, type(LineBO.class));
+        statement("%s.setDelimiter(%s);", line, literal(annotatedLine.delimiter()));
+        statement("%s.setQuoteChar((char) %d);", line, (int) annotatedLine.quoteCharacter());
+        statement("%s.setIndex(%d);", line, annotatedLine.index());
+        lineCache.put(annotatedLine.index(), line);
+
+        statement("%s.setRecordStartLine(%b);", line, annotatedLine.forProperty().isRecordStartLine());
+        statement("%s.setRecordEndLine(%b);", line, annotatedLine.forProperty().isRecordEndLine());
+        String identity = identity(annotatedLine.forProperty().identity());
+        if (identity != null) {
+            statement("%s.setLineIdentity(%s);", line, identity);
+        }
+        if (annotatedLine.beforeParseLine().enabled()) {
+            String scriptlet = scriptlet(annotatedLine.beforeParseLine());
+            statement("%s.setBeforeScriptlet(%s);", line, scriptlet);
+        }
+        if (annotatedLine.afterParseLine().enabled()) {
+            String scriptlet = scriptlet(annotatedLine.afterParseLine());
+            statement("%s.setAfterScriptlet(%s);", line, scriptlet);
+        }
+        return line;
+    }
+
+    /**
+     * @return the variable holding the identity or {@code null} if none is enabled.
+     */
+    private String identity(DataIdentity annotatedIdentity) {
+        String identity = null;
+        if (annotatedIdentity.lengthIdentity().enabled()) {
+            LengthIdentity lengthIdentity = annotatedIdentity.lengthIdentity();
+            identity = variable("identity");
+            statement("%s %s = new %s();", type(LengthIdentityImpl.class), identity, type(LengthIdentityImpl.class));
+            statement("%s.setMinLength(%d);", identity, lengthIdentity.minLength());
+            statement("%s.setMaxLength(%d);", identity, lengthIdentity.maxLength());
+        } else if (annotatedIdentity.fieldIdentity().enabled()) {
+            FieldIdentity fieldIdentity = annotatedIdentity.fieldIdentity();
+            identity = variable("identity");
+            statement("%s %s = new %s(%b);", type(FieldIdentityImpl.class), identity, type(FieldIdentityImpl.class),
+                    fieldIdentity.ignoreCase());
+            statement("%s.setStartPosition(%d);", identity, fieldIdentity.startPosition());
+            int maxFieldLength = Integer.MIN_VALUE;
+            for (String matchIdentity : fieldIdentity.matchIdentities()) {
+                statement("%s.addMatchingString(%s);", identity, literal(matchIdentity));
+                maxFieldLength = Math.max(maxFieldLength, matchIdentity.length());
+            }
+            statement("%s.setFieldLength(%d);", identity, fieldIdentity.fieldLength() == -1 ? maxFieldLength : fieldIdentity.fieldLength());
+        } else if (annotatedIdentity.scriptIdentity().enabled()) {
+            String scriptlet = scriptlet(annotatedIdentity.scriptIdentity());
+            identity = variable("identity");
+            statement("%s %s = new %s(%s);", type(ScriptIdentityImpl.class), identity, type(ScriptIdentityImpl.class), scriptlet);
+        }
+        return identity;
+    }
+
+    private String scriptlet(Scriptlet annotatedScriptlet) {
+        String scriptlet = variable("scriptlet");
+        statement("%s %s = new %s(%s, %s);", type(ScriptletBO.class), scriptlet, type(ScriptletBO.class),
+                literal(annotatedScriptlet.scriptEngine()), literal(annotatedScriptlet.functionName()));
+        if (!isBlank(annotatedScriptlet.script())) {
+            statement("%s.setScript(%s);", scriptlet, literal(annotatedScriptlet.script()));
+        } else if (!isBlank(annotatedScriptlet.scriptFile())) {
+            statement("%s.setScriptFile(%s);", scriptlet, literal(annotatedScriptlet.scriptFile()));
+        }
+        return scriptlet;
+    }
+
+    private void converter(Converter annotatedConverter) {
+        TypeMirror converterType = classValue(annotatedConverter::clazz);
+        String converter = String.format("new %s(%s, %s, %s, %s)", type(ConverterBO.class), literal(className(converterType)),
+                literal(annotatedConverter.name()), literal(className(classValue(annotatedConverter::returnType))),
+                literal(annotatedConverter.methodName()));
+
+        TypeElement converterClass = RecordSource.asTypeElement(converterType);
+        String toTypeFunction = converterFunction(converterClass, annotatedConverter.methodName(), String.class);
+        String fromTypeFunction = converterFunction(converterClass, annotatedConverter.methodName(), Object.class);
+        if (toTypeFunction == null && fromTypeFunction == null) {
+            statement("fileFormat.addConverter(%s);", converter);
+        } else {
+            statement("fileFormat.addConverter(%s,", converter);
+            statement("        %s,", toTypeFunction);
+            statement("        %s);", fromTypeFunction);
+        }
+    }
+
+    /**
+     * A lambda that calls the converter method {@link com.blackbear.flatworm.converters.ConversionHelper} would find for the value type.
+     *
+     * @return the lambda or {@code null} if the method can't be called directly - it is then resolved at runtime.
+     */
+    private String converterFunction(TypeElement converterClass, String methodName, Class<?> valueClass) {
+        if (converterClass == null || !accessible.test(converterClass)) {
+            return null;
+        }
+        Types types = env.getTypeUtils();
+        TypeMirror valueType = env.getElementUtils().getTypeElement(valueClass.getName()).asType();
+        TypeElement mapClass = env.getElementUtils().getTypeElement(Map.class.getName());
+        TypeMirror options = types.getDeclaredType(mapClass, env.getElementUtils().getTypeElement(String.class.getName()).asType(),
+                env.getElementUtils().getTypeElement(ConversionOptionBO.class.getName()).asType());
+        TypeMirror exception = env.getElementUtils().getTypeElement(Exception.class.getName()).asType();
+
+        for (ExecutableElement method : ElementFilter.methodsIn(env.getElementUtils().getAllMembers(converterClass))) {
+            if (!method.getSimpleName().contentEquals(methodName) || !method.getModifiers().contains(Modifier.PUBLIC)
+                    || method.getParameters().size() != 2
+                    || !types.isSameType(types.erasure(method.getParameters().get(0).asType()), valueType)
+                    || !types.isSameType(types.erasure(method.getParameters().get(1).asType()), types.erasure(mapClass.asType()))) {
+                continue;
+            }
+
+            // This is the method Class.getMethod finds - see if a call to it compiles to the same thing.
+            TypeMirror returnType = method.getReturnType();
+            if (!method.getTypeParameters().isEmpty() || !types.isAssignable(options, method.getParameters().get(1).asType())
+                    || returnType.getKind() == TypeKind.VOID
+                    || (valueClass == Object.class && !types.isAssignable(returnType, env.getElementUtils()
+                    .getTypeElement(String.class.getName()).asType()))) {
+                return null;
+            }
+            for (TypeMirror thrownType : method.getThrownTypes()) {
+                if (!types.isAssignable(thrownType, exception)) {
+                    return null;
+                }
+            }
+
+            String target = method.getModifiers().contains(Modifier.STATIC)
+                    ? types.erasure(converterClass.asType()).toString()
+                    : converterInstance(converterClass);
+            return target != null ? "(value, options) -> " + target + "." + methodName + "(value, options)" : null;
+        }
+        return null;
+    }
+
+    /**
+     * The variable holding the instance of a converter class, created once as it is at runtime.
+     *
+     * @return the variable or {@code null} if the class can't be created with a public no-argument constructor.
+     */
+    private String converterInstance(TypeElement converterClass) {
+        String instance = converterInstances.get(converterClass);
+        if (instance == null) {
+            if (converterClass.getKind() != ElementKind.CLASS || converterClass.getModifiers().contains(Modifier.ABSTRACT)
+                    || (converterClass.getNestingKind().isNested() && !converterClass.getModifiers().contains(Modifier.STATIC))) {
+                return null;
+            }
+            boolean constructible = false;
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(converterClass.getEnclosedElements())) {
+                constructible |= constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)
+                        && constructor.getThrownTypes().isEmpty();
+            }
+            if (!constructible) {
+                return null;
+            }
+            String className = env.getTypeUtils().erasure(converterClass.asType()).toString();
+            instance = variable("converter");
+            statement("%s %s = new %s();", className, instance, className);
+            converterInstances.put(converterClass, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * The value of a {@link Class} annotation member - which can't be loaded while compiling.
+     */
+    private TypeMirror classValue(Supplier<Class<?>> member) {
+        try {
+            return env.getElementUtils().getTypeElement(member.get().getCanonicalName()).asType();
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+    }
+
+    /**
+     * The name {@link Class#getName()} returns for the type.
+     */
+    private String className(TypeMirror type) {
+        TypeElement typeElement = RecordSource.asTypeElement(type);
+        return typeElement != null ? binaryName(typeElement) : env.getTypeUtils().erasure(type).toString();
+    }
+
+    private String binaryName(TypeElement type) {
+        return env.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void unsupported(Element element, String reason) {
+        if (unsupportedElement == null) {
+            unsupportedElement = element;
+            unsupportedReason = reason;
+        }
+    }
+
+    private String variable(String prefix) {
+        return prefix + ++variables;
+    }
+
+    private String type(Class<?> type) {
+        imports.add(type.getName());
+        return type.getSimpleName();
+    }
+
+    private void statement(String format, Object... args) {
+        statements.append("        ").append(String.format(format, args)).append('\n');
+    }
+
+    private static boolean isBlank(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The Java literal of a string - characters outside of printable ASCII are escaped, those below a space in octal as a unicode escape
+     * of a line terminator would end the literal.
+     */
+    static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < ' ') {
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c > '~') {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor;
+
+import com.blackbear.flatworm.annotations.Record;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code <Record>FlatwormFormat} class alongside each {@link Record} annotated class at build time - see {@link RecordSource}
+ * for what it contains. The annotations are also checked as they are read, so that mistakes the annotation reader would only find at
+ * runtime fail the build instead. Register the {@code flatworm-processor} artifact on the annotation processor path of the compiler (or
+ * simply on the classpath) to use it.
+ */
+@SupportedAnnotationTypes("com.blackbear.flatworm.annotations.Record")
+public class FlatwormAnnotationProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Record.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Only classes can be annotated with " + Record.class.getName() + ".", element);
+                continue;
+            }
+
+            RecordSource source = new RecordSource(processingEnv, (TypeElement) element);
+            if (source.collect()) {
+                try {
+                    JavaFileObject file = processingEnv.getFiler().createSourceFile(source.getQualifiedName(), element);
+                    try (Writer writer = file.openWriter()) {
+                        writer.write(source.generate());
+                    }
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Failed to write " + source.getQualifiedName() + ": " + e.getMessage(), element);
+                }
+            }
+        }
+
+        // Other processors - Lombok, for instance - may be interested in the same classes.
+        return false;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor;
+
+import com.blackbear.flatworm.annotations.Line;
+import com.blackbear.flatworm.annotations.Record;
+import com.blackbear.flatworm.annotations.RecordElement;
+import com.blackbear.flatworm.annotations.RecordLink;
+import com.blackbear.flatworm.annotations.SegmentElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * The source of the {@code <Record>FlatwormFormat} class generated for a {@link Record} annotated class. The class has:
+ * <ul>
+ * <li>a {@code fileFormat()} method that builds the record's {@link com.blackbear.flatworm.FileFormat} from the annotation values read
+ * here - see {@link FileFormatSource} - rather than reading the annotations at runtime, and</li>
+ * <li>a {@code Mapping} {@link com.blackbear.flatworm.BeanMappingStrategy}, installed on that {@link com.blackbear.flatworm.FileFormat},
+ * that sets and reads the {@link RecordElement} fields of the record class - and of the classes reached through its {@link Line} and
+ * {@link SegmentElement} fields - by calling their setters and getters directly. Anything it can't see an accessor for (accessors added by
+ * another processor in a later round, for instance) is left to a fallback strategy, {@link
+ * com.blackbear.flatworm.MethodHandleMappingStrategy} unless another is given.</li>
+ * </ul>
+ */
+class RecordSource {
+    static final String SUFFIX = "FlatwormFormat";
+
+    private final ProcessingEnvironment env;
+    private final TypeElement recordClass;
+    private final String packageName;
+    private final String simpleName;
+
+    /**
+     * The properties that can be reached directly, by bean class.
+     */
+    private final Map<TypeElement, List<PropertyAccess>> beans = new LinkedHashMap<>();
+
+    private FileFormatSource fileFormat;
+
+    private boolean valid = true;
+
+    RecordSource(ProcessingEnvironment env, TypeElement recordClass) {
+        this.env = env;
+        this.recordClass = recordClass;
+        PackageElement recordPackage = env.getElementUtils().getPackageOf(recordClass);
+        this.packageName = recordPackage.isUnnamed() ? "" : recordPackage.getQualifiedName().toString();
+        String binaryName = env.getElementUtils().getBinaryName(recordClass).toString();
+        this.simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + SUFFIX;
+    }
+
+    String getQualifiedName() {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * Walk the record class and the classes reached through its {@link Line} and {@link SegmentElement} fields, checking the annotations
+     * and finding how each {@link RecordElement} field can be reached.
+     *
+     * @return {@code true} if the annotations are valid and the source can be generated and {@code false} if errors were reported.
+     */
+    boolean collect() {
+        if (!isAccessible(recordClass)) {
+            error("A class annotated with " + Record.class.getSimpleName() + " can't be private.", recordClass);
+            return false;
+        }
+        checkLineIndexes();
+        collect(recordClass);
+        fileFormat = new FileFormatSource(env, recordClass, this::isAccessible);
+        return fileFormat.build() && valid;
+    }
+
+    private void collect(TypeElement beanClass) {
+        if (beans.containsKey(beanClass)) {
+            return;
+        }
+        List<PropertyAccess> properties = new ArrayList<>();
+        beans.put(beanClass, properties);
+
+        for (VariableElement field : ElementFilter.fieldsIn(beanClass.getEnclosedElements())) {
+            if (field.getAnnotation(RecordElement.class) != null) {
+                PropertyAccess property = resolve(beanClass, field);
+                if (property != null) {
+                    properties.add(property);
+                }
+            } else if (field.getAnnotation(SegmentElement.class) != null) {
+                TypeElement segmentClass = asTypeElement(actualType(field.asType()));
+                if (segmentClass == null
+                        || (segmentClass.getAnnotation(Record.class) == null && segmentClass.getAnnotation(RecordLink.class) == null)) {
+                    error(String.format("%s must have a %s or %s annotation to be used as a %s.", actualType(field.asType()),
+                            RecordLink.class.getSimpleName(), Record.class.getSimpleName(), SegmentElement.class.getSimpleName()), field);
+                } else {
+                    collect(segmentClass);
+                }
+            } else if (field.getAnnotation(Line.class) != null) {
+                TypeElement childClass = asTypeElement(actualType(field.asType()));
+                if (childClass != null) {
+                    collect(childClass);
+                }
+            }
+        }
+
+        if (properties.isEmpty() || !isAccessible(beanClass)) {
+            beans.remove(beanClass);
+        }
+    }
+
+    /**
+     * A {@link RecordElement} of the record class itself that names a line the record doesn't have is silently dropped by the annotation
+     * reader.
+     */
+    private void checkLineIndexes() {
+        Set<Integer> indexes = new HashSet<>();
+        for (Line line : recordClass.getAnnotation(Record.class).lines()) {
+            indexes.add(line.index());
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(recordClass.getEnclosedElements())) {
+            Line line = field.getAnnotation(Line.class);
+            if (line != null) {
+                indexes.add(line.index());
+            }
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(recordClass.getEnclosedElements())) {
+            RecordElement element = field.getAnnotation(RecordElement.class);
+            if (element != null && !indexes.contains(element.lineIndex())) {
+                env.getMessager().printMessage(Diagnostic.Kind.WARNING, String.format(
+                        "%s has no line with index %d - the field won't be mapped.", recordClass.getSimpleName(), element.lineIndex()),
+                        field);
+            }
+        }
+    }
+
+    /**
+     * Find the accessors of a field. Only bean properties are looked for - the type the value is converted to is taken from the property
+     * at runtime, so a field without a setter can't be parsed into anyway.
+     *
+     * @return the {@link PropertyAccess} or {@code null} if it has neither a setter nor a getter.
+     */
+    private PropertyAccess resolve(TypeElement beanClass, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        TypeMirror type = env.getTypeUtils().erasure(field.asType());
+
+        String setter = null;
+        String getter = null;
+        for (ExecutableElement method : ElementFilter.methodsIn(env.getElementUtils().getAllMembers(beanClass))) {
+            if (method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method)) {
+                continue;
+            }
+            String methodName = method.getSimpleName().toString();
+            if (methodName.equals("set" + capitalized) && method.getParameters().size() == 1
+                    && env.getTypeUtils().isSameType(env.getTypeUtils().erasure(method.getParameters().get(0).asType()), type)) {
+                setter = methodName + "(" + valueAs(type) + ")";
+            } else if (method.getParameters().isEmpty() && (methodName.equals("get" + capitalized)
+                    || (methodName.equals("is" + capitalized) && type.getKind() == TypeKind.BOOLEAN))) {
+                getter = methodName + "()";
+            }
+        }
+        if (setter == null && getter == null) {
+            env.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format(
+                    "%s.%s has no visible accessors - it will be mapped reflectively.", beanClass.getSimpleName(), name), field);
+            return null;
+        }
+        return new PropertyAccess(name, setter, getter);
+    }
+
+    /**
+     * The value converted to the type of a property - primitives are unboxed from their own wrapper, so a value of another type fails just
+     * as it does when set by {@link com.blackbear.flatworm.MethodHandleMappingStrategy} rather than being narrowed.
+     */
+    private String valueAs(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "((java.lang.Boolean) value).booleanValue()";
+            case CHAR:
+                return "((java.lang.Character) value).charValue()";
+            case BYTE:
+                return "((java.lang.Byte) value).byteValue()";
+            case SHORT:
+                return "((java.lang.Short) value).shortValue()";
+            case INT:
+                return "((java.lang.Integer) value).intValue()";
+            case LONG:
+                return "((java.lang.Long) value).longValue()";
+            case FLOAT:
+                return "((java.lang.Float) value).floatValue()";
+            case DOUBLE:
+                return "((java.lang.Double) value).doubleValue()";
+            default:
+                return "(" + type + ") value";
+        }
+    }
+
+    /**
+     * The type of a field as the annotation reader sees it - the first type argument of parameterized types.
+     */
+    static TypeMirror actualType(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return ((DeclaredType) type).getTypeArguments().get(0);
+        }
+        return type;
+    }
+
+    static TypeElement asTypeElement(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) type).asElement() : null;
+    }
+
+    /**
+     * Determine if an element can be used from the generated class, which is in the package of the record class.
+     */
+    private boolean isAccessible(Element element) {
+        for (Element current = element; current != null && current.getKind() != ElementKind.PACKAGE;
+             current = current.getEnclosingElement()) {
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !packageName.equals(packageOf(current))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String packageOf(Element element) {
+        PackageElement elementPackage = env.getElementUtils().getPackageOf(element);
+        return elementPackage.isUnnamed() ? "" : elementPackage.getQualifiedName().toString();
+    }
+
+    private void error(String message, Element element) {
+        env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        valid = false;
+    }
+
+    /**
+     * Generate the source of the class.
+     *
+     * @return the source code.
+     */
+    String generate() {
+        String recordType = env.getTypeUtils().erasure(recordClass.asType()).toString();
+        Set<String> imports = new TreeSet<>(Arrays.asList(
+                "com.blackbear.flatworm.BeanMappingStrategy",
+                "com.blackbear.flatworm.FileFormat",
+                "com.blackbear.flatworm.MethodHandleMappingStrategy",
+                "com.blackbear.flatworm.config.ConversionOptionBO",
+                "com.blackbear.flatworm.errors.FlatwormConfigurationException",
+                "com.blackbear.flatworm.errors.FlatwormParserException"));
+        if (fileFormat.isComplete()) {
+            imports.addAll(fileFormat.getImports());
+        } else {
+            imports.add("com.blackbear.flatworm.config.impl.DefaultAnnotationConfigurationReaderImpl");
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        for (String type : imports) {
+            source.append("import ").append(type).append(";\n");
+        }
+        source.append("\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n")
+                .append(" * The {@link FileFormat} of {@link ").append(recordType).append("}.\n")
+                .append(" * <p>\n")
+                .append(" * Generated by ").append(FlatwormAnnotationProcessor.class.getName()).append(" - do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" {\n\n")
+                .append("    private ").append(simpleName).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Build the {@link FileFormat} of the record, with its beans mapped by {@link Mapping}.\n")
+                .append("     *\n")
+                .append("     * @return the {@link FileFormat} instance.\n")
+                .append("     * @throws FlatwormConfigurationException should the annotations of the record be invalid.\n")
+                .append("     */\n")
+                .append("    public static FileFormat fileFormat() throws FlatwormConfigurationException {\n");
+        if (fileFormat.isComplete()) {
+            source.append("        FileFormat fileFormat = new FileFormat();\n")
+                    .append("        fileFormat.setBeanMappingStrategy(new Mapping());\n")
+                    .append(fileFormat.getStatements())
+                    .append("        fileFormat.compile();\n");
+        } else {
+            source.append("        FileFormat fileFormat = new DefaultAnnotationConfigurationReaderImpl().loadConfiguration(")
+                    .append(recordType).append(".class);\n")
+                    .append("        fileFormat.setBeanMappingStrategy(new Mapping());\n");
+        }
+        source.append("        return fileFormat;\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Sets and reads the fields of the record's beans directly.\n")
+                .append("     */\n")
+                .append("    public static final class Mapping implements BeanMappingStrategy {\n\n")
+                .append("        private final BeanMappingStrategy fallback;\n\n")
+                .append("        /**\n")
+                .append("         * Map the properties there are no accessors for with {@link MethodHandleMappingStrategy}.\n")
+                .append("         */\n")
+                .append("        public Mapping() {\n")
+                .append("            this(new MethodHandleMappingStrategy());\n")
+                .append("        }\n\n")
+                .append("        /**\n")
+                .append("         * @param fallback the strategy that maps the properties there are no accessors for.\n")
+                .append("         */\n")
+                .append("        public Mapping(BeanMappingStrategy fallback) {\n")
+                .append("            this.fallback = fallback;\n")
+                .append("        }\n\n")
+                .append("        @Override\n")
+                .append("        public void mapBean(Object bean, String beanName, String property, Object value,\n")
+                .append("                           Map<String, ConversionOptionBO> conversionOptions) throws FlatwormParserException {\n")
+                .append("            ConversionOptionBO append = conversionOptions != null ? conversionOptions.get(\"append\") : null;\n")
+                .append("            if (bean != null && (append == null || !\"true\".equalsIgnoreCase(append.getValue()))) {\n")
+                .append("                try {\n")
+                .append("                    switch (beanName) {\n");
+        for (Map.Entry<TypeElement, List<PropertyAccess>> bean : beans.entrySet()) {
+            appendCase(source, bean.getKey(), bean.getValue(), true);
+        }
+        source.append("                        default:\n")
+                .append("                            break;\n")
+                .append("                    }\n")
+                .append("                } catch (RuntimeException e) {\n")
+                .append("                    throw new FlatwormParserException(\"Setting field \" + beanName + \".\" + property, e);\n")
+                .append("                }\n")
+                .append("            }\n")
+                .append("            fallback.mapBean(bean, beanName, property, value, conversionOptions);\n")
+                .append("        }\n\n")
+                .append("        @Override\n")
+                .append("        public Object readBean(Object bean, String beanName, String property) throws FlatwormParserException {\n")
+                .append("            if (bean != null) {\n")
+                .append("                try {\n")
+                .append("                    switch (beanName) {\n");
+        for (Map.Entry<TypeElement, List<PropertyAccess>> bean : beans.entrySet()) {
+            appendCase(source, bean.getKey(), bean.getValue(), false);
+        }
+        source.append("                        default:\n")
+                .append("                            break;\n")
+                .append("                    }\n")
+                .append("                } catch (RuntimeException e) {\n")
+                .append("                    throw new FlatwormParserException(\"Reading field \" + beanName + \".\" + property, e);\n")
+                .append("                }\n")
+                .append("            }\n")
+                .append("            return fallback.readBean(bean, beanName, property);\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    private void appendCase(StringBuilder source, TypeElement beanClass, List<PropertyAccess> properties, boolean set) {
+        String beanType = env.getTypeUtils().erasure(beanClass.asType()).toString();
+        source.append("                        case \"").append(env.getElementUtils().getBinaryName(beanClass)).append("\":\n")
+                .append("                            switch (property) {\n");
+        for (PropertyAccess property : properties) {
+            String access = set ? property.setter : property.getter;
+            if (access != null) {
+                source.append("                                case \"").append(property.name).append("\":\n");
+                if (set) {
+                    source.append("                                    ((").append(beanType).append(") bean).").append(access).append(";\n")
+                            .append("                                    return;\n");
+                } else {
+                    source.append("                                    return ((").append(beanType).append(") bean).").append(access)
+                            .append(";\n");
+                }
+            }
+        }
+        source.append("                                default:\n")
+                .append("                                    break;\n")
+                .append("                            }\n")
+                .append("                            break;\n");
+    }
+
+    /**
+     * How a property is set and read - the expressions that follow {@code ((BeanClass) bean).}, either of which may be {@code null}.
+     */
+    private static final class PropertyAccess {
+        private final String name;
+        private final String setter;
+        private final String getter;
+
+        PropertyAccess(String name, String setter, String getter) {
+            this.name = name;
+            this.setter = setter;
+            this.getter = getter;
+        }
+    }
+}
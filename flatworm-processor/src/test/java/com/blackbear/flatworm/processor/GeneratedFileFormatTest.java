@@ -0,0 +1,165 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor;
+
+import com.blackbear.flatworm.BeanMappingStrategy;
+import com.blackbear.flatworm.FileCreator;
+import com.blackbear.flatworm.FileFormat;
+import com.blackbear.flatworm.FileParser;
+import com.blackbear.flatworm.MatchedRecord;
+import com.blackbear.flatworm.errors.FlatwormParserException;
+import com.blackbear.flatworm.processor.beans.Consignment;
+import com.blackbear.flatworm.processor.beans.ConsignmentFlatwormFormat;
+import com.blackbear.flatworm.processor.beans.Parcel;
+import com.blackbear.flatworm.processor.beans.Shipment;
+import com.blackbear.flatworm.processor.beans.ShipmentFlatwormFormat;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GeneratedFileFormatTest {
+
+    /**
+     * Fails the parse should the generated {@code Mapping} hand a property on rather than calling its setter.
+     */
+    private static final BeanMappingStrategy NO_FALLBACK = (bean, beanName, property, value, options) -> {
+        throw new FlatwormParserException("The setter of " + beanName + "." + property + " wasn't called.");
+    };
+
+    @Test
+    public void mapping() {
+        ShipmentFlatwormFormat.Mapping mapping = new ShipmentFlatwormFormat.Mapping();
+        String beanName = Shipment.class.getName();
+        try {
+            Shipment shipment = new Shipment();
+            mapping.mapBean(shipment, beanName, "id", "000042", Collections.emptyMap());
+            mapping.mapBean(shipment, beanName, "quantity", 12, Collections.emptyMap());
+            mapping.mapBean(shipment, beanName, "carrier", "UPS", Collections.emptyMap());
+            assertEquals("000042", shipment.getId());
+            assertEquals(12, shipment.getQuantity());
+            assertEquals("UPS", shipment.getCarrier());
+
+            assertEquals("000042", mapping.readBean(shipment, beanName, "id"));
+            assertEquals(12, mapping.readBean(shipment, beanName, "quantity"));
+            assertEquals("UPS", mapping.readBean(shipment, beanName, "carrier"));
+
+            try {
+                mapping.mapBean(shipment, beanName, "quantity", 13L, Collections.emptyMap());
+                fail("A Long shouldn't have been narrowed into the int property.");
+            } catch (FlatwormParserException e) {
+                assertEquals(12, shipment.getQuantity());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void parseAndWrite() {
+        try {
+            FileFormat fileFormat = ShipmentFlatwormFormat.fileFormat();
+            assertTrue(fileFormat.getBeanMappingStrategy() instanceof ShipmentFlatwormFormat.Mapping);
+
+            Shipment shipment;
+            try (FileParser parser = new FileParser(fileFormat, "SHP000042  12UPS  \n")) {
+                parser.open();
+                Iterator<MatchedRecord> records = parser.iterator();
+                assertTrue(records.hasNext());
+                MatchedRecord record = records.next();
+                assertEquals("Shipment", record.getRecordName());
+                shipment = record.getBean(Shipment.class.getName(), Shipment.class);
+                assertFalse(records.hasNext());
+            }
+            assertEquals("000042", shipment.getId());
+            assertEquals(12, shipment.getQuantity());
+            assertEquals("UPS", shipment.getCarrier());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FileCreator creator = new FileCreator(out, fileFormat);
+            creator.open();
+            creator.setBean(Shipment.class.getName(), shipment);
+            creator.write("Shipment");
+            creator.close();
+            assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).startsWith("SHP00004212UPS"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void parseWithAccessors() {
+        try {
+            FileFormat fileFormat = ShipmentFlatwormFormat.fileFormat();
+            fileFormat.setBeanMappingStrategy(new ShipmentFlatwormFormat.Mapping(NO_FALLBACK));
+
+            try (FileParser parser = new FileParser(fileFormat, "SHP000042  12UPS  \n")) {
+                parser.open();
+                Iterator<MatchedRecord> records = parser.iterator();
+                assertTrue(records.hasNext());
+                Shipment shipment = records.next().getBean(Shipment.class.getName(), Shipment.class);
+                assertEquals("000042", shipment.getId());
+                assertEquals(12, shipment.getQuantity());
+                assertEquals("UPS", shipment.getCarrier());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void childLinesAndConverter() {
+        try {
+            FileFormat fileFormat = ConsignmentFlatwormFormat.fileFormat();
+            fileFormat.setBeanMappingStrategy(new ConsignmentFlatwormFormat.Mapping(NO_FALLBACK));
+
+            Consignment consignment;
+            try (FileParser parser = new FileParser(fileFormat, "CON000007ups  \nPCLBOX001  25\nPCLBOX002 130\nEND\n")) {
+                parser.open();
+                Iterator<MatchedRecord> records = parser.iterator();
+                assertTrue(records.hasNext());
+                MatchedRecord record = records.next();
+                assertEquals("Consignment", record.getRecordName());
+                consignment = record.getBean(Consignment.class.getName(), Consignment.class);
+                assertFalse(records.hasNext());
+            }
+            assertEquals("000007", consignment.getReference());
+            assertEquals("UPS", consignment.getCarrier());
+            assertEquals(2, consignment.getParcels().size());
+            Parcel parcel = consignment.getParcels().get(0);
+            assertEquals("BOX001", parcel.getCode());
+            assertEquals(25, parcel.getWeight());
+            parcel = consignment.getParcels().get(1);
+            assertEquals("BOX002", parcel.getCode());
+            assertEquals(130, parcel.getWeight());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail("Caught an exception of type " + e.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor.beans;
+
+import com.blackbear.flatworm.config.ConversionOptionBO;
+
+import java.util.Map;
+
+/**
+ * Carriers are read in upper case and written in lower case - an instance converter, so that the generated FileFormat has to create one.
+ */
+public class CarrierConverter {
+    public Object convert(String value, Map<String, ConversionOptionBO> options) {
+        return value.toUpperCase();
+    }
+
+    public String convert(Object value, Map<String, ConversionOptionBO> options) {
+        return value.toString().toLowerCase();
+    }
+}
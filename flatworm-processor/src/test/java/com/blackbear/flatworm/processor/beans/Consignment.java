@@ -0,0 +1,88 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor.beans;
+
+import com.blackbear.flatworm.annotations.Converter;
+import com.blackbear.flatworm.annotations.DataIdentity;
+import com.blackbear.flatworm.annotations.FieldIdentity;
+import com.blackbear.flatworm.annotations.ForProperty;
+import com.blackbear.flatworm.annotations.Line;
+import com.blackbear.flatworm.annotations.Record;
+import com.blackbear.flatworm.annotations.RecordElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bean for testing the generated FileFormat of a record with child lines and a converter.
+ */
+@Record(
+        name = "Consignment",
+        identity = @DataIdentity(fieldIdentity = @FieldIdentity(enabled = true, matchIdentities = {"CON"})),
+        converters = @Converter(name = "carrier", clazz = CarrierConverter.class, methodName = "convert", returnType = String.class),
+        lines = @Line
+)
+public class Consignment {
+    @RecordElement(order = 1, length = 6)
+    private String reference;
+
+    @RecordElement(order = 2, length = 5, converterName = "carrier")
+    private String carrier;
+
+    @Line(forProperty = @ForProperty(
+            enabled = true,
+            identity = @DataIdentity(fieldIdentity = @FieldIdentity(enabled = true, matchIdentities = {"PCL"}))))
+    private List<Parcel> parcels = new ArrayList<>();
+
+    @Line(forProperty = @ForProperty(
+            enabled = true,
+            isRecordEndLine = true,
+            identity = @DataIdentity(fieldIdentity = @FieldIdentity(enabled = true, matchIdentities = {"END"}))))
+    private Object end;
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getCarrier() {
+        return carrier;
+    }
+
+    public void setCarrier(String carrier) {
+        this.carrier = carrier;
+    }
+
+    public List<Parcel> getParcels() {
+        return parcels;
+    }
+
+    public void setParcels(List<Parcel> parcels) {
+        this.parcels = parcels;
+    }
+
+    public Object getEnd() {
+        return end;
+    }
+
+    public void setEnd(Object end) {
+        this.end = end;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Flatworm - A Java Flat File Importer/Exporter Copyright (C) 2004 James M. Turner.
+ * Extended by James Lawrence 2005
+ * Extended by Josh Brackett in 2011 and 2012
+ * Extended by Alan Henson in 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package com.blackbear.flatworm.processor.beans;
+
+import com.blackbear.flatworm.annotations.DataIdentity;
+import com.blackbear.flatworm.annotations.FieldIdentity;
+import com.blackbear.flatworm.annotations.Line;
+import com.blackbear.flatworm.annotations.Record;
+import com.blackbear.flatworm.annotations.RecordElement;
+
+/**
+ * Bean for testing the generated FileFormat - its accessors are written out (rather than generated by Lombok) so that the processor
+ * is guaranteed to see them, and it has a primitive property.
+ */
+@Record(
+        name = "Shipment",
+        identity = @DataIdentity(fieldIdentity = @FieldIdentity(fieldLength = 3, enabled = true, matchIdentities = {"SHP"})),
+        lines = @Line
+)
+public class Shipment {
+    @RecordElement(order = 1, length = 6)
+    private String id;
+
+    @RecordElement(order = 2, length = 4)
+    private int quantity;
+
+    @RecordElement(order = 3, length = 5)
+    private String carrier;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getCarrier() {
+        return carrier;
+    }
+
+    public void setCarrier(String carrier) {
+        this.carrier = carrier;
+    }
+}